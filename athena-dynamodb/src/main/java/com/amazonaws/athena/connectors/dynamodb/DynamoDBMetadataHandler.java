@@ -62,6 +62,7 @@ import com.amazonaws.athena.connectors.dynamodb.qpt.DDBQueryPassthrough;
 import com.amazonaws.athena.connectors.dynamodb.resolver.DynamoDBTableResolver;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBPredicateUtils;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBRecordMetadata;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBScanPlanner;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBTypeUtils;
 import com.amazonaws.athena.connectors.dynamodb.util.IncrementingValueNameProducer;
@@ -118,6 +119,7 @@ import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstan
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.SCAN_PARTITION_TYPE;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.SEGMENT_COUNT_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.SEGMENT_ID_PROPERTY;
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.SEGMENT_READ_CAPACITY_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.TABLE_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.throttling.DynamoDBExceptionFilter.EXCEPTION_FILTER;
 import static com.amazonaws.athena.connectors.dynamodb.util.DDBPredicateUtils.buildFilterPredicatesFromPlan;
@@ -157,6 +159,7 @@ public class DynamoDBMetadataHandler
     private final DynamoDbClient ddbClient;
     private final GlueClient glueClient;
     private final DynamoDBTableResolver tableResolver;
+    private final DDBScanPlanner scanPlanner;
 
     private final DDBQueryPassthrough queryPassthrough;
 
@@ -169,6 +172,7 @@ public class DynamoDBMetadataHandler
         this.glueClient = getAwsGlue();
         this.invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
         this.tableResolver = new DynamoDBTableResolver(invoker, ddbClient);
+        this.scanPlanner = new DDBScanPlanner(configOptions);
         this.queryPassthrough = new DDBQueryPassthrough();
     }
 
@@ -188,6 +192,7 @@ public class DynamoDBMetadataHandler
         this.ddbClient = ddbClient;
         this.invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
         this.tableResolver = new DynamoDBTableResolver(invoker, ddbClient);
+        this.scanPlanner = new DDBScanPlanner(configOptions);
         this.queryPassthrough = new DDBQueryPassthrough();
     }
 
@@ -409,6 +414,7 @@ public class DynamoDBMetadataHandler
         else {
             // always fall back to a scan
             partitionSchemaBuilder.addField(SEGMENT_COUNT_METADATA, Types.MinorType.INT.getType());
+            partitionSchemaBuilder.addField(SEGMENT_READ_CAPACITY_METADATA, Types.MinorType.FLOAT8.getType());
             partitionSchemaBuilder.addMetadata(PARTITION_TYPE_METADATA, SCAN_PARTITION_TYPE);
         }
 
@@ -485,10 +491,11 @@ public class DynamoDBMetadataHandler
             }
         }
         else {
-            // always fall back to a scan, need to return at least one partition so stick the segment count in it
-            int segmentCount = DDBTableUtils.getNumSegments(table.getProvisionedReadCapacity(), table.getApproxTableSizeInBytes());
+            // always fall back to a scan, need to return at least one partition so stick the scan plan in it
+            DDBScanPlanner.ScanPlan scanPlan = scanPlanner.getScanPlan(table, invoker, ddbClient, overrideConfig);
             blockWriter.writeRows((Block block, int rowNum) -> {
-                block.setValue(SEGMENT_COUNT_METADATA, rowNum, segmentCount);
+                block.setValue(SEGMENT_COUNT_METADATA, rowNum, scanPlan.getSegmentCount());
+                block.setValue(SEGMENT_READ_CAPACITY_METADATA, rowNum, scanPlan.getSegmentReadCapacity());
                 return 1;
             });
         }
@@ -599,6 +606,12 @@ public class DynamoDBMetadataHandler
         else if (SCAN_PARTITION_TYPE.equals(partitionType)) {
             FieldReader segmentCountReader = partitions.getFieldReader(SEGMENT_COUNT_METADATA);
             int segmentCount = segmentCountReader.readInteger();
+            // partitions planned before segments had a read capacity budget won't have the field
+            Double segmentReadCapacity = null;
+            if (partitions.getFieldVector(SEGMENT_READ_CAPACITY_METADATA) != null) {
+                FieldReader segmentReadCapacityReader = partitions.getFieldReader(SEGMENT_READ_CAPACITY_METADATA);
+                segmentReadCapacity = segmentReadCapacityReader.isSet() ? segmentReadCapacityReader.readDouble() : null;
+            }
             for (int curPartition = partitionContd; curPartition < segmentCount; curPartition++) {
                 //Every split must have a unique location if we wish to spill to avoid failures
                 SpillLocation spillLocation = makeSpillLocation(request);
@@ -608,6 +621,9 @@ public class DynamoDBMetadataHandler
 
                 splitMetadata.put(SEGMENT_ID_PROPERTY, String.valueOf(curPartition));
                 splitMetadata.put(SEGMENT_COUNT_METADATA, String.valueOf(segmentCount));
+                if (segmentReadCapacity != null) {
+                    splitMetadata.put(SEGMENT_READ_CAPACITY_METADATA, String.valueOf(segmentReadCapacity));
+                }
 
                 splits.add(new Split(spillLocation, makeEncryptionKey(), splitMetadata));
 
@@ -29,6 +29,7 @@ import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
 import com.amazonaws.athena.connector.lambda.domain.predicate.QueryPlan;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
@@ -37,7 +38,9 @@ import com.amazonaws.athena.connector.substrait.model.SubstraitRelModel;
 import com.amazonaws.athena.connectors.dynamodb.credentials.CrossAccountCredentialsProviderV2;
 import com.amazonaws.athena.connectors.dynamodb.qpt.DDBQueryPassthrough;
 import com.amazonaws.athena.connectors.dynamodb.resolver.DynamoDBFieldResolver;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBPageIterator;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBPredicateUtils;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBReadRateLimiter;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBRecordMetadata;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBTypeUtils;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -62,6 +65,7 @@ import software.amazon.awssdk.services.dynamodb.model.ExecuteStatementRequest;
 import software.amazon.awssdk.services.dynamodb.model.ExecuteStatementResponse;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
 import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 import software.amazon.awssdk.services.glue.model.ErrorDetails;
@@ -77,8 +81,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.EXPRESSION_NAMES_METADATA;
@@ -89,6 +91,7 @@ import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstan
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.RANGE_KEY_FILTER_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.SEGMENT_COUNT_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.SEGMENT_ID_PROPERTY;
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.SEGMENT_READ_CAPACITY_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.TABLE_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.throttling.DynamoDBExceptionFilter.EXCEPTION_FILTER;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -110,6 +113,10 @@ public class DynamoDBRecordHandler
 
     private static final String DISABLE_PROJECTION_AND_CASING_ENV = "disable_projection_and_casing";
 
+    // The max number of Query/Scan pages to fetch ahead of the pages being written, 0 disables prefetching.
+    private static final String PAGE_PREFETCH_DEPTH_ENV = "page_prefetch_depth";
+    private static final int DEFAULT_PAGE_PREFETCH_DEPTH = 2;
+
     private static final String HASH_KEY_VALUE_ALIAS = ":hashKeyValue";
 
     private static final TypeReference<HashMap<String, String>> STRING_MAP_TYPE_REFERENCE = new TypeReference<HashMap<String, String>>() {};
@@ -217,12 +224,15 @@ public class DynamoDBRecordHandler
             plan = SubstraitRelUtils.deserializeSubstraitPlan(queryPlan.getSubstraitPlan());
         }
 
-        Iterator<Map<String, AttributeValue>> itemIterator =
-                getIterator(split, tableName, recordsRequest.getSchema(), recordsRequest.getConstraints(),
-                        disableProjectionAndCasing, plan, overrideConfig);
         // Variable to determine limit can be applied or not, If applicable what is the limit value.
         Pair<Boolean, Integer> limitPair = getLimit(plan, recordsRequest.getConstraints());
-        writeItemsToBlock(spiller, recordsRequest, queryStatusChecker, recordMetadata, itemIterator, disableProjectionAndCasing, limitPair);
+        try (DDBPageIterator itemIterator = getIterator(split, tableName, recordsRequest.getSchema(),
+                disableProjectionAndCasing, limitPair, overrideConfig)) {
+            writeItemsToBlock(spiller, recordsRequest, queryStatusChecker, recordMetadata, itemIterator, disableProjectionAndCasing, limitPair);
+            logger.info("readWithConstraint: pages[{}] consumedCapacityUnits[{}] pageWaitMs[{}] rateLimitWaitMs[{}]",
+                    itemIterator.getPages(), itemIterator.getConsumedCapacityUnits(), itemIterator.getPageWaitMillis(),
+                    itemIterator.getRateLimitWaitMillis());
+        }
     }
 
     private void handleQueryPassthroughPartiQLQuery(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
@@ -411,6 +421,7 @@ public class DynamoDBRecordHandler
                 .expressionAttributeValues(expressionAttributeValues)
                 .projectionExpression(projectionExpression)
                 .overrideConfiguration(overrideConfiguration)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
                 .exclusiveStartKey(exclusiveStartKey);
 
         boolean limitPresent = limitPair.getLeft();
@@ -468,6 +479,7 @@ public class DynamoDBRecordHandler
                 .expressionAttributeValues(expressionAttributeValues.isEmpty() ? null : expressionAttributeValues)
                 .projectionExpression(projectionExpression)
                 .overrideConfiguration(overrideConfiguration)
+                .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL)
                 .exclusiveStartKey(exclusiveStartKey);
         boolean limitPresent = limitPair.getLeft();
         if (limitPresent) {
@@ -477,63 +489,42 @@ public class DynamoDBRecordHandler
     }
 
     /*
-    Creates an iterator that can iterate through a Query or Scan, sending paginated requests as necessary
+    Creates an iterator that can iterate through a Query or Scan, sending paginated requests as necessary. Unless a limit
+    applies, the next pages are prefetched while the current one is being written. Scan segments which were given a read
+    capacity budget are paced to it.
      */
-    private Iterator<Map<String, AttributeValue>> getIterator(Split split, String tableName, Schema schema,
-                                                              Constraints constraints, boolean disableProjectionAndCasing,
-                                                              Plan plan, AwsRequestOverrideConfiguration requestOverrideConfiguration)
+    private DDBPageIterator getIterator(Split split, String tableName, Schema schema, boolean disableProjectionAndCasing,
+                                        Pair<Boolean, Integer> limitPair, AwsRequestOverrideConfiguration requestOverrideConfiguration)
+            throws ExecutionException
     {
-        return new Iterator<Map<String, AttributeValue>>() {
-            AtomicReference<Map<String, AttributeValue>> lastKeyEvaluated = new AtomicReference<>();
-            AtomicReference<Iterator<Map<String, AttributeValue>>> currentPageIterator = new AtomicReference<>();
-
-            @Override
-            public boolean hasNext()
-            {
-                return currentPageIterator.get() == null
-                        || currentPageIterator.get().hasNext()
-                        || ((lastKeyEvaluated.get() != null && !lastKeyEvaluated.get().isEmpty()));
-            }
-
-            @Override
-            public Map<String, AttributeValue> next()
-            {
-                if (currentPageIterator.get() != null && currentPageIterator.get().hasNext()) {
-                    return currentPageIterator.get().next();
-                }
-                // Variable to determine limit can be applied or not, If applicable what is the limit value.
-                Pair<Boolean, Integer> limitPair = getLimit(plan, constraints);
-                Iterator<Map<String, AttributeValue>> iterator;
-                try {
-                    if (isQueryRequest(split)) {
-                        QueryRequest request = buildQueryRequest(split, tableName, schema,
-                                disableProjectionAndCasing, lastKeyEvaluated.get(),  requestOverrideConfiguration, limitPair);
-                        logger.info("Invoking DDB with Query request: {}", request);
-                        QueryResponse response = invokerCache.get(tableName).invoke(() -> ddbClient.query(request));
-                        lastKeyEvaluated.set(response.lastEvaluatedKey());
-                        iterator = response.items().iterator();
-                    }
-                    else {
-                        ScanRequest request = buildScanRequest(split, tableName, schema,
-                                 disableProjectionAndCasing, lastKeyEvaluated.get(), requestOverrideConfiguration, limitPair);
-                        logger.info("Invoking DDB with Scan request: {}", request);
-                        ScanResponse response = invokerCache.get(tableName).invoke(() -> ddbClient.scan(request));
-                        lastKeyEvaluated.set(response.lastEvaluatedKey());
-                        iterator = response.items().iterator();
-                    }
-                }
-                catch (TimeoutException | ExecutionException e) {
-                    throw new AthenaConnectorException(e.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
-                }
-                currentPageIterator.set(iterator);
-                if (iterator.hasNext()) {
-                    return iterator.next();
-                }
-                else {
-                    return null;
-                }
+        ThrottlingInvoker invoker = invokerCache.get(tableName);
+        boolean isQuery = isQueryRequest(split);
+        DDBPageIterator.PageFetcher fetcher = (Map<String, AttributeValue> exclusiveStartKey) -> {
+            if (isQuery) {
+                QueryRequest request = buildQueryRequest(split, tableName, schema,
+                        disableProjectionAndCasing, exclusiveStartKey, requestOverrideConfiguration, limitPair);
+                logger.info("Invoking DDB with Query request: {}", request);
+                QueryResponse response = invoker.invoke(() -> ddbClient.query(request));
+                return new DDBPageIterator.Page(response.items(), response.lastEvaluatedKey(), response.consumedCapacity());
             }
+            ScanRequest request = buildScanRequest(split, tableName, schema,
+                    disableProjectionAndCasing, exclusiveStartKey, requestOverrideConfiguration, limitPair);
+            logger.info("Invoking DDB with Scan request: {}", request);
+            ScanResponse response = invoker.invoke(() -> ddbClient.scan(request));
+            return new DDBPageIterator.Page(response.items(), response.lastEvaluatedKey(), response.consumedCapacity());
         };
+        // With a limit the first page is usually all we need, so don't spend read capacity on pages which may never be read.
+        int prefetchDepth = limitPair.getLeft() ? 0 : getPagePrefetchDepth();
+        String segmentReadCapacity = split.getProperty(SEGMENT_READ_CAPACITY_METADATA);
+        DDBReadRateLimiter rateLimiter = (!isQuery && segmentReadCapacity != null)
+                ? new DDBReadRateLimiter(Double.parseDouble(segmentReadCapacity))
+                : null;
+        return new DDBPageIterator(fetcher, prefetchDepth, rateLimiter);
+    }
+
+    private int getPagePrefetchDepth()
+    {
+        return ConfigOptionUtils.getNonNegativeIntOption(configOptions, PAGE_PREFETCH_DEPTH_ENV, DEFAULT_PAGE_PREFETCH_DEPTH);
     }
 
     /*
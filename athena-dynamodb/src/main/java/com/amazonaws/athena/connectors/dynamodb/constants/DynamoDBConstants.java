@@ -29,6 +29,8 @@ public final class DynamoDBConstants
     public static final String SCAN_PARTITION_TYPE = "scan";
     public static final String SEGMENT_COUNT_METADATA = "segmentCount";
     public static final String SEGMENT_ID_PROPERTY = "segmentId";
+    // Metadata key whose value is the read capacity units per second a scan segment may consume
+    public static final String SEGMENT_READ_CAPACITY_METADATA = "segmentReadCapacity";
     public static final String TABLE_METADATA = "sourceTable";
     public static final String INDEX_METADATA = "index";
     public static final String HASH_KEY_NAME_METADATA = "hashKeyName";
@@ -43,6 +43,7 @@ public class DynamoDBTable
     private final long approxTableSizeInBytes;
     private final long approxItemCount;
     private final long provisionedReadCapacity;
+    private final boolean onDemand;
 
     public DynamoDBTable(
             String name,
@@ -53,6 +54,20 @@ public class DynamoDBTable
             long approxTableSizeInBytes,
             long approxItemCount,
             long provisionedReadCapacity)
+    {
+        this(name, hashKey, rangeKey, knownAttributeDefinitions, indexes, approxTableSizeInBytes, approxItemCount, provisionedReadCapacity, false);
+    }
+
+    public DynamoDBTable(
+            String name,
+            String hashKey,
+            Optional<String> rangeKey,
+            List<AttributeDefinition> knownAttributeDefinitions,
+            List<DynamoDBIndex> indexes,
+            long approxTableSizeInBytes,
+            long approxItemCount,
+            long provisionedReadCapacity,
+            boolean onDemand)
     {
         checkArgument(!isNullOrEmpty(name), "name is null or is empty");
         this.hashKey = requireNonNull(hashKey, "hashKey is null");
@@ -63,6 +78,7 @@ public class DynamoDBTable
         this.approxTableSizeInBytes = approxTableSizeInBytes;
         this.approxItemCount = approxItemCount;
         this.provisionedReadCapacity = provisionedReadCapacity;
+        this.onDemand = onDemand;
     }
 
     public String getName()
@@ -95,11 +111,25 @@ public class DynamoDBTable
         return approxTableSizeInBytes;
     }
 
+    public long getApproxItemCount()
+    {
+        return approxItemCount;
+    }
+
     public long getProvisionedReadCapacity()
     {
         return provisionedReadCapacity;
     }
 
+    /**
+     * @return True if the table uses on-demand (PAY_PER_REQUEST) billing, in which case the provisioned read capacity
+     * is a stand-in for the table's read throughput limit.
+     */
+    public boolean isOnDemand()
+    {
+        return onDemand;
+    }
+
     @Override
     public int hashCode()
     {
@@ -0,0 +1,326 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb.util;
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Iterates over the items of a paginated DynamoDB Query or Scan, chaining requests using the lastEvaluatedKey of the
+ * previous page.
+ * <p>
+ * When prefetching is enabled, pages are fetched by a background thread which stays up to prefetchPages pages ahead
+ * of the caller, this lets the round trip for the next page overlap with writing the current page into Blocks. With
+ * prefetchPages set to 0 every page is fetched on the calling thread once the previous page has been consumed.
+ * <p>
+ * If a DDBReadRateLimiter is provided, each request waits for the limiter and the read capacity consumed by the page
+ * is then taken from it, which paces the requests to the limiter's rate.
+ * <p>
+ * The iterator also tracks the read capacity consumed by the pages it fetched and how long the caller spent waiting
+ * for pages, callers should close() it once they are done so that the background thread is stopped even if not all
+ * pages were read (e.g. because a limit was reached).
+ */
+public class DDBPageIterator
+        implements Iterator<Map<String, AttributeValue>>, AutoCloseable
+{
+    private static final Logger logger = LoggerFactory.getLogger(DDBPageIterator.class);
+
+    //Marks the end of the pages in the prefetch queue.
+    private static final Page END = new Page(Collections.emptyList(), null, null);
+
+    /**
+     * Fetches a single page of a Query or Scan, usually through the table's ThrottlingInvoker.
+     */
+    public interface PageFetcher
+    {
+        /**
+         * @param exclusiveStartKey The lastEvaluatedKey of the previous page, or null for the first page.
+         * @return The page.
+         */
+        Page fetch(Map<String, AttributeValue> exclusiveStartKey)
+                throws TimeoutException, ExecutionException;
+    }
+
+    /**
+     * The items of a page along with the key to continue from and the capacity it consumed.
+     */
+    public static class Page
+    {
+        private final List<Map<String, AttributeValue>> items;
+        private final Map<String, AttributeValue> lastEvaluatedKey;
+        private final ConsumedCapacity consumedCapacity;
+
+        public Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey, ConsumedCapacity consumedCapacity)
+        {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+            this.consumedCapacity = consumedCapacity;
+        }
+
+        private boolean isLast()
+        {
+            return lastEvaluatedKey == null || lastEvaluatedKey.isEmpty();
+        }
+
+        private double getCapacityUnits()
+        {
+            return (consumedCapacity == null || consumedCapacity.capacityUnits() == null) ? 0 : consumedCapacity.capacityUnits();
+        }
+    }
+
+    //Carries a failure of the background thread to the caller.
+    private static class FailedPage
+            extends Page
+    {
+        private final RuntimeException cause;
+
+        FailedPage(RuntimeException cause)
+        {
+            super(Collections.emptyList(), null, null);
+            this.cause = cause;
+        }
+    }
+
+    private final PageFetcher fetcher;
+    private final DDBReadRateLimiter rateLimiter;
+    private final BlockingQueue<Page> prefetched;
+    private final ExecutorService prefetchExecutor;
+    private Iterator<Map<String, AttributeValue>> currentPage = Collections.emptyIterator();
+    private Map<String, AttributeValue> nextStartKey;
+    private boolean done;
+    private volatile boolean closed;
+
+    //Metrics, pages and capacity are updated by whichever thread fetches pages.
+    private final AtomicLong pages = new AtomicLong();
+    private final DoubleAdder consumedCapacityUnits = new DoubleAdder();
+    private long pageWaitNanos;
+
+    /**
+     * @param fetcher Used to fetch each page.
+     * @param prefetchPages The max number of pages to fetch ahead of the caller, 0 disables prefetching.
+     */
+    public DDBPageIterator(PageFetcher fetcher, int prefetchPages)
+    {
+        this(fetcher, prefetchPages, null);
+    }
+
+    /**
+     * @param fetcher Used to fetch each page.
+     * @param prefetchPages The max number of pages to fetch ahead of the caller, 0 disables prefetching.
+     * @param rateLimiter Paces the requests, may be null.
+     */
+    public DDBPageIterator(PageFetcher fetcher, int prefetchPages, DDBReadRateLimiter rateLimiter)
+    {
+        if (prefetchPages < 0) {
+            throw new AthenaConnectorException("prefetchPages must be >= 0 but was " + prefetchPages, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        this.fetcher = fetcher;
+        this.rateLimiter = rateLimiter;
+        if (prefetchPages > 0) {
+            this.prefetched = new ArrayBlockingQueue<>(prefetchPages);
+            this.prefetchExecutor = Executors.newSingleThreadExecutor((Runnable runnable) -> {
+                Thread thread = new Thread(runnable, "ddb-page-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.prefetchExecutor.execute(this::prefetch);
+        }
+        else {
+            this.prefetched = null;
+            this.prefetchExecutor = null;
+        }
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (closed) {
+            return false;
+        }
+        while (!currentPage.hasNext()) {
+            if (done) {
+                return false;
+            }
+            Page page = nextPage();
+            if (page == END) {
+                done = true;
+                return false;
+            }
+            currentPage = page.items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, AttributeValue> next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    /**
+     * Stops the background thread, if any, discarding pages which were prefetched but not read.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return The number of pages fetched so far, including any which were prefetched but not yet read.
+     */
+    public long getPages()
+    {
+        return pages.get();
+    }
+
+    /**
+     * @return The read capacity units consumed by the pages fetched so far, requires the requests to set
+     * ReturnConsumedCapacity.
+     */
+    public double getConsumedCapacityUnits()
+    {
+        return consumedCapacityUnits.sum();
+    }
+
+    /**
+     * @return The time, in milliseconds, the caller spent waiting for pages to be fetched.
+     */
+    public long getPageWaitMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(pageWaitNanos);
+    }
+
+    /**
+     * @return The time, in milliseconds, requests were held back by the rate limiter.
+     */
+    public long getRateLimitWaitMillis()
+    {
+        return (rateLimiter == null) ? 0 : rateLimiter.getWaitMillis();
+    }
+
+    private Page nextPage()
+    {
+        long start = System.nanoTime();
+        try {
+            if (prefetched == null) {
+                if (nextStartKey == null && pages.get() > 0) {
+                    return END;
+                }
+                Page page = fetchPage(nextStartKey);
+                nextStartKey = page.isLast() ? null : page.lastEvaluatedKey;
+                return page;
+            }
+
+            Page page = prefetched.take();
+            if (page instanceof FailedPage) {
+                //The background thread has stopped, there are no more pages to wait for.
+                done = true;
+                throw ((FailedPage) page).cause;
+            }
+            return page;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AthenaConnectorException("Interrupted while waiting for the next page", ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
+        }
+        finally {
+            pageWaitNanos += System.nanoTime() - start;
+        }
+    }
+
+    private void prefetch()
+    {
+        try {
+            Map<String, AttributeValue> startKey = null;
+            Page page;
+            do {
+                page = fetchPage(startKey);
+                prefetched.put(page);
+                startKey = page.lastEvaluatedKey;
+            }
+            while (!page.isLast() && !closed);
+            prefetched.put(END);
+        }
+        catch (InterruptedException ex) {
+            //close() was called, nobody is waiting for any more pages.
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException ex) {
+            if (closed) {
+                logger.debug("prefetch: Ignoring failure after close", ex);
+                return;
+            }
+            try {
+                prefetched.put(new FailedPage(ex));
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Page fetchPage(Map<String, AttributeValue> startKey)
+            throws InterruptedException
+    {
+        if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+        Page page;
+        try {
+            page = fetcher.fetch(startKey);
+        }
+        catch (TimeoutException | ExecutionException e) {
+            throw new AthenaConnectorException(e.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
+        }
+        pages.incrementAndGet();
+        consumedCapacityUnits.add(page.getCapacityUnits());
+        if (rateLimiter != null) {
+            rateLimiter.consume(page.getCapacityUnits());
+        }
+        return page;
+    }
+}
@@ -0,0 +1,116 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb.util;
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket which paces the requests of a scan segment to its share of the scan's read capacity budget.
+ * <p>
+ * The cost of a Scan page is only known once it has been read, so requests are allowed as long as the bucket isn't
+ * in debt and the read capacity each page actually consumed is taken from the bucket afterwards. The bucket refills
+ * at the budgeted rate and holds at most one second worth of capacity, so an idle segment can't build up a burst.
+ */
+public class DDBReadRateLimiter
+{
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double unitsPerSecond;
+    private final Ticker ticker;
+    private double available;
+    private long lastRefillNanos;
+    private long waitNanos;
+
+    /**
+     * @param unitsPerSecond The read capacity units per second to pace requests to.
+     */
+    public DDBReadRateLimiter(double unitsPerSecond)
+    {
+        this(unitsPerSecond, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    DDBReadRateLimiter(double unitsPerSecond, Ticker ticker)
+    {
+        if (!(unitsPerSecond > 0)) {
+            throw new AthenaConnectorException("unitsPerSecond must be > 0 but was " + unitsPerSecond, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        this.unitsPerSecond = unitsPerSecond;
+        this.ticker = ticker;
+        this.available = unitsPerSecond;
+        this.lastRefillNanos = ticker.read();
+    }
+
+    /**
+     * Blocks until the bucket is no longer in debt.
+     */
+    public void acquire()
+            throws InterruptedException
+    {
+        long nanos = nanosUntilAvailable();
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            synchronized (this) {
+                waitNanos += nanos;
+            }
+        }
+    }
+
+    /**
+     * Takes the read capacity consumed by a request from the bucket.
+     *
+     * @param units The read capacity units consumed.
+     */
+    public synchronized void consume(double units)
+    {
+        refill();
+        available -= units;
+    }
+
+    /**
+     * @return How long, in nanoseconds, until the bucket is no longer in debt.
+     */
+    public synchronized long nanosUntilAvailable()
+    {
+        refill();
+        return (available >= 0) ? 0 : (long) Math.ceil(-available / unitsPerSecond * NANOS_PER_SECOND);
+    }
+
+    /**
+     * @return The time, in milliseconds, spent waiting in acquire().
+     */
+    public synchronized long getWaitMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+    }
+
+    private void refill()
+    {
+        long now = ticker.read();
+        available = Math.min(unitsPerSecond, available + (now - lastRefillNanos) * unitsPerSecond / NANOS_PER_SECOND);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,239 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb.util;
+
+import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
+import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBTable;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Plans the parallel scan of a table: how many segments to scan it with and the read capacity, in units per second,
+ * each segment may consume.
+ * <p>
+ * The scan's read capacity budget defaults to the table's provisioned read capacity, or the table's read throughput
+ * limit for on-demand tables, and can be set with the {@value #SCAN_TARGET_RCU} config option. The segment count is
+ * derived from the budget and the table's size like {@link DDBTableUtils#getNumSegments(long, long)} but is capped to
+ * the number of pages of data in the table, so small tables aren't split into segments that have nothing to read.
+ * Because DescribeTable only refreshes the table's size and item count every few hours, the size is estimated from a
+ * sample of the table's items as well.
+ * <p>
+ * Plans are cached per table for a few minutes so that the sample isn't repeated for every query.
+ */
+public class DDBScanPlanner
+{
+    private static final Logger logger = LoggerFactory.getLogger(DDBScanPlanner.class);
+
+    // Config option for the read capacity units per second a whole parallel scan may consume
+    public static final String SCAN_TARGET_RCU = "scan_target_rcu";
+
+    @VisibleForTesting
+    static final int SAMPLE_ITEMS = 100;
+    // Scan returns up to 1MB per page
+    private static final long PAGE_BYTES = 1024L * 1024L;
+    private static final long PLAN_CACHE_MINUTES = 10;
+    private static final long PLAN_CACHE_MAX_TABLES = 1000;
+
+    private final Double targetRcu;
+    private final Cache<String, ScanPlan> plans = CacheBuilder.newBuilder()
+            .expireAfterWrite(PLAN_CACHE_MINUTES, TimeUnit.MINUTES)
+            .maximumSize(PLAN_CACHE_MAX_TABLES)
+            .build();
+
+    public DDBScanPlanner(Map<String, String> configOptions)
+    {
+        double target = ConfigOptionUtils.getPositiveDoubleOption(configOptions, SCAN_TARGET_RCU, 0);
+        this.targetRcu = (target > 0) ? target : null;
+    }
+
+    /**
+     * Returns the (possibly cached) scan plan for the table, sampling the table's items if there is no cached plan.
+     *
+     * @param table the table to scan
+     * @param invoker the ThrottlingInvoker to call DDB with
+     * @param ddbClient the DDB client to use
+     * @return the scan plan
+     */
+    public ScanPlan getScanPlan(DynamoDBTable table, ThrottlingInvoker invoker, DynamoDbClient ddbClient,
+                                AwsRequestOverrideConfiguration requestOverrideConfiguration)
+            throws TimeoutException
+    {
+        ScanPlan plan = plans.getIfPresent(table.getName());
+        if (plan != null) {
+            return plan;
+        }
+
+        ScanRequest request = ScanRequest.builder()
+                .tableName(table.getName())
+                .limit(SAMPLE_ITEMS)
+                .overrideConfiguration(requestOverrideConfiguration)
+                .build();
+        ScanResponse response = invoker.invoke(() -> ddbClient.scan(request));
+        List<Map<String, AttributeValue>> items = response.items();
+        long sampledBytes = 0;
+        for (Map<String, AttributeValue> item : items) {
+            sampledBytes += estimateItemSizeBytes(item);
+        }
+        double avgItemBytes = items.isEmpty() ? 0 : (double) sampledBytes / items.size();
+        // A full sample from a table which reports fewer items than that means the table's statistics are out of date
+        boolean statisticsCurrent = items.size() < SAMPLE_ITEMS || table.getApproxItemCount() >= SAMPLE_ITEMS;
+
+        double target = (targetRcu != null) ? targetRcu : Math.max(1, table.getProvisionedReadCapacity());
+        plan = plan(table, target, avgItemBytes, statisticsCurrent);
+        logger.info("getScanPlan: table[{}] onDemand[{}] sampledItems[{}] avgItemBytes[{}] targetRcu[{}] plan[{}]",
+                table.getName(), table.isOnDemand(), items.size(), avgItemBytes, target, plan);
+        plans.put(table.getName(), plan);
+        return plan;
+    }
+
+    @VisibleForTesting
+    static ScanPlan plan(DynamoDBTable table, double targetRcu, double avgItemBytes, boolean statisticsCurrent)
+    {
+        long estimatedBytes = Math.max(table.getApproxTableSizeInBytes(), (long) (table.getApproxItemCount() * avgItemBytes));
+        int segments = DDBTableUtils.getNumSegments((long) targetRcu, estimatedBytes);
+        if (statisticsCurrent) {
+            // more segments than pages just adds splits that read nothing
+            long pages = Math.max(1, (estimatedBytes + PAGE_BYTES - 1) / PAGE_BYTES);
+            segments = (int) Math.min(segments, pages);
+        }
+        return new ScanPlan(segments, targetRcu / segments);
+    }
+
+    /**
+     * Estimates the size of an item the way DynamoDB sizes items, i.e. the lengths of its attribute names plus the
+     * sizes of their values.
+     *
+     * @see <a href="https://docs.aws.amazon.com/amazondynamodb/latest/developerguide/CapacityUnitCalculations.html">
+     *     https://docs.aws.amazon.com/amazondynamodb/latest/developerguide/CapacityUnitCalculations.html</a>
+     * @param item the item
+     * @return the approximate size of the item in bytes
+     */
+    public static long estimateItemSizeBytes(Map<String, AttributeValue> item)
+    {
+        long size = 0;
+        for (Map.Entry<String, AttributeValue> next : item.entrySet()) {
+            size += utf8Length(next.getKey()) + estimateValueSizeBytes(next.getValue());
+        }
+        return size;
+    }
+
+    private static long estimateValueSizeBytes(AttributeValue value)
+    {
+        if (value.s() != null) {
+            return utf8Length(value.s());
+        }
+        if (value.n() != null) {
+            return numberSize(value.n());
+        }
+        if (value.b() != null) {
+            return value.b().asByteArrayUnsafe().length;
+        }
+        long size = 0;
+        if (value.hasSs()) {
+            for (String next : value.ss()) {
+                size += utf8Length(next);
+            }
+            return size;
+        }
+        if (value.hasNs()) {
+            for (String next : value.ns()) {
+                size += numberSize(next);
+            }
+            return size;
+        }
+        if (value.hasBs()) {
+            return value.bs().stream().mapToLong(next -> next.asByteArrayUnsafe().length).sum();
+        }
+        // lists and maps have 3 bytes of overhead plus 1 byte per element
+        if (value.hasL()) {
+            size = 3;
+            for (AttributeValue next : value.l()) {
+                size += 1 + estimateValueSizeBytes(next);
+            }
+            return size;
+        }
+        if (value.hasM()) {
+            size = 3;
+            for (Map.Entry<String, AttributeValue> next : value.m().entrySet()) {
+                size += 1 + utf8Length(next.getKey()) + estimateValueSizeBytes(next.getValue());
+            }
+            return size;
+        }
+        // null and boolean
+        return 1;
+    }
+
+    // numbers are stored with 2 significant digits per byte, plus 1 byte
+    private static long numberSize(String number)
+    {
+        return (number.length() + 1) / 2 + 1;
+    }
+
+    private static long utf8Length(String value)
+    {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * The number of segments to scan a table with and the read capacity units per second each may consume.
+     */
+    public static class ScanPlan
+    {
+        private final int segmentCount;
+        private final double segmentReadCapacity;
+
+        public ScanPlan(int segmentCount, double segmentReadCapacity)
+        {
+            this.segmentCount = segmentCount;
+            this.segmentReadCapacity = segmentReadCapacity;
+        }
+
+        public int getSegmentCount()
+        {
+            return segmentCount;
+        }
+
+        public double getSegmentReadCapacity()
+        {
+            return segmentReadCapacity;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "ScanPlan{segmentCount=" + segmentCount + ", segmentReadCapacity=" + segmentReadCapacity + "}";
+        }
+    }
+}
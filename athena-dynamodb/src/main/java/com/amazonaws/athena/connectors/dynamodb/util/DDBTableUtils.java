@@ -31,6 +31,7 @@ import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
 import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
@@ -93,8 +94,9 @@ public final class DDBTableUtils
         long approxItemCount = table.itemCount();
 
         ProvisionedThroughputDescription provisionedThroughputDescription = table.provisionedThroughput();
-        // #todo: from the Documentation; this doesn't seem to be returning null from the looks of it; but test;
-        final long provisionedReadCapacity =  provisionedThroughputDescription != null ? provisionedThroughputDescription.readCapacityUnits() : PSUEDO_CAPACITY_FOR_ON_DEMAND;
+        // on-demand tables report a provisioned throughput of 0 read capacity units rather than none at all
+        final boolean onDemand = table.billingModeSummary() != null && BillingMode.PAY_PER_REQUEST.equals(table.billingModeSummary().billingMode());
+        final long provisionedReadCapacity = (onDemand || provisionedThroughputDescription == null) ? PSUEDO_CAPACITY_FOR_ON_DEMAND : provisionedThroughputDescription.readCapacityUnits();
 
         // get secondary indexes
         List<LocalSecondaryIndexDescription> localSecondaryIndexes = table.hasLocalSecondaryIndexes() ? table.localSecondaryIndexes() : ImmutableList.of();
@@ -114,7 +116,7 @@ public final class DDBTableUtils
                         i.projection().nonKeyAttributes() == null ? ImmutableList.of() : i.projection().nonKeyAttributes()));
               });
 
-        return new DynamoDBTable(tableName, keys.getHashKey(), keys.getRangeKey(), table.attributeDefinitions(), indices.build(), approxTableSizeInBytes, approxItemCount, provisionedReadCapacity);
+        return new DynamoDBTable(tableName, keys.getHashKey(), keys.getRangeKey(), table.attributeDefinitions(), indices.build(), approxTableSizeInBytes, approxItemCount, provisionedReadCapacity, onDemand);
     }
 
     /*
@@ -0,0 +1,201 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb;
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBPageIterator;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DDBPageIteratorTest
+{
+    private static final int NUM_PAGES = 10;
+    private static final int PAGE_SIZE = 25;
+
+    @Test
+    public void readAllPages()
+    {
+        for (int prefetchPages : new int[] {0, 1, 3}) {
+            PagedTable table = new PagedTable(NUM_PAGES);
+            try (DDBPageIterator iterator = new DDBPageIterator(table, prefetchPages)) {
+                int expected = 0;
+                while (iterator.hasNext()) {
+                    assertEquals(String.valueOf(expected++), iterator.next().get("id").n());
+                }
+                assertEquals(NUM_PAGES * PAGE_SIZE, expected);
+                assertFalse(iterator.hasNext());
+                assertEquals(NUM_PAGES, iterator.getPages());
+                assertEquals(NUM_PAGES * 0.5D, iterator.getConsumedCapacityUnits(), 0.0001D);
+                assertEquals(NUM_PAGES, table.calls.get());
+            }
+        }
+    }
+
+    @Test
+    public void emptyPagesAreSkipped()
+    {
+        //Scans with filters can return pages without any items which still have a lastEvaluatedKey.
+        PagedTable table = new PagedTable(NUM_PAGES)
+        {
+            @Override
+            List<Map<String, AttributeValue>> items(int page)
+                    throws ExecutionException
+            {
+                return (page % 2 == 0) ? Collections.emptyList() : super.items(page);
+            }
+        };
+        try (DDBPageIterator iterator = new DDBPageIterator(table, 2)) {
+            int count = 0;
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+            assertEquals(NUM_PAGES / 2 * PAGE_SIZE, count);
+        }
+    }
+
+    @Test
+    public void prefetchIsBounded()
+            throws InterruptedException
+    {
+        PagedTable table = new PagedTable(NUM_PAGES);
+        try (DDBPageIterator iterator = new DDBPageIterator(table, 2)) {
+            //Nothing has been read, so only the 2 queued pages plus the one waiting to be queued can be fetched.
+            waitForCalls(table, 3);
+            Thread.sleep(100);
+            assertEquals(3, table.calls.get());
+
+            //Reading the first page frees a single slot.
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                iterator.next();
+            }
+            waitForCalls(table, 4);
+            Thread.sleep(100);
+            assertEquals(4, table.calls.get());
+        }
+    }
+
+    @Test
+    public void closeStopsPrefetch()
+            throws InterruptedException
+    {
+        PagedTable table = new PagedTable(NUM_PAGES);
+        DDBPageIterator iterator = new DDBPageIterator(table, 1);
+        iterator.next();
+        iterator.close();
+        int calls = table.calls.get();
+        Thread.sleep(100);
+        assertEquals(calls, table.calls.get());
+        assertTrue(calls < NUM_PAGES);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void failureIsPropagated()
+    {
+        for (int prefetchPages : new int[] {0, 2}) {
+            PagedTable table = new PagedTable(NUM_PAGES)
+            {
+                @Override
+                List<Map<String, AttributeValue>> items(int page)
+                        throws ExecutionException
+                {
+                    if (page == 3) {
+                        throw new ExecutionException(new RuntimeException("Injected failure"));
+                    }
+                    return super.items(page);
+                }
+            };
+            int count = 0;
+            try (DDBPageIterator iterator = new DDBPageIterator(table, prefetchPages)) {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    count++;
+                }
+                fail("Expected the injected failure");
+            }
+            catch (AthenaConnectorException ex) {
+                //Every item before the failed page is returned.
+                assertEquals(3 * PAGE_SIZE, count);
+            }
+        }
+    }
+
+    private static void waitForCalls(PagedTable table, int calls)
+            throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (table.calls.get() < calls && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(calls, table.calls.get());
+    }
+
+    /**
+     * Serves numPages pages of PAGE_SIZE items, the lastEvaluatedKey of each page is the index of the next page.
+     */
+    private static class PagedTable
+            implements DDBPageIterator.PageFetcher
+    {
+        private final int numPages;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        PagedTable(int numPages)
+        {
+            this.numPages = numPages;
+        }
+
+        @Override
+        public DDBPageIterator.Page fetch(Map<String, AttributeValue> exclusiveStartKey)
+                throws ExecutionException
+        {
+            calls.incrementAndGet();
+            int page = (exclusiveStartKey == null) ? 0 : Integer.parseInt(exclusiveStartKey.get("page").n());
+            Map<String, AttributeValue> lastEvaluatedKey = (page + 1 < numPages)
+                    ? ImmutableMap.of("page", AttributeValue.builder().n(String.valueOf(page + 1)).build())
+                    : Collections.emptyMap();
+            return new DDBPageIterator.Page(items(page), lastEvaluatedKey, ConsumedCapacity.builder().capacityUnits(0.5D).build());
+        }
+
+        List<Map<String, AttributeValue>> items(int page)
+                throws ExecutionException
+        {
+            List<Map<String, AttributeValue>> items = new ArrayList<>();
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                items.add(ImmutableMap.of("id", AttributeValue.builder().n(String.valueOf(page * PAGE_SIZE + i)).build()));
+            }
+            return items;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb.util;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DDBReadRateLimiterTest
+{
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void pacesToRate()
+    {
+        FakeTicker ticker = new FakeTicker();
+        DDBReadRateLimiter limiter = new DDBReadRateLimiter(10, ticker);
+        assertEquals(0, limiter.nanosUntilAvailable());
+
+        // a 30 unit page leaves the bucket 20 units in debt, 2 seconds at 10 units per second
+        limiter.consume(30);
+        assertEquals(2 * SECOND, limiter.nanosUntilAvailable());
+        ticker.advance(SECOND);
+        assertEquals(SECOND, limiter.nanosUntilAvailable());
+        ticker.advance(SECOND);
+        assertEquals(0, limiter.nanosUntilAvailable());
+    }
+
+    @Test
+    public void idleTimeDoesNotBuildBurst()
+    {
+        FakeTicker ticker = new FakeTicker();
+        DDBReadRateLimiter limiter = new DDBReadRateLimiter(10, ticker);
+        ticker.advance(60 * SECOND);
+        // the bucket holds at most a second worth of units
+        limiter.consume(15);
+        assertEquals(SECOND / 2, limiter.nanosUntilAvailable());
+    }
+
+    @Test
+    public void acquireWaits()
+            throws InterruptedException
+    {
+        DDBReadRateLimiter limiter = new DDBReadRateLimiter(1000);
+        limiter.consume(1050);
+        long start = System.nanoTime();
+        limiter.acquire();
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertTrue(limiter.getWaitMillis() >= 40);
+        assertEquals(0, limiter.nanosUntilAvailable());
+    }
+
+    private static class FakeTicker
+            extends Ticker
+    {
+        private long nanos;
+
+        @Override
+        public long read()
+        {
+            return nanos;
+        }
+
+        void advance(long nanos)
+        {
+            this.nanos += nanos;
+        }
+    }
+}
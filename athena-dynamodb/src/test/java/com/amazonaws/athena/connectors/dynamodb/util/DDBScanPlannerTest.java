@@ -0,0 +1,149 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb.util;
+
+import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.amazonaws.athena.connectors.dynamodb.throttling.DynamoDBExceptionFilter.EXCEPTION_FILTER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DDBScanPlannerTest
+{
+    private static final long GB = 1024L * 1024L * 1024L;
+    private static final long ON_DEMAND_RCU = 40_000;
+
+    @Test
+    public void estimateItemSizeBytes()
+    {
+        Map<String, AttributeValue> item = ImmutableMap.<String, AttributeValue>builder()
+                .put("id", AttributeValue.builder().s("abcd").build())
+                .put("n", AttributeValue.builder().n("12345").build())
+                .put("b", AttributeValue.builder().b(SdkBytes.fromByteArray(new byte[10])).build())
+                .put("flag", AttributeValue.builder().bool(true).build())
+                .put("ss", AttributeValue.builder().ss("a", "bc").build())
+                .put("l", AttributeValue.builder().l(AttributeValue.builder().s("xy").build(), AttributeValue.builder().nul(true).build()).build())
+                .put("m", AttributeValue.builder().m(ImmutableMap.of("k", AttributeValue.builder().s("v").build())).build())
+                .build();
+        // id: 2 + 4, n: 1 + 4, b: 1 + 10, flag: 4 + 1, ss: 2 + 3, l: 1 + 3 + (1 + 2) + (1 + 1), m: 1 + 3 + (1 + 1 + 1)
+        assertEquals(6 + 5 + 11 + 5 + 5 + 9 + 7, DDBScanPlanner.estimateItemSizeBytes(item));
+    }
+
+    @Test
+    public void planProvisionedTable()
+    {
+        // 5 RCU and 10GB, the segments are driven by size as before
+        DDBScanPlanner.ScanPlan plan = DDBScanPlanner.plan(makeTable(10 * GB, 10_000_000, 5, false), 5, 1000, true);
+        assertEquals(10, plan.getSegmentCount());
+        assertEquals(0.5D, plan.getSegmentReadCapacity(), 0.0001D);
+
+        // 1000 RCU and 10GB, the segments are driven by throughput as before
+        plan = DDBScanPlanner.plan(makeTable(10 * GB, 10_000_000, 1000, false), 1000, 1000, true);
+        assertEquals(10, plan.getSegmentCount());
+        assertEquals(100D, plan.getSegmentReadCapacity(), 0.0001D);
+    }
+
+    @Test
+    public void planOnDemandTable()
+    {
+        // a large on-demand table is scanned using its read throughput limit rather than by size alone
+        DDBScanPlanner.ScanPlan plan = DDBScanPlanner.plan(makeTable(10 * GB, 10_000_000, ON_DEMAND_RCU, true), ON_DEMAND_RCU, 1000, true);
+        assertEquals(400, plan.getSegmentCount());
+        assertEquals(100D, plan.getSegmentReadCapacity(), 0.0001D);
+
+        // but a small one only gets as many segments as it has pages of data
+        plan = DDBScanPlanner.plan(makeTable(5 * 1024 * 1024, 5000, ON_DEMAND_RCU, true), ON_DEMAND_RCU, 1000, true);
+        assertEquals(5, plan.getSegmentCount());
+        assertEquals(8000D, plan.getSegmentReadCapacity(), 0.0001D);
+    }
+
+    @Test
+    public void planUsesSampledItemSize()
+    {
+        // the reported size is out of date, the sampled item size gives over 2GB
+        DDBScanPlanner.ScanPlan plan = DDBScanPlanner.plan(makeTable(0, 2_200_000, 5, false), 5, 1024, true);
+        assertEquals(2, plan.getSegmentCount());
+
+        // the statistics don't reflect the table yet, so fall back to the throughput based segment count
+        plan = DDBScanPlanner.plan(makeTable(0, 0, ON_DEMAND_RCU, true), ON_DEMAND_RCU, 1000, false);
+        assertEquals(400, plan.getSegmentCount());
+    }
+
+    @Test
+    public void getScanPlanIsCached()
+            throws Exception
+    {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int i = 0; i < DDBScanPlanner.SAMPLE_ITEMS; i++) {
+            items.add(ImmutableMap.of("id", AttributeValue.builder().s(String.format("%08d", i)).build()));
+        }
+        DynamoDbClient ddbClient = mock(DynamoDbClient.class);
+        when(ddbClient.scan(any(ScanRequest.class))).thenReturn(ScanResponse.builder().items(items).build());
+        ThrottlingInvoker invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, ImmutableMap.of()).build();
+
+        DDBScanPlanner planner = new DDBScanPlanner(ImmutableMap.of(DDBScanPlanner.SCAN_TARGET_RCU, "2000"));
+        DynamoDBTable table = makeTable(10 * GB, 1_000_000, 5, false);
+        DDBScanPlanner.ScanPlan plan = planner.getScanPlan(table, invoker, ddbClient, null);
+        assertEquals(20, plan.getSegmentCount());
+        assertEquals(100D, plan.getSegmentReadCapacity(), 0.0001D);
+
+        assertSame(plan, planner.getScanPlan(table, invoker, ddbClient, null));
+        verify(ddbClient, times(1)).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    public void invalidTargetRcu()
+    {
+        try {
+            new DDBScanPlanner(ImmutableMap.of(DDBScanPlanner.SCAN_TARGET_RCU, "-1"));
+            fail("Expected an invalid target to be rejected");
+        }
+        catch (AthenaConnectorException ex) {
+            //expected
+        }
+    }
+
+    private static DynamoDBTable makeTable(long sizeBytes, long itemCount, long readCapacity, boolean onDemand)
+    {
+        return new DynamoDBTable("table", "id", Optional.empty(), ImmutableList.of(), ImmutableList.of(),
+                sizeBytes, itemCount, readCapacity, onDemand);
+    }
+}
@@ -24,34 +24,24 @@ import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
 import com.amazonaws.athena.connector.lambda.data.writers.extractors.Extractor;
-import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.elasticsearch.qpt.ElasticsearchQueryPassthrough;
 import org.apache.arrow.util.VisibleForTesting;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.commons.lang3.StringUtils;
-import org.elasticsearch.action.search.ClearScrollRequest;
-import org.elasticsearch.action.search.SearchRequest;
-import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.action.search.SearchScrollRequest;
-import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.Scroll;
-import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.athena.AthenaClient;
-import software.amazon.awssdk.services.glue.model.ErrorDetails;
-import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
-import java.io.IOException;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -80,11 +70,23 @@ public class ElasticsearchRecordHandler
     // Env. variable that holds the scroll timeout for the Search queries.
     private static final String SCROLL_TIMEOUT = "query_scroll_timeout";
 
+    // Env. variable that holds the pagination batch size (number of documents per scroll page).
+    private static final String QUERY_BATCH_SIZE = "query_batch_size";
+    // Env. variable that holds the number of slices each shard split is read with, see ElasticsearchScrollReader.
+    private static final String SCROLL_SLICES = "query_scroll_slices";
+    // Env. variable that holds the number of pages each slice fetches ahead of the rows being written, 0 disables prefetching.
+    private static final String SCROLL_PREFETCH_PAGES = "query_scroll_prefetch_pages";
+
+    // Default pagination batch size (100 documents).
+    private static final int DEFAULT_QUERY_BATCH_SIZE = 100;
+    private static final int DEFAULT_SCROLL_SLICES = 1;
+    private static final int DEFAULT_SCROLL_PREFETCH_PAGES = 2;
+
     private final long queryTimeout;
     private final long scrollTimeout;
-
-    // Pagination batch size (100 documents).
-    private static final int QUERY_BATCH_SIZE = 100;
+    private final int queryBatchSize;
+    private final int scrollSlices;
+    private final int prefetchPages;
 
     private final AwsRestHighLevelClientFactory clientFactory;
     private final ElasticsearchTypeUtils typeUtils;
@@ -99,6 +101,9 @@ public class ElasticsearchRecordHandler
         this.clientFactory = new AwsRestHighLevelClientFactory(configOptions.getOrDefault(AUTO_DISCOVER_ENDPOINT, "").equalsIgnoreCase("true"));
         this.queryTimeout = Long.parseLong(configOptions.getOrDefault(QUERY_TIMEOUT_SEARCH, "720"));
         this.scrollTimeout = Long.parseLong(configOptions.getOrDefault(SCROLL_TIMEOUT, "60"));
+        this.queryBatchSize = ConfigOptionUtils.getPositiveIntOption(configOptions, QUERY_BATCH_SIZE, DEFAULT_QUERY_BATCH_SIZE);
+        this.scrollSlices = ConfigOptionUtils.getPositiveIntOption(configOptions, SCROLL_SLICES, DEFAULT_SCROLL_SLICES);
+        this.prefetchPages = ConfigOptionUtils.getNonNegativeIntOption(configOptions, SCROLL_PREFETCH_PAGES, DEFAULT_SCROLL_PREFETCH_PAGES);
     }
 
     @VisibleForTesting
@@ -117,6 +122,9 @@ public class ElasticsearchRecordHandler
         this.clientFactory = clientFactory;
         this.queryTimeout = queryTimeout;
         this.scrollTimeout = scrollTimeout;
+        this.queryBatchSize = ConfigOptionUtils.getPositiveIntOption(configOptions, QUERY_BATCH_SIZE, DEFAULT_QUERY_BATCH_SIZE);
+        this.scrollSlices = ConfigOptionUtils.getPositiveIntOption(configOptions, SCROLL_SLICES, DEFAULT_SCROLL_SLICES);
+        this.prefetchPages = ConfigOptionUtils.getNonNegativeIntOption(configOptions, SCROLL_PREFETCH_PAGES, DEFAULT_SCROLL_PREFETCH_PAGES);
     }
 
     /**
@@ -167,53 +175,26 @@ public class ElasticsearchRecordHandler
 
         if (queryStatusChecker.isQueryRunning()) {
             AwsRestHighLevelClient client = useSecret ? clientFactory.getOrCreateClient(endpoint, username, password) : clientFactory.getOrCreateClient(endpoint);
-            try {
-                // Create field extractors for all data types in the schema.
-                GeneratedRowWriter rowWriter = createFieldExtractors(recordsRequest);
-
-                // Create a new search-source injected with the projection, predicate, and the pagination batch size.
-                SearchSourceBuilder searchSource = new SearchSourceBuilder()
-                        .size(QUERY_BATCH_SIZE)
-                        .timeout(new TimeValue(queryTimeout, TimeUnit.SECONDS))
-                        .fetchSource(ElasticsearchQueryUtils.getProjection(recordsRequest.getSchema()))
-                        .query(query);
-
-                //init scroll
-                Scroll scroll = new Scroll(TimeValue.timeValueSeconds(this.scrollTimeout));
-                // Create a new search-request for the specified index.
-                SearchRequest searchRequest = new SearchRequest(index)
-                        .preference(shard)
-                        .scroll(scroll)
-                        .source(searchSource.from(0));
-
-                //Read the returned scroll id, which points to the search context that's being kept alive and will be needed in the following search scroll call
-                SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
-
-                while (searchResponse.getHits() != null
-                        && searchResponse.getHits().getHits() != null
-                        && searchResponse.getHits().getHits().length > 0
-                        && queryStatusChecker.isQueryRunning()) {
-                    Iterator<SearchHit> finalIterator = searchResponse.getHits().iterator();
-                    while (finalIterator.hasNext() && queryStatusChecker.isQueryRunning()) {
-                        ++numRows;
-                        spiller.writeRows((Block block, int rowNum) ->
-                                rowWriter.writeRow(block, rowNum, client.getDocument(finalIterator.next())) ? 1 : 0);
-                    }
-
-                    //prep for next hits and keep track of scroll id.
-                    SearchScrollRequest scrollRequest = new SearchScrollRequest(searchResponse.getScrollId()).scroll(scroll);
-                    searchResponse = client.scroll(scrollRequest, RequestOptions.DEFAULT);
-                    if (searchResponse.isTimedOut()) {
-                        throw new AthenaConnectorException("Request for index (" + index + ") " + shard + " timed out.", ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
-                    }
+            // Create field extractors for all data types in the schema.
+            GeneratedRowWriter rowWriter = createFieldExtractors(recordsRequest);
+
+            // Create a new search-source injected with the projection, predicate, and the pagination batch size.
+            SearchSourceBuilder searchSource = new SearchSourceBuilder()
+                    .size(queryBatchSize)
+                    .timeout(new TimeValue(queryTimeout, TimeUnit.SECONDS))
+                    .fetchSource(ElasticsearchQueryUtils.getProjection(recordsRequest.getSchema()))
+                    .query(query);
+
+            //init scroll
+            Scroll scroll = new Scroll(TimeValue.timeValueSeconds(this.scrollTimeout));
+            // Read the shard with one scroll per slice, the documents are fetched ahead of the rows being written.
+            try (ElasticsearchScrollReader documents = new ElasticsearchScrollReader(client, index, shard,
+                    searchSource, scroll, scrollSlices, prefetchPages)) {
+                while (documents.hasNext() && queryStatusChecker.isQueryRunning()) {
+                    ++numRows;
+                    spiller.writeRows((Block block, int rowNum) ->
+                            rowWriter.writeRow(block, rowNum, documents.next()) ? 1 : 0);
                 }
-
-                ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
-                clearScrollRequest.addScrollId(searchResponse.getScrollId());
-                client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
-            }
-            catch (IOException error) {
-                throw new AthenaConnectorException("Error sending search query: " + error.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).errorMessage(error.getMessage()).build());
             }
         }
 
@@ -253,6 +234,6 @@ public class ElasticsearchRecordHandler
     @VisibleForTesting
     protected int getQueryBatchSize()
     {
-        return QUERY_BATCH_SIZE;
+        return queryBatchSize;
     }
 }
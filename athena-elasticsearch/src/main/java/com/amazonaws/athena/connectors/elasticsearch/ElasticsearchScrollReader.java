@@ -0,0 +1,324 @@
+/*-
+ * #%L
+ * athena-elasticsearch
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.elasticsearch;
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Iterates over the documents of a shard split using one or more scrolls.
+ * <p>
+ * With more than one slice the search is split into a sliced scroll, each slice is read by its own thread so that a
+ * large shard is read by several concurrent scroll contexts. Background threads are also used for a single slice
+ * when prefetching is enabled, they stay up to prefetchPages pages ahead of the caller so that the next scroll round
+ * trip overlaps with writing the current page. Documents are converted from their _source on the thread which fetched
+ * the page, so the caller only has to write them. With one slice and prefetching disabled every page is fetched on
+ * the calling thread.
+ * <p>
+ * Documents from different slices are interleaved in no particular order. Callers should close() the reader once
+ * they are done so that the background threads are stopped and the scroll contexts are cleared even if not all
+ * documents were read (e.g. because the query was cancelled).
+ */
+public class ElasticsearchScrollReader
+        implements Iterator<Map<String, Object>>, AutoCloseable
+{
+    private static final Logger logger = LoggerFactory.getLogger(ElasticsearchScrollReader.class);
+
+    //Marks the end of a slice in the prefetch queue.
+    private static final List<Map<String, Object>> END = Collections.emptyList();
+
+    private final AwsRestHighLevelClient client;
+    private final String index;
+    private final String shard;
+    private final List<SliceCursor> cursors = new ArrayList<>();
+    private final BlockingQueue<List<Map<String, Object>>> prefetched;
+    private final ExecutorService prefetchExecutor;
+    private final AtomicInteger activeSlices;
+    private volatile RuntimeException failure;
+    private volatile boolean closed;
+    private Iterator<Map<String, Object>> currentPage = Collections.emptyIterator();
+    private boolean done;
+
+    /**
+     * @param client The client used to run the scroll requests and to read the documents from the hits.
+     * @param index The index being read.
+     * @param shard The shard preference of the split (e.g. _shards:5).
+     * @param searchSource The projection, predicate and page size of the search, it is copied for each slice.
+     * @param scroll The keep alive of the scroll contexts.
+     * @param slices The number of slices to read the shard with, 1 reads the shard with a single plain scroll.
+     * @param prefetchPages The max number of pages to fetch ahead of the caller per slice, 0 disables prefetching
+     * for a single slice.
+     */
+    public ElasticsearchScrollReader(AwsRestHighLevelClient client, String index, String shard,
+            SearchSourceBuilder searchSource, Scroll scroll, int slices, int prefetchPages)
+    {
+        if (slices < 1 || prefetchPages < 0) {
+            throw new AthenaConnectorException("Invalid scroll settings, slices: " + slices + ", prefetchPages: " + prefetchPages,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        this.client = client;
+        this.index = index;
+        this.shard = shard;
+
+        for (int slice = 0; slice < slices; slice++) {
+            SearchSourceBuilder sliceSource = (slices == 1) ? searchSource :
+                    searchSource.shallowCopy().slice(new SliceBuilder(slice, slices));
+            cursors.add(new SliceCursor(new SearchRequest(index)
+                    .preference(shard)
+                    .scroll(scroll)
+                    .source(sliceSource.from(0)), scroll));
+        }
+
+        this.activeSlices = new AtomicInteger(slices);
+        if (slices > 1 || prefetchPages > 0) {
+            this.prefetched = new ArrayBlockingQueue<>(slices * Math.max(prefetchPages, 1));
+            this.prefetchExecutor = Executors.newFixedThreadPool(slices, (Runnable runnable) -> {
+                Thread thread = new Thread(runnable, "elasticsearch-scroll-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (SliceCursor cursor : cursors) {
+                prefetchExecutor.execute(() -> prefetch(cursor));
+            }
+        }
+        else {
+            this.prefetched = null;
+            this.prefetchExecutor = null;
+        }
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (closed) {
+            return false;
+        }
+        while (!currentPage.hasNext()) {
+            if (done) {
+                return false;
+            }
+            List<Map<String, Object>> page = nextPage();
+            if (page == END) {
+                done = true;
+                return false;
+            }
+            currentPage = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    /**
+     * Stops the background threads, if any, and clears the scroll contexts of slices which were not read to the end.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+        else {
+            cursors.get(0).clear();
+        }
+    }
+
+    private List<Map<String, Object>> nextPage()
+    {
+        if (prefetched == null) {
+            SliceCursor cursor = cursors.get(0);
+            List<Map<String, Object>> page = cursor.nextPage();
+            if (page.isEmpty()) {
+                cursor.clear();
+                return END;
+            }
+            return page;
+        }
+
+        try {
+            while (true) {
+                List<Map<String, Object>> page = prefetched.take();
+                if (failure != null) {
+                    done = true;
+                    throw failure;
+                }
+                if (page != END) {
+                    return page;
+                }
+                if (activeSlices.get() == 0 && prefetched.isEmpty()) {
+                    return END;
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AthenaConnectorException("Interrupted while waiting for the next page of index (" + index + ") " + shard,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
+        }
+    }
+
+    private void prefetch(SliceCursor cursor)
+    {
+        try {
+            List<Map<String, Object>> page = cursor.nextPage();
+            while (!page.isEmpty() && !closed) {
+                prefetched.put(page);
+                page = cursor.nextPage();
+            }
+            cursor.clear();
+            activeSlices.decrementAndGet();
+            prefetched.put(END);
+        }
+        catch (InterruptedException ex) {
+            //close() was called, nobody is waiting for any more pages.
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException ex) {
+            if (closed) {
+                logger.debug("prefetch: Ignoring failure after close", ex);
+                return;
+            }
+            failure = ex;
+            activeSlices.decrementAndGet();
+            //Wakes up the caller, which checks for the failure before reading the page.
+            prefetched.offer(END);
+        }
+        finally {
+            cursor.clear();
+        }
+    }
+
+    /**
+     * The scroll of a single slice, it is only ever used by one thread at a time.
+     */
+    private class SliceCursor
+    {
+        private final SearchRequest searchRequest;
+        private final Scroll scroll;
+        private String scrollId;
+        private boolean started;
+        private boolean cleared;
+
+        SliceCursor(SearchRequest searchRequest, Scroll scroll)
+        {
+            this.searchRequest = searchRequest;
+            this.scroll = scroll;
+        }
+
+        /**
+         * @return The documents of the next page, empty once the slice has been read.
+         */
+        List<Map<String, Object>> nextPage()
+        {
+            try {
+                SearchResponse response;
+                if (!started) {
+                    started = true;
+                    response = client.search(searchRequest, RequestOptions.DEFAULT);
+                }
+                else if (scrollId != null) {
+                    response = client.scroll(new SearchScrollRequest(scrollId).scroll(scroll), RequestOptions.DEFAULT);
+                    if (response.isTimedOut()) {
+                        throw new AthenaConnectorException("Request for index (" + index + ") " + shard + " timed out.",
+                                ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
+                    }
+                }
+                else {
+                    return END;
+                }
+
+                if (response.getScrollId() != null) {
+                    scrollId = response.getScrollId();
+                }
+                return toDocuments(response);
+            }
+            catch (IOException error) {
+                throw new AthenaConnectorException("Error sending search query: " + error.getMessage(),
+                        ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).errorMessage(error.getMessage()).build());
+            }
+        }
+
+        /**
+         * Clears the scroll context, failures are only logged since the context expires with its keep alive anyway.
+         */
+        void clear()
+        {
+            if (cleared || scrollId == null) {
+                return;
+            }
+            cleared = true;
+            try {
+                ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+                clearScrollRequest.addScrollId(scrollId);
+                client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+            }
+            catch (IOException | RuntimeException ex) {
+                logger.warn("clear: Unable to clear scroll for index ({}) {}", index, shard, ex);
+            }
+        }
+
+        private List<Map<String, Object>> toDocuments(SearchResponse response)
+        {
+            SearchHits hits = response.getHits();
+            if (hits == null || hits.getHits() == null || hits.getHits().length == 0) {
+                return END;
+            }
+            List<Map<String, Object>> documents = new ArrayList<>(hits.getHits().length);
+            for (SearchHit hit : hits.getHits()) {
+                documents.add(client.getDocument(hit));
+            }
+            return documents;
+        }
+    }
+}
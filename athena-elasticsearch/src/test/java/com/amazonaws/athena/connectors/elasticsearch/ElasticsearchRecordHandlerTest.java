@@ -32,6 +32,7 @@ import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsResponse;
 import com.amazonaws.athena.connector.lambda.records.RecordResponse;
@@ -61,6 +62,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.athena.AthenaClient;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
 import software.amazon.awssdk.core.ResponseInputStream;
@@ -83,11 +85,13 @@ import java.util.UUID;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 
@@ -389,21 +393,14 @@ public class ElasticsearchRecordHandlerTest
     {
         logger.info("doReadRecordsSpill: enter");
 
-        int batchSize = handler.getQueryBatchSize();
-        SearchHit searchHit1[] = new SearchHit[batchSize];
-        for (int i = 0; i < batchSize; ++i) {
-            searchHit1[i] = new SearchHit(i + 1);
-        }
-
-        SearchHit searchHit2[] = new SearchHit[2];
-        searchHit2[0] = new SearchHit(batchSize + 1);
-        searchHit2[1] = new SearchHit(batchSize + 2);
+        // The first document is returned by the search, the second one by the following scroll.
         SearchHits searchHits1 =
-                new SearchHits(searchHit1, new TotalHits(batchSize, TotalHits.Relation.EQUAL_TO), 4);
+                new SearchHits(new SearchHit[] {new SearchHit(1)}, new TotalHits(1, TotalHits.Relation.EQUAL_TO), 4);
         SearchHits searchHits2 =
-                new SearchHits(searchHit2, new TotalHits(2, TotalHits.Relation.EQUAL_TO), 4);
-        when(mockResponse.getHits())
-                .thenReturn(searchHits1, searchHits1, searchHits2, searchHits2);
+                new SearchHits(new SearchHit[] {new SearchHit(2)}, new TotalHits(1, TotalHits.Relation.EQUAL_TO), 4);
+        when(mockResponse.getHits()).thenReturn(searchHits1);
+        when(mockResponse.getScrollId()).thenReturn("123");
+        when(mockScrollResponse.getHits()).thenReturn(searchHits2, SearchHits.empty());
 
         Map<String, ValueSet> constraintsMap = new HashMap<>();
         constraintsMap.put("myshort", SortedRangeSet.copyOf(Types.MinorType.SMALLINT.getType(),
@@ -444,6 +441,9 @@ public class ElasticsearchRecordHandlerTest
             }
         }
 
+        verify(mockClient, times(2)).scroll(any(), any());
+        verify(mockClient).clearScroll(any(), any());
+
         logger.info("doReadRecordsSpill: exit");
     }
 
@@ -462,6 +462,27 @@ public class ElasticsearchRecordHandlerTest
         }
     }
 
+    @Test
+    public void invalidQueryOptionsAreRejected()
+    {
+        Map<String, List<String>> invalidValues = ImmutableMap.of(
+                "query_batch_size", ImmutableList.of("0", "-1", "abc"),
+                "query_scroll_slices", ImmutableList.of("0", "-1", "abc"),
+                "query_scroll_prefetch_pages", ImmutableList.of("-1", "abc"));
+        for (Map.Entry<String, List<String>> next : invalidValues.entrySet()) {
+            for (String value : next.getValue()) {
+                AthenaConnectorException ex = assertThrows(AthenaConnectorException.class, () ->
+                        new ElasticsearchRecordHandler(amazonS3, awsSecretsManager, athena, clientFactory, 720, 60, ImmutableMap.of(next.getKey(), value)));
+                assertEquals(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString(), ex.getErrorDetails().errorCode());
+            }
+        }
+
+        //Prefetching can be turned off.
+        new ElasticsearchRecordHandler(amazonS3, awsSecretsManager, athena, clientFactory, 720, 60, ImmutableMap.of("query_scroll_prefetch_pages", "0"));
+        assertEquals(500, new ElasticsearchRecordHandler(amazonS3, awsSecretsManager, athena, clientFactory, 720, 60,
+                ImmutableMap.of("query_batch_size", "500")).getQueryBatchSize());
+    }
+
     private static FederatedIdentity fakeIdentity()
     {
         return new FederatedIdentity("access_key_id",
@@ -0,0 +1,213 @@
+/*-
+ * #%L
+ * athena-elasticsearch
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.elasticsearch;
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.google.common.collect.ImmutableMap;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * This class is used to test the ElasticsearchScrollReader class.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ElasticsearchScrollReaderTest
+{
+    private static final int PAGES_PER_SLICE = 3;
+    private static final int HITS_PER_PAGE = 4;
+    private static final int MAX_SLICES = 3;
+
+    @Mock
+    private AwsRestHighLevelClient client;
+
+    // The pages of each slice, keyed on the scroll id of the slice. They are made up front since the reader requests
+    // them from its own threads.
+    private final Map<String, List<SearchResponse>> pages = new HashMap<>();
+    private final Map<String, AtomicInteger> pagesServed = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        for (int slice = 0; slice < MAX_SLICES; slice++) {
+            String scrollId = "scroll-" + slice;
+            List<SearchResponse> slicePages = new ArrayList<>();
+            for (int page = 0; page <= PAGES_PER_SLICE; page++) {
+                slicePages.add(makePage(scrollId, slice, page));
+            }
+            pages.put(scrollId, slicePages);
+            pagesServed.put(scrollId, new AtomicInteger());
+        }
+
+        when(client.getDocument(any())).thenAnswer((InvocationOnMock invocation) ->
+                ImmutableMap.of("id", ((SearchHit) invocation.getArgument(0)).docId()));
+        when(client.search(any(), any())).thenAnswer((InvocationOnMock invocation) -> {
+            SearchRequest request = invocation.getArgument(0);
+            int slice = (request.source().slice() == null) ? 0 : request.source().slice().getId();
+            return nextPage("scroll-" + slice);
+        });
+    }
+
+    @Test
+    public void readSingleSliceOnCallingThread()
+            throws IOException
+    {
+        stubScroll();
+        Set<Integer> ids = readAll(1, 0);
+
+        assertEquals(PAGES_PER_SLICE * HITS_PER_PAGE, ids.size());
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(client).search(captor.capture(), any());
+        assertNull(captor.getValue().source().slice());
+        assertEquals("_shards:5", captor.getValue().preference());
+        verify(client).clearScroll(any(), any());
+    }
+
+    @Test
+    public void readSlicesWithPrefetch()
+            throws IOException
+    {
+        stubScroll();
+        Set<Integer> ids = readAll(MAX_SLICES, 2);
+
+        assertEquals(MAX_SLICES * PAGES_PER_SLICE * HITS_PER_PAGE, ids.size());
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        verify(client, times(MAX_SLICES)).search(captor.capture(), any());
+        Set<Integer> sliceIds = new HashSet<>();
+        for (SearchRequest request : captor.getAllValues()) {
+            assertEquals(MAX_SLICES, request.source().slice().getMax());
+            assertEquals("_shards:5", request.preference());
+            sliceIds.add(request.source().slice().getId());
+        }
+        assertEquals(MAX_SLICES, sliceIds.size());
+        verify(client, times(MAX_SLICES)).clearScroll(any(), any());
+    }
+
+    @Test
+    public void scrollFailureIsRethrown()
+            throws IOException
+    {
+        when(client.scroll(any(), any())).thenThrow(new IOException("boom"));
+
+        try (ElasticsearchScrollReader reader = makeReader(2, 1)) {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            fail("Expected the scroll failure to be rethrown");
+        }
+        catch (AthenaConnectorException ex) {
+            assertEquals("Error sending search query: boom", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void closeStopsReading()
+            throws IOException
+    {
+        stubScroll();
+        try (ElasticsearchScrollReader reader = makeReader(2, 1)) {
+            reader.next();
+            reader.close();
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    private void stubScroll()
+            throws IOException
+    {
+        // Lenient since a closed reader may not get to scroll.
+        lenient().when(client.scroll(any(), any())).thenAnswer((InvocationOnMock invocation) ->
+                nextPage(((SearchScrollRequest) invocation.getArgument(0)).scrollId()));
+    }
+
+    private Set<Integer> readAll(int slices, int prefetchPages)
+    {
+        Set<Integer> ids = new HashSet<>();
+        try (ElasticsearchScrollReader reader = makeReader(slices, prefetchPages)) {
+            while (reader.hasNext()) {
+                Map<String, Object> document = reader.next();
+                ids.add((Integer) document.get("id"));
+            }
+        }
+        return ids;
+    }
+
+    private ElasticsearchScrollReader makeReader(int slices, int prefetchPages)
+    {
+        SearchSourceBuilder searchSource = new SearchSourceBuilder().size(HITS_PER_PAGE);
+        return new ElasticsearchScrollReader(client, "index1", "_shards:5", searchSource,
+                new Scroll(TimeValue.timeValueSeconds(60)), slices, prefetchPages);
+    }
+
+    private SearchResponse nextPage(String scrollId)
+    {
+        return pages.get(scrollId).get(pagesServed.get(scrollId).getAndIncrement());
+    }
+
+    /**
+     * Makes a page of the slice, the hits of each page have unique doc ids and the page after the last one is empty.
+     */
+    private static SearchResponse makePage(String scrollId, int slice, int page)
+    {
+        SearchHit[] hits = new SearchHit[(page < PAGES_PER_SLICE) ? HITS_PER_PAGE : 0];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = new SearchHit(slice * 1000 + page * 100 + i);
+        }
+        SearchResponse response = mock(SearchResponse.class);
+        lenient().when(response.getScrollId()).thenReturn(scrollId);
+        lenient().when(response.getHits()).thenReturn(new SearchHits(hits, new TotalHits(hits.length, TotalHits.Relation.EQUAL_TO), 1));
+        return response;
+    }
+}
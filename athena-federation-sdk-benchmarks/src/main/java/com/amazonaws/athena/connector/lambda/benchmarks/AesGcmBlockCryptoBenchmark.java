@@ -0,0 +1,157 @@
+package com.amazonaws.athena.connector.lambda.benchmarks;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.security.AesGcmBlockCrypto;
+import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures AesGcmBlockCrypto encrypting a Block (to a byte[] and streamed to an OutputStream) and decrypting it back
+ * into a Block, this is what every encrypted spill and read of a spilled Block pays on top of Arrow serialization.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class AesGcmBlockCryptoBenchmark
+{
+    @Param({"1024", "65536"})
+    public int numRows;
+
+    private BlockAllocatorImpl allocator;
+    private AesGcmBlockCrypto crypto;
+    private EncryptionKey key;
+    private Schema schema;
+    private Block block;
+    private byte[] encrypted;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        crypto = new AesGcmBlockCrypto(allocator);
+
+        //Fixed seed so every run (and every commit) measures the same key and data.
+        Random random = new Random(42);
+        byte[] keyBytes = new byte[32];
+        byte[] nonce = new byte[12];
+        random.nextBytes(keyBytes);
+        random.nextBytes(nonce);
+        key = new EncryptionKey(keyBytes, nonce);
+
+        schema = SchemaBuilder.newBuilder()
+                .addBigIntField("id")
+                .addFloat8Field("price")
+                .addStringField("name")
+                .build();
+        block = allocator.createBlock(schema);
+        for (int i = 0; i < numRows; i++) {
+            BlockUtils.setValue(block.getFieldVector("id"), i, random.nextLong());
+            BlockUtils.setValue(block.getFieldVector("price"), i, random.nextDouble());
+            BlockUtils.setValue(block.getFieldVector("name"), i, "customer_" + random.nextInt(1_000_000));
+        }
+        block.setRowCount(numRows);
+        encrypted = crypto.encrypt(key, block);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception
+    {
+        block.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public byte[] encrypt()
+    {
+        return crypto.encrypt(key, block);
+    }
+
+    @Benchmark
+    public void encryptToStream(Blackhole blackhole)
+            throws IOException
+    {
+        BlackholeOutputStream out = new BlackholeOutputStream(blackhole);
+        crypto.encrypt(key, block, out);
+    }
+
+    @Benchmark
+    public int decrypt()
+            throws Exception
+    {
+        try (Block result = crypto.decrypt(key, encrypted, schema)) {
+            return result.getRowCount();
+        }
+    }
+
+    /**
+     * OutputStream which hands everything written to it to the Blackhole.
+     */
+    private static class BlackholeOutputStream
+            extends OutputStream
+    {
+        private final Blackhole blackhole;
+
+        BlackholeOutputStream(Blackhole blackhole)
+        {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b)
+        {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+        {
+            blackhole.consume(bytes);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.amazonaws.athena.connector.lambda.benchmarks;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures BlockUtils.setValue and BlockUtils.copyRows, which connectors and the BlockSpiller use to fill Blocks. Each
+ * invocation writes (or copies) NUM_ROWS rows of a mixed schema into a new Block, as happens for every spilled Block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class BlockUtilsBenchmark
+{
+    private static final int NUM_ROWS = 1024;
+
+    private BlockAllocatorImpl allocator;
+    private Schema schema;
+    private Block srcBlock;
+    private Integer[] ints;
+    private Long[] longs;
+    private Double[] doubles;
+    private String[] strings;
+    private BigDecimal[] decimals;
+    private LocalDate[] dates;
+    private LocalDateTime[] timestamps;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        schema = SchemaBuilder.newBuilder()
+                .addIntField("int")
+                .addBigIntField("bigint")
+                .addFloat8Field("float8")
+                .addStringField("varchar")
+                .addDecimalField("decimal", 18, 2)
+                .addDateDayField("dateday")
+                .addDateMilliField("datemilli")
+                .build();
+
+        //Fixed seed so every run (and every commit) measures the same data.
+        Random random = new Random(42);
+        ints = new Integer[NUM_ROWS];
+        longs = new Long[NUM_ROWS];
+        doubles = new Double[NUM_ROWS];
+        strings = new String[NUM_ROWS];
+        decimals = new BigDecimal[NUM_ROWS];
+        dates = new LocalDate[NUM_ROWS];
+        timestamps = new LocalDateTime[NUM_ROWS];
+        for (int i = 0; i < NUM_ROWS; i++) {
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            doubles[i] = random.nextDouble();
+            strings[i] = "customer_" + random.nextInt(1_000_000);
+            decimals[i] = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            dates[i] = LocalDate.ofEpochDay(random.nextInt(20_000));
+            timestamps[i] = dates[i].atStartOfDay().plusSeconds(random.nextInt(86_400));
+        }
+
+        srcBlock = allocator.createBlock(schema);
+        writeRows(srcBlock);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception
+    {
+        srcBlock.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public void setValue(Blackhole blackhole)
+            throws Exception
+    {
+        try (Block block = allocator.createBlock(schema)) {
+            writeRows(block);
+            blackhole.consume(block.getRowCount());
+        }
+    }
+
+    @Benchmark
+    public void copyRows(Blackhole blackhole)
+            throws Exception
+    {
+        try (Block block = allocator.createBlock(schema)) {
+            blackhole.consume(BlockUtils.copyRows(srcBlock, block, 0, NUM_ROWS - 1));
+        }
+    }
+
+    private void writeRows(Block block)
+    {
+        for (int i = 0; i < NUM_ROWS; i++) {
+            BlockUtils.setValue(block.getFieldVector("int"), i, ints[i]);
+            BlockUtils.setValue(block.getFieldVector("bigint"), i, longs[i]);
+            BlockUtils.setValue(block.getFieldVector("float8"), i, doubles[i]);
+            BlockUtils.setValue(block.getFieldVector("varchar"), i, strings[i]);
+            BlockUtils.setValue(block.getFieldVector("decimal"), i, decimals[i]);
+            BlockUtils.setValue(block.getFieldVector("dateday"), i, dates[i]);
+            BlockUtils.setValue(block.getFieldVector("datemilli"), i, timestamps[i]);
+        }
+        block.setRowCount(NUM_ROWS);
+    }
+}
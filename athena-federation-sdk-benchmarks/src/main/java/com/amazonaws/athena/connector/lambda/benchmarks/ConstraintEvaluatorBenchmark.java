@@ -0,0 +1,161 @@
+package com.amazonaws.athena.connector.lambda.benchmarks;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Marker;
+import com.amazonaws.athena.connector.lambda.domain.predicate.MarkerFactory;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+
+/**
+ * Compares ConstraintEvaluator.apply, which uses predicates compiled from each field's ValueSet, against the Marker
+ * based evaluation it used to perform for every value (write the value into a shared Marker Block, test it, release it).
+ * Each invocation evaluates one "row" of three constrained columns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class ConstraintEvaluatorBenchmark
+{
+    private static final int NUM_ROWS = 1024;
+    private static final ArrowType BIGINT = Types.MinorType.BIGINT.getType();
+    private static final ArrowType FLOAT8 = Types.MinorType.FLOAT8.getType();
+    private static final ArrowType VARCHAR = Types.MinorType.VARCHAR.getType();
+
+    private BlockAllocatorImpl allocator;
+    private Map<String, ValueSet> summary;
+    private ConstraintEvaluator evaluator;
+    private MarkerFactory markerFactory;
+    //Values are boxed up front, as connectors hand boxed values to apply(), so we only measure the evaluation.
+    private Long[] ids;
+    private Double[] prices;
+    private String[] states;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        summary = new HashMap<>();
+        summary.put("id", SortedRangeSet.of(Range.range(allocator, BIGINT, 100L, true, 500L, false),
+                Range.greaterThan(allocator, BIGINT, 900L)));
+        summary.put("price", SortedRangeSet.of(Range.lessThanOrEqual(allocator, FLOAT8, 50.0D)));
+        summary.put("state", EquatableValueSet.newBuilder(allocator, VARCHAR, true, false)
+                .add("WA").add("OR").add("CA").add("NY").build());
+
+        Constraints constraints = new Constraints(summary, Collections.emptyList(), Collections.emptyList(),
+                DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        evaluator = new ConstraintEvaluator(allocator,
+                SchemaBuilder.newBuilder()
+                        .addBigIntField("id")
+                        .addFloat8Field("price")
+                        .addStringField("state")
+                        .build(),
+                constraints);
+        markerFactory = new MarkerFactory(allocator);
+
+        String[] stateValues = {"WA", "TX", "CA", "FL", "NY"};
+        ids = new Long[NUM_ROWS];
+        prices = new Double[NUM_ROWS];
+        states = new String[NUM_ROWS];
+        for (int i = 0; i < NUM_ROWS; i++) {
+            ids[i] = (long) i;
+            prices[i] = (double) (i % 100);
+            states[i] = stateValues[i % stateValues.length];
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception
+    {
+        evaluator.close();
+        markerFactory.close();
+        for (ValueSet next : summary.values()) {
+            next.close();
+        }
+        allocator.close();
+    }
+
+    @Benchmark
+    public void compiledPredicates(Blackhole blackhole)
+    {
+        int row = nextRow();
+        blackhole.consume(evaluator.apply("id", ids[row]));
+        blackhole.consume(evaluator.apply("price", prices[row]));
+        blackhole.consume(evaluator.apply("state", states[row]));
+    }
+
+    @Benchmark
+    public void markerPerValue(Blackhole blackhole)
+            throws Exception
+    {
+        int row = nextRow();
+        blackhole.consume(applyWithMarker("id", BIGINT, ids[row]));
+        blackhole.consume(applyWithMarker("price", FLOAT8, prices[row]));
+        blackhole.consume(applyWithMarker("state", VARCHAR, states[row]));
+    }
+
+    private boolean applyWithMarker(String field, ArrowType type, Object value)
+            throws Exception
+    {
+        try (Marker marker = markerFactory.createNullable(type, value, Marker.Bound.EXACTLY)) {
+            return summary.get(field).containsValue(marker);
+        }
+    }
+
+    private int nextRow()
+    {
+        next = (next + 1) & (NUM_ROWS - 1);
+        return next;
+    }
+}
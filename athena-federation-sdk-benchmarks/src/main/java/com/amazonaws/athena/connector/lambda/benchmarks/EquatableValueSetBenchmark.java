@@ -0,0 +1,130 @@
+package com.amazonaws.athena.connector.lambda.benchmarks;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.util.Text;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a single EquatableValueSet membership probe (e.g. evaluating col IN (...) for one row) as the
+ * number of literals in the whitelist grows. With the hash index the per-probe cost should stay flat across setSize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class EquatableValueSetBenchmark
+{
+    //Number of distinct probe values we cycle through, half of which are members of the set.
+    private static final int NUM_PROBES = 1024;
+
+    @Param({"10", "1000", "10000"})
+    public int setSize;
+
+    private BlockAllocatorImpl allocator;
+    private EquatableValueSet bigIntSet;
+    private EquatableValueSet varcharSet;
+    private long[] longProbes;
+    private String[] stringProbes;
+    private Text[] textProbes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        EquatableValueSet.Builder bigIntBuilder = EquatableValueSet.newBuilder(allocator, Types.MinorType.BIGINT.getType(), true, false);
+        EquatableValueSet.Builder varcharBuilder = EquatableValueSet.newBuilder(allocator, Types.MinorType.VARCHAR.getType(), true, false);
+        for (long i = 0; i < setSize; i++) {
+            bigIntBuilder.add(i * 2);
+            varcharBuilder.add("customer_" + (i * 2));
+        }
+        bigIntSet = bigIntBuilder.build();
+        varcharSet = varcharBuilder.build();
+
+        longProbes = new long[NUM_PROBES];
+        stringProbes = new String[NUM_PROBES];
+        textProbes = new Text[NUM_PROBES];
+        for (int i = 0; i < NUM_PROBES; i++) {
+            //Spread the probes over the whole set so that a linear scan can't get lucky on the first few rows.
+            long probe = ((long) i * setSize * 2 / NUM_PROBES) + (i % 2);
+            longProbes[i] = probe;
+            stringProbes[i] = "customer_" + probe;
+            textProbes[i] = new Text(stringProbes[i]);
+        }
+
+        //Build the lazy indexes outside of the measurement.
+        bigIntSet.containsValue(0L);
+        varcharSet.containsValue("");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception
+    {
+        bigIntSet.close();
+        varcharSet.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public boolean bigIntContainsValue()
+    {
+        return bigIntSet.containsValue(longProbes[nextProbe()]);
+    }
+
+    @Benchmark
+    public boolean varcharContainsString()
+    {
+        return varcharSet.containsValue(stringProbes[nextProbe()]);
+    }
+
+    @Benchmark
+    public boolean varcharContainsText()
+    {
+        return varcharSet.containsValue(textProbes[nextProbe()]);
+    }
+
+    private int nextProbe()
+    {
+        next = (next + 1) & (NUM_PROBES - 1);
+        return next;
+    }
+}
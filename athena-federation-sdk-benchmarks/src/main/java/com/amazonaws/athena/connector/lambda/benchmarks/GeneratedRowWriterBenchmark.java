@@ -0,0 +1,230 @@
+package com.amazonaws.athena.connector.lambda.benchmarks;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BigIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BitExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateDayExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateMilliExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DecimalExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float4Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float8Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.IntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.SmallIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.TinyIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarBinaryExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarCharExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableDecimalHolder;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarBinaryHolder;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarCharHolder;
+import org.apache.arrow.vector.holders.NullableBigIntHolder;
+import org.apache.arrow.vector.holders.NullableBitHolder;
+import org.apache.arrow.vector.holders.NullableDateDayHolder;
+import org.apache.arrow.vector.holders.NullableDateMilliHolder;
+import org.apache.arrow.vector.holders.NullableFloat4Holder;
+import org.apache.arrow.vector.holders.NullableFloat8Holder;
+import org.apache.arrow.vector.holders.NullableIntHolder;
+import org.apache.arrow.vector.holders.NullableSmallIntHolder;
+import org.apache.arrow.vector.holders.NullableTinyIntHolder;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures GeneratedRowWriter.writeRow with an Extractor for every supported field writer type. Each invocation writes
+ * NUM_ROWS rows into a new Block, the extractors read from pre-built arrays so we only measure the row writer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class GeneratedRowWriterBenchmark
+{
+    private static final int NUM_ROWS = 1024;
+
+    private BlockAllocatorImpl allocator;
+    private Schema schema;
+    private GeneratedRowWriter rowWriter;
+    private final RowContext context = new RowContext();
+    private boolean[] bits;
+    private byte[] tinyInts;
+    private short[] smallInts;
+    private int[] ints;
+    private long[] longs;
+    private float[] floats;
+    private double[] doubles;
+    private BigDecimal[] decimals;
+    private int[] days;
+    private long[] millis;
+    private String[] strings;
+    private byte[][] binaries;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        schema = SchemaBuilder.newBuilder()
+                .addBitField("bit")
+                .addTinyIntField("tinyint")
+                .addSmallIntField("smallint")
+                .addIntField("int")
+                .addBigIntField("bigint")
+                .addFloat4Field("float4")
+                .addFloat8Field("float8")
+                .addDecimalField("decimal", 18, 2)
+                .addDateDayField("dateday")
+                .addDateMilliField("datemilli")
+                .addStringField("varchar")
+                .addField("varbinary", Types.MinorType.VARBINARY.getType())
+                .build();
+
+        //Fixed seed so every run (and every commit) measures the same data.
+        Random random = new Random(42);
+        bits = new boolean[NUM_ROWS];
+        tinyInts = new byte[NUM_ROWS];
+        smallInts = new short[NUM_ROWS];
+        ints = new int[NUM_ROWS];
+        longs = new long[NUM_ROWS];
+        floats = new float[NUM_ROWS];
+        doubles = new double[NUM_ROWS];
+        decimals = new BigDecimal[NUM_ROWS];
+        days = new int[NUM_ROWS];
+        millis = new long[NUM_ROWS];
+        strings = new String[NUM_ROWS];
+        binaries = new byte[NUM_ROWS][];
+        for (int i = 0; i < NUM_ROWS; i++) {
+            bits[i] = random.nextBoolean();
+            tinyInts[i] = (byte) random.nextInt();
+            smallInts[i] = (short) random.nextInt();
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            floats[i] = random.nextFloat();
+            doubles[i] = random.nextDouble();
+            decimals[i] = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            days[i] = random.nextInt(20_000);
+            millis[i] = days[i] * 86_400_000L + random.nextInt(86_400_000);
+            strings[i] = "customer_" + random.nextInt(1_000_000);
+            binaries[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        rowWriter = GeneratedRowWriter.newBuilder()
+                .withExtractor("bit", (BitExtractor) (Object ctx, NullableBitHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = bits[((RowContext) ctx).row] ? 1 : 0;
+                })
+                .withExtractor("tinyint", (TinyIntExtractor) (Object ctx, NullableTinyIntHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = tinyInts[((RowContext) ctx).row];
+                })
+                .withExtractor("smallint", (SmallIntExtractor) (Object ctx, NullableSmallIntHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = smallInts[((RowContext) ctx).row];
+                })
+                .withExtractor("int", (IntExtractor) (Object ctx, NullableIntHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = ints[((RowContext) ctx).row];
+                })
+                .withExtractor("bigint", (BigIntExtractor) (Object ctx, NullableBigIntHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = longs[((RowContext) ctx).row];
+                })
+                .withExtractor("float4", (Float4Extractor) (Object ctx, NullableFloat4Holder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = floats[((RowContext) ctx).row];
+                })
+                .withExtractor("float8", (Float8Extractor) (Object ctx, NullableFloat8Holder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = doubles[((RowContext) ctx).row];
+                })
+                .withExtractor("decimal", (DecimalExtractor) (Object ctx, NullableDecimalHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = decimals[((RowContext) ctx).row];
+                })
+                .withExtractor("dateday", (DateDayExtractor) (Object ctx, NullableDateDayHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = days[((RowContext) ctx).row];
+                })
+                .withExtractor("datemilli", (DateMilliExtractor) (Object ctx, NullableDateMilliHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = millis[((RowContext) ctx).row];
+                })
+                .withExtractor("varchar", (VarCharExtractor) (Object ctx, NullableVarCharHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = strings[((RowContext) ctx).row];
+                })
+                .withExtractor("varbinary", (VarBinaryExtractor) (Object ctx, NullableVarBinaryHolder dst) -> {
+                    dst.isSet = 1;
+                    dst.value = binaries[((RowContext) ctx).row];
+                })
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Benchmark
+    public void writeRow(Blackhole blackhole)
+            throws Exception
+    {
+        try (Block block = allocator.createBlock(schema)) {
+            for (int i = 0; i < NUM_ROWS; i++) {
+                context.row = i;
+                rowWriter.writeRow(block, i, context);
+            }
+            block.setRowCount(NUM_ROWS);
+            blackhole.consume(block.getRowCount());
+        }
+    }
+
+    /**
+     * Mutable context handed to the extractors so that we don't box a row index per row.
+     */
+    private static class RowContext
+    {
+        private int row;
+    }
+}
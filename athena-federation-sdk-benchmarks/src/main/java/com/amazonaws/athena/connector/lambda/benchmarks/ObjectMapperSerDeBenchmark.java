@@ -0,0 +1,119 @@
+package com.amazonaws.athena.connector.lambda.benchmarks;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsResponse;
+import com.amazonaws.athena.connector.lambda.request.FederationResponse;
+import com.amazonaws.athena.connector.lambda.serde.VersionedObjectMapperFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serializing and deserializing a ReadRecordsResponse with an inline Block (the largest message a connector
+ * normally returns to Athena) using the ObjectMapper of each supported SerDe version.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class ObjectMapperSerDeBenchmark
+{
+    private static final int NUM_ROWS = 1024;
+
+    @Param({"2", "3", "4", "5", "6"})
+    public int serDeVersion;
+
+    private BlockAllocatorImpl allocator;
+    private ObjectMapper mapper;
+    private ReadRecordsResponse response;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup()
+            throws Exception
+    {
+        allocator = new BlockAllocatorImpl();
+        mapper = VersionedObjectMapperFactory.create(allocator, serDeVersion);
+
+        //Fixed seed so every run (and every commit) measures the same data.
+        Random random = new Random(42);
+        Block block = allocator.createBlock(SchemaBuilder.newBuilder()
+                .addBigIntField("id")
+                .addFloat8Field("price")
+                .addStringField("name")
+                .addDateDayField("day")
+                .build());
+        for (int i = 0; i < NUM_ROWS; i++) {
+            BlockUtils.setValue(block.getFieldVector("id"), i, random.nextLong());
+            BlockUtils.setValue(block.getFieldVector("price"), i, random.nextDouble());
+            BlockUtils.setValue(block.getFieldVector("name"), i, "customer_" + random.nextInt(1_000_000));
+            BlockUtils.setValue(block.getFieldVector("day"), i, (long) random.nextInt(20_000));
+        }
+        block.setRowCount(NUM_ROWS);
+        response = new ReadRecordsResponse("catalog", block);
+        serialized = mapper.writeValueAsBytes(response);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception
+    {
+        response.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public byte[] serialize()
+            throws Exception
+    {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public int deserialize()
+            throws Exception
+    {
+        try (FederationResponse result = mapper.readValue(serialized, FederationResponse.class)) {
+            return ((ReadRecordsResponse) result).getRecordCount();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.amazonaws.athena.connector.lambda.benchmarks;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.SpillConfig;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures S3BlockSpiller.writeRows end to end: each invocation writes NUM_ROWS rows, 100 rows per call, through a new
+ * spiller which serializes, (optionally) encrypts and puts every full Block to an S3Client that discards what it
+ * receives. This covers the Block bookkeeping, Arrow serialization and crypto costs without any network time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class S3BlockSpillerBenchmark
+{
+    private static final int NUM_ROWS = 100_000;
+    private static final int ROWS_PER_CALL = 100;
+    private static final long MAX_BLOCK_BYTES = 1024 * 1024;
+
+    @Param({"false", "true"})
+    public boolean encrypted;
+
+    @Param({"0", "4"})
+    public int spillThreads;
+
+    private Schema schema;
+    private SpillConfig spillConfig;
+    private final DiscardingS3Client s3 = new DiscardingS3Client();
+    private long[] ids;
+    private double[] prices;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        schema = SchemaBuilder.newBuilder()
+                .addBigIntField("id")
+                .addFloat8Field("price")
+                .addStringField("name")
+                .build();
+
+        //Fixed seed so every run (and every commit) measures the same data.
+        Random random = new Random(42);
+        EncryptionKey key = null;
+        if (encrypted) {
+            byte[] keyBytes = new byte[32];
+            byte[] nonce = new byte[12];
+            random.nextBytes(keyBytes);
+            random.nextBytes(nonce);
+            key = new EncryptionKey(keyBytes, nonce);
+        }
+        spillConfig = SpillConfig.newBuilder()
+                .withEncryptionKey(key)
+                .withRequestId("benchmark")
+                .withSpillLocation(S3SpillLocation.newBuilder()
+                        .withBucket("bucket")
+                        .withPrefix("prefix")
+                        .withQueryId("benchmark")
+                        .withSplitId("split")
+                        .withIsDirectory(true)
+                        .build())
+                .withMaxBlockBytes(MAX_BLOCK_BYTES)
+                .withMaxInlineBlockBytes(0)
+                .withNumSpillThreads(spillThreads)
+                .build();
+
+        ids = new long[ROWS_PER_CALL];
+        prices = new double[ROWS_PER_CALL];
+        names = new String[ROWS_PER_CALL];
+        for (int i = 0; i < ROWS_PER_CALL; i++) {
+            ids[i] = random.nextLong();
+            prices[i] = random.nextDouble();
+            names[i] = "customer_" + random.nextInt(1_000_000);
+        }
+    }
+
+    @Benchmark
+    public void writeRows(Blackhole blackhole)
+    {
+        try (BlockAllocatorImpl allocator = new BlockAllocatorImpl();
+                S3BlockSpiller spiller = new S3BlockSpiller(s3, spillConfig, allocator, schema,
+                        ConstraintEvaluator.emptyEvaluator(), Collections.emptyMap())) {
+            for (int written = 0; written < NUM_ROWS; written += ROWS_PER_CALL) {
+                spiller.writeRows((block, rowNum) -> {
+                    for (int i = 0; i < ROWS_PER_CALL; i++) {
+                        BlockUtils.setValue(block.getFieldVector("id"), rowNum + i, ids[i]);
+                        BlockUtils.setValue(block.getFieldVector("price"), rowNum + i, prices[i]);
+                        BlockUtils.setValue(block.getFieldVector("name"), rowNum + i, names[i]);
+                    }
+                    return ROWS_PER_CALL;
+                });
+            }
+            blackhole.consume(spiller.getSpillLocations());
+        }
+        blackhole.consume(s3.getBytesReceived());
+    }
+
+    /**
+     * S3Client which reads and discards the body of each put, so we pay for producing the bytes but not for storing them.
+     */
+    private static class DiscardingS3Client
+            implements S3Client
+    {
+        private final AtomicLong bytesReceived = new AtomicLong();
+
+        long getBytesReceived()
+        {
+            return bytesReceived.get();
+        }
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body)
+        {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    total += read;
+                }
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            bytesReceived.addAndGet(total);
+            return PutObjectResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName()
+        {
+            return "s3";
+        }
+
+        @Override
+        public void close()
+        {
+            //NoOp
+        }
+    }
+}
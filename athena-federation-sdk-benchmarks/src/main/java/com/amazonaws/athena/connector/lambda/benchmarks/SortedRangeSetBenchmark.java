@@ -0,0 +1,129 @@
+package com.amazonaws.athena.connector.lambda.benchmarks;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a single SortedRangeSet membership probe (e.g. evaluating a range predicate for one row) as the
+ * number of disjoint ranges in the set grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class SortedRangeSetBenchmark
+{
+    //Number of distinct probe values we cycle through, roughly half of which fall inside a range.
+    private static final int NUM_PROBES = 1024;
+    private static final ArrowType BIGINT = Types.MinorType.BIGINT.getType();
+    private static final ArrowType VARCHAR = Types.MinorType.VARCHAR.getType();
+
+    @Param({"1", "10", "1000"})
+    public int numRanges;
+
+    private BlockAllocatorImpl allocator;
+    private SortedRangeSet bigIntSet;
+    private SortedRangeSet varcharSet;
+    private Long[] longProbes;
+    private String[] stringProbes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        //Ranges [i * 100, i * 100 + 50) for i in [0, numRanges).
+        List<Range> bigIntRanges = new ArrayList<>();
+        List<Range> varcharRanges = new ArrayList<>();
+        for (long i = 0; i < numRanges; i++) {
+            bigIntRanges.add(Range.range(allocator, BIGINT, i * 100, true, i * 100 + 50, false));
+            varcharRanges.add(Range.range(allocator, VARCHAR, key(i * 100), true, key(i * 100 + 50), false));
+        }
+        bigIntSet = SortedRangeSet.of(false, bigIntRanges.get(0), bigIntRanges.subList(1, bigIntRanges.size()));
+        varcharSet = SortedRangeSet.of(false, varcharRanges.get(0), varcharRanges.subList(1, varcharRanges.size()));
+
+        longProbes = new Long[NUM_PROBES];
+        stringProbes = new String[NUM_PROBES];
+        for (int i = 0; i < NUM_PROBES; i++) {
+            //Spread the probes over the whole set so that no range is favoured.
+            long probe = (long) i * numRanges * 100 / NUM_PROBES;
+            longProbes[i] = probe;
+            stringProbes[i] = key(probe);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception
+    {
+        bigIntSet.close();
+        varcharSet.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public boolean bigIntContainsValue()
+    {
+        return bigIntSet.containsValue(longProbes[nextProbe()]);
+    }
+
+    @Benchmark
+    public boolean varcharContainsValue()
+    {
+        return varcharSet.containsValue(stringProbes[nextProbe()]);
+    }
+
+    private int nextProbe()
+    {
+        next = (next + 1) & (NUM_PROBES - 1);
+        return next;
+    }
+
+    //Zero padded so that string order matches numeric order.
+    private static String key(long value)
+    {
+        return String.format("customer_%010d", value);
+    }
+}
@@ -0,0 +1,145 @@
+package com.amazonaws.athena.connector.lambda.data;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent spill writes, adapting the limit to the observed latency of those writes.
+ * <p>
+ * Latency is normalized by the size of the write (with a floor so that the fixed cost of small writes does not look
+ * like congestion) and compared against the best latency seen recently. While writes complete close to that baseline
+ * S3 is keeping up, so the limit grows additively (by roughly one per limit's worth of writes). When latency climbs
+ * well above the baseline, extra concurrency is only adding queueing, so the limit shrinks multiplicatively. A failed
+ * write (e.g. S3 throttling) halves the limit.
+ */
+class AdaptiveSpillConcurrency
+{
+    //Writes smaller than this are treated as if they were this size when normalizing latency.
+    private static final long MIN_NORMALIZED_BYTES = 1024 * 1024;
+    //Latency above this multiple of the baseline is treated as congestion.
+    private static final double CONGESTION_THRESHOLD = 2.0D;
+    //How much the limit shrinks by on congestion.
+    private static final double BACKOFF_FACTOR = 0.75D;
+    //The baseline slowly forgets old samples so that we can recover from a lucky early write.
+    private static final double BASELINE_DECAY = 1.01D;
+
+    private final int maxConcurrency;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private double baselineNanosPerByte = Double.MAX_VALUE;
+
+    /**
+     * @param maxConcurrency The upper bound on the limit, this is also the initial limit.
+     */
+    AdaptiveSpillConcurrency(int maxConcurrency)
+    {
+        if (maxConcurrency <= 0) {
+            throw new AthenaConnectorException("maxConcurrency must be > 0 but was " + maxConcurrency, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.limit = maxConcurrency;
+    }
+
+    /**
+     * Blocks until the number of in flight writes is below the current limit.
+     */
+    void acquire()
+    {
+        lock.lock();
+        try {
+            while (inFlight >= getLimitLocked()) {
+                permitReleased.await();
+            }
+            inFlight++;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AthenaConnectorException(ex, "Interrupted while waiting to spill.", ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit obtained from acquire() and feeds the outcome of the write into the limit.
+     *
+     * @param elapsedNanos How long the write took.
+     * @param bytes The number of bytes written.
+     * @param success True if the write succeeded, false otherwise.
+     */
+    void release(long elapsedNanos, long bytes, boolean success)
+    {
+        lock.lock();
+        try {
+            inFlight--;
+            if (!success) {
+                limit = Math.max(1.0D, limit / 2.0D);
+            }
+            else {
+                double sample = (double) elapsedNanos / Math.max(bytes, MIN_NORMALIZED_BYTES);
+                baselineNanosPerByte = Math.min(baselineNanosPerByte * BASELINE_DECAY, sample);
+                if (sample > baselineNanosPerByte * CONGESTION_THRESHOLD) {
+                    limit = Math.max(1.0D, limit * BACKOFF_FACTOR);
+                }
+                else {
+                    limit = Math.min(maxConcurrency, limit + 1.0D / limit);
+                }
+            }
+            permitReleased.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The current number of concurrent writes allowed.
+     */
+    int getLimit()
+    {
+        lock.lock();
+        try {
+            return getLimitLocked();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    int getMaxConcurrency()
+    {
+        return maxConcurrency;
+    }
+
+    private int getLimitLocked()
+    {
+        return (int) limit;
+    }
+}
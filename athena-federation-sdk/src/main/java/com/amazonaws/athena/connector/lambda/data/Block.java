@@ -20,6 +20,7 @@ package com.amazonaws.athena.connector.lambda.data;
  * #L%
  */
 
+import com.amazonaws.athena.connector.lambda.data.compression.BlockCompressionCodecFactory;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.google.common.base.MoreObjects;
 import org.apache.arrow.vector.FieldVector;
@@ -27,6 +28,7 @@ import org.apache.arrow.vector.VectorLoader;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.VectorUnloader;
 import org.apache.arrow.vector.complex.reader.FieldReader;
+import org.apache.arrow.vector.compression.CompressionCodec;
 import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Field;
@@ -336,6 +338,19 @@ public class Block
         return vectorUnloader.getRecordBatch();
     }
 
+    /**
+     * Used to unload the Apache Arrow data in this Block in preparation for Serialization, compressing the body
+     * buffers with the supplied codec.
+     *
+     * @param codec The CompressionCodec to use for the body buffers of the batch.
+     * @return An ArrowRecordBatch containing all row data in this Block for use in serializing the Block.
+     */
+    public ArrowRecordBatch getRecordBatch(CompressionCodec codec)
+    {
+        VectorUnloader vectorUnloader = new VectorUnloader(vectorSchema, true, codec, true);
+        return vectorUnloader.getRecordBatch();
+    }
+
     /**
      * Used to load Apache Arrow data into this Block after it has been deserialized.
      *
@@ -343,10 +358,12 @@ public class Block
      * @note The batch is closed after being loaded to avoid memory leaks or data corruption since the buffers
      * associated with the batch are now owned by this Block. Closing the batch essentially decrements the referrence
      * count in the Arrow Allocator.
+     * @note Batches whose body buffers were compressed with any codec supported by BlockCompressionCodecFactory are
+     * decompressed as they are loaded.
      */
     public void loadRecordBatch(ArrowRecordBatch batch)
     {
-        VectorLoader vectorLoader = new VectorLoader(vectorSchema);
+        VectorLoader vectorLoader = new VectorLoader(vectorSchema, BlockCompressionCodecFactory.INSTANCE);
         vectorLoader.load(batch);
         batch.close();
     }
@@ -37,8 +37,12 @@ import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Basic BlockAllocator which uses reference counting to perform garbage collection of Apache Arrow resources.
@@ -55,14 +59,18 @@ public class BlockAllocatorImpl
     //The Apache Arrow Buffer Allocator that we are wrapping with reference counting and clean up.
     private final BufferAllocator rootAllocator;
     private final boolean ownRootAllocator;
-    //The Blocks that have been allocated via this BlockAllocator
-    private final List<Block> blocks = new ArrayList<>();
+    //The Blocks that have been allocated via this BlockAllocator, registration is lock-free so that threads
+    //writing Blocks in parallel don't contend with each other.
+    private final Queue<Block> blocks = new ConcurrentLinkedQueue<>();
     //The record batches that have been allocated via this BlockAllocator
-    private final List<ArrowRecordBatch> recordBatches = new ArrayList<>();
+    private final Queue<ArrowRecordBatch> recordBatches = new ConcurrentLinkedQueue<>();
     //The arrow buffers that have been allocated via this BlockAllocator
-    private final List<ArrowBuf> arrowBufs = new ArrayList<>();
+    private final Queue<ArrowBuf> arrowBufs = new ConcurrentLinkedQueue<>();
     //Flag inficating if this allocator has been closed.
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
+    //Held shared while registering resources and exclusively while closing, so that registration stays concurrent
+    //but nothing can be registered (and leaked) after close() has released the registered resources.
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
 
     /**
      * Default constructor.
@@ -116,17 +124,36 @@ public class BlockAllocatorImpl
         this.id = id;
     }
 
+    /**
+     * Constructs a BlockAllocatorImpl with the given id which allocates from its own child of the given, typically
+     * long lived, allocator. This lets the parent's memory (e.g. a pool, see PooledAllocationManagerFactory) be reused
+     * across BlockAllocators while still accounting for what this one allocated, any memory left allocated when it is
+     * closed is logged as leaked.
+     *
+     * @param id The id used to identify this BlockAllocatorImpl
+     * @param parentAllocator The allocator to create this BlockAllocatorImpl's allocator from.
+     * @param memoryLimit The max memory, in bytes, that this BlockAllocator is allows to use.
+     */
+    public BlockAllocatorImpl(String id, BufferAllocator parentAllocator, long memoryLimit)
+    {
+        this.rootAllocator = parentAllocator.newChildAllocator(id, 0, memoryLimit);
+        this.ownRootAllocator = true;
+        this.id = id;
+    }
+
     /**
      * Creates a block and registers it for later clean up if the block isn't explicitly closed by the caller.
      *
      * @see com.amazonaws.athena.connector.lambda.data.BlockAllocator
      */
-    public synchronized Block createBlock(Schema schema)
+    public Block createBlock(Schema schema)
     {
         Block block = null;
         VectorSchemaRoot vectorSchemaRoot = null;
         List<FieldVector> vectors = new ArrayList();
+        closeLock.readLock().lock();
         try {
+            checkNotClosed();
             for (Field next : schema.getFields()) {
                 vectors.add(next.createVector(rootAllocator));
             }
@@ -154,6 +181,9 @@ public class BlockAllocatorImpl
 
             throw ex;
         }
+        finally {
+            closeLock.readLock().unlock();
+        }
         return block;
     }
 
@@ -165,7 +195,9 @@ public class BlockAllocatorImpl
     public ArrowBuf createBuffer(int size)
     {
         ArrowBuf buffer = null;
+        closeLock.readLock().lock();
         try {
+            checkNotClosed();
             buffer = rootAllocator.buffer(size);
             arrowBufs.add(buffer);
             return buffer;
@@ -176,6 +208,9 @@ public class BlockAllocatorImpl
             }
             throw ex;
         }
+        finally {
+            closeLock.readLock().unlock();
+        }
     }
 
     /**
@@ -184,12 +219,16 @@ public class BlockAllocatorImpl
      *
      * @see com.amazonaws.athena.connector.lambda.data.BlockAllocator
      */
-    public synchronized ArrowRecordBatch registerBatch(BatchGenerator generator)
+    public ArrowRecordBatch registerBatch(BatchGenerator generator)
     {
+        closeLock.readLock().lock();
         try {
+            checkNotClosed();
             logger.debug("registerBatch: {}", recordBatches.size());
             ArrowRecordBatch batch = generator.generate(getRawAllocator());
-            recordBatches.add(batch);
+            if (batch != null) {
+                recordBatches.add(batch);
+            }
             return batch;
         }
         catch (org.apache.arrow.memory.OutOfMemoryException ex) {
@@ -202,6 +241,17 @@ public class BlockAllocatorImpl
         catch (Exception ex) {
             throw new AthenaConnectorException(ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
         }
+        finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private void checkNotClosed()
+    {
+        if (isClosed.get()) {
+            throw new AthenaConnectorException("BlockAllocator " + id + " is closed",
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
     }
 
     /**
@@ -209,7 +259,7 @@ public class BlockAllocatorImpl
      *
      * @see com.amazonaws.athena.connector.lambda.data.BlockAllocator
      */
-    protected synchronized BufferAllocator getRawAllocator()
+    protected BufferAllocator getRawAllocator()
     {
         logger.debug("getRawAllocator: enter");
         return rootAllocator;
@@ -222,7 +272,8 @@ public class BlockAllocatorImpl
     protected synchronized void closeBlocks()
     {
         logger.debug("closeBlocks: {}", blocks.size());
-        for (Block next : blocks) {
+        Block next;
+        while ((next = blocks.poll()) != null) {
             try {
                 next.close();
             }
@@ -230,7 +281,6 @@ public class BlockAllocatorImpl
                 logger.warn("closeBlocks: Error closing block", ex);
             }
         }
-        blocks.clear();
     }
 
     /**
@@ -240,7 +290,8 @@ public class BlockAllocatorImpl
     protected synchronized void closeBuffers()
     {
         logger.debug("closeBuffers: {}", arrowBufs.size());
-        for (ArrowBuf next : arrowBufs) {
+        ArrowBuf next;
+        while ((next = arrowBufs.poll()) != null) {
             try {
                 next.close();
             }
@@ -248,7 +299,6 @@ public class BlockAllocatorImpl
                 logger.warn("closeBuffers: Error closing buffer", ex);
             }
         }
-        arrowBufs.clear();
     }
 
     /**
@@ -258,7 +308,8 @@ public class BlockAllocatorImpl
     protected synchronized void closeBatches()
     {
         logger.debug("closeBatches: {}", recordBatches.size());
-        for (ArrowRecordBatch next : recordBatches) {
+        ArrowRecordBatch next;
+        while ((next = recordBatches.poll()) != null) {
             try {
                 next.close();
             }
@@ -266,7 +317,6 @@ public class BlockAllocatorImpl
                 logger.warn("closeBatches: Error closing batch", ex);
             }
         }
-        recordBatches.clear();
     }
 
     /**
@@ -291,16 +341,25 @@ public class BlockAllocatorImpl
     @Override
     public synchronized void close()
     {
-        if (!isClosed.get()) {
-            isClosed.set(true);
-            closeBatches();
-            closeBlocks();
-            closeBuffers();
-            // Do not close rootAllocators that we do not own
-            if (ownRootAllocator) {
-                rootAllocator.close();
+        closeLock.writeLock().lock();
+        try {
+            if (!isClosed.get()) {
+                isClosed.set(true);
+                closeBatches();
+                closeBlocks();
+                closeBuffers();
+                // Do not close rootAllocators that we do not own
+                if (ownRootAllocator) {
+                    if (rootAllocator.getAllocatedMemory() > 0) {
+                        logger.warn("close: {} leaked {} bytes", id, rootAllocator.getAllocatedMemory());
+                    }
+                    rootAllocator.close();
+                }
             }
         }
+        finally {
+            closeLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -19,7 +19,9 @@
  */
 package com.amazonaws.athena.connector.lambda.data;
 
+import com.amazonaws.athena.connector.lambda.data.writers.VectorBatchWriter;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import org.apache.arrow.vector.VectorSchemaRoot;
 
 /**
  * Defines an abstraction that can be used to write to a Block without owning the lifecycle of the
@@ -55,6 +57,21 @@ public interface BlockWriter
      */
     void writeRows(RowWriter rowWriter);
 
+    /**
+     * Used to write rows which are already held in Apache Arrow vectors, for example batches read from Parquet files or
+     * the BigQuery Storage API. Matching rows are copied a column at a time rather than offered to the Block one value
+     * at a time.
+     *
+     * @param batch The batch whose rows should be written.
+     * @param numRows The number of rows, from the start of the batch, to write.
+     * @param batchWriter The VectorBatchWriter which maps the batch's fields onto the Block(s) being written.
+     * @see VectorBatchWriter
+     */
+    default void writeBatch(VectorSchemaRoot batch, int numRows, VectorBatchWriter batchWriter)
+    {
+        batchWriter.write(this, batch, numRows);
+    }
+
     /**
      * Provides access to the ConstraintEvaluator that will be applied to the generated Blocks.
      */
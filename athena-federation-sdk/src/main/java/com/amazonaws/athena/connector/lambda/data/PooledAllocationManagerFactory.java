@@ -0,0 +1,199 @@
+package com.amazonaws.athena.connector.lambda.data;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.netty.buffer.PooledByteBufAllocator;
+import org.apache.arrow.memory.AllocationManager;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.netty.NettyAllocationManager;
+import org.apache.arrow.memory.util.MemoryUtil;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Apache Arrow AllocationManager.Factory which keeps the memory of released large buffers in size-class free lists
+ * so it can be handed out again instead of going back to the OS.
+ * <p>
+ * Arrow's default (Netty) allocation manager already pools small buffers in its arenas, but buffers larger than a
+ * Netty chunk are allocated and freed natively every time, and these are the data buffers of the large Blocks
+ * connectors write. Buffers of at least minPooledSize bytes are therefore rounded up to a power of two and served
+ * from the free list of that size class, while smaller buffers are delegated to Netty. The free lists are lock-free
+ * queues so allocating and releasing buffers doesn't contend on a lock, and at most maxPooledBytes of idle memory is
+ * kept, anything released beyond that is freed.
+ * <p>
+ * The pool lives as long as the RootAllocator using it, which is meant to be shared by all the BlockAllocators of a
+ * container (see BlockAllocatorImpl(String, BufferAllocator, long)) so that warm invocations reuse the memory of
+ * previous ones. Note that recycled memory is not zeroed, exactly like Netty's, Arrow's vectors zero what they need.
+ */
+public class PooledAllocationManagerFactory
+        implements AllocationManager.Factory
+{
+    //Buffers up to Netty's chunk size are allocated by Netty which already pools them.
+    public static final long DEFAULT_MIN_POOLED_SIZE =
+            ((long) PooledByteBufAllocator.defaultPageSize() << PooledByteBufAllocator.defaultMaxOrder()) + 1;
+
+    private final AllocationManager.Factory delegate = NettyAllocationManager.FACTORY;
+    private final long minPooledSize;
+    private final long maxPooledBytes;
+    @SuppressWarnings("unchecked")
+    private final Queue<Long>[] freeLists = new Queue[Long.SIZE];
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param minPooledSize The size, in bytes, from which buffers are pooled.
+     * @param maxPooledBytes The maximum bytes of idle memory to keep pooled.
+     */
+    public PooledAllocationManagerFactory(long minPooledSize, long maxPooledBytes)
+    {
+        this.minPooledSize = minPooledSize;
+        this.maxPooledBytes = maxPooledBytes;
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    @Override
+    public AllocationManager create(BufferAllocator accountingAllocator, long size)
+    {
+        if (size < minPooledSize) {
+            return delegate.create(accountingAllocator, size);
+        }
+
+        long classSize = Long.highestOneBit(size - 1) << 1;
+        Long address = freeLists[sizeClass(classSize)].poll();
+        if (address != null) {
+            pooledBytes.addAndGet(-classSize);
+            hits.incrementAndGet();
+        }
+        else {
+            address = MemoryUtil.allocateMemory(classSize);
+            misses.incrementAndGet();
+        }
+        return new PooledAllocationManager(accountingAllocator, address, size, classSize);
+    }
+
+    @Override
+    public ArrowBuf empty()
+    {
+        return delegate.empty();
+    }
+
+    /**
+     * @return The bytes of idle memory currently pooled.
+     */
+    public long getPooledBytes()
+    {
+        return pooledBytes.get();
+    }
+
+    /**
+     * @return The number of allocations served from the pool.
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of pooled size allocations which had to allocate new memory.
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Frees all the idle memory in the pool.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < freeLists.length; i++) {
+            Long address;
+            while ((address = freeLists[i].poll()) != null) {
+                pooledBytes.addAndGet(-(1L << i));
+                MemoryUtil.freeMemory(address);
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PooledAllocationManagerFactory{pooledBytes=" + pooledBytes.get() + ", hits=" + hits.get() +
+                ", misses=" + misses.get() + "}";
+    }
+
+    private void release(long address, long classSize)
+    {
+        if (pooledBytes.addAndGet(classSize) <= maxPooledBytes) {
+            freeLists[sizeClass(classSize)].offer(address);
+        }
+        else {
+            pooledBytes.addAndGet(-classSize);
+            MemoryUtil.freeMemory(address);
+        }
+    }
+
+    private static int sizeClass(long classSize)
+    {
+        return Long.numberOfTrailingZeros(classSize);
+    }
+
+    private class PooledAllocationManager
+            extends AllocationManager
+    {
+        private final long address;
+        //The requested size, which is what the allocators account for.
+        private final long size;
+        private final long classSize;
+
+        PooledAllocationManager(BufferAllocator accountingAllocator, long address, long size, long classSize)
+        {
+            super(accountingAllocator);
+            this.address = address;
+            this.size = size;
+            this.classSize = classSize;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return size;
+        }
+
+        @Override
+        protected long memoryAddress()
+        {
+            return address;
+        }
+
+        @Override
+        protected void release0()
+        {
+            release(address, classSize);
+        }
+    }
+}
@@ -20,16 +20,22 @@ package com.amazonaws.athena.connector.lambda.data;
  * #L%
  */
 
+import org.apache.arrow.flatbuf.MessageHeader;
+import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.ipc.ReadChannel;
 import org.apache.arrow.vector.ipc.WriteChannel;
 import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.ipc.message.MessageMetadataResult;
 import org.apache.arrow.vector.ipc.message.MessageSerializer;
 
 import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.nio.channels.Channels;
 
 /**
@@ -40,6 +46,9 @@ import java.nio.channels.Channels;
 @Deprecated
 public class RecordBatchSerDe
 {
+    //Marks the start of an IPC message written in the current (non-legacy) format.
+    private static final int IPC_CONTINUATION_TOKEN = -1;
+
     private final BlockAllocator allocator;
 
     public RecordBatchSerDe(BlockAllocator allocator)
@@ -73,6 +82,8 @@ public class RecordBatchSerDe
      * @param in The byte[] that is expected to contain a serialized ArrowRecordBatch.
      * @return The resulting ArrowRecordBatch if the byte[] contains a valid ArrowRecordBatch.
      * @throws IOException
+     * @note If the batch was written with a compressed body the returned batch still holds the compressed buffers,
+     * they are decompressed when the batch is loaded using Block.loadRecordBatch(...).
      */
     public ArrowRecordBatch deserialize(byte[] in)
             throws IOException
@@ -92,4 +103,67 @@ public class RecordBatchSerDe
             throw ex;
         }
     }
+
+    /**
+     * Attempts to deserialize an ArrowRecordBatch from the provided InputStream, reading no more than the batch itself.
+     *
+     * @param in The InputStream that is expected to start with a serialized ArrowRecordBatch.
+     * @param maxLength The number of bytes available in the InputStream, used to reject a metadata or body length
+     * that can not be valid before any memory is allocated for it.
+     * @return The resulting ArrowRecordBatch if the InputStream contains a valid ArrowRecordBatch.
+     * @throws IOException If reading fails or the InputStream does not start with a valid ArrowRecordBatch.
+     * @note This is used to deserialize as the bytes are decrypted, in which case the header has not been
+     * authenticated yet and a corrupt length must not turn into a huge allocation.
+     */
+    public ArrowRecordBatch deserialize(InputStream in, long maxLength)
+            throws IOException
+    {
+        DataInputStream dataIn = new DataInputStream(in);
+        byte[] header = new byte[8];
+        dataIn.readFully(header, 0, 4);
+        int headerLength = 4;
+        int metadataLength = readIntLittleEndian(header, 0);
+        if (metadataLength == IPC_CONTINUATION_TOKEN) {
+            dataIn.readFully(header, 4, 4);
+            headerLength = 8;
+            metadataLength = readIntLittleEndian(header, 4);
+        }
+
+        if (metadataLength <= 0 || metadataLength > maxLength - headerLength) {
+            throw new IOException("Invalid record batch metadata length " + metadataLength + " for " + maxLength + " bytes");
+        }
+
+        InputStream message = new SequenceInputStream(new ByteArrayInputStream(header, 0, headerLength), in);
+        ReadChannel channel = new ReadChannel(Channels.newChannel(message));
+        MessageMetadataResult metadata = MessageSerializer.readMessage(channel);
+        if (metadata == null || metadata.headerType() != MessageHeader.RecordBatch) {
+            throw new IOException("Expected a record batch message");
+        }
+
+        //The body follows the metadata, it can't be longer than what is left of the InputStream.
+        long bodyLength = metadata.getMessageBodyLength();
+        if (bodyLength < 0 || bodyLength > maxLength - headerLength - metadataLength) {
+            throw new IOException("Invalid record batch body length " + bodyLength + " for " + maxLength + " bytes");
+        }
+
+        return allocator.registerBatch((BufferAllocator root) -> {
+            ArrowBuf body = MessageSerializer.readMessageBody(channel, bodyLength, root);
+            try {
+                //Releases the body once the batch holds its own references to the body's buffers.
+                return MessageSerializer.deserializeRecordBatch(metadata.getMessage(), body);
+            }
+            catch (IOException | RuntimeException ex) {
+                body.close();
+                throw ex;
+            }
+        });
+    }
+
+    private static int readIntLittleEndian(byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xFF)
+                | (bytes[offset + 1] & 0xFF) << 8
+                | (bytes[offset + 2] & 0xFF) << 16
+                | (bytes[offset + 3] & 0xFF) << 24;
+    }
 }
@@ -22,10 +22,10 @@ package com.amazonaws.athena.connector.lambda.data;
 
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
-import com.amazonaws.athena.connector.lambda.security.AesGcmBlockCrypto;
 import com.amazonaws.athena.connector.lambda.security.BlockCrypto;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
 import com.amazonaws.athena.connector.lambda.security.NoOpBlockCrypto;
+import com.amazonaws.athena.connector.lambda.security.SegmentedAesGcmBlockCrypto;
 import com.google.common.io.ByteStreams;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.slf4j.Logger;
@@ -37,7 +37,22 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static java.util.Objects.requireNonNull;
 
@@ -45,6 +60,13 @@ public class S3BlockSpillReader
 {
     private static final Logger logger = LoggerFactory.getLogger(S3BlockSpillReader.class);
 
+    //Number of spilled Blocks that readAll(...) fetches ahead of the caller by default.
+    public static final int DEFAULT_PREFETCH_BLOCKS = 4;
+    //Size of the ranged GETs that readAll(...) splits each spilled Block into by default.
+    public static final long DEFAULT_RANGE_BYTES = 8L * 1024 * 1024;
+    //Number of ranged GETs per spilled Block that may be in flight at the same time.
+    private static final int RANGES_IN_FLIGHT = 4;
+
     private final S3Client amazonS3;
     private final BlockAllocator allocator;
 
@@ -61,6 +83,7 @@ public class S3BlockSpillReader
      * @param key The encryption key to use when reading the spilled Block.
      * @param schema The Schema to use when deserializing the spilled Block.
      * @return The Block stored at the spill location.
+     * @note Blocks spilled with a compression codec (see SpillConfig) are decompressed as they are loaded.
      */
     public Block read(S3SpillLocation spillLocation, EncryptionKey key, Schema schema)
     {
@@ -71,24 +94,17 @@ public class S3BlockSpillReader
                     .bucket(spillLocation.getBucket())
                     .key(spillLocation.getKey())
                     .build());
-            logger.debug("read: Completed reading block from S3");
-            BlockCrypto blockCrypto = (key != null) ? new AesGcmBlockCrypto(allocator) : new NoOpBlockCrypto(allocator);
-            Block block = blockCrypto.decrypt(key, ByteStreams.toByteArray(responseStream), schema);
-            logger.debug("read: Completed decrypting block of size.");
+            //The block is decrypted as it is downloaded rather than after the whole object was buffered.
+            Long length = responseStream.response().contentLength();
+            Block block = makeBlockCrypto(key).decrypt(key, responseStream, (length != null) ? length : -1, schema);
+            logger.debug("read: Completed reading and decrypting block from S3");
             return block;
         }
         catch (IOException ex) {
             throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
         }
         finally {
-            if (responseStream != null) {
-                try {
-                    responseStream.close();
-                }
-                catch (IOException ex) {
-                    logger.warn("read: Exception while closing S3 response stream", ex);
-                }
-            }
+            closeQuietly(responseStream);
         }
     }
 
@@ -109,20 +125,267 @@ public class S3BlockSpillReader
                     .key(spillLocation.getKey())
                     .build());
             logger.debug("read: Completed reading block from S3");
-            BlockCrypto blockCrypto = (key != null) ? new AesGcmBlockCrypto(allocator) : new NoOpBlockCrypto(allocator);
-            return blockCrypto.decrypt(key, ByteStreams.toByteArray(responseStream));
+            return makeBlockCrypto(key).decrypt(key, ByteStreams.toByteArray(responseStream));
         }
         catch (IOException ex) {
             throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
         }
         finally {
-            if (responseStream != null) {
-                try {
-                    responseStream.close();
+            closeQuietly(responseStream);
+        }
+    }
+
+    /**
+     * Reads several spilled blocks, in order, while fetching up to DEFAULT_PREFETCH_BLOCKS of them ahead of the caller.
+     *
+     * @param spillLocations The locations to read the spilled Blocks from.
+     * @param key The encryption key to use when reading the spilled Blocks.
+     * @param schema The Schema to use when deserializing the spilled Blocks.
+     * @return An iterator over the Blocks stored at the spill locations, in the order of the locations.
+     * @see #readAll(List, EncryptionKey, Schema, int, long)
+     */
+    public SpilledBlockIterator readAll(List<S3SpillLocation> spillLocations, EncryptionKey key, Schema schema)
+    {
+        return readAll(spillLocations, key, schema, DEFAULT_PREFETCH_BLOCKS, DEFAULT_RANGE_BYTES);
+    }
+
+    /**
+     * Reads several spilled blocks, in order, while fetching a bounded number of them ahead of the caller. Each
+     * prefetched Block is downloaded using concurrent ranged GETs and decrypted as its ranges arrive.
+     *
+     * @param spillLocations The locations to read the spilled Blocks from.
+     * @param key The encryption key to use when reading the spilled Blocks.
+     * @param schema The Schema to use when deserializing the spilled Blocks.
+     * @param prefetchBlocks The maximum number of Blocks that are fetched, or held, ahead of the caller.
+     * @param rangeBytes The size of the ranged GETs each spilled Block is split into.
+     * @return An iterator over the Blocks stored at the spill locations, in the order of the locations.
+     * @note The caller owns the returned Blocks. Closing the iterator before it is exhausted cancels the outstanding
+     * reads and closes any Blocks that were prefetched but not yet returned.
+     */
+    public SpilledBlockIterator readAll(List<S3SpillLocation> spillLocations, EncryptionKey key, Schema schema,
+            int prefetchBlocks, long rangeBytes)
+    {
+        requireNonNull(spillLocations, "spillLocations was null");
+        requireNonNull(schema, "schema was null");
+        if (prefetchBlocks < 1) {
+            throw new IllegalArgumentException("prefetchBlocks must be at least 1 but was " + prefetchBlocks);
+        }
+        if (rangeBytes < 1) {
+            throw new IllegalArgumentException("rangeBytes must be at least 1 but was " + rangeBytes);
+        }
+        return new SpilledBlockIterator(new ArrayList<>(spillLocations), key, schema, prefetchBlocks, rangeBytes);
+    }
+
+    /**
+     * Downloads and decrypts one spilled Block. The first range is streamed straight into the decrypter while the
+     * following ranges are fetched concurrently, a few at a time, and handed to it in order.
+     */
+    private Block fetch(S3SpillLocation spillLocation, EncryptionKey key, Schema schema, long rangeBytes,
+            ExecutorService rangePool)
+            throws IOException
+    {
+        ResponseInputStream<GetObjectResponse> first = getRange(spillLocation, 0, rangeBytes);
+        try {
+            long length = getObjectLength(first.response());
+            Deque<Future<byte[]>> pending = new ArrayDeque<>();
+            Enumeration<InputStream> ranges = new Enumeration<InputStream>()
+            {
+                private boolean firstReturned = false;
+                private long nextStart = rangeBytes;
+
+                @Override
+                public boolean hasMoreElements()
+                {
+                    return !firstReturned || !pending.isEmpty() || nextStart < length;
                 }
-                catch (IOException ex) {
-                    logger.warn("read: Exception while closing S3 response stream", ex);
+
+                @Override
+                public InputStream nextElement()
+                {
+                    while (pending.size() < RANGES_IN_FLIGHT && nextStart < length) {
+                        long start = nextStart;
+                        pending.add(rangePool.submit(() -> {
+                            try (ResponseInputStream<GetObjectResponse> range = getRange(spillLocation, start, rangeBytes)) {
+                                return ByteStreams.toByteArray(range);
+                            }
+                        }));
+                        nextStart += rangeBytes;
+                    }
+                    if (!firstReturned) {
+                        firstReturned = true;
+                        return first;
+                    }
+                    if (pending.isEmpty()) {
+                        throw new NoSuchElementException();
+                    }
+                    return new ByteArrayInputStream(await(pending.poll()));
                 }
+            };
+
+            try {
+                return makeBlockCrypto(key).decrypt(key, new SequenceInputStream(ranges), length, schema);
+            }
+            finally {
+                pending.forEach(next -> next.cancel(true));
+            }
+        }
+        finally {
+            closeQuietly(first);
+        }
+    }
+
+    private ResponseInputStream<GetObjectResponse> getRange(S3SpillLocation spillLocation, long start, long rangeBytes)
+    {
+        return amazonS3.getObject(GetObjectRequest.builder()
+                .bucket(spillLocation.getBucket())
+                .key(spillLocation.getKey())
+                .range("bytes=" + start + "-" + (start + rangeBytes - 1))
+                .build());
+    }
+
+    /**
+     * Determines the length of the whole object from the response to a ranged GET, which carries it in its
+     * Content-Range header unless the object fit in the requested range.
+     */
+    private static long getObjectLength(GetObjectResponse response)
+    {
+        String contentRange = response.contentRange();
+        if (contentRange != null) {
+            int slash = contentRange.lastIndexOf('/');
+            if (slash >= 0 && !contentRange.endsWith("*")) {
+                return Long.parseLong(contentRange.substring(slash + 1).trim());
+            }
+        }
+        return (response.contentLength() != null) ? response.contentLength() : -1;
+    }
+
+    private BlockCrypto makeBlockCrypto(EncryptionKey key)
+    {
+        //Also decrypts Blocks which were not encrypted in segments.
+        return (key != null) ? new SegmentedAesGcmBlockCrypto(allocator) : new NoOpBlockCrypto(allocator);
+    }
+
+    private static <T> T await(Future<T> future)
+    {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new AthenaConnectorException(ex.getCause(), ex.getCause().getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+    }
+
+    private static void closeQuietly(InputStream responseStream)
+    {
+        if (responseStream != null) {
+            try {
+                responseStream.close();
+            }
+            catch (IOException ex) {
+                logger.warn("read: Exception while closing S3 response stream", ex);
+            }
+        }
+    }
+
+    /**
+     * Iterates over spilled Blocks in the order of their locations while a bounded window of the following Blocks is
+     * downloaded and decrypted in the background.
+     */
+    public class SpilledBlockIterator
+            implements Iterator<Block>, AutoCloseable
+    {
+        private final List<S3SpillLocation> spillLocations;
+        private final EncryptionKey key;
+        private final Schema schema;
+        private final int prefetchBlocks;
+        private final long rangeBytes;
+        //Runs both the per Block downloads and their ranged GETs, it is unbounded so that a Block waiting on its
+        //ranges can never starve them of threads. Concurrency is bounded by the prefetch window instead.
+        private final ExecutorService pool;
+        private final Deque<Future<Block>> window = new ArrayDeque<>();
+        private int nextLocation = 0;
+
+        private SpilledBlockIterator(List<S3SpillLocation> spillLocations, EncryptionKey key, Schema schema,
+                int prefetchBlocks, long rangeBytes)
+        {
+            this.spillLocations = spillLocations;
+            this.key = key;
+            this.schema = schema;
+            this.prefetchBlocks = prefetchBlocks;
+            this.rangeBytes = rangeBytes;
+            this.pool = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "spill-reader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fillWindow();
+            if (window.isEmpty()) {
+                pool.shutdown();
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return !window.isEmpty();
+        }
+
+        @Override
+        public Block next()
+        {
+            if (window.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Future<Block> next = window.poll();
+            fillWindow();
+            Block block;
+            try {
+                block = await(next);
+            }
+            catch (RuntimeException ex) {
+                close();
+                throw ex;
+            }
+            if (window.isEmpty()) {
+                //Only once the last Block is in, until then its ranged GETs still need the pool.
+                pool.shutdown();
+            }
+            return block;
+        }
+
+        @Override
+        public void close()
+        {
+            for (Future<Block> next : window) {
+                if (!next.cancel(true) && !next.isCancelled()) {
+                    try {
+                        next.get().close();
+                    }
+                    catch (InterruptedException | ExecutionException | CancellationException ex) {
+                        logger.debug("close: Discarding prefetched block", ex);
+                    }
+                    catch (Exception ex) {
+                        logger.warn("close: Exception while closing prefetched block", ex);
+                    }
+                }
+            }
+            window.clear();
+            nextLocation = spillLocations.size();
+            pool.shutdownNow();
+        }
+
+        private void fillWindow()
+        {
+            while (window.size() < prefetchBlocks && nextLocation < spillLocations.size()) {
+                S3SpillLocation spillLocation = spillLocations.get(nextLocation++);
+                window.add(pool.submit(() -> fetch(spillLocation, key, schema, rangeBytes, pool)));
             }
         }
     }
@@ -20,6 +20,8 @@ package com.amazonaws.athena.connector.lambda.data;
  * #L%
  */
 
+import com.amazonaws.athena.connector.lambda.data.compression.BlockCompressionCodecFactory;
+import com.amazonaws.athena.connector.lambda.data.compression.MeteredCompressionCodec;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
@@ -28,9 +30,12 @@ import com.amazonaws.athena.connector.lambda.security.AesGcmBlockCrypto;
 import com.amazonaws.athena.connector.lambda.security.BlockCrypto;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
 import com.amazonaws.athena.connector.lambda.security.NoOpBlockCrypto;
+import com.amazonaws.athena.connector.lambda.security.SegmentedAesGcmBlockCrypto;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.io.ByteStreams;
+import org.apache.arrow.vector.compression.CompressionCodec;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -49,7 +54,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
@@ -67,6 +74,13 @@ import static java.util.Objects.requireNonNull;
  * Implementation of BlockSpiller which spills Blocks from large results to S3 with optional AES-GCM encryption.
  *
  * @note The size at which this implementation will spill to S3 are configured using SpillConfig.
+ * @note Async spills are bounded by a memory budget (see SpillConfig), writeRows blocks while the Blocks waiting to be
+ * spilled exceed it. The number of concurrent spills adapts to the observed S3 write latency, up to the configured
+ * number of spill threads.
+ * @note When SpillConfig specifies a compression codec the Arrow IPC body of each Block is compressed before it is
+ * encrypted, the resulting compression ratio and time are logged when the spiller is closed.
+ * @note When SpillConfig enables streaming spill, Blocks are encrypted directly into S3 multipart upload parts rather
+ * than being fully materialized in memory first.
  */
 public class S3BlockSpiller
         implements AutoCloseable, BlockSpiller
@@ -84,6 +98,8 @@ public class S3BlockSpiller
     private final S3Client amazonS3;
     //Used to optionally encrypt Blocks.
     private final BlockCrypto blockCrypto;
+    //Used to optionally compress Blocks, also tracks the compression ratio and time for this spiller.
+    private final MeteredCompressionCodec compressionCodec;
     //Used to create new blocks.
     private final BlockAllocator allocator;
     //Controls how/when/where/if this implementation will spill to S3.
@@ -92,13 +108,21 @@ public class S3BlockSpiller
     private final Schema schema;
     //The max number of rows that are allowed to be written per call to writeRows(...)
     private final long maxRowsPerCall;
-    //If we spilled, the spill locations are kept here.
-    private final List<SpillLocation> spillLocations = new ArrayList<>();
+    //If we spilled, the spill locations are kept here keyed (and so ordered) by spill number. Async spills may complete
+    //out of order but the engine expects the locations in the order the Blocks were written.
+    private final ConcurrentSkipListMap<Long, SpillLocation> spillLocations = new ConcurrentSkipListMap<>();
     //Reference to the in progress Block.
     private final AtomicReference<Block> inProgressBlock = new AtomicReference<>();
     //Allows a degree of pipelining to take place so we don't block reading from the source
     //while we are spilling.
     private final ExecutorService asyncSpillPool;
+    //Bounds the bytes of Blocks waiting to be (or being) spilled asynchronously, writeRows blocks when it is exhausted.
+    private final SpillMemoryBudget spillMemoryBudget;
+    //Adapts the number of concurrent async spills to the observed S3 write latency.
+    private final AdaptiveSpillConcurrency spillConcurrency;
+    //Used to upload parts in the background while the next part is being encrypted, only set when streaming spill
+    //is enabled.
+    private final ExecutorService partUploadPool;
     //Allows us to provide thread safety between async spill completion and calls to getSpill status
     private final ReadWriteLock spillLock = new StampedLock().asReadWriteLock();
     //Used to create monotonically increasing spill locations, if the locations are not
@@ -164,8 +188,15 @@ public class S3BlockSpiller
         this.spillConfig = requireNonNull(spillConfig, "spillConfig was null");
         this.allocator = requireNonNull(allocator, "allocator was null");
         this.schema = requireNonNull(schema, "schema was null");
-        this.blockCrypto = (spillConfig.getEncryptionKey() != null) ? new AesGcmBlockCrypto(allocator) : new NoOpBlockCrypto(allocator);
+        CompressionUtil.CodecType codecType = spillConfig.getCompressionCodec();
+        this.compressionCodec = (codecType != null && codecType != CompressionUtil.CodecType.NO_COMPRESSION) ?
+                new MeteredCompressionCodec(BlockCompressionCodecFactory.INSTANCE.createCodec(codecType)) : null;
+        CompressionCodec codec = (compressionCodec != null) ? compressionCodec : NoCompressionCodec.INSTANCE;
+        this.blockCrypto = makeBlockCrypto(spillConfig, allocator, codec);
         asyncSpillPool = (spillConfig.getNumSpillThreads() <= 0) ? null : makeAsyncSpillPool(spillConfig);
+        spillMemoryBudget = (asyncSpillPool == null) ? null : new SpillMemoryBudget(getSpillMemoryBudget(spillConfig));
+        spillConcurrency = (asyncSpillPool == null) ? null : new AdaptiveSpillConcurrency(spillConfig.getNumSpillThreads());
+        partUploadPool = spillConfig.isStreamingSpillEnabled() ? Executors.newCachedThreadPool() : null;
         this.maxRowsPerCall = maxRowsPerCall;
         this.constraintEvaluator = constraintEvaluator;
     }
@@ -288,7 +319,7 @@ public class S3BlockSpiller
             }
 
             lock.lock();
-            return spillLocations;
+            return new ArrayList<>(spillLocations.values());
         }
         finally {
             lock.unlock();
@@ -303,20 +334,36 @@ public class S3BlockSpiller
     public void close()
     {
         logger.info("close: Spilled a total of {} bytes in {} ms", totalBytesSpilled.get(), System.currentTimeMillis() - startTime);
+        if (compressionCodec != null) {
+            logger.info("close: Query {} compressed {} bytes to {} bytes (ratio {}) using {} in {} ms",
+                    spillConfig.getRequestId(),
+                    compressionCodec.getUncompressedBytes(),
+                    compressionCodec.getCompressedBytes(),
+                    String.format("%.2f", compressionCodec.getCompressionRatio()),
+                    compressionCodec.getCodecType(),
+                    compressionCodec.getCompressMillis());
+        }
+
+        shutdown(asyncSpillPool);
+        //Any in flight parts belong to spills that asyncSpillPool is done waiting for.
+        shutdown(partUploadPool);
+    }
 
-        if (asyncSpillPool == null) {
+    private void shutdown(ExecutorService pool)
+    {
+        if (pool == null) {
             return;
         }
 
-        asyncSpillPool.shutdown();
+        pool.shutdown();
         try {
-            if (!asyncSpillPool.awaitTermination(ASYNC_SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS)) {
-                asyncSpillPool.shutdownNow();
+            if (!pool.awaitTermination(ASYNC_SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS)) {
+                pool.shutdownNow();
             }
         }
         catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            asyncSpillPool.shutdownNow();
+            pool.shutdownNow();
         }
     }
 
@@ -347,11 +394,23 @@ public class S3BlockSpiller
      * Writes (aka spills) a Block.
      */
     protected SpillLocation write(Block block)
+    {
+        return write(block, makeSpillLocation(spillNumber.getAndIncrement()));
+    }
+
+    /**
+     * Writes (aka spills) a Block to the supplied location.
+     */
+    private SpillLocation write(Block block, S3SpillLocation spillLocation)
     {
         try {
-            S3SpillLocation spillLocation = makeSpillLocation();
             EncryptionKey encryptionKey = spillConfig.getEncryptionKey();
 
+            if (spillConfig.isStreamingSpillEnabled()) {
+                streamingWrite(block, spillLocation, encryptionKey);
+                return spillLocation;
+            }
+
             logger.info("write: Started encrypting block for write to {}", spillLocation);
             byte[] bytes = blockCrypto.encrypt(encryptionKey, block);
 
@@ -379,6 +438,36 @@ public class S3BlockSpiller
         }
     }
 
+    /**
+     * Writes a Block by encrypting it directly into a multipart upload. Unlike write(...) we never hold the serialized
+     * or encrypted Block in memory, only the (at most two) parts being filled and uploaded, and parts are uploaded while
+     * the rest of the Block is still being encrypted. The resulting object is identical to the one write(...) produces.
+     */
+    private void streamingWrite(Block block, S3SpillLocation spillLocation, EncryptionKey encryptionKey)
+    {
+        logger.info("streamingWrite: Started streaming block to {}", spillLocation);
+        S3MultipartOutputStream out = new S3MultipartOutputStream(amazonS3,
+                spillLocation.getBucket(),
+                spillLocation.getKey(),
+                getRequestHeadersFromEnv(),
+                (int) spillConfig.getMultipartUploadPartBytes(),
+                partUploadPool);
+        try {
+            blockCrypto.encrypt(encryptionKey, block, out);
+        }
+        catch (IOException ex) {
+            out.abort();
+            throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+        catch (RuntimeException ex) {
+            out.abort();
+            throw ex;
+        }
+
+        totalBytesSpilled.addAndGet(out.getBytesWritten());
+        logger.info("streamingWrite: Completed spilling block of size {} bytes", out.getBytesWritten());
+    }
+
     /**
      * Reads a spilled block.
      *
@@ -395,9 +484,9 @@ public class S3BlockSpiller
                     .bucket(spillLocation.getBucket())
                     .key(spillLocation.getKey())
                     .build());
-            logger.debug("write: Completed reading block from S3");
-            Block block = blockCrypto.decrypt(key, ByteStreams.toByteArray(responseStream), schema);
-            logger.debug("write: Completed decrypting block of size.");
+            Long length = responseStream.response().contentLength();
+            Block block = blockCrypto.decrypt(key, responseStream, (length != null) ? length : -1, schema);
+            logger.debug("write: Completed reading and decrypting block from S3");
             return block;
         }
         catch (IOException ex) {
@@ -412,7 +501,15 @@ public class S3BlockSpiller
      */
     private void spillBlock(Block block)
     {
+        //Locations are assigned on the calling thread so that they follow the order in which Blocks were written.
+        long number = spillNumber.getAndIncrement();
+        S3SpillLocation spillLocation = makeSpillLocation(number);
+
         if (asyncSpillPool != null) {
+            //Reserve the Block's memory before handing it off, this is what applies back-pressure to the caller
+            //(typically writeRows) when we can't spill as fast as Blocks are produced.
+            long blockBytes = block.getSize();
+            spillMemoryBudget.acquire(blockBytes);
             //We use the read lock here because we want to allow these in parallel, its a bit counter intuitive
             Lock lock = spillLock.readLock();
             try {
@@ -421,25 +518,36 @@ public class S3BlockSpiller
                 lock.lock();
                 asyncSpillPool.submit(() -> {
                     try {
-                        SpillLocation spillLocation = write(block);
-                        spillLocations.add(spillLocation);
+                        spillConcurrency.acquire();
+                        long start = System.nanoTime();
+                        boolean success = false;
+                        try {
+                            write(block, spillLocation);
+                            success = true;
+                        }
+                        finally {
+                            spillConcurrency.release(System.nanoTime() - start, blockBytes, success);
+                        }
+                        spillLocations.put(number, spillLocation);
                         //Free the memory from the previous block since it has been spilled
                         safeClose(block);
                     }
                     finally {
+                        spillMemoryBudget.release(blockBytes);
                         lock.unlock();
                     }
                 });
             }
             catch (Exception ex) {
                 //If we hit an exception, make sure we unlock to avoid a deadlock before throwing.
+                spillMemoryBudget.release(blockBytes);
                 lock.unlock();
                 throw ex;
             }
         }
         else {
-            SpillLocation spillLocation = write(block);
-            spillLocations.add(spillLocation);
+            write(block, spillLocation);
+            spillLocations.put(number, spillLocation);
             safeClose(block);
         }
     }
@@ -466,13 +574,13 @@ public class S3BlockSpiller
      * reads while the spiller is still writing. Violating this convention may reduce performance
      * or increase calls to S3.
      */
-    private S3SpillLocation makeSpillLocation()
+    private S3SpillLocation makeSpillLocation(long number)
     {
         S3SpillLocation splitSpillLocation = (S3SpillLocation) spillConfig.getSpillLocation();
         if (!splitSpillLocation.isDirectory()) {
             throw new AthenaConnectorException("Split's SpillLocation must be a directory because multiple blocks may be spilled.", ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
         }
-        String blockKey = splitSpillLocation.getKey() + "." + spillNumber.getAndIncrement();
+        String blockKey = splitSpillLocation.getKey() + "." + number;
         return new S3SpillLocation(splitSpillLocation.getBucket(), blockKey, false);
     }
 
@@ -491,16 +599,42 @@ public class S3BlockSpiller
         }
     }
 
+    /**
+     * Picks the BlockCrypto for spilled Blocks, these are only encrypted if the SpillConfig has an encryption key and
+     * are encrypted in segments if segmented encryption is enabled.
+     */
+    private static BlockCrypto makeBlockCrypto(SpillConfig config, BlockAllocator allocator, CompressionCodec codec)
+    {
+        if (config.getEncryptionKey() == null) {
+            return new NoOpBlockCrypto(allocator, codec);
+        }
+        return config.isSegmentedEncryptionEnabled() ?
+                new SegmentedAesGcmBlockCrypto(allocator, codec, config.getEncryptionSegmentBytes()) :
+                new AesGcmBlockCrypto(allocator, codec);
+    }
+
+    /**
+     * The number of bytes of Blocks that may be waiting on or undergoing async spill. Unless configured, this allows
+     * as many Blocks as we have spill threads to be in flight with as many again queued behind them.
+     */
+    private static long getSpillMemoryBudget(SpillConfig config)
+    {
+        if (config.getMaxSpillMemoryBytes() > 0) {
+            return config.getMaxSpillMemoryBytes();
+        }
+        return (config.getMaxBlockBytes() > 0) ? 2L * config.getNumSpillThreads() * config.getMaxBlockBytes() : Long.MAX_VALUE;
+    }
+
     /**
      * Used to create a thread pool that will be used to service writes to S3 associated with spilling blocks.
-     * This pool should use a blocking, fixed size, pool for work in order to avoid a fast producer from overhwelming
-     * the Apache Arrow Allocator's memory pool.
+     * A fast producer is kept from overwhelming the Apache Arrow Allocator's memory pool by the SpillMemoryBudget,
+     * not by the size of this pool's queue, so the queue is only bounded if SPILL_QUEUE_CAPACITY is set.
      *
-     * @return A fixed size thread pool with fixed size and blocking runnable queue.
+     * @return A fixed size thread pool, with a blocking runnable queue if SPILL_QUEUE_CAPACITY is set.
      */
     private ThreadPoolExecutor makeAsyncSpillPool(SpillConfig config)
     {
-        int spillQueueCapacity = config.getNumSpillThreads();
+        int spillQueueCapacity = Integer.MAX_VALUE;
 
         String capacity = StringUtils.isNotBlank(configOptions.get(SPILL_QUEUE_CAPACITY)) ? configOptions.get(SPILL_QUEUE_CAPACITY) : configOptions.get(SPILL_QUEUE_CAPACITY.toLowerCase());
         if (capacity != null) {
@@ -0,0 +1,299 @@
+package com.amazonaws.athena.connector.lambda.data;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * OutputStream which uploads everything written to it to a single S3 object using multipart upload. Bytes are
+ * buffered until a full part is available, that part is then uploaded on the supplied ExecutorService while the
+ * caller continues to fill the next part. At most one part is in flight at any time so the memory used by this
+ * stream is bounded to two parts regardless of the size of the object being written.
+ * <p>
+ * If the stream is closed before the first part was filled the object is written using a single put, this avoids the
+ * 3 requests needed for multipart upload when spilling small Blocks.
+ *
+ * @note The upload is only completed when close() is called, callers that fail part way through writing should call
+ * abort() instead so that the partial object is discarded and never becomes visible to readers.
+ */
+class S3MultipartOutputStream
+        extends OutputStream
+{
+    private static final Logger logger = LoggerFactory.getLogger(S3MultipartOutputStream.class);
+
+    private final S3Client amazonS3;
+    private final String bucket;
+    private final String key;
+    private final Map<String, String> metadata;
+    private final ExecutorService uploadPool;
+    private final List<CompletedPart> completedParts = new ArrayList<>();
+    //The part currently being filled.
+    private byte[] buffer;
+    private int position;
+    //The buffer of the part that is currently being uploaded (or null), it is reused once that upload completes.
+    private byte[] inFlightBuffer;
+    private Future<CompletedPart> inFlightPart;
+    private String uploadId;
+    private long bytesWritten;
+    private boolean closed;
+
+    /**
+     * @param amazonS3 The S3Client to use for uploading.
+     * @param bucket The bucket of the object to write.
+     * @param key The key of the object to write.
+     * @param metadata User metadata to set on the object.
+     * @param partBytes The size of each part, all but the last part must be at least 5MB when using S3.
+     * @param uploadPool The ExecutorService to use for uploading parts in the background.
+     */
+    S3MultipartOutputStream(S3Client amazonS3, String bucket, String key, Map<String, String> metadata,
+            int partBytes, ExecutorService uploadPool)
+    {
+        this.amazonS3 = requireNonNull(amazonS3, "amazonS3 was null");
+        this.bucket = requireNonNull(bucket, "bucket was null");
+        this.key = requireNonNull(key, "key was null");
+        this.metadata = requireNonNull(metadata, "metadata was null");
+        this.uploadPool = requireNonNull(uploadPool, "uploadPool was null");
+        if (partBytes <= 0) {
+            throw new AthenaConnectorException("partBytes must be > 0 but was " + partBytes, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        this.buffer = new byte[partBytes];
+    }
+
+    /**
+     * @return The total number of bytes written to this stream.
+     */
+    public long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+
+    @Override
+    public void write(int b)
+            throws IOException
+    {
+        ensureOpen();
+        if (position == buffer.length) {
+            uploadPart();
+        }
+        buffer[position++] = (byte) b;
+        bytesWritten++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length)
+            throws IOException
+    {
+        ensureOpen();
+        while (length > 0) {
+            if (position == buffer.length) {
+                uploadPart();
+            }
+            int toCopy = Math.min(length, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, toCopy);
+            position += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+            bytesWritten += toCopy;
+        }
+    }
+
+    /**
+     * Uploads any remaining bytes and completes the upload, making the object visible.
+     */
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+
+        try {
+            if (uploadId == null) {
+                putObject();
+            }
+            else {
+                uploadPart();
+                awaitInFlightPart();
+                amazonS3.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                        .build());
+                logger.debug("close: Completed multipart upload of {} bytes in {} parts to {}/{}",
+                        bytesWritten, completedParts.size(), bucket, key);
+            }
+            closed = true;
+            buffer = null;
+            inFlightBuffer = null;
+        }
+        catch (IOException | RuntimeException ex) {
+            abort();
+            throw ex;
+        }
+    }
+
+    /**
+     * Discards anything written so far, aborting the multipart upload if one was started. This is a no-op if the
+     * stream was already closed or aborted.
+     */
+    public void abort()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer = null;
+        inFlightBuffer = null;
+
+        if (inFlightPart != null) {
+            inFlightPart.cancel(true);
+            inFlightPart = null;
+        }
+
+        if (uploadId != null) {
+            try {
+                amazonS3.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build());
+            }
+            catch (RuntimeException ex) {
+                //S3 will eventually clean up the parts if the bucket has an abort incomplete multipart upload rule.
+                logger.warn("abort: Failed to abort multipart upload {} for {}/{}", uploadId, bucket, key, ex);
+            }
+        }
+    }
+
+    private void putObject()
+    {
+        byte[] bytes = buffer;
+        int length = position;
+        // Set the contentLength otherwise the s3 client will buffer again since it
+        // only sees the InputStream wrapper.
+        amazonS3.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentLength((long) length)
+                        .metadata(metadata)
+                        .build(),
+                RequestBody.fromContentProvider(() -> new ByteArrayInputStream(bytes, 0, length), length, "application/octet-stream"));
+    }
+
+    /**
+     * Hands the current buffer to the upload pool, waiting for the previous part to finish first so that we never have
+     * more than one part in flight.
+     */
+    private void uploadPart()
+            throws IOException
+    {
+        if (uploadId == null) {
+            uploadId = amazonS3.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .metadata(metadata)
+                    .build()).uploadId();
+            logger.debug("uploadPart: Started multipart upload {} for {}/{}", uploadId, bucket, key);
+        }
+
+        awaitInFlightPart();
+
+        byte[] bytes = buffer;
+        int length = position;
+        int partNumber = completedParts.size() + 1;
+        String currentUploadId = uploadId;
+        inFlightPart = uploadPool.submit(() -> {
+            UploadPartResponse response = amazonS3.uploadPart(UploadPartRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(currentUploadId)
+                            .partNumber(partNumber)
+                            .contentLength((long) length)
+                            .build(),
+                    RequestBody.fromContentProvider(() -> new ByteArrayInputStream(bytes, 0, length), length, "application/octet-stream"));
+            return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+        });
+
+        //Swap buffers, the one we just submitted can't be touched until its upload completes.
+        buffer = (inFlightBuffer != null) ? inFlightBuffer : new byte[bytes.length];
+        inFlightBuffer = bytes;
+        position = 0;
+    }
+
+    private void awaitInFlightPart()
+            throws IOException
+    {
+        if (inFlightPart == null) {
+            return;
+        }
+
+        try {
+            completedParts.add(inFlightPart.get());
+            inFlightPart = null;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while uploading part to " + bucket + "/" + key, ex);
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IOException("Failed to upload part to " + bucket + "/" + key, ex.getCause());
+        }
+    }
+
+    private void ensureOpen()
+            throws IOException
+    {
+        if (closed) {
+            throw new IOException("Stream for " + bucket + "/" + key + " is closed.");
+        }
+    }
+}
@@ -21,7 +21,11 @@ package com.amazonaws.athena.connector.lambda.data;
  */
 
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
 import static java.util.Objects.requireNonNull;
 
@@ -44,6 +48,17 @@ public class SpillConfig
     private final long maxInlineBlockSize;
     //The default number of threads to use for async spill operations. 0 indicates that the calling thread should be used.
     private final int numSpillThreads;
+    //The size of the parts used to stream spilled Blocks to S3 via multipart upload. 0 indicates that Blocks should be
+    //fully serialized and encrypted in memory and then written using a single put.
+    private final long multipartUploadPartBytes;
+    //The max bytes of Blocks that can be waiting on, or undergoing, async spill. 0 indicates a default derived from
+    //maxBlockBytes and numSpillThreads should be used.
+    private final long maxSpillMemoryBytes;
+    //The codec used to compress the Arrow IPC body of spilled Blocks.
+    private final CompressionUtil.CodecType compressionCodec;
+    //The clear text bytes per segment when spilled Blocks are encrypted in authenticated segments. 0 indicates that
+    //each Block is encrypted as a single AES-GCM message.
+    private final int encryptionSegmentBytes;
 
     private SpillConfig(Builder builder)
     {
@@ -53,6 +68,18 @@ public class SpillConfig
         maxBlockBytes = builder.maxBlockBytes;
         maxInlineBlockSize = builder.maxInlineBlockSize;
         numSpillThreads = builder.numSpillThreads;
+        multipartUploadPartBytes = builder.multipartUploadPartBytes;
+        compressionCodec = requireNonNull(builder.compressionCodec, "compressionCodec was null");
+        maxSpillMemoryBytes = builder.maxSpillMemoryBytes;
+        encryptionSegmentBytes = builder.encryptionSegmentBytes;
+        if (encryptionSegmentBytes < 0) {
+            throw new AthenaConnectorException("encryptionSegmentBytes must be >= 0 but was " + encryptionSegmentBytes,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        if (multipartUploadPartBytes < 0 || multipartUploadPartBytes > Integer.MAX_VALUE) {
+            throw new AthenaConnectorException("multipartUploadPartBytes must be between 0 and " + Integer.MAX_VALUE +
+                    " but was " + multipartUploadPartBytes, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
     }
 
     /**
@@ -112,6 +139,64 @@ public class SpillConfig
         return numSpillThreads;
     }
 
+    /**
+     * Gets the size of the parts used when streaming spilled Blocks to S3 using multipart upload.
+     * @return The number of bytes per part, 0 if Blocks are not streamed.
+     * @note S3 requires every part except the last to be at least 5MB.
+     */
+    public long getMultipartUploadPartBytes()
+    {
+        return multipartUploadPartBytes;
+    }
+
+    /**
+     * Used to tell if spilled Blocks should be streamed to S3 as they are serialized and encrypted.
+     * @return True if streaming multipart upload is enabled, false otherwise.
+     */
+    public boolean isStreamingSpillEnabled()
+    {
+        return multipartUploadPartBytes > 0;
+    }
+
+    /**
+     * Gets max number of bytes of Blocks that can be waiting on, or undergoing, async spill before the BlockSpiller
+     * blocks writers.
+     * @return The number of bytes, 0 if the BlockSpiller should derive it from the max block size and thread count.
+     */
+    public long getMaxSpillMemoryBytes()
+    {
+        return maxSpillMemoryBytes;
+    }
+
+    /**
+     * Gets the codec used to compress the Arrow IPC body buffers of spilled Blocks.
+     * @return The CodecType, NO_COMPRESSION if spilled Blocks are not compressed.
+     * @note Readers of the spilled data must support the codec, Blocks are decompressed by Block.loadRecordBatch(...).
+     */
+    public CompressionUtil.CodecType getCompressionCodec()
+    {
+        return compressionCodec;
+    }
+
+    /**
+     * Gets the number of clear text bytes per segment when spilled Blocks are encrypted in authenticated segments.
+     * @return The number of bytes, 0 if each spilled Block is encrypted as a single AES-GCM message.
+     * @note Readers of the spilled data must support the segmented format, see SegmentedAesGcmBlockCrypto.
+     */
+    public int getEncryptionSegmentBytes()
+    {
+        return encryptionSegmentBytes;
+    }
+
+    /**
+     * Used to tell if spilled Blocks should be encrypted in authenticated segments.
+     * @return True if segmented encryption is enabled, false otherwise.
+     */
+    public boolean isSegmentedEncryptionEnabled()
+    {
+        return encryptionSegmentBytes > 0;
+    }
+
     public static Builder newBuilder()
     {
         return new Builder();
@@ -122,6 +207,10 @@ public class SpillConfig
         Builder builder = new Builder();
         builder.encryptionKey = copy.getEncryptionKey();
         builder.maxBlockBytes = copy.getMaxBlockBytes();
+        builder.multipartUploadPartBytes = copy.getMultipartUploadPartBytes();
+        builder.compressionCodec = copy.getCompressionCodec();
+        builder.maxSpillMemoryBytes = copy.getMaxSpillMemoryBytes();
+        builder.encryptionSegmentBytes = copy.getEncryptionSegmentBytes();
         return builder;
     }
 
@@ -133,6 +222,10 @@ public class SpillConfig
         private long maxBlockBytes;
         private long maxInlineBlockSize;
         private int numSpillThreads = DEFAULT_SPILL_THREADS;
+        private long multipartUploadPartBytes;
+        private CompressionUtil.CodecType compressionCodec = CompressionUtil.CodecType.NO_COMPRESSION;
+        private long maxSpillMemoryBytes;
+        private int encryptionSegmentBytes;
 
         private Builder() {}
 
@@ -172,6 +265,30 @@ public class SpillConfig
             return this;
         }
 
+        public Builder withMultipartUploadPartBytes(long val)
+        {
+            multipartUploadPartBytes = val;
+            return this;
+        }
+
+        public Builder withMaxSpillMemoryBytes(long val)
+        {
+            maxSpillMemoryBytes = val;
+            return this;
+        }
+
+        public Builder withCompressionCodec(CompressionUtil.CodecType val)
+        {
+            compressionCodec = val;
+            return this;
+        }
+
+        public Builder withEncryptionSegmentBytes(int val)
+        {
+            encryptionSegmentBytes = val;
+            return this;
+        }
+
         public SpillConfig build()
         {
             return new SpillConfig(this);
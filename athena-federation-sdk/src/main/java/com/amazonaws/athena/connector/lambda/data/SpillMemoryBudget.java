@@ -0,0 +1,108 @@
+package com.amazonaws.athena.connector.lambda.data;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of bytes held by Blocks that have been handed off for spilling but not yet written. Callers that
+ * would exceed the budget block until enough in flight Blocks have been written, this is what provides back-pressure
+ * to a source that produces rows faster than we can spill them.
+ *
+ * @note A single Block larger than the whole budget is admitted once nothing else is in flight, otherwise it could
+ * never be spilled.
+ */
+class SpillMemoryBudget
+{
+    private final long budgetBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private long usedBytes;
+
+    SpillMemoryBudget(long budgetBytes)
+    {
+        if (budgetBytes <= 0) {
+            throw new AthenaConnectorException("budgetBytes must be > 0 but was " + budgetBytes, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Blocks until the requested bytes fit in the budget.
+     *
+     * @param bytes The number of bytes to reserve.
+     */
+    void acquire(long bytes)
+    {
+        lock.lock();
+        try {
+            while (usedBytes > 0 && usedBytes + bytes > budgetBytes) {
+                released.await();
+            }
+            usedBytes += bytes;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AthenaConnectorException(ex, "Interrupted while waiting for spill memory.", ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns bytes previously reserved using acquire(...).
+     *
+     * @param bytes The number of bytes to return.
+     */
+    void release(long bytes)
+    {
+        lock.lock();
+        try {
+            usedBytes -= bytes;
+            released.signalAll();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    long getUsedBytes()
+    {
+        lock.lock();
+        try {
+            return usedBytes;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    long getBudgetBytes()
+    {
+        return budgetBytes;
+    }
+}
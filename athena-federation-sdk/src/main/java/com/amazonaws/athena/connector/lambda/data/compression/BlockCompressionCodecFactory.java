@@ -0,0 +1,79 @@
+package com.amazonaws.athena.connector.lambda.data.compression;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.apache.arrow.vector.compression.CompressionCodec;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+/**
+ * CompressionCodec.Factory for all of the Arrow IPC body compression codecs supported by the SDK. This is used both
+ * to create the codec used when writing a Block and, when loading a Block, to decompress whichever codec the
+ * ArrowRecordBatch was written with.
+ */
+public class BlockCompressionCodecFactory
+        implements CompressionCodec.Factory
+{
+    public static final BlockCompressionCodecFactory INSTANCE = new BlockCompressionCodecFactory();
+
+    private BlockCompressionCodecFactory() {}
+
+    @Override
+    public CompressionCodec createCodec(CompressionUtil.CodecType codecType)
+    {
+        switch (codecType) {
+            case NO_COMPRESSION:
+                return NoCompressionCodec.INSTANCE;
+            case LZ4_FRAME:
+                return new Lz4FrameCompressionCodec();
+            case ZSTD:
+                checkZstdAvailable();
+                return new ZstdCompressionCodec();
+            default:
+                throw new AthenaConnectorException("Unsupported compression codec " + codecType, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+    }
+
+    @Override
+    public CompressionCodec createCodec(CompressionUtil.CodecType codecType, int compressionLevel)
+    {
+        if (codecType == CompressionUtil.CodecType.ZSTD) {
+            checkZstdAvailable();
+            return new ZstdCompressionCodec(compressionLevel);
+        }
+        return createCodec(codecType);
+    }
+
+    /**
+     * @throws AthenaConnectorException with INVALID_INPUT_EXCEPTION if zstd-jni, an optional dependency of the SDK,
+     * is not on the classpath.
+     */
+    public static void checkZstdAvailable()
+    {
+        if (!ZstdCompressionCodec.isAvailable()) {
+            throw new AthenaConnectorException("ZSTD compression requires com.github.luben:zstd-jni, an optional dependency of the SDK, to be added to the connector",
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.amazonaws.athena.connector.lambda.data.compression;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.compression.AbstractCompressionCodec;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Arrow CompressionCodec which compresses IPC body buffers using the LZ4 frame format, as required by the Arrow
+ * specification for the LZ4_FRAME codec.
+ */
+public class Lz4FrameCompressionCodec
+        extends AbstractCompressionCodec
+{
+    @Override
+    protected ArrowBuf doCompress(BufferAllocator allocator, ArrowBuf uncompressedBuffer)
+    {
+        byte[] inBytes = toByteArray(uncompressedBuffer, 0, uncompressedBuffer.writerIndex());
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(inBytes.length / 2);
+        try (OutputStream out = new FramedLZ4CompressorOutputStream(compressed)) {
+            out.write(inBytes);
+        }
+        catch (IOException ex) {
+            throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+
+        byte[] outBytes = compressed.toByteArray();
+        long length = CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH + outBytes.length;
+        ArrowBuf compressedBuffer = allocator.buffer(length);
+        compressedBuffer.setBytes(CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH, outBytes);
+        compressedBuffer.writerIndex(length);
+        return compressedBuffer;
+    }
+
+    @Override
+    protected ArrowBuf doDecompress(BufferAllocator allocator, ArrowBuf compressedBuffer)
+    {
+        long decompressedLength = readUncompressedLength(compressedBuffer);
+        byte[] inBytes = toByteArray(compressedBuffer, CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH,
+                compressedBuffer.writerIndex() - CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH);
+
+        ArrowBuf decompressedBuffer = allocator.buffer(decompressedLength);
+        try (InputStream in = new FramedLZ4CompressorInputStream(new ByteArrayInputStream(inBytes))) {
+            byte[] chunk = new byte[(int) Math.min(decompressedLength, 64 * 1024)];
+            long offset = 0;
+            int read;
+            while ((read = in.read(chunk)) > 0) {
+                if (offset + read > decompressedLength) {
+                    throw new IOException("Decompressed more than the expected " + decompressedLength + " bytes");
+                }
+                decompressedBuffer.setBytes(offset, chunk, 0, read);
+                offset += read;
+            }
+            if (offset != decompressedLength) {
+                throw new IOException("Expected " + decompressedLength + " decompressed bytes but found " + offset);
+            }
+        }
+        catch (IOException ex) {
+            decompressedBuffer.close();
+            throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+        decompressedBuffer.writerIndex(decompressedLength);
+        return decompressedBuffer;
+    }
+
+    @Override
+    public CompressionUtil.CodecType getCodecType()
+    {
+        return CompressionUtil.CodecType.LZ4_FRAME;
+    }
+
+    private static byte[] toByteArray(ArrowBuf buffer, long offset, long length)
+    {
+        if (length > Integer.MAX_VALUE) {
+            throw new AthenaConnectorException("Buffers larger than " + Integer.MAX_VALUE + " bytes can not be compressed using LZ4_FRAME", ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        byte[] bytes = new byte[(int) length];
+        buffer.getBytes(offset, bytes);
+        return bytes;
+    }
+}
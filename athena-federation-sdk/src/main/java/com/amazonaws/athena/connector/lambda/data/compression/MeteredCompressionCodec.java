@@ -0,0 +1,112 @@
+package com.amazonaws.athena.connector.lambda.data.compression;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.compression.CompressionCodec;
+import org.apache.arrow.vector.compression.CompressionUtil;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * CompressionCodec which delegates to another codec while keeping track of how many bytes it compressed, what they
+ * compressed to, and how long compression took. A single instance can be shared by the threads spilling Blocks for a
+ * query so that the totals describe the whole query.
+ *
+ * @note Compression is CPU bound and done on the calling thread so the elapsed time we record is, in practice, the CPU
+ * time spent compressing.
+ */
+public class MeteredCompressionCodec
+        implements CompressionCodec
+{
+    private final CompressionCodec delegate;
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong compressNanos = new AtomicLong();
+
+    public MeteredCompressionCodec(CompressionCodec delegate)
+    {
+        this.delegate = requireNonNull(delegate, "delegate was null");
+    }
+
+    @Override
+    public ArrowBuf compress(BufferAllocator allocator, ArrowBuf uncompressedBuffer)
+    {
+        //The delegate closes the uncompressed buffer so we need its size up front.
+        long inputBytes = uncompressedBuffer.writerIndex();
+        long start = System.nanoTime();
+        ArrowBuf compressed = delegate.compress(allocator, uncompressedBuffer);
+        compressNanos.addAndGet(System.nanoTime() - start);
+        uncompressedBytes.addAndGet(inputBytes);
+        compressedBytes.addAndGet(compressed.writerIndex());
+        return compressed;
+    }
+
+    @Override
+    public ArrowBuf decompress(BufferAllocator allocator, ArrowBuf compressedBuffer)
+    {
+        return delegate.decompress(allocator, compressedBuffer);
+    }
+
+    @Override
+    public CompressionUtil.CodecType getCodecType()
+    {
+        return delegate.getCodecType();
+    }
+
+    /**
+     * @return The total number of bytes passed to compress(...).
+     */
+    public long getUncompressedBytes()
+    {
+        return uncompressedBytes.get();
+    }
+
+    /**
+     * @return The total number of bytes returned by compress(...), including Arrow's per buffer length prefix.
+     */
+    public long getCompressedBytes()
+    {
+        return compressedBytes.get();
+    }
+
+    /**
+     * @return The ratio of uncompressed to compressed bytes (e.g. 4.0 means the data shrank to a quarter of its size),
+     * 1.0 if nothing has been compressed yet.
+     */
+    public double getCompressionRatio()
+    {
+        long compressed = compressedBytes.get();
+        return (compressed == 0) ? 1.0D : (double) uncompressedBytes.get() / compressed;
+    }
+
+    /**
+     * @return The total time spent in compress(...), in milliseconds.
+     */
+    public long getCompressMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(compressNanos.get());
+    }
+}
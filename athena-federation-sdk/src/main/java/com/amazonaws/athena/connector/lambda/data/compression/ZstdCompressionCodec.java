@@ -0,0 +1,125 @@
+package com.amazonaws.athena.connector.lambda.data.compression;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.github.luben.zstd.Zstd;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.compression.AbstractCompressionCodec;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+/**
+ * Arrow CompressionCodec which compresses IPC body buffers using ZSTD. Compression works directly on the off-heap
+ * memory backing the Arrow buffers so no intermediate on-heap copies are made.
+ * <p>
+ * zstd-jni is an optional dependency of the SDK, check isAvailable() before using this codec.
+ */
+public class ZstdCompressionCodec
+        extends AbstractCompressionCodec
+{
+    //Same default as zstd's command line tool, favours speed which is what we want when spilling.
+    public static final int DEFAULT_COMPRESSION_LEVEL = 3;
+    private static final String ZSTD_CLASS_NAME = "com.github.luben.zstd.Zstd";
+    private static final boolean AVAILABLE = isAvailable(ZstdCompressionCodec.class.getClassLoader());
+
+    private final int compressionLevel;
+
+    public ZstdCompressionCodec()
+    {
+        this(DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    public ZstdCompressionCodec(int compressionLevel)
+    {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * @return True if zstd-jni is on the classpath, False otherwise.
+     */
+    public static boolean isAvailable()
+    {
+        return AVAILABLE;
+    }
+
+    @VisibleForTesting
+    static boolean isAvailable(ClassLoader classLoader)
+    {
+        try {
+            Class.forName(ZSTD_CLASS_NAME, false, classLoader);
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    @Override
+    protected ArrowBuf doCompress(BufferAllocator allocator, ArrowBuf uncompressedBuffer)
+    {
+        long maxSize = Zstd.compressBound(uncompressedBuffer.writerIndex());
+        ArrowBuf compressedBuffer = allocator.buffer(CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH + maxSize);
+        long bytesWritten = Zstd.compressUnsafe(
+                compressedBuffer.memoryAddress() + CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH,
+                maxSize,
+                uncompressedBuffer.memoryAddress(),
+                uncompressedBuffer.writerIndex(),
+                compressionLevel);
+        if (Zstd.isError(bytesWritten)) {
+            compressedBuffer.close();
+            throw new AthenaConnectorException("Error compressing buffer: " + Zstd.getErrorName(bytesWritten), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+        compressedBuffer.writerIndex(CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH + bytesWritten);
+        return compressedBuffer;
+    }
+
+    @Override
+    protected ArrowBuf doDecompress(BufferAllocator allocator, ArrowBuf compressedBuffer)
+    {
+        long decompressedLength = readUncompressedLength(compressedBuffer);
+        ArrowBuf decompressedBuffer = allocator.buffer(decompressedLength);
+        long decompressedSize = Zstd.decompressUnsafe(
+                decompressedBuffer.memoryAddress(),
+                decompressedLength,
+                compressedBuffer.memoryAddress() + CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH,
+                compressedBuffer.writerIndex() - CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH);
+        if (Zstd.isError(decompressedSize)) {
+            decompressedBuffer.close();
+            throw new AthenaConnectorException("Error decompressing buffer: " + Zstd.getErrorName(decompressedSize), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+        if (decompressedSize != decompressedLength) {
+            decompressedBuffer.close();
+            throw new AthenaConnectorException("Expected " + decompressedLength + " decompressed bytes but found " + decompressedSize, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+        decompressedBuffer.writerIndex(decompressedLength);
+        return decompressedBuffer;
+    }
+
+    @Override
+    public CompressionUtil.CodecType getCodecType()
+    {
+        return CompressionUtil.CodecType.ZSTD;
+    }
+}
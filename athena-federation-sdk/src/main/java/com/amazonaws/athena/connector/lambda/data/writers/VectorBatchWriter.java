@@ -0,0 +1,344 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.data.writers;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.data.FieldResolver;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes batches of rows that are already in Apache Arrow form (e.g. from a Parquet scan or the BigQuery Storage API)
+ * into Blocks a column at a time instead of boxing every value and offering it to the Block.
+ * <p>
+ * For every call to writeRows(...) the constraints are first evaluated for a chunk of source rows, producing a
+ * selection vector of the rows that match. Only the matching rows are then copied into the Block. Source fields whose
+ * Arrow type is identical to the Block's are copied vector to vector with copyFromSafe(...), other fields are read,
+ * passed through the ValueConverter and written with BlockUtils, exactly as offerValue(...) would have done.
+ * <p>
+ * Source fields are matched to the Block's fields by name, falling back to a case insensitive match. Source fields
+ * which are not in the Block are ignored.
+ *
+ * @see BlockWriter#writeBatch(VectorSchemaRoot, int, VectorBatchWriter)
+ */
+public class VectorBatchWriter
+{
+    private static final Logger logger = LoggerFactory.getLogger(VectorBatchWriter.class);
+
+    //Matches the max rows per call enforced by S3BlockSpiller.
+    public static final int DEFAULT_ROWS_PER_CALL = 100;
+
+    /**
+     * Converts a value read from a source vector into a value BlockUtils can write into the Block, this is only used for
+     * fields whose source and Block types differ.
+     */
+    public interface ValueConverter
+    {
+        Object convert(FieldVector source, Object value);
+    }
+
+    private final ValueConverter valueConverter;
+    private final Map<String, Object> constants;
+    private final int rowsPerCall;
+
+    private VectorBatchWriter(Builder builder)
+    {
+        this.valueConverter = builder.valueConverter;
+        this.constants = new LinkedHashMap<>(builder.constants);
+        this.rowsPerCall = builder.rowsPerCall;
+    }
+
+    public static Builder newBuilder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Writes the first numRows rows of the batch using the provided BlockWriter. The batch may be reused by the caller
+     * (e.g. reloaded with the next batch) as soon as this method returns.
+     *
+     * @param blockWriter The BlockWriter (usually a BlockSpiller) to write to.
+     * @param batch The source rows.
+     * @param numRows The number of rows, from the start of the batch, to write.
+     */
+    public void write(BlockWriter blockWriter, VectorSchemaRoot batch, int numRows)
+    {
+        BatchRowWriter rowWriter = new BatchRowWriter(batch.getFieldVectors(), Math.min(numRows, batch.getRowCount()));
+        while (rowWriter.hasRemaining()) {
+            blockWriter.writeRows(rowWriter);
+        }
+    }
+
+    /**
+     * RowWriter which writes the next chunk of the batch on each call, it is rebound whenever the BlockWriter hands
+     * it a new Block (e.g. after spilling).
+     */
+    private class BatchRowWriter
+            implements BlockWriter.RowWriter
+    {
+        private final List<FieldVector> sources;
+        private final int numRows;
+        private final int[] selection;
+        private final List<FieldCopier> copiers = new ArrayList<>();
+        private final List<FieldCopier> constrained = new ArrayList<>();
+        private final List<ConstantWriter> constantWriters = new ArrayList<>();
+        private Block block;
+        private boolean constantsMatch;
+        private int nextRow;
+
+        BatchRowWriter(List<FieldVector> sources, int numRows)
+        {
+            this.sources = sources;
+            this.numRows = numRows;
+            this.selection = new int[rowsPerCall];
+        }
+
+        boolean hasRemaining()
+        {
+            return nextRow < numRows;
+        }
+
+        @Override
+        public int writeRows(Block block, int rowNum)
+        {
+            checkAndBind(block);
+            if (!constantsMatch) {
+                //None of the rows in this batch can match.
+                nextRow = numRows;
+                return 0;
+            }
+
+            int end = Math.min(numRows, nextRow + rowsPerCall);
+            int selected = 0;
+            for (int row = nextRow; row < end; row++) {
+                if (matches(row)) {
+                    selection[selected++] = row;
+                }
+            }
+            nextRow = end;
+
+            for (FieldCopier next : copiers) {
+                for (int i = 0; i < selected; i++) {
+                    next.copy(selection[i], rowNum + i);
+                }
+            }
+            for (ConstantWriter next : constantWriters) {
+                for (int i = 0; i < selected; i++) {
+                    BlockUtils.setValue(next.target, rowNum + i, next.value);
+                }
+            }
+            return selected;
+        }
+
+        private boolean matches(int row)
+        {
+            ConstraintEvaluator evaluator = block.getConstraintEvaluator();
+            for (FieldCopier next : constrained) {
+                if (!evaluator.apply(next.name, next.convertedValue(row))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void checkAndBind(Block block)
+        {
+            if (this.block == block) {
+                return;
+            }
+            logger.debug("checkAndBind: Detected a new block, rebinding field copiers.");
+            this.block = block;
+            copiers.clear();
+            constrained.clear();
+            constantWriters.clear();
+            ConstraintEvaluator evaluator = block.getConstraintEvaluator();
+
+            for (FieldVector source : sources) {
+                FieldVector target = findVector(block, source.getField().getName());
+                if (target == null || constants.containsKey(target.getField().getName())) {
+                    continue;
+                }
+                FieldCopier copier = new FieldCopier(source, target);
+                copiers.add(copier);
+                if (!copier.complex && evaluator.hasConstraint(copier.name)) {
+                    constrained.add(copier);
+                }
+            }
+
+            constantsMatch = true;
+            for (Map.Entry<String, Object> next : constants.entrySet()) {
+                constantsMatch &= evaluator.apply(next.getKey(), next.getValue());
+                FieldVector target = block.getFieldVector(next.getKey());
+                if (target != null) {
+                    constantWriters.add(new ConstantWriter(target, next.getValue()));
+                }
+            }
+        }
+    }
+
+    private class FieldCopier
+    {
+        private final String name;
+        private final FieldVector source;
+        private final FieldVector target;
+        private final boolean complex;
+        private final boolean sameType;
+
+        FieldCopier(FieldVector source, FieldVector target)
+        {
+            this.name = target.getField().getName();
+            this.source = source;
+            this.target = target;
+            Types.MinorType minorType = Types.getMinorTypeForArrowType(target.getField().getType());
+            this.complex = minorType == Types.MinorType.LIST || minorType == Types.MinorType.STRUCT || minorType == Types.MinorType.MAP;
+            this.sameType = isSameType(source.getField(), target.getField());
+        }
+
+        Object convertedValue(int row)
+        {
+            return valueConverter.convert(source, source.getObject(row));
+        }
+
+        void copy(int sourceRow, int targetRow)
+        {
+            if (sameType) {
+                target.copyFromSafe(sourceRow, targetRow, source);
+            }
+            else if (complex) {
+                BlockUtils.setComplexValue(target, targetRow, FieldResolver.DEFAULT, source.getObject(sourceRow));
+            }
+            else {
+                BlockUtils.setValue(target, targetRow, convertedValue(sourceRow));
+            }
+        }
+    }
+
+    private static class ConstantWriter
+    {
+        private final FieldVector target;
+        private final Object value;
+
+        ConstantWriter(FieldVector target, Object value)
+        {
+            this.target = target;
+            this.value = value;
+        }
+    }
+
+    private static FieldVector findVector(Block block, String fieldName)
+    {
+        FieldVector vector = block.getFieldVector(fieldName);
+        if (vector != null) {
+            return vector;
+        }
+        for (FieldVector next : block.getFieldVectors()) {
+            if (next.getField().getName().equalsIgnoreCase(fieldName)) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Two fields can be copied vector to vector if they have identical types all the way down, names and nullability
+     * don't matter. Dictionary encoded fields are never copied directly.
+     */
+    private static boolean isSameType(Field source, Field target)
+    {
+        if (source.getDictionary() != null || target.getDictionary() != null
+                || !source.getType().equals(target.getType())
+                || source.getChildren().size() != target.getChildren().size()) {
+            return false;
+        }
+        for (int i = 0; i < source.getChildren().size(); i++) {
+            if (!isSameType(source.getChildren().get(i), target.getChildren().get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static class Builder
+    {
+        private final Map<String, Object> constants = new LinkedHashMap<>();
+        private ValueConverter valueConverter = (FieldVector source, Object value) -> value;
+        private int rowsPerCall = DEFAULT_ROWS_PER_CALL;
+
+        private Builder() {}
+
+        /**
+         * @param valueConverter Used to convert values of fields whose source type differs from the Block's type.
+         * @return This builder.
+         */
+        public Builder withValueConverter(ValueConverter valueConverter)
+        {
+            this.valueConverter = valueConverter;
+            return this;
+        }
+
+        /**
+         * Writes the same value for the given field on every row, for example a partition column whose value comes
+         * from the Split rather than the source. Constraints on the field are evaluated once per Block.
+         *
+         * @param fieldName The name of the field in the Block.
+         * @param value The value to write.
+         * @return This builder.
+         */
+        public Builder withConstant(String fieldName, Object value)
+        {
+            constants.put(fieldName, value);
+            return this;
+        }
+
+        /**
+         * @param rowsPerCall The max number of source rows to write per call to writeRows(...), this must not exceed
+         * the limit of the BlockWriter being used.
+         * @return This builder.
+         */
+        public Builder withRowsPerCall(int rowsPerCall)
+        {
+            if (rowsPerCall <= 0) {
+                throw new AthenaConnectorException("rowsPerCall must be > 0 but was " + rowsPerCall, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+            }
+            this.rowsPerCall = rowsPerCall;
+            return this;
+        }
+
+        public VectorBatchWriter build()
+        {
+            return new VectorBatchWriter(this);
+        }
+    }
+}
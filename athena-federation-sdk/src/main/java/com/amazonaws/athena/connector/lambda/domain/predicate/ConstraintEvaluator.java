@@ -50,7 +50,8 @@ import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints
  * <p>
  * For usage examples, please see the ExampleRecordHandler or connectors like athena-redis.
  * <p>
- * TODO: We can improve the filtering performance of ConstraintEvaluator by refactoring how ValueSets and Markers works.
+ * Each field's ValueSet is compiled into a ValueSetPredicate when the evaluator is created so that 'apply' does not
+ * need to allocate a Marker for the common field types. Other types still go through a Marker.
  * @see ValueSet for details on how Constraints are represented and individually applied.
  */
 public class ConstraintEvaluator
@@ -67,6 +68,8 @@ public class ConstraintEvaluator
     private final MarkerFactory markerFactory;
     //Holds the type for each field.
     private final Map<String, ArrowType> typeMap = new HashMap<>();
+    //Holds the compiled constraint for each field that has both a constraint and a known type.
+    private final Map<String, ValueSetPredicate> predicates = new HashMap<>();
 
     public ConstraintEvaluator(BlockAllocator allocator, Schema schema, Constraints constraints)
     {
@@ -75,6 +78,17 @@ public class ConstraintEvaluator
             typeMap.put(next.getName(), next.getType());
         }
         markerFactory = new MarkerFactory(allocator);
+
+        if (constraints.getSummary() != null) {
+            for (Map.Entry<String, ValueSet> next : constraints.getSummary().entrySet()) {
+                ArrowType type = typeMap.get(next.getKey());
+                if (next.getValue() != null && type != null) {
+                    ValueSet constraint = next.getValue();
+                    predicates.put(next.getKey(),
+                            ValueSetPredicate.compile(constraint, type, (Object value) -> applyWithMarker(type, constraint, value)));
+                }
+            }
+        }
     }
 
     /**
@@ -97,20 +111,27 @@ public class ConstraintEvaluator
      */
     public boolean apply(String fieldName, Object value)
     {
-        try {
-            if (constraints.getSummary() == null) {
-                return true;
-            }
-            ValueSet constraint = constraints.getSummary().get(fieldName);
-            if (constraint != null && typeMap.get(fieldName) != null) {
-                try (Marker marker = markerFactory.createNullable(typeMap.get(fieldName),
-                        value,
-                        Marker.Bound.EXACTLY)) {
-                    return constraint.containsValue(marker);
-                }
-            }
+        ValueSetPredicate predicate = predicates.get(fieldName);
+        return predicate == null || predicate.test(value);
+    }
 
-            return true;
+    /**
+     * @param fieldName The name of the field to check.
+     * @return True if apply(...) may return False for some value of the given field.
+     */
+    public boolean hasConstraint(String fieldName)
+    {
+        return predicates.containsKey(fieldName);
+    }
+
+    /**
+     * Applies the constraint by first writing the value into a Marker, which gives the value the same type coercion
+     * as BlockUtils.setValue. Used for values our compiled predicates don't handle directly.
+     */
+    private boolean applyWithMarker(ArrowType type, ValueSet constraint, Object value)
+    {
+        try (Marker marker = markerFactory.createNullable(type, value, Marker.Bound.EXACTLY)) {
+            return constraint.containsValue(marker);
         }
         catch (Exception ex) {
             throw (ex instanceof RuntimeException) ? (RuntimeException) ex : new RuntimeException(ex);
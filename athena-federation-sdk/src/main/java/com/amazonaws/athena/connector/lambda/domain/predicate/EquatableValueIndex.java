@@ -0,0 +1,390 @@
+package com.amazonaws.athena.connector.lambda.domain.predicate;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.ArrowTypeComparator;
+import com.amazonaws.athena.connector.lambda.data.Block;
+import org.apache.arrow.vector.complex.reader.FieldReader;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.util.Text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A read-only membership index over the values held in the Block of an EquatableValueSet. Probing an EquatableValueSet
+ * used to require a full scan of its Block (with a Comparator call per row) which made large IN (...) lists
+ * O(rows x literals) to evaluate. This index is built once per EquatableValueSet and then answers each probe in
+ * (amortized) constant time.
+ * <p>
+ * Integral, date and floating point types are stored as primitive long keys while VARCHAR values are stored as their
+ * UTF-8 bytes. All other types fall back to the original linear scan using ArrowTypeComparator.
+ *
+ * @note The integral index hashes any Long, Integer, Short or Byte probe by its long value regardless of the width of
+ * the column, so a Long probe against an INT set (or an Integer probe against a BIGINT set) matches numerically
+ * where ArrowTypeComparator would have thrown a ClassCastException. The VARCHAR index hashes the toString() of any
+ * probe, just as ArrowTypeComparator compares them. Any other probe type (e.g. a String against an INT set or a Double
+ * against a FLOAT4 set) is answered by the linear scan so that its semantics, including any exceptions, still match
+ * ArrowTypeComparator.
+ */
+abstract class EquatableValueIndex
+{
+    protected final Block valueBlock;
+    protected final String column;
+
+    private EquatableValueIndex(Block valueBlock, String column)
+    {
+        this.valueBlock = valueBlock;
+        this.column = column;
+    }
+
+    /**
+     * Builds the most specialized index available for the type of the supplied Block's column.
+     *
+     * @param valueBlock The Block containing the values to index.
+     * @param column The name of the column in the Block which holds the values.
+     * @return The populated EquatableValueIndex.
+     */
+    static EquatableValueIndex build(Block valueBlock, String column)
+    {
+        FieldReader reader = valueBlock.getFieldReader(column);
+        HashedValueIndex index;
+        switch (reader.getMinorType()) {
+            case TINYINT:
+            case UINT1:
+            case SMALLINT:
+            case INT:
+            case UINT4:
+            case DATEDAY:
+            case BIGINT:
+            case UINT8:
+                index = new IntegralValueIndex(valueBlock, column);
+                break;
+            case FLOAT4:
+            case FLOAT8:
+                index = new FloatingPointValueIndex(valueBlock, column, reader.getMinorType());
+                break;
+            case VARCHAR:
+                index = new Utf8ValueIndex(valueBlock, column);
+                break;
+            default:
+                return new LinearScanValueIndex(valueBlock, column);
+        }
+
+        for (int i = 0; i < valueBlock.getRowCount(); i++) {
+            reader.setPosition(i);
+            Object value = reader.readObject();
+            if (value == null) {
+                index.containsNull = true;
+            }
+            else {
+                index.add(value);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Used to test if the supplied value is present in the indexed Block.
+     *
+     * @param value The value to test, may be null.
+     * @return True if the value (or null) is present in the Block, False otherwise.
+     */
+    abstract boolean contains(Object value);
+
+    /**
+     * The original, unindexed, membership test. Used for types we don't specialize and for probes whose Java type
+     * the index can't hash (see the class level note).
+     */
+    protected boolean scan(Object value)
+    {
+        FieldReader reader = valueBlock.getFieldReader(column);
+        for (int i = 0; i < valueBlock.getRowCount(); i++) {
+            reader.setPosition(i);
+            if (ArrowTypeComparator.compare(reader, value, reader.readObject()) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class LinearScanValueIndex
+            extends EquatableValueIndex
+    {
+        LinearScanValueIndex(Block valueBlock, String column)
+        {
+            super(valueBlock, column);
+        }
+
+        @Override
+        boolean contains(Object value)
+        {
+            return scan(value);
+        }
+    }
+
+    /**
+     * Base of the indexes which are populated with the non-null values of the Block by build(...).
+     */
+    private abstract static class HashedValueIndex
+            extends EquatableValueIndex
+    {
+        private boolean containsNull;
+
+        private HashedValueIndex(Block valueBlock, String column)
+        {
+            super(valueBlock, column);
+        }
+
+        @Override
+        boolean contains(Object value)
+        {
+            if (value == null) {
+                return containsNull;
+            }
+            return containsNonNull(value);
+        }
+
+        protected abstract void add(Object value);
+
+        protected abstract boolean containsNonNull(Object value);
+    }
+
+    private static class IntegralValueIndex
+            extends HashedValueIndex
+    {
+        private final LongHashSet keys;
+
+        IntegralValueIndex(Block valueBlock, String column)
+        {
+            super(valueBlock, column);
+            this.keys = new LongHashSet(valueBlock.getRowCount());
+        }
+
+        @Override
+        protected void add(Object value)
+        {
+            keys.add(((Number) value).longValue());
+        }
+
+        @Override
+        protected boolean containsNonNull(Object value)
+        {
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                return keys.contains(((Number) value).longValue());
+            }
+            return scan(value);
+        }
+    }
+
+    private static class FloatingPointValueIndex
+            extends HashedValueIndex
+    {
+        private final LongHashSet keys;
+        private final boolean isFloat4;
+
+        FloatingPointValueIndex(Block valueBlock, String column, Types.MinorType minorType)
+        {
+            super(valueBlock, column);
+            this.keys = new LongHashSet(valueBlock.getRowCount());
+            this.isFloat4 = minorType == Types.MinorType.FLOAT4;
+        }
+
+        /**
+         * Double.compare and Float.compare treat two values as equal iff their canonical bit patterns are equal
+         * (e.g. NaN == NaN and -0.0 != 0.0) so we can index those bit patterns directly.
+         */
+        @Override
+        protected void add(Object value)
+        {
+            keys.add(isFloat4 ? Float.floatToIntBits((Float) value) : Double.doubleToLongBits((Double) value));
+        }
+
+        @Override
+        protected boolean containsNonNull(Object value)
+        {
+            if (isFloat4 && value instanceof Float) {
+                return keys.contains(Float.floatToIntBits((Float) value));
+            }
+            else if (!isFloat4 && value instanceof Double) {
+                return keys.contains(Double.doubleToLongBits((Double) value));
+            }
+            return scan(value);
+        }
+    }
+
+    private static class Utf8ValueIndex
+            extends HashedValueIndex
+    {
+        private final Utf8HashSet keys;
+
+        Utf8ValueIndex(Block valueBlock, String column)
+        {
+            super(valueBlock, column);
+            this.keys = new Utf8HashSet(valueBlock.getRowCount());
+        }
+
+        @Override
+        protected void add(Object value)
+        {
+            if (value instanceof Text) {
+                Text text = (Text) value;
+                keys.add(Arrays.copyOf(text.getBytes(), (int) text.getLength()));
+            }
+            else {
+                keys.add(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        protected boolean containsNonNull(Object value)
+        {
+            if (value instanceof Text) {
+                //Avoid decoding (and allocating) a String when we already have the UTF-8 bytes.
+                Text text = (Text) value;
+                return keys.contains(text.getBytes(), (int) text.getLength());
+            }
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            return keys.contains(bytes, bytes.length);
+        }
+    }
+
+    /**
+     * Minimal open addressing hash set of primitive longs, we avoid boxing on both insertion and probing.
+     */
+    static class LongHashSet
+    {
+        //0 is used as the empty slot marker so we track its membership separately.
+        private boolean containsZero;
+        private final long[] table;
+        private final int mask;
+
+        LongHashSet(int expectedSize)
+        {
+            int capacity = tableSizeFor(expectedSize);
+            this.table = new long[capacity];
+            this.mask = capacity - 1;
+        }
+
+        void add(long key)
+        {
+            if (key == 0) {
+                containsZero = true;
+                return;
+            }
+            int slot = mix(key) & mask;
+            while (table[slot] != 0) {
+                if (table[slot] == key) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = key;
+        }
+
+        boolean contains(long key)
+        {
+            if (key == 0) {
+                return containsZero;
+            }
+            int slot = mix(key) & mask;
+            long next;
+            while ((next = table[slot]) != 0) {
+                if (next == key) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private static int mix(long key)
+        {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+
+    /**
+     * Minimal open addressing hash set of UTF-8 encoded strings which can be probed with a (bytes, length) pair so
+     * that callers holding a reusable buffer (e.g. Arrow's Text) need not allocate.
+     */
+    static class Utf8HashSet
+    {
+        private final byte[][] table;
+        private final int[] hashes;
+        private final int mask;
+
+        Utf8HashSet(int expectedSize)
+        {
+            int capacity = tableSizeFor(expectedSize);
+            this.table = new byte[capacity][];
+            this.hashes = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        void add(byte[] key)
+        {
+            int hash = hash(key, key.length);
+            int slot = hash & mask;
+            while (table[slot] != null) {
+                if (hashes[slot] == hash && Arrays.equals(table[slot], key)) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = key;
+            hashes[slot] = hash;
+        }
+
+        boolean contains(byte[] key, int length)
+        {
+            int hash = hash(key, length);
+            int slot = hash & mask;
+            byte[] next;
+            while ((next = table[slot]) != null) {
+                if (hashes[slot] == hash && Arrays.equals(next, 0, next.length, key, 0, length)) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private static int hash(byte[] key, int length)
+        {
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + key[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * @return A power of two table size that keeps the load factor at or below 0.5 for the expected number of keys.
+     */
+    private static int tableSizeFor(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1;
+        return Math.max(capacity, 4);
+    }
+}
@@ -20,7 +20,6 @@ package com.amazonaws.athena.connector.lambda.domain.predicate;
  * #L%
  */
 
-import com.amazonaws.athena.connector.lambda.data.ArrowTypeComparator;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockUtils;
@@ -58,6 +57,8 @@ public class EquatableValueSet
     private final boolean whiteList;
     private final Block valueBlock;
     public final boolean nullAllowed;
+    //Lazily built on the first membership probe, see EquatableValueIndex.
+    private volatile EquatableValueIndex valueIndex;
 
     /**
      * Constructs a new EquatableValueSet.
@@ -275,14 +276,7 @@ public class EquatableValueSet
             return false;
         }
 
-        Object value = marker.getValue();
-        boolean result = false;
-        FieldReader reader = valueBlock.getFieldReader(DEFAULT_COLUMN);
-        for (int i = 0; i < valueBlock.getRowCount() && !result; i++) {
-            reader.setPosition(i);
-            result = ArrowTypeComparator.compare(reader, value, reader.readObject()) == 0;
-        }
-        return whiteList == result;
+        return whiteList == getValueIndex().contains(marker.getValue());
     }
 
     /**
@@ -299,13 +293,23 @@ public class EquatableValueSet
             return true;
         }
 
-        boolean result = false;
-        FieldReader reader = valueBlock.getFieldReader(DEFAULT_COLUMN);
-        for (int i = 0; i < valueBlock.getRowCount() && !result; i++) {
-            reader.setPosition(i);
-            result = ArrowTypeComparator.compare(reader, value, reader.readObject()) == 0;
+        return whiteList == getValueIndex().contains(value);
+    }
+
+    /**
+     * Provides access to the membership index for the values in this ValueSet, building it on first use.
+     *
+     * @return The EquatableValueIndex for the valueBlock.
+     */
+    private EquatableValueIndex getValueIndex()
+    {
+        EquatableValueIndex index = valueIndex;
+        if (index == null) {
+            //Building the index is idempotent so racing threads at worst do redundant work.
+            index = EquatableValueIndex.build(valueBlock, DEFAULT_COLUMN);
+            valueIndex = index;
         }
-        return whiteList == result;
+        return index;
     }
 
     @Override
@@ -351,7 +355,10 @@ public class EquatableValueSet
     @Override
     public EquatableValueSet complement(BlockAllocator allocator)
     {
-        return new EquatableValueSet(valueBlock, !whiteList, !nullAllowed);
+        EquatableValueSet complement = new EquatableValueSet(valueBlock, !whiteList, !nullAllowed);
+        //The complement shares our valueBlock so it can share the index as well.
+        complement.valueIndex = valueIndex;
+        return complement;
     }
 
     @Override
@@ -376,7 +383,7 @@ public class EquatableValueSet
         int count = 0;
         for (int i = 0; i < lhsBlock.getRowCount(); i++) {
             lhs.setPosition(i);
-            if (isPresent(lhs.readObject(), right.valueBlock)) {
+            if (right.getValueIndex().contains(lhs.readObject())) {
                 BlockUtils.setValue(result, count++, lhs.readObject());
             }
         }
@@ -402,7 +409,7 @@ public class EquatableValueSet
         FieldReader rhs = rhsBlock.getFieldReader(DEFAULT_COLUMN);
         for (int i = 0; i < rhsBlock.getRowCount(); i++) {
             rhs.setPosition(i);
-            if (!isPresent(rhs.readObject(), left.valueBlock)) {
+            if (!left.getValueIndex().contains(rhs.readObject())) {
                 BlockUtils.setValue(result, count++, rhs.readObject());
             }
         }
@@ -423,7 +430,7 @@ public class EquatableValueSet
         int count = 0;
         for (int i = 0; i < lhsBlock.getRowCount(); i++) {
             lhs.setPosition(i);
-            if (!isPresent(lhs.readObject(), right.valueBlock)) {
+            if (!right.getValueIndex().contains(lhs.readObject())) {
                 BlockUtils.setValue(result, count++, lhs.readObject());
             }
         }
@@ -431,19 +438,6 @@ public class EquatableValueSet
         return resultBlock;
     }
 
-    private static boolean isPresent(Object lhs, Block right)
-    {
-        FieldReader rhs = right.getFieldReader(DEFAULT_COLUMN);
-        Types.MinorType type = rhs.getMinorType();
-        for (int j = 0; j < right.getRowCount(); j++) {
-            rhs.setPosition(j);
-            if (ArrowTypeComparator.compare(rhs, lhs, rhs.readObject()) == 0) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private EquatableValueSet checkCompatibility(ValueSet other)
     {
         if (!getType().equals(other.getType())) {
@@ -0,0 +1,499 @@
+package com.amazonaws.athena.connector.lambda.domain.predicate;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.util.Text;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A ValueSet that has been compiled into a primitive specialized test for a single field. ConstraintEvaluator used to
+ * write every value it tested into a single row Marker (an Apache Arrow Block) before calling
+ * ValueSet.containsValue(Marker), that round trip is what gave values the same type coercion as BlockUtils.setValue.
+ * The predicates here avoid that round trip (and any allocation) for the common cases of BIGINT, INT, DATEDAY, FLOAT8
+ * and VARCHAR fields while applying the same coercion rules.
+ * <p>
+ * Values of any other type, or values whose Java type does not match what the field's predicate was compiled for, are
+ * handed to the fallback predicate which must implement the original Marker based evaluation.
+ */
+abstract class ValueSetPredicate
+{
+    /**
+     * The original, Marker based, evaluation of a constraint.
+     */
+    interface Fallback
+    {
+        boolean test(Object value);
+    }
+
+    private final boolean nullAllowed;
+    private final Fallback fallback;
+
+    private ValueSetPredicate(boolean nullAllowed, Fallback fallback)
+    {
+        this.nullAllowed = nullAllowed;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Compiles the supplied ValueSet into the most specialized predicate available for the field's type.
+     *
+     * @param valueSet The constraint to compile.
+     * @param type The type of the field the constraint applies to.
+     * @param fallback Used for values that the compiled predicate can not handle directly.
+     * @return The compiled ValueSetPredicate.
+     */
+    static ValueSetPredicate compile(ValueSet valueSet, ArrowType type, Fallback fallback)
+    {
+        Types.MinorType minorType = Types.getMinorTypeForArrowType(type);
+        if (valueSet instanceof AllOrNoneValueSet) {
+            //AllOrNoneValueSet.isAll() and isNone() also account for nulls so we recover whether non-null values match.
+            boolean nullAllowed = valueSet.isNullAllowed();
+            return new ConstantPredicate(nullAllowed, fallback, nullAllowed ? valueSet.isAll() : !valueSet.isNone());
+        }
+        else if (valueSet instanceof EquatableValueSet && valueSet.getType().equals(type)) {
+            EquatableValueSet equatable = (EquatableValueSet) valueSet;
+            switch (minorType) {
+                case INT:
+                case DATEDAY:
+                case BIGINT:
+                    return new IntegralInPredicate(equatable, fallback, minorType);
+                case FLOAT8:
+                    return new Float8InPredicate(equatable, fallback);
+                case VARCHAR:
+                    return new VarCharInPredicate(equatable, fallback);
+                default:
+                    break;
+            }
+        }
+        else if (valueSet instanceof SortedRangeSet && valueSet.getType().equals(type)) {
+            SortedRangeSet sortedRangeSet = (SortedRangeSet) valueSet;
+            switch (minorType) {
+                case INT:
+                case DATEDAY:
+                case BIGINT:
+                    return new IntegralRangePredicate(sortedRangeSet, fallback, minorType);
+                case FLOAT8:
+                    return new Float8RangePredicate(sortedRangeSet, fallback);
+                case VARCHAR:
+                    return new VarCharRangePredicate(sortedRangeSet, fallback);
+                default:
+                    break;
+            }
+        }
+        return new FallbackPredicate(valueSet.isNullAllowed(), fallback);
+    }
+
+    /**
+     * Used to test if the supplied value satisfies the compiled constraint.
+     *
+     * @param value The value to test, may be null.
+     * @return True if the value satisfies the constraint, False otherwise.
+     */
+    final boolean test(Object value)
+    {
+        if (value == null) {
+            return nullAllowed;
+        }
+        return testNonNull(value);
+    }
+
+    protected abstract boolean testNonNull(Object value);
+
+    protected boolean fallback(Object value)
+    {
+        return fallback.test(value);
+    }
+
+    /**
+     * @return True if BlockUtils.setValue would store the value in an INT, DATEDAY or BIGINT vector by simply unboxing
+     * (and possibly narrowing) it, which are the cases toIntegralKey handles.
+     */
+    private static boolean isIntegralKey(Types.MinorType minorType, Object value)
+    {
+        if (minorType == Types.MinorType.BIGINT) {
+            return value instanceof Long;
+        }
+        return value instanceof Integer || value instanceof Long;
+    }
+
+    /**
+     * Mirrors how BlockUtils.setValue coerces integral values into INT, DATEDAY and BIGINT vectors so that we
+     * reach the same answer as the Marker based evaluation did.
+     */
+    private static long toIntegralKey(Types.MinorType minorType, Object value)
+    {
+        if (minorType == Types.MinorType.BIGINT || value instanceof Integer) {
+            return ((Number) value).longValue();
+        }
+        return ((Long) value).intValue();
+    }
+
+    private static long toLong(Object value)
+    {
+        return ((Number) value).longValue();
+    }
+
+    private static class FallbackPredicate
+            extends ValueSetPredicate
+    {
+        FallbackPredicate(boolean nullAllowed, Fallback fallback)
+        {
+            super(nullAllowed, fallback);
+        }
+
+        @Override
+        protected boolean testNonNull(Object value)
+        {
+            return fallback(value);
+        }
+    }
+
+    private static class ConstantPredicate
+            extends ValueSetPredicate
+    {
+        private final boolean result;
+
+        ConstantPredicate(boolean nullAllowed, Fallback fallback, boolean result)
+        {
+            super(nullAllowed, fallback);
+            this.result = result;
+        }
+
+        @Override
+        protected boolean testNonNull(Object value)
+        {
+            return result;
+        }
+    }
+
+    private static class IntegralInPredicate
+            extends ValueSetPredicate
+    {
+        private final Types.MinorType minorType;
+        private final boolean whiteList;
+        private final EquatableValueIndex.LongHashSet keys;
+
+        IntegralInPredicate(EquatableValueSet valueSet, Fallback fallback, Types.MinorType minorType)
+        {
+            super(valueSet.isNullAllowed(), fallback);
+            this.minorType = minorType;
+            this.whiteList = valueSet.isWhiteList();
+            int count = valueSet.getValueBlock().getRowCount();
+            this.keys = new EquatableValueIndex.LongHashSet(count);
+            for (int i = 0; i < count; i++) {
+                Object next = valueSet.getValue(i);
+                if (next != null) {
+                    keys.add(toLong(next));
+                }
+            }
+        }
+
+        @Override
+        protected boolean testNonNull(Object value)
+        {
+            if (!isIntegralKey(minorType, value)) {
+                return fallback(value);
+            }
+            return whiteList == keys.contains(toIntegralKey(minorType, value));
+        }
+    }
+
+    private static class Float8InPredicate
+            extends ValueSetPredicate
+    {
+        private final boolean whiteList;
+        private final EquatableValueIndex.LongHashSet keys;
+
+        Float8InPredicate(EquatableValueSet valueSet, Fallback fallback)
+        {
+            super(valueSet.isNullAllowed(), fallback);
+            this.whiteList = valueSet.isWhiteList();
+            int count = valueSet.getValueBlock().getRowCount();
+            this.keys = new EquatableValueIndex.LongHashSet(count);
+            for (int i = 0; i < count; i++) {
+                Object next = valueSet.getValue(i);
+                if (next != null) {
+                    keys.add(Double.doubleToLongBits((Double) next));
+                }
+            }
+        }
+
+        @Override
+        protected boolean testNonNull(Object value)
+        {
+            if (!(value instanceof Double)) {
+                return fallback(value);
+            }
+            return whiteList == keys.contains(Double.doubleToLongBits((Double) value));
+        }
+    }
+
+    private static class VarCharInPredicate
+            extends ValueSetPredicate
+    {
+        private final boolean whiteList;
+        //Text values are probed by their UTF-8 bytes and Strings by their (cached) hashCode, neither allocates.
+        private final EquatableValueIndex.Utf8HashSet utf8Keys;
+        private final Set<String> stringKeys;
+
+        VarCharInPredicate(EquatableValueSet valueSet, Fallback fallback)
+        {
+            super(valueSet.isNullAllowed(), fallback);
+            this.whiteList = valueSet.isWhiteList();
+            int count = valueSet.getValueBlock().getRowCount();
+            this.utf8Keys = new EquatableValueIndex.Utf8HashSet(count);
+            this.stringKeys = new HashSet<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                Object next = valueSet.getValue(i);
+                if (next != null) {
+                    String string = next.toString();
+                    stringKeys.add(string);
+                    utf8Keys.add(string.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        @Override
+        protected boolean testNonNull(Object value)
+        {
+            if (value instanceof Text) {
+                Text text = (Text) value;
+                return whiteList == utf8Keys.contains(text.getBytes(), (int) text.getLength());
+            }
+            //BlockUtils.setValue stores the toString() of any other type in a VARCHAR vector.
+            return whiteList == stringKeys.contains(value.toString());
+        }
+    }
+
+    /**
+     * Base for predicates compiled from a SortedRangeSet. The ranges in a SortedRangeSet are sorted and non-overlapping
+     * so we store their bounds in parallel arrays and binary search for the only range that could contain a value.
+     */
+    private abstract static class RangePredicate
+            extends ValueSetPredicate
+    {
+        protected final int rangeCount;
+        protected final boolean[] lowUnbounded;
+        protected final boolean[] lowInclusive;
+        protected final boolean[] highUnbounded;
+        protected final boolean[] highInclusive;
+
+        RangePredicate(SortedRangeSet valueSet, Fallback fallback)
+        {
+            super(valueSet.isNullAllowed(), fallback);
+            List<Range> ranges = valueSet.getOrderedRanges();
+            rangeCount = ranges.size();
+            lowUnbounded = new boolean[rangeCount];
+            lowInclusive = new boolean[rangeCount];
+            highUnbounded = new boolean[rangeCount];
+            highInclusive = new boolean[rangeCount];
+            for (int i = 0; i < rangeCount; i++) {
+                Marker low = ranges.get(i).getLow();
+                Marker high = ranges.get(i).getHigh();
+                lowUnbounded[i] = low.isLowerUnbounded();
+                lowInclusive[i] = low.getBound() == Marker.Bound.EXACTLY;
+                highUnbounded[i] = high.isUpperUnbounded();
+                highInclusive[i] = high.getBound() == Marker.Bound.EXACTLY;
+            }
+        }
+
+        /**
+         * @return The result of comparing the probe to the low bound of the given range.
+         */
+        protected abstract int compareToLow(int range, Object probe);
+
+        /**
+         * @return The result of comparing the probe to the high bound of the given range.
+         */
+        protected abstract int compareToHigh(int range, Object probe);
+
+        /**
+         * Finds the last range whose low bound is at or below the probe and then checks that range's high bound.
+         */
+        protected boolean search(Object probe)
+        {
+            int lo = 0;
+            int hi = rangeCount - 1;
+            int candidate = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (isAtOrAboveLow(mid, probe)) {
+                    candidate = mid;
+                    lo = mid + 1;
+                }
+                else {
+                    hi = mid - 1;
+                }
+            }
+
+            if (candidate < 0) {
+                return false;
+            }
+            if (highUnbounded[candidate]) {
+                return true;
+            }
+            int compare = compareToHigh(candidate, probe);
+            return compare < 0 || (compare == 0 && highInclusive[candidate]);
+        }
+
+        private boolean isAtOrAboveLow(int range, Object probe)
+        {
+            if (lowUnbounded[range]) {
+                return true;
+            }
+            int compare = compareToLow(range, probe);
+            return compare > 0 || (compare == 0 && lowInclusive[range]);
+        }
+    }
+
+    private static class IntegralRangePredicate
+            extends RangePredicate
+    {
+        private final Types.MinorType minorType;
+        private final long[] lows;
+        private final long[] highs;
+
+        IntegralRangePredicate(SortedRangeSet valueSet, Fallback fallback, Types.MinorType minorType)
+        {
+            super(valueSet, fallback);
+            this.minorType = minorType;
+            List<Range> ranges = valueSet.getOrderedRanges();
+            lows = new long[rangeCount];
+            highs = new long[rangeCount];
+            for (int i = 0; i < rangeCount; i++) {
+                lows[i] = lowUnbounded[i] ? 0 : toLong(ranges.get(i).getLow().getValue());
+                highs[i] = highUnbounded[i] ? 0 : toLong(ranges.get(i).getHigh().getValue());
+            }
+        }
+
+        @Override
+        protected boolean testNonNull(Object value)
+        {
+            if (!isIntegralKey(minorType, value)) {
+                return fallback(value);
+            }
+            return search(value);
+        }
+
+        @Override
+        protected int compareToLow(int range, Object probe)
+        {
+            return Long.compare(toIntegralKey(minorType, probe), lows[range]);
+        }
+
+        @Override
+        protected int compareToHigh(int range, Object probe)
+        {
+            return Long.compare(toIntegralKey(minorType, probe), highs[range]);
+        }
+    }
+
+    private static class Float8RangePredicate
+            extends RangePredicate
+    {
+        private final double[] lows;
+        private final double[] highs;
+
+        Float8RangePredicate(SortedRangeSet valueSet, Fallback fallback)
+        {
+            super(valueSet, fallback);
+            List<Range> ranges = valueSet.getOrderedRanges();
+            lows = new double[rangeCount];
+            highs = new double[rangeCount];
+            for (int i = 0; i < rangeCount; i++) {
+                lows[i] = lowUnbounded[i] ? 0 : (Double) ranges.get(i).getLow().getValue();
+                highs[i] = highUnbounded[i] ? 0 : (Double) ranges.get(i).getHigh().getValue();
+            }
+        }
+
+        @Override
+        protected boolean testNonNull(Object value)
+        {
+            if (!(value instanceof Double)) {
+                return fallback(value);
+            }
+            return search(value);
+        }
+
+        //Double.compare matches ArrowTypeComparator's handling of NaN and -0.0
+        @Override
+        protected int compareToLow(int range, Object probe)
+        {
+            return Double.compare((Double) probe, lows[range]);
+        }
+
+        @Override
+        protected int compareToHigh(int range, Object probe)
+        {
+            return Double.compare((Double) probe, highs[range]);
+        }
+    }
+
+    private static class VarCharRangePredicate
+            extends RangePredicate
+    {
+        private final String[] lows;
+        private final String[] highs;
+
+        VarCharRangePredicate(SortedRangeSet valueSet, Fallback fallback)
+        {
+            super(valueSet, fallback);
+            List<Range> ranges = valueSet.getOrderedRanges();
+            lows = new String[rangeCount];
+            highs = new String[rangeCount];
+            for (int i = 0; i < rangeCount; i++) {
+                lows[i] = lowUnbounded[i] ? null : ranges.get(i).getLow().getValue().toString();
+                highs[i] = highUnbounded[i] ? null : ranges.get(i).getHigh().getValue().toString();
+            }
+        }
+
+        @Override
+        protected boolean testNonNull(Object value)
+        {
+            //ArrowTypeComparator compares VARCHARs by their toString(), Text values will allocate here.
+            return search(value.toString());
+        }
+
+        @Override
+        protected int compareToLow(int range, Object probe)
+        {
+            return ((String) probe).compareTo(lows[range]);
+        }
+
+        @Override
+        protected int compareToHigh(int range, Object probe)
+        {
+            return ((String) probe).compareTo(highs[range]);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return getClass().getSimpleName() + "{nullAllowed=" + nullAllowed + "}";
+    }
+}
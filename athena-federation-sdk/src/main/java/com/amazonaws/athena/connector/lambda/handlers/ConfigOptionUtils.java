@@ -0,0 +1,134 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.handlers;
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.util.Map;
+
+/**
+ * Reads numeric config options (usually Lambda environment variables) for the SDK and connectors. An option which is
+ * not set, or is blank, takes the caller's default. An option which is set must be a number in the allowed range,
+ * anything else fails with INVALID_INPUT_EXCEPTION rather than being clamped or ignored.
+ */
+public final class ConfigOptionUtils
+{
+    private ConfigOptionUtils() {}
+
+    /**
+     * @param configOptions The config options, may be null.
+     * @param name The name of the option.
+     * @param defaultValue The value to use if the option is not set.
+     * @return The value of the option, which must be a number > 0.
+     * @throws AthenaConnectorException with INVALID_INPUT_EXCEPTION if the option is set to anything else.
+     */
+    public static long getPositiveLongOption(Map<String, String> configOptions, String name, long defaultValue)
+    {
+        String value = getValue(configOptions, name);
+        return (value == null) ? defaultValue : parseLong(name, value, 1, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param configOptions The config options, may be null.
+     * @param name The name of the option.
+     * @param defaultValue The value to use if the option is not set.
+     * @return The value of the option, which must be a number > 0 that fits in an int.
+     * @throws AthenaConnectorException with INVALID_INPUT_EXCEPTION if the option is set to anything else.
+     */
+    public static int getPositiveIntOption(Map<String, String> configOptions, String name, int defaultValue)
+    {
+        String value = getValue(configOptions, name);
+        return (value == null) ? defaultValue : (int) parseLong(name, value, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * For options, such as prefetch depths, where 0 turns the feature off.
+     *
+     * @param configOptions The config options, may be null.
+     * @param name The name of the option.
+     * @param defaultValue The value to use if the option is not set.
+     * @return The value of the option, which must be a number >= 0 that fits in an int.
+     * @throws AthenaConnectorException with INVALID_INPUT_EXCEPTION if the option is set to anything else.
+     */
+    public static int getNonNegativeIntOption(Map<String, String> configOptions, String name, int defaultValue)
+    {
+        String value = getValue(configOptions, name);
+        return (value == null) ? defaultValue : (int) parseLong(name, value, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param configOptions The config options, may be null.
+     * @param name The name of the option.
+     * @param defaultValue The value to use if the option is not set.
+     * @return The value of the option, which must be a finite number > 0.
+     * @throws AthenaConnectorException with INVALID_INPUT_EXCEPTION if the option is set to anything else.
+     */
+    public static double getPositiveDoubleOption(Map<String, String> configOptions, String name, double defaultValue)
+    {
+        String value = getValue(configOptions, name);
+        if (value == null) {
+            return defaultValue;
+        }
+        double result;
+        try {
+            result = Double.parseDouble(value);
+        }
+        catch (NumberFormatException ex) {
+            throw invalidValue(name, value, "> 0");
+        }
+        if (!(result > 0) || Double.isInfinite(result)) {
+            throw invalidValue(name, value, "> 0");
+        }
+        return result;
+    }
+
+    private static String getValue(Map<String, String> configOptions, String name)
+    {
+        String value = (configOptions != null) ? configOptions.get(name) : null;
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    private static long parseLong(String name, String value, long minValue, long maxValue)
+    {
+        String range = ((minValue == 1) ? "> 0" : ">= " + minValue) + ((maxValue < Long.MAX_VALUE) ? " and <= " + maxValue : "");
+        long result;
+        try {
+            result = Long.parseLong(value);
+        }
+        catch (NumberFormatException ex) {
+            throw invalidValue(name, value, range);
+        }
+        if (result < minValue || result > maxValue) {
+            throw invalidValue(name, value, range);
+        }
+        return result;
+    }
+
+    private static AthenaConnectorException invalidValue(String name, String value, String range)
+    {
+        return new AthenaConnectorException(name + " must be a number " + range + " but was " + value,
+                ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+    }
+}
@@ -30,6 +30,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListSchemasRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListSchemasResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequest;
 import com.amazonaws.athena.connector.lambda.metadata.glue.GlueFieldLexer;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
@@ -333,7 +334,11 @@ public abstract class GlueMetadataHandler
                 getTablesRequest.maxResults(maxResults);
                 pageSize -= maxResults;
             }
-            GetTablesResponse response = awsGlue.getTables(getTablesRequest.build());
+            GetTablesRequest glueRequest = getTablesRequest.build();
+            GetTablesResponse response = getMetadataCache().get(
+                    MetadataCache.key("glue.getTables", request.getSchemaName(), null, glueRequest.catalogId(),
+                            glueRequest.nextToken(), glueRequest.maxResults(), getCachePrincipal(request, overrideConfig)),
+                    () -> awsGlue.getTables(glueRequest));
 
             for (Table next : response.tableList()) {
                 if (filter == null || filter.filter(next)) {
@@ -406,8 +411,10 @@ public abstract class GlueMetadataHandler
                 .overrideConfiguration(overrideConfig)
                 .build();
 
-        software.amazon.awssdk.services.glue.model.GetTableResponse response = awsGlue.getTable(getTableRequest);
-        Table table = response.table();
+        Table table = getMetadataCache().get(
+                MetadataCache.key("glue.getTable", tableName.getSchemaName(), tableName.getTableName(),
+                        getTableRequest.catalogId(), getCachePrincipal(request, overrideConfig)),
+                () -> awsGlue.getTable(getTableRequest).table());
 
         if (filter != null && !filter.filter(table)) {
             throw new AthenaConnectorException("No matching table found " + request.getTableName(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.ENTITY_NOT_FOUND_EXCEPTION.toString()).build());
@@ -629,4 +636,13 @@ public abstract class GlueMetadataHandler
         }
         return Optional.empty();
     }
+
+    /**
+     * Glue calls made with the caller's credentials may return different results for different callers, so such
+     * results are only cached for the same caller.
+     */
+    private static String getCachePrincipal(MetadataRequest request, AwsRequestOverrideConfiguration overrideConfig)
+    {
+        return (overrideConfig == null) ? null : request.getIdentity().getArn();
+    }
 }
@@ -47,6 +47,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListSchemasRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListSchemasResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequest;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequestType;
 import com.amazonaws.athena.connector.lambda.request.FederationRequest;
@@ -135,6 +136,7 @@ public abstract class MetadataHandler
     private final String sourceType;
     private SpillLocationVerifier verifier;
     private final KmsEncryptionProvider kmsEncryptionProvider;
+    private final MetadataCache metadataCache;
 
     /**
      * When MetadataHandler is used as a Lambda, the "Main" class will pass in System.getenv() as the configOptions.
@@ -160,12 +162,13 @@ public abstract class MetadataHandler
             logger.debug("ENABLE_SPILL_ENCRYPTION with encryption factory: " + encryptionKeyFactory.getClass().getSimpleName());
         }
 
-        this.secretsManager = new CachableSecretsManager(SecretsManagerClient.create());
+        this.secretsManager = new CachableSecretsManager(SecretsManagerClient.create(), configOptions);
         this.athena = AthenaClient.create();
         this.s3Client = S3Client.create();
         this.verifier = new SpillLocationVerifier(s3Client);
         this.athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, configOptions).build();
         this.kmsEncryptionProvider = new KmsEncryptionProvider(KmsClient.create());
+        this.metadataCache = MetadataCache.fromConfig(configOptions);
     }
 
     /**
@@ -182,7 +185,7 @@ public abstract class MetadataHandler
     {
         this.configOptions = configOptions;
         this.encryptionKeyFactory = encryptionKeyFactory;
-        this.secretsManager = new CachableSecretsManager(secretsManager);
+        this.secretsManager = new CachableSecretsManager(secretsManager, configOptions);
         this.athena = athena;
         this.sourceType = sourceType;
         this.spillBucket = spillBucket;
@@ -191,6 +194,7 @@ public abstract class MetadataHandler
         this.verifier = new SpillLocationVerifier(s3Client);
         this.athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, configOptions).build();
         this.kmsEncryptionProvider = new KmsEncryptionProvider(KmsClient.create());
+        this.metadataCache = MetadataCache.fromConfig(configOptions);
     }
 
     /**
@@ -228,6 +232,18 @@ public abstract class MetadataHandler
         return secretsManager;
     }
 
+    /**
+     * Provides access to the cache extenders can keep source metadata (schemas, table listings, partitions) in across
+     * requests. The cache is disabled, and simply calls its loaders, unless the connector opts in with the
+     * metadata_cache_enabled config option.
+     *
+     * @return The MetadataCache of this handler.
+     */
+    protected MetadataCache getMetadataCache()
+    {
+        return metadataCache;
+    }
+
     protected EncryptionKey makeEncryptionKey()
     {
         return (encryptionKeyFactory != null) ? encryptionKeyFactory.create() : null;
@@ -293,6 +309,10 @@ public abstract class MetadataHandler
             throws Exception
     {
         logger.info("doHandleRequest: request[{}]", req);
+        MetadataCache cache = getMetadataCache();
+        if (cache != null && cache.isEnabled()) {
+            logger.info("doHandleRequest: metadataCache[{}]", cache.getStats());
+        }
         MetadataRequestType type = req.getRequestType();
         switch (type) {
             case LIST_SCHEMAS:
@@ -25,8 +25,10 @@ import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.PooledAllocationManagerFactory;
 import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.SpillConfig;
+import com.amazonaws.athena.connector.lambda.data.compression.BlockCompressionCodecFactory;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
@@ -42,9 +44,14 @@ import com.amazonaws.athena.connector.lambda.request.PingResponse;
 import com.amazonaws.athena.connector.lambda.security.CachableSecretsManager;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 import com.amazonaws.athena.connector.lambda.security.KmsEncryptionProvider;
+import com.amazonaws.athena.connector.lambda.security.SegmentedAesGcmBlockCrypto;
 import com.amazonaws.athena.connector.lambda.serde.VersionedObjectMapperFactory;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
@@ -58,7 +65,9 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.UUID;
 
 import static com.amazonaws.athena.connector.lambda.handlers.AthenaExceptionFilter.ATHENA_EXCEPTION_FILTER;
 import static com.amazonaws.athena.connector.lambda.handlers.FederationCapabilities.CAPABILITIES;
@@ -74,6 +83,21 @@ public abstract class RecordHandler
     private static final Logger logger = LoggerFactory.getLogger(RecordHandler.class);
     private static final String MAX_BLOCK_SIZE_BYTES = "MAX_BLOCK_SIZE_BYTES";
     private static final int NUM_SPILL_THREADS = 2;
+    //Overrides the max number of concurrent async spills, the actual concurrency adapts to S3 latency below this.
+    private static final String SPILL_MAX_THREADS = "SPILL_MAX_THREADS";
+    //Overrides the max bytes of Blocks that can be waiting to spill before writers are blocked.
+    private static final String SPILL_MEMORY_BUDGET_BYTES = "SPILL_MEMORY_BUDGET_BYTES";
+    //When set, spilled Blocks are streamed to S3 using multipart upload with parts of this many bytes.
+    private static final String SPILL_MULTIPART_PART_BYTES = "SPILL_MULTIPART_PART_BYTES";
+    //When set to LZ4_FRAME or ZSTD, the Arrow IPC body of spilled Blocks is compressed using that codec.
+    private static final String SPILL_COMPRESSION_CODEC = "SPILL_COMPRESSION_CODEC";
+    //When set, spilled Blocks are encrypted in authenticated segments of this many bytes instead of as one AES-GCM
+    //message, the reader of the spilled data must support this format (see SegmentedAesGcmBlockCrypto).
+    private static final String SPILL_ENCRYPTION_SEGMENT_BYTES = "SPILL_ENCRYPTION_SEGMENT_BYTES";
+    //S3 rejects multipart uploads with (non-final) parts smaller than this.
+    private static final long MIN_MULTIPART_PART_BYTES = 5L * 1024 * 1024;
+    //When set, large Arrow buffers are pooled across invocations keeping at most this many idle bytes.
+    private static final String ARROW_BUFFER_POOL_MAX_BYTES = "ARROW_BUFFER_POOL_MAX_BYTES";
     protected final java.util.Map<String, String> configOptions;
     private final S3Client amazonS3;
     private final String sourceType;
@@ -81,6 +105,8 @@ public abstract class RecordHandler
     private final AthenaClient athena;
     private final ThrottlingInvoker athenaInvoker;
     private final KmsEncryptionProvider kmsEncryptionProvider;
+    //Container lifetime allocator backed by the buffer pool, null unless ARROW_BUFFER_POOL_MAX_BYTES is set.
+    private final BufferAllocator pooledAllocator;
 
     /**
      * @param sourceType Used to aid in logging diagnostic info when raising a support case.
@@ -89,11 +115,12 @@ public abstract class RecordHandler
     {
         this.sourceType = sourceType;
         this.amazonS3 = S3Client.create();
-        this.secretsManager = new CachableSecretsManager(SecretsManagerClient.create());
+        this.secretsManager = new CachableSecretsManager(SecretsManagerClient.create(), configOptions);
         this.athena = AthenaClient.create();
         this.configOptions = configOptions;
         this.athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, configOptions).build();
         this.kmsEncryptionProvider = new KmsEncryptionProvider(KmsClient.create());
+        this.pooledAllocator = createPooledAllocator(configOptions);
     }
 
     /**
@@ -103,11 +130,12 @@ public abstract class RecordHandler
     {
         this.sourceType = sourceType;
         this.amazonS3 = amazonS3;
-        this.secretsManager = new CachableSecretsManager(secretsManager);
+        this.secretsManager = new CachableSecretsManager(secretsManager, configOptions);
         this.athena = athena;
         this.configOptions = configOptions;
         this.athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, configOptions).build();
         this.kmsEncryptionProvider = new KmsEncryptionProvider(KmsClient.create());
+        this.pooledAllocator = createPooledAllocator(configOptions);
     }
 
     /**
@@ -145,10 +173,41 @@ public abstract class RecordHandler
         return secretsManager;
     }
 
+    /**
+     * Creates the BlockAllocator used to serve a single request. When ARROW_BUFFER_POOL_MAX_BYTES is set this allocates
+     * from a pool kept for the life of the container so that warm invocations reuse the large Arrow buffers of earlier
+     * ones, each request still gets its own child allocator for accounting.
+     *
+     * @return The BlockAllocator for the request.
+     */
+    protected BlockAllocator newBlockAllocator()
+    {
+        if (pooledAllocator == null) {
+            return new BlockAllocatorImpl();
+        }
+        return new BlockAllocatorImpl(UUID.randomUUID().toString(), pooledAllocator, Integer.MAX_VALUE);
+    }
+
+    private static BufferAllocator createPooledAllocator(java.util.Map<String, String> configOptions)
+    {
+        long maxPooledBytes = ConfigOptionUtils.getPositiveLongOption(configOptions, ARROW_BUFFER_POOL_MAX_BYTES, 0);
+        if (maxPooledBytes == 0) {
+            return null;
+        }
+
+        logger.info("createPooledAllocator: pooling Arrow buffers with maxPooledBytes[{}]", maxPooledBytes);
+        PooledAllocationManagerFactory pool = new PooledAllocationManagerFactory(
+                PooledAllocationManagerFactory.DEFAULT_MIN_POOLED_SIZE, maxPooledBytes);
+        return new RootAllocator(RootAllocator.configBuilder()
+                .allocationManagerFactory(pool)
+                .maxAllocation(Long.MAX_VALUE)
+                .build());
+    }
+
     public final void handleRequest(InputStream inputStream, OutputStream outputStream, final Context context)
             throws IOException
     {
-        try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+        try (BlockAllocator allocator = newBlockAllocator()) {
             ObjectMapper objectMapper = VersionedObjectMapperFactory.create(allocator);
             try (FederationRequest rawReq = objectMapper.readValue(inputStream, FederationRequest.class)) {
                 if (rawReq instanceof PingRequest) {
@@ -265,13 +324,47 @@ public abstract class RecordHandler
             maxBlockSize = Long.parseLong(configOptions.get(MAX_BLOCK_SIZE_BYTES));
         }
 
+        long multipartPartBytes = ConfigOptionUtils.getPositiveLongOption(configOptions, SPILL_MULTIPART_PART_BYTES, 0);
+        if (multipartPartBytes > 0 && multipartPartBytes < MIN_MULTIPART_PART_BYTES) {
+            logger.warn("getSpillConfig: {} of {} is below the S3 minimum part size, using {}",
+                    SPILL_MULTIPART_PART_BYTES, multipartPartBytes, MIN_MULTIPART_PART_BYTES);
+            multipartPartBytes = MIN_MULTIPART_PART_BYTES;
+        }
+
+        CompressionUtil.CodecType compressionCodec = CompressionUtil.CodecType.NO_COMPRESSION;
+        if (StringUtils.isNotBlank(configOptions.get(SPILL_COMPRESSION_CODEC))) {
+            try {
+                compressionCodec = CompressionUtil.CodecType.valueOf(configOptions.get(SPILL_COMPRESSION_CODEC).trim().toUpperCase());
+            }
+            catch (IllegalArgumentException ex) {
+                throw new AthenaConnectorException("Invalid value for " + SPILL_COMPRESSION_CODEC + ": " + configOptions.get(SPILL_COMPRESSION_CODEC) +
+                        ", expected one of " + Arrays.toString(CompressionUtil.CodecType.values()), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+            }
+            if (compressionCodec == CompressionUtil.CodecType.ZSTD) {
+                BlockCompressionCodecFactory.checkZstdAvailable();
+            }
+        }
+
+        int encryptionSegmentBytes = ConfigOptionUtils.getPositiveIntOption(configOptions, SPILL_ENCRYPTION_SEGMENT_BYTES, 0);
+        if (encryptionSegmentBytes > SegmentedAesGcmBlockCrypto.MAX_SEGMENT_BYTES) {
+            throw new AthenaConnectorException(SPILL_ENCRYPTION_SEGMENT_BYTES + " must be <= " + SegmentedAesGcmBlockCrypto.MAX_SEGMENT_BYTES +
+                    " but was " + encryptionSegmentBytes, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+
+        int numSpillThreads = ConfigOptionUtils.getPositiveIntOption(configOptions, SPILL_MAX_THREADS, NUM_SPILL_THREADS);
+        long spillMemoryBudget = ConfigOptionUtils.getPositiveLongOption(configOptions, SPILL_MEMORY_BUDGET_BYTES, 0);
+
         return SpillConfig.newBuilder()
                 .withSpillLocation(request.getSplit().getSpillLocation())
                 .withMaxBlockBytes(maxBlockSize)
                 .withMaxInlineBlockBytes(request.getMaxInlineBlockSize())
                 .withRequestId(request.getQueryId())
                 .withEncryptionKey(request.getSplit().getEncryptionKey())
-                .withNumSpillThreads(NUM_SPILL_THREADS)
+                .withNumSpillThreads(numSpillThreads)
+                .withMaxSpillMemoryBytes(spillMemoryBudget)
+                .withMultipartUploadPartBytes(multipartPartBytes)
+                .withCompressionCodec(compressionCodec)
+                .withEncryptionSegmentBytes(encryptionSegmentBytes)
                 .build();
     }
 
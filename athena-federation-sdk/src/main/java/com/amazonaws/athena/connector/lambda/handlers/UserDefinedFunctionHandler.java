@@ -81,14 +81,15 @@ import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connector.lambda.handlers.FederationCapabilities.CAPABILITIES;
@@ -169,22 +170,73 @@ public abstract class UserDefinedFunctionHandler
     private UserDefinedFunctionResponse processScalarFunction(BlockAllocator allocator, UserDefinedFunctionRequest req)
             throws Exception
     {
-        Method udfMethod = extractScalarFunctionMethod(req);
         Block inputRecords = req.getInputRecords();
         Schema outputSchema = req.getOutputSchema();
 
+        Method vectorizedMethod = extractVectorizedFunctionMethod(req);
+        if (vectorizedMethod != null) {
+            Block outputRecords = processVectors(allocator, vectorizedMethod, inputRecords, outputSchema);
+            return new UserDefinedFunctionResponse(outputRecords, vectorizedMethod.getName());
+        }
+
+        Method udfMethod = extractScalarFunctionMethod(req);
         Block outputRecords = processRows(allocator, udfMethod, inputRecords, outputSchema);
         return new UserDefinedFunctionResponse(outputRecords, udfMethod.getName());
     }
 
+    /**
+     * Processes a group of rows using a vectorized UDF, i.e. a public method with the same name as the
+     * User-Defined-Function and the signature {@code void name(List<FieldVector> arguments, FieldVector result)}.
+     * The method is called once per block with the input columns, in the order they appear in the function signature,
+     * and the (empty) output column which it is expected to fill for every input row, e.g. using setSafe(...). This
+     * avoids converting every value to and from a Java Object and lets the UDF reuse state, like a decryption key,
+     * across the rows of the block.
+     *
+     * @param allocator arrow memory allocator
+     * @param vectorizedMethod the vectorized java method matching the User-Defined-Function defined in Athena.
+     * @param inputRecords input data in Arrow format
+     * @param outputSchema output data schema in Arrow format
+     * @return output data in Arrow format
+     */
+    protected Block processVectors(BlockAllocator allocator, Method vectorizedMethod, Block inputRecords, Schema outputSchema)
+            throws Exception
+    {
+        int rowCount = inputRecords.getRowCount();
+
+        List<FieldVector> arguments = Lists.newArrayList();
+        for (Field field : inputRecords.getFields()) {
+            arguments.add(inputRecords.getFieldVector(field.getName()));
+        }
+
+        BoundFunction udf = bind(vectorizedMethod);
+        Block outputRecords = allocator.createBlock(outputSchema);
+        try {
+            FieldVector result = outputRecords.getFieldVector(outputSchema.getFields().get(0).getName());
+            udf.invoke(new Object[] {arguments, result});
+            outputRecords.setRowCount(rowCount);
+        }
+        catch (Throwable t) {
+            try {
+                outputRecords.close();
+            }
+            catch (Exception e) {
+                logger.error("Error closing output block", e);
+            }
+            throw t;
+        }
+
+        return outputRecords;
+    }
+
     /**
      * Processes a group by rows. This method takes in a block of data (containing multiple rows), process them and
      * returns multiple rows of the output column in a block.
      * <p>
      * UDF methods are invoked row-by-row in a for loop. Arrow values are converted to Java Objects and then passed into
-     * the UDF java method. This is not very efficient because we might potentially be doing a lot of data copying.
-     * Advanced users could choose to override this method and directly deal with Arrow data to achieve better
-     * performance.
+     * the UDF java method, which is bound to a MethodHandle once per block rather than being reflectively invoked for
+     * every row. This is not very efficient because we might potentially be doing a lot of data copying. Advanced users
+     * could choose to implement a vectorized UDF (see processVectors) or override this method and directly deal with
+     * Arrow data to achieve better performance.
      *
      * @param allocator arrow memory allocator
      * @param udfMethod the extracted java method matching the User-Defined-Function defined in Athena.
@@ -206,7 +258,7 @@ public abstract class UserDefinedFunctionHandler
         }
 
         Field outputField = outputSchema.getFields().get(0);
-        GeneratedRowWriter outputRowWriter = createOutputRowWriter(outputField, valueProjectors, udfMethod);
+        GeneratedRowWriter outputRowWriter = createOutputRowWriter(outputField, valueProjectors, bind(udfMethod));
 
         Block outputRecords = allocator.createBlock(outputSchema);
         outputRecords.setRowCount(rowCount);
@@ -266,6 +318,30 @@ public abstract class UserDefinedFunctionHandler
         return udfMethod;
     }
 
+    /**
+     * Finds the vectorized variant of the UDF, if the handler implements one.
+     *
+     * @param req UDF request
+     * @return the vectorized java method matching the UDF defined in Athena query or null if there isn't one.
+     */
+    private Method extractVectorizedFunctionMethod(UserDefinedFunctionRequest req)
+    {
+        Method vectorizedMethod;
+        try {
+            vectorizedMethod = this.getClass().getMethod(req.getMethodName(), List.class, FieldVector.class);
+        }
+        catch (NoSuchMethodException e) {
+            return null;
+        }
+
+        if (!void.class.equals(vectorizedMethod.getReturnType())) {
+            return null;
+        }
+
+        logger.info("Found vectorized UDF method {}", vectorizedMethod.getName());
+        return vectorizedMethod;
+    }
+
     private Class[] extractJavaTypes(Schema schema)
     {
         Class[] types = new Class[schema.getFields().size()];
@@ -303,15 +379,15 @@ public abstract class UserDefinedFunctionHandler
         }
     }
 
-    private GeneratedRowWriter createOutputRowWriter(Field outputField, List<ArrowValueProjector> valueProjectors, Method udfMethod)
+    private GeneratedRowWriter createOutputRowWriter(Field outputField, List<ArrowValueProjector> valueProjectors, BoundFunction udf)
     {
         GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder();
-        Extractor extractor = makeExtractor(outputField, valueProjectors, udfMethod);
+        Extractor extractor = makeExtractor(outputField, valueProjectors, udf);
         if (extractor != null) {
             builder.withExtractor(outputField.getName(), extractor);
         }
         else {
-            builder.withFieldWriterFactory(outputField.getName(), makeFactory(outputField, valueProjectors, udfMethod));
+            builder.withFieldWriterFactory(outputField.getName(), makeFactory(outputField, valueProjectors, udf));
         }
         return builder.build();
     }
@@ -320,10 +396,10 @@ public abstract class UserDefinedFunctionHandler
      * Creates an Extractor for the given outputField.
      * @param outputField  outputField
      * @param valueProjectors projectors that we use to read input data.
-     * @param udfMethod
+     * @param udf the UDF method bound to this handler
      * @return
      */
-    private Extractor makeExtractor(Field outputField, List<ArrowValueProjector> valueProjectors, Method udfMethod)
+    private Extractor makeExtractor(Field outputField, List<ArrowValueProjector> valueProjectors, BoundFunction udf)
     {
         Types.MinorType fieldType = Types.getMinorTypeForArrowType(outputField.getType());
 
@@ -333,7 +409,7 @@ public abstract class UserDefinedFunctionHandler
             case INT:
                 return (IntExtractor) (Object inputRowNum, NullableIntHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -346,7 +422,7 @@ public abstract class UserDefinedFunctionHandler
             case DATEMILLI:
                 return (DateMilliExtractor) (Object inputRowNum, NullableDateMilliHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -359,7 +435,7 @@ public abstract class UserDefinedFunctionHandler
             case DATEDAY:
                 return (DateDayExtractor) (Object inputRowNum, NullableDateDayHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -372,7 +448,7 @@ public abstract class UserDefinedFunctionHandler
             case TINYINT:
                 return (TinyIntExtractor) (Object inputRowNum, NullableTinyIntHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -385,7 +461,7 @@ public abstract class UserDefinedFunctionHandler
             case SMALLINT:
                 return (SmallIntExtractor) (Object inputRowNum, NullableSmallIntHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -398,7 +474,7 @@ public abstract class UserDefinedFunctionHandler
             case FLOAT4:
                 return (Float4Extractor) (Object inputRowNum, NullableFloat4Holder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -411,7 +487,7 @@ public abstract class UserDefinedFunctionHandler
             case FLOAT8:
                 return (Float8Extractor) (Object inputRowNum, NullableFloat8Holder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -424,7 +500,7 @@ public abstract class UserDefinedFunctionHandler
             case DECIMAL:
                 return (DecimalExtractor) (Object inputRowNum, NullableDecimalHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -437,7 +513,7 @@ public abstract class UserDefinedFunctionHandler
             case BIT:
                 return (BitExtractor) (Object inputRowNum, NullableBitHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -450,7 +526,7 @@ public abstract class UserDefinedFunctionHandler
             case BIGINT:
                 return (BigIntExtractor) (Object inputRowNum, NullableBigIntHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -463,7 +539,7 @@ public abstract class UserDefinedFunctionHandler
             case VARCHAR:
                 return (VarCharExtractor) (Object inputRowNum, NullableVarCharHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -476,7 +552,7 @@ public abstract class UserDefinedFunctionHandler
             case VARBINARY:
                 return (VarBinaryExtractor) (Object inputRowNum, NullableVarBinaryHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -491,7 +567,7 @@ public abstract class UserDefinedFunctionHandler
         }
     }
 
-    private FieldWriterFactory makeFactory(Field field, List<ArrowValueProjector> valueProjectors, Method udfMethod)
+    private FieldWriterFactory makeFactory(Field field, List<ArrowValueProjector> valueProjectors, BoundFunction udf)
     {
         Object[] arguments = new Object[valueProjectors.size()];
 
@@ -501,7 +577,7 @@ public abstract class UserDefinedFunctionHandler
             case STRUCT:
                 return (FieldVector vector, Extractor extractor, ConstraintProjector ignored) ->
                         (Object inputRowNum, int outputRowNum) -> {
-                            Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                            Object result = invokeMethod(udf, arguments, (int) inputRowNum, valueProjectors);
                             BlockUtils.setComplexValue(vector, outputRowNum, FieldResolver.DEFAULT, result);
                             return true;    // push-down does not apply in UDFs
                         };
@@ -511,7 +587,7 @@ public abstract class UserDefinedFunctionHandler
         }
     }
 
-    private Object invokeMethod(Method udfMethod,
+    private Object invokeMethod(BoundFunction udf,
                                 Object[] arguments,
                                 int inputRowNum,
                                 List<ArrowValueProjector> valueProjectors)
@@ -520,24 +596,100 @@ public abstract class UserDefinedFunctionHandler
             arguments[col] = valueProjectors.get(col).project(inputRowNum);
         }
 
+        return udf.invoke(arguments);
+    }
+
+    /**
+     * Binds the UDF method to this handler. The lookup and access checks happen once here instead of on every
+     * Method.invoke(...) call, and the resulting handle takes the UDF's arguments as an Object[] so it can be called
+     * with invokeExact(...) for every row.
+     *
+     * @param udfMethod the java method implementing the UDF.
+     * @return the bound UDF.
+     */
+    private BoundFunction bind(Method udfMethod)
+    {
+        int parameterCount = udfMethod.getParameterCount();
         try {
-            return udfMethod.invoke(this, arguments);
+            MethodHandle handle = MethodHandles.lookup().unreflect(udfMethod)
+                    .bindTo(this)
+                    .asType(MethodType.genericMethodType(parameterCount))
+                    .asSpreader(Object[].class, parameterCount);
+            return new BoundFunction(udfMethod, handle);
         }
         catch (IllegalAccessException e) {
             throw new AthenaConnectorException(e, e.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.ACCESS_DENIED_EXCEPTION.toString()).build());
         }
-        catch (InvocationTargetException e) {
-            if (Objects.isNull(e)) {
-                throw new AthenaConnectorException(e, e.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+    }
+
+    /**
+     * A UDF method bound to the handler instance which implements it.
+     */
+    private static class BoundFunction
+    {
+        private final Method method;
+        private final MethodHandle handle;
+        //The UDF's parameter types with primitives boxed, i.e. the types of the arguments it accepts.
+        private final Class<?>[] argumentTypes;
+
+        BoundFunction(Method method, MethodHandle handle)
+        {
+            this.method = method;
+            this.handle = handle;
+            this.argumentTypes = MethodType.methodType(method.getReturnType(), method.getParameterTypes()).wrap().parameterArray();
+        }
+
+        Object invoke(Object[] arguments)
+        {
+            if (hasNullPrimitive(arguments)) {
+                //The handle would unbox the null and fail with a NullPointerException, Method.invoke(...) rejected
+                //these as illegal arguments.
+                throw invalidArguments("null passed to a primitive parameter", arguments, null);
+            }
+            try {
+                return (Object) handle.invokeExact(arguments);
+            }
+            catch (ClassCastException e) {
+                if (argumentsMatch(arguments)) {
+                    //The UDF itself failed.
+                    throw new AthenaConnectorException(e.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+                }
+                throw invalidArguments(e.getMessage(), arguments, e);
+            }
+            catch (Throwable t) {
+                throw new AthenaConnectorException(t.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
             }
-            throw new AthenaConnectorException(e.getCause().getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
         }
-        catch (IllegalArgumentException e) {
+
+        private AthenaConnectorException invalidArguments(String reason, Object[] arguments, Throwable cause)
+        {
             String msg = String.format("%s. Expected function types %s, got types %s",
-                    e.getMessage(),
-                    Arrays.stream(udfMethod.getParameterTypes()).map(clazz -> clazz.getName()).collect(Collectors.toList()),
-                    Arrays.stream(arguments).map(arg -> arg.getClass().getName()).collect(Collectors.toList()));
-            throw new AthenaConnectorException(e, msg, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+                    reason,
+                    Arrays.stream(method.getParameterTypes()).map(clazz -> clazz.getName()).collect(Collectors.toList()),
+                    Arrays.stream(arguments).map(arg -> arg == null ? "null" : arg.getClass().getName()).collect(Collectors.toList()));
+            ErrorDetails errorDetails = ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build();
+            return (cause != null) ? new AthenaConnectorException(cause, msg, errorDetails) : new AthenaConnectorException(msg, errorDetails);
+        }
+
+        private boolean hasNullPrimitive(Object[] arguments)
+        {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; ++i) {
+                if (arguments[i] == null && parameterTypes[i].isPrimitive()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean argumentsMatch(Object[] arguments)
+        {
+            for (int i = 0; i < argumentTypes.length; ++i) {
+                if (arguments[i] != null && !argumentTypes[i].isInstance(arguments[i])) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 }
@@ -0,0 +1,257 @@
+package com.amazonaws.athena.connector.lambda.metadata;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Since a warm Lambda container serves many queries against the same tables, MetadataHandlers may want to keep
+ * schemas, table listings and partition metadata from their source for a short time instead of reading them again for
+ * every query. This class offers a size bounded cache with a time-to-live for such metadata.
+ * <p>
+ * The cache is opt-in per connector using the {@value #METADATA_CACHE_ENABLED} config option, the time-to-live and
+ * size are set with {@value #METADATA_CACHE_TTL_SECONDS} and {@value #METADATA_CACHE_MAX_ENTRIES}. When disabled
+ * every lookup simply calls its loader. Entries are keyed by the kind of metadata, the schema and table it describes
+ * and anything else the source's answer depends on (e.g. the catalog or the caller's identity), which also allows
+ * everything cached for a table or schema to be invalidated. Cached values are shared across requests so they must
+ * be immutable.
+ */
+public class MetadataCache
+{
+    private static final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+
+    //Config option which enables the cache, the cache is disabled by default.
+    public static final String METADATA_CACHE_ENABLED = "metadata_cache_enabled";
+    //Config option for how long, in seconds, entries are kept.
+    public static final String METADATA_CACHE_TTL_SECONDS = "metadata_cache_ttl_seconds";
+    //Config option for the maximum number of entries kept.
+    public static final String METADATA_CACHE_MAX_ENTRIES = "metadata_cache_max_entries";
+
+    private static final long DEFAULT_TTL_SECONDS = 300;
+    private static final long DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Cache<Key, Object> cache;
+
+    /**
+     * Creates a cache configured from the supplied config options, which is disabled unless
+     * {@value #METADATA_CACHE_ENABLED} is set to true.
+     *
+     * @param configOptions The configOptions for the connector.
+     * @return The MetadataCache.
+     */
+    public static MetadataCache fromConfig(Map<String, String> configOptions)
+    {
+        if (configOptions == null || !Boolean.parseBoolean(configOptions.getOrDefault(METADATA_CACHE_ENABLED, "false"))) {
+            return new MetadataCache(null);
+        }
+
+        long ttlSeconds = ConfigOptionUtils.getPositiveLongOption(configOptions, METADATA_CACHE_TTL_SECONDS, DEFAULT_TTL_SECONDS);
+        long maxEntries = ConfigOptionUtils.getPositiveLongOption(configOptions, METADATA_CACHE_MAX_ENTRIES, DEFAULT_MAX_ENTRIES);
+        logger.info("fromConfig: metadata cache enabled with ttlSeconds[{}] maxEntries[{}]", ttlSeconds, maxEntries);
+        return new MetadataCache(ttlSeconds, maxEntries, Ticker.systemTicker());
+    }
+
+    /**
+     * @return A MetadataCache which does not cache anything.
+     */
+    public static MetadataCache disabled()
+    {
+        return new MetadataCache(null);
+    }
+
+    @VisibleForTesting
+    MetadataCache(long ttlSeconds, long maxEntries, Ticker ticker)
+    {
+        this(CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumSize(maxEntries)
+                .ticker(ticker)
+                .recordStats()
+                .build());
+    }
+
+    /**
+     * Allows extenders to plug in a differently configured cache.
+     *
+     * @param cache The cache to use or null to disable caching.
+     */
+    protected MetadataCache(Cache<Key, Object> cache)
+    {
+        this.cache = cache;
+    }
+
+    /**
+     * Creates a cache key.
+     *
+     * @param kind The kind of metadata being cached, e.g. "glue.getTable".
+     * @param schemaName The schema the metadata belongs to, may be null.
+     * @param tableName The table the metadata belongs to, may be null.
+     * @param parts Anything else the metadata depends on, e.g. the catalog, caller or page token.
+     * @return The key.
+     */
+    public static Key key(String kind, String schemaName, String tableName, Object... parts)
+    {
+        return new Key(kind, schemaName, tableName, Arrays.asList(parts));
+    }
+
+    /**
+     * @return True if the cache is enabled.
+     */
+    public boolean isEnabled()
+    {
+        return cache != null;
+    }
+
+    /**
+     * Returns the cached value for the key, or calls the loader and caches its (non-null) result.
+     *
+     * @param key The key of the value.
+     * @param loader Called to read the value from the source when it isn't cached.
+     * @return The value.
+     * @throws Exception If the loader throws.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(Key key, Callable<V> loader)
+            throws Exception
+    {
+        if (cache == null) {
+            return loader.call();
+        }
+
+        V value = (V) cache.getIfPresent(key);
+        if (value != null) {
+            logger.debug("get: hit for {}", key);
+            return value;
+        }
+
+        logger.debug("get: miss for {}", key);
+        value = loader.call();
+        if (value != null) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Removes everything cached for the table, along with the table listings of its schema.
+     *
+     * @param tableName The table to invalidate.
+     */
+    public void invalidate(TableName tableName)
+    {
+        if (cache != null) {
+            cache.asMap().keySet().removeIf(next -> tableName.getSchemaName().equals(next.schemaName)
+                    && (next.tableName == null || tableName.getTableName().equals(next.tableName)));
+        }
+    }
+
+    /**
+     * Removes everything cached for the schema and its tables.
+     *
+     * @param schemaName The schema to invalidate.
+     */
+    public void invalidate(String schemaName)
+    {
+        if (cache != null) {
+            cache.asMap().keySet().removeIf(next -> schemaName.equals(next.schemaName));
+        }
+    }
+
+    /**
+     * Removes everything from the cache.
+     */
+    public void invalidateAll()
+    {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * @return The hit, miss and eviction counts of the cache.
+     */
+    public CacheStats getStats()
+    {
+        return (cache != null) ? cache.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Identifies a cached value.
+     */
+    public static final class Key
+    {
+        private final String kind;
+        private final String schemaName;
+        private final String tableName;
+        private final List<Object> parts;
+
+        private Key(String kind, String schemaName, String tableName, List<Object> parts)
+        {
+            this.kind = kind;
+            this.schemaName = schemaName;
+            this.tableName = tableName;
+            this.parts = parts;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key that = (Key) o;
+            return Objects.equals(kind, that.kind) &&
+                    Objects.equals(schemaName, that.schemaName) &&
+                    Objects.equals(tableName, that.tableName) &&
+                    Objects.equals(parts, that.parts);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(kind, schemaName, tableName, parts);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Key{kind=" + kind + ", schemaName=" + schemaName + ", tableName=" + tableName + ", parts=" + parts + "}";
+        }
+    }
+}
@@ -24,6 +24,9 @@ import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.RecordBatchSerDe;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.apache.arrow.vector.compression.CompressionCodec;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.slf4j.Logger;
@@ -33,6 +36,8 @@ import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.GCMParameterSpec;
@@ -40,12 +45,16 @@ import javax.crypto.spec.SecretKeySpec;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.Security;
 
+import static java.util.Objects.requireNonNull;
+
 /**
  * Implementation of BlockCrypto which uses AES-GCM for encrypting and decrypting blocks.
  *
@@ -64,22 +73,35 @@ public class AesGcmBlockCrypto
 
     private final RecordBatchSerDe serDe;
     private final BlockAllocator allocator;
+    //Used to compress the body buffers of Blocks as they are encrypted.
+    private final CompressionCodec codec;
 
     static {
         Security.addProvider(new BouncyCastleProvider());
     }
 
     public AesGcmBlockCrypto(BlockAllocator allocator)
+    {
+        this(allocator, NoCompressionCodec.INSTANCE);
+    }
+
+    /**
+     * @param allocator The BlockAllocator to use when creating decrypted Blocks.
+     * @param codec The CompressionCodec to apply to the body buffers of Blocks before they are encrypted. Blocks are
+     * always decrypted using whichever codec they were written with.
+     */
+    public AesGcmBlockCrypto(BlockAllocator allocator, CompressionCodec codec)
     {
         this.serDe = new RecordBatchSerDe(allocator);
         this.allocator = allocator;
+        this.codec = requireNonNull(codec, "codec was null");
     }
 
     public byte[] encrypt(EncryptionKey key, Block block)
     {
         try {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
-            serDe.serialize(block.getRecordBatch(), out);
+            serDe.serialize(block.getRecordBatch(codec), out);
 
             Cipher cipher = makeCipher(Cipher.ENCRYPT_MODE, key);
             return cipher.doFinal(out.toByteArray());
@@ -89,6 +111,24 @@ public class AesGcmBlockCrypto
         }
     }
 
+    /**
+     * AES-GCM encrypts as a stream cipher so the serialized Block is encrypted as it is written and the authentication
+     * tag is appended when the stream is closed. The result is byte for byte the same as encrypt(EncryptionKey, Block).
+     *
+     * @see BlockCrypto
+     */
+    @Override
+    public void encrypt(EncryptionKey key, Block block, OutputStream out)
+            throws IOException
+    {
+        Cipher cipher = makeCipher(Cipher.ENCRYPT_MODE, key);
+        CipherOutputStream cipherOut = new CipherOutputStream(out, cipher);
+        serDe.serialize(block.getRecordBatch(codec), cipherOut);
+        //Only close (which writes the tag and closes out) once everything was written, a partially written Block
+        //must not look complete to the caller.
+        cipherOut.close();
+    }
+
     public Block decrypt(EncryptionKey key, byte[] bytes, Schema schema)
     {
         try {
@@ -105,6 +145,49 @@ public class AesGcmBlockCrypto
         }
     }
 
+    /**
+     * Decrypts the Block as its bytes are read so that neither the ciphertext nor the clear text is ever held in full,
+     * only the Arrow buffers of the resulting Block are. The clear text is parsed before the authentication tag at the
+     * end of the stream has been checked, so nothing is loaded into the Block until the tag was verified and the
+     * message header is bounds checked against the length of the stream before anything is allocated for it.
+     *
+     * @see BlockCrypto
+     */
+    @Override
+    public Block decrypt(EncryptionKey key, InputStream in, long length, Schema schema)
+            throws IOException
+    {
+        requireNonNull(schema, "schema was null");
+        if (length < 0) {
+            //Without the length we can't sanity check the unauthenticated header, so authenticate everything first.
+            return BlockCrypto.super.decrypt(key, in, length, schema);
+        }
+
+        Cipher cipher = makeCipher(Cipher.DECRYPT_MODE, key);
+        InputStream clearIn = new CipherInputStream(in, cipher);
+        ArrowRecordBatch batch = null;
+        try {
+            batch = serDe.deserialize(clearIn, length - GCM_TAG_LENGTH_BITS / 8);
+            //The tag is verified once the cipher reaches the end of the stream, which also rejects trailing bytes.
+            if (clearIn.read() != -1) {
+                throw new IOException("Unexpected bytes after the encrypted record batch");
+            }
+
+            Block resultBlock = allocator.createBlock(schema);
+            resultBlock.loadRecordBatch(batch);
+            return resultBlock;
+        }
+        catch (AthenaConnectorException ex) {
+            closeQuietly(batch);
+            throw ex;
+        }
+        catch (IOException | RuntimeException ex) {
+            //Anything read before the tag was verified is untrusted, so parsing errors are treated like a bad tag.
+            closeQuietly(batch);
+            throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+    }
+
     public byte[] decrypt(EncryptionKey key, byte[] bytes)
     {
         try {
@@ -116,6 +199,13 @@ public class AesGcmBlockCrypto
         }
     }
 
+    private static void closeQuietly(ArrowRecordBatch batch)
+    {
+        if (batch != null) {
+            batch.close();
+        }
+    }
+
     private Cipher makeCipher(int mode, EncryptionKey key)
     {
         if (key.getNonce().length != NONCE_BYTES) {
@@ -21,8 +21,13 @@ package com.amazonaws.athena.connector.lambda.security;
  */
 
 import com.amazonaws.athena.connector.lambda.data.Block;
+import com.google.common.io.ByteStreams;
 import org.apache.arrow.vector.types.pojo.Schema;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  * Defines a facility that can be used to encrypt and decrypt blocks.
  */
@@ -37,6 +42,26 @@ public interface BlockCrypto
      */
     byte[] encrypt(EncryptionKey key, Block block);
 
+    /**
+     * Used to encrypt the provided Block in its serialized form, writing the result to the supplied OutputStream
+     * instead of materializing it as a byte[]. The bytes written are identical to those returned by
+     * encrypt(EncryptionKey, Block) so readers need not know which of the two methods was used.
+     *
+     * @param key The EncryptionKey to use when encrypting the Block.
+     * @param block The Block to serialize and encrypt.
+     * @param out The OutputStream to write the encrypted Block to, closed once the Block has been fully written.
+     * @throws IOException If writing to the OutputStream fails, in which case the OutputStream is left open so that
+     * the caller can discard what was written so far.
+     * @note The default implementation buffers the whole encrypted Block, implementations should override it if
+     * they are able to stream.
+     */
+    default void encrypt(EncryptionKey key, Block block, OutputStream out)
+            throws IOException
+    {
+        out.write(encrypt(key, block));
+        out.close();
+    }
+
     /**
      * Used to decrypt and deserialize a Block from the provided bytes and schema.
      *
@@ -47,6 +72,25 @@ public interface BlockCrypto
      */
     Block decrypt(EncryptionKey key, byte[] bytes, Schema schema);
 
+    /**
+     * Used to decrypt and deserialize a Block as it is read from the provided InputStream, instead of first
+     * materializing all of its encrypted bytes as a byte[].
+     *
+     * @param key The EncryptionKey to use when decrypting the Block.
+     * @param in The InputStream holding the encrypted serialized form of the Block, it is read to its end but not closed.
+     * @param length The number of bytes in the InputStream, or -1 if unknown.
+     * @param schema The schema of the encrypted block
+     * @return The Block.
+     * @throws IOException If reading from the InputStream fails.
+     * @note The default implementation buffers the whole encrypted Block, implementations should override it if
+     * they are able to stream.
+     */
+    default Block decrypt(EncryptionKey key, InputStream in, long length, Schema schema)
+            throws IOException
+    {
+        return decrypt(key, ByteStreams.toByteArray(in), schema);
+    }
+
     /**
      * Used to decrypt a Block's serialzied form.
      *
@@ -22,6 +22,7 @@ package com.amazonaws.athena.connector.lambda.security;
 
 import com.amazonaws.athena.connector.credentials.DefaultCredentials;
 import com.amazonaws.athena.connector.credentials.DefaultCredentialsProvider;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import org.apache.arrow.util.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,9 +30,15 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
 
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,25 +47,62 @@ import java.util.regex.Pattern;
  * cache in front of SecretsManager to avoid bottlenecking on SecretsManager. This class offers such a cache. This class
  * also has utilities for idetifying and replacing secrets in scripts. For example: MyString${WithSecret} would have
  * ${WithSecret} replaced by the corresponding value of the secret in AWS Secrets Manager with that name.
+ * <p>
+ * The cache is safe to use from multiple threads. Concurrent lookups of a secret which isn't cached result in a single
+ * call to SecretsManager, and secrets are refreshed in the background once they are older than
+ * three quarters of their max age so that lookups only block on SecretsManager when a secret is read
+ * for the first time or wasn't read for longer than its max age. The max age and number of cached secrets can be set
+ * with the {@value #SECRETS_CACHE_TTL_SECONDS} and {@value #SECRETS_CACHE_MAX_ENTRIES} config options.
  */
 public class CachableSecretsManager
 {
     private static final Logger logger = LoggerFactory.getLogger(CachableSecretsManager.class);
 
+    //Config option for the max age, in seconds, of cached secrets.
+    public static final String SECRETS_CACHE_TTL_SECONDS = "secrets_cache_ttl_seconds";
+    //Config option for the maximum number of cached secrets.
+    public static final String SECRETS_CACHE_MAX_ENTRIES = "secrets_cache_max_entries";
+
     private static final long MAX_CACHE_AGE_MS = 60_000;
-    protected static final int MAX_CACHE_SIZE = 10;
+    protected static final int MAX_CACHE_SIZE = 100;
+    private static final int REFRESH_AGE_PERCENT = 75;
 
     private static final String SECRET_PATTERN = "(\\$\\{[a-zA-Z0-9-\\/_\\-\\.\\+=@]+\\})";
     private static final String SECRET_NAME_PATTERN = "\\$\\{([a-zA-Z0-9-\\/_\\-\\.\\+=@]+)\\}";
     private static final Pattern PATTERN = Pattern.compile(SECRET_PATTERN);
     private static final Pattern NAME_PATTERN = Pattern.compile(SECRET_NAME_PATTERN);
 
-    private final LinkedHashMap<String, CacheEntry> cache = new LinkedHashMap<>();
+    //Shared by all instances, the threads exit when there is nothing to refresh.
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "secrets-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ConcurrentHashMap<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
     private final SecretsManagerClient secretsManager;
+    private final long maxAgeMs;
+    private final long refreshAgeMs;
+    private final int maxEntries;
 
     public CachableSecretsManager(SecretsManagerClient secretsManager)
+    {
+        this(secretsManager, null);
+    }
+
+    /**
+     * @param secretsManager The SecretsManagerClient to read secrets with.
+     * @param configOptions The config options to read the cache's max age and size from, may be null.
+     */
+    public CachableSecretsManager(SecretsManagerClient secretsManager, Map<String, String> configOptions)
     {
         this.secretsManager = secretsManager;
+        this.maxAgeMs = TimeUnit.SECONDS.toMillis(ConfigOptionUtils.getPositiveLongOption(configOptions, SECRETS_CACHE_TTL_SECONDS,
+                TimeUnit.MILLISECONDS.toSeconds(MAX_CACHE_AGE_MS)));
+        this.refreshAgeMs = maxAgeMs * REFRESH_AGE_PERCENT / 100;
+        this.maxEntries = ConfigOptionUtils.getPositiveIntOption(configOptions, SECRETS_CACHE_MAX_ENTRIES, MAX_CACHE_SIZE);
     }
 
     /**
@@ -135,39 +179,88 @@ public class CachableSecretsManager
     public String getSecret(String secretName)
     {
         CacheEntry cacheEntry = cache.get(secretName);
-
-        if (cacheEntry == null || cacheEntry.getAge() > MAX_CACHE_AGE_MS) {
-            logger.info("getSecret: Resolving secret[{}].", secretName);
-            GetSecretValueResponse secretValueResult = secretsManager.getSecretValue(GetSecretValueRequest.builder()
-                    .secretId(secretName)
-                    .build());
-            cacheEntry = new CacheEntry(secretName, secretValueResult.secretString());
-            evictCache(cache.size() >= MAX_CACHE_SIZE);
-            cache.put(secretName, cacheEntry);
+        if (cacheEntry != null) {
+            long age = cacheEntry.getAge();
+            if (age <= maxAgeMs) {
+                if (age > refreshAgeMs) {
+                    fetch(secretName, true);
+                }
+                return cacheEntry.getValue();
+            }
         }
 
-        return cacheEntry.getValue();
+        try {
+            return fetch(secretName, false).join().getValue();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
     }
 
-    private void evictCache(boolean force)
+    /**
+     * Fetches the secret from SecretsManager, unless it is already being fetched in which case the pending fetch is
+     * returned.
+     *
+     * @param secretName The name of the secret to fetch.
+     * @param background True to fetch the secret on the refresh executor, otherwise it is fetched on this thread.
+     * @return The pending fetch.
+     */
+    private CompletableFuture<CacheEntry> fetch(String secretName, boolean background)
     {
-        Iterator<Map.Entry<String, CacheEntry>> itr = cache.entrySet().iterator();
-        int removed = 0;
-        while (itr.hasNext()) {
-            CacheEntry entry = itr.next().getValue();
-            if (entry.getAge() > MAX_CACHE_AGE_MS) {
-                itr.remove();
-                removed++;
+        CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> pending = inFlight.putIfAbsent(secretName, future);
+        if (pending != null) {
+            return pending;
+        }
+
+        Runnable load = () -> {
+            try {
+                logger.info("getSecret: Resolving secret[{}].", secretName);
+                GetSecretValueResponse secretValueResult = secretsManager.getSecretValue(GetSecretValueRequest.builder()
+                        .secretId(secretName)
+                        .build());
+                CacheEntry cacheEntry = new CacheEntry(secretName, secretValueResult.secretString());
+                cache.put(secretName, cacheEntry);
+                evictCache();
+                future.complete(cacheEntry);
+            }
+            catch (Throwable t) {
+                if (background) {
+                    //The cached value is still served until it expires.
+                    logger.warn("getSecret: Failed to refresh secret[{}].", secretName, t);
+                }
+                future.completeExceptionally(t);
             }
+            finally {
+                inFlight.remove(secretName, future);
+            }
+        };
+
+        if (background) {
+            REFRESH_EXECUTOR.execute(load);
         }
+        else {
+            load.run();
+        }
+        return future;
+    }
 
-        if (removed == 0 && force) {
+    private void evictCache()
+    {
+        if (cache.size() <= maxEntries) {
+            return;
+        }
+
+        cache.values().removeIf(next -> next.getAge() > maxAgeMs);
+
+        while (cache.size() > maxEntries) {
             //Remove the oldest since we found no expired entries
-            itr = cache.entrySet().iterator();
-            if (itr.hasNext()) {
-                itr.next();
-                itr.remove();
-            }
+            cache.values().stream()
+                    .min(Comparator.comparingLong((CacheEntry next) -> next.createTime).thenComparingLong(next -> next.sequence))
+                    .ifPresent(oldest -> cache.remove(oldest.name, oldest));
         }
     }
 
@@ -182,12 +275,11 @@ public class CachableSecretsManager
         private final String name;
         private final String value;
         private final long createTime;
+        private final long sequence;
 
         public CacheEntry(String name, String value)
         {
-            this.value = value;
-            this.name = name;
-            this.createTime = System.currentTimeMillis();
+            this(name, value, System.currentTimeMillis());
         }
 
         public CacheEntry(String name, String value, long createTime)
@@ -195,6 +287,7 @@ public class CachableSecretsManager
             this.value = value;
             this.name = name;
             this.createTime = createTime;
+            this.sequence = CachableSecretsManager.this.sequence.incrementAndGet();
         }
 
         public String getValue()
@@ -24,12 +24,18 @@ import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.RecordBatchSerDe;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.apache.arrow.vector.compression.CompressionCodec;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
 import org.apache.arrow.vector.types.pojo.Schema;
 import software.amazon.awssdk.services.glue.model.ErrorDetails;
 import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * Implementation of BlockCrypto does a No-OP (nothing) for encrypting and decrypting blocks. This is helpful when you
@@ -42,11 +48,24 @@ public class NoOpBlockCrypto
 {
     private final RecordBatchSerDe serDe;
     private final BlockAllocator allocator;
+    //Used to compress the body buffers of Blocks as they are serialized.
+    private final CompressionCodec codec;
 
     public NoOpBlockCrypto(BlockAllocator allocator)
+    {
+        this(allocator, NoCompressionCodec.INSTANCE);
+    }
+
+    /**
+     * @param allocator The BlockAllocator to use when creating decrypted Blocks.
+     * @param codec The CompressionCodec to apply to the body buffers of Blocks as they are serialized. Blocks are
+     * always deserialized using whichever codec they were written with.
+     */
+    public NoOpBlockCrypto(BlockAllocator allocator, CompressionCodec codec)
     {
         this.serDe = new RecordBatchSerDe(allocator);
         this.allocator = allocator;
+        this.codec = requireNonNull(codec, "codec was null");
     }
 
     public byte[] encrypt(EncryptionKey key, Block block)
@@ -56,7 +75,7 @@ public class NoOpBlockCrypto
         }
         try {
             ByteArrayOutputStream out = new ByteArrayOutputStream();
-            serDe.serialize(block.getRecordBatch(), out);
+            serDe.serialize(block.getRecordBatch(codec), out);
             return out.toByteArray();
         }
         catch (IOException ex) {
@@ -64,6 +83,17 @@ public class NoOpBlockCrypto
         }
     }
 
+    @Override
+    public void encrypt(EncryptionKey key, Block block, OutputStream out)
+            throws IOException
+    {
+        if (key != null) {
+            throw new AthenaConnectorException("Real key provided to NoOpBlockCrypto, likely indicates you wanted real crypto.", ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        serDe.serialize(block.getRecordBatch(codec), out);
+        out.close();
+    }
+
     public Block decrypt(EncryptionKey key, byte[] bytes, Schema schema)
     {
         try {
@@ -76,6 +106,15 @@ public class NoOpBlockCrypto
         }
     }
 
+    @Override
+    public Block decrypt(EncryptionKey key, InputStream in, long length, Schema schema)
+            throws IOException
+    {
+        Block resultBlock = allocator.createBlock(schema);
+        resultBlock.loadRecordBatch(serDe.deserialize(in, (length < 0) ? Long.MAX_VALUE : length));
+        return resultBlock;
+    }
+
     public byte[] decrypt(EncryptionKey key, byte[] bytes)
     {
         return bytes;
@@ -0,0 +1,495 @@
+package com.amazonaws.athena.connector.lambda.security;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.RecordBatchSerDe;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.google.common.io.ByteStreams;
+import org.apache.arrow.vector.compression.CompressionCodec;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of BlockCrypto which uses AES-GCM to encrypt blocks in fixed-size, individually authenticated
+ * segments. Unlike AesGcmBlockCrypto, which authenticates a whole Block with a single tag, this lets Blocks be
+ * encrypted and decrypted as they are streamed while only ever holding one segment of clear text and cipher text in
+ * memory, and every byte is authenticated before it is handed to the Arrow deserializer.
+ * <p>
+ * The encrypted form starts with a header made of a magic version tag, the clear text segment size and a random
+ * salt. It is followed by the segments, each one being the AES-GCM cipher text of segmentBytes of clear text followed
+ * by its tag, except for the last segment which always holds fewer than segmentBytes (possibly none). The nonce of
+ * each segment is the key's nonce XORed with the salt and the segment's index. The header, the segment's index and
+ * whether it is the last segment are authenticated as additional data so that segments can't be reordered, dropped
+ * or truncated without being detected.
+ * <p>
+ * Data which doesn't start with the version tag is decrypted using AesGcmBlockCrypto, so readers can use this class
+ * for both formats. The segmented format is only understood by readers which use this class.
+ *
+ * @see BlockCrypto
+ * @see AesGcmBlockCrypto
+ */
+public class SegmentedAesGcmBlockCrypto
+        implements BlockCrypto
+{
+    //The default number of clear text bytes per segment.
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024;
+    //Identifies the segmented format, the last byte is the version of the format.
+    private static final byte[] VERSION_TAG = {'A', 'G', 'C', 'M', 'S', 'E', 'G', 1};
+    private static final int SALT_BYTES = AesGcmBlockCrypto.NONCE_BYTES;
+    private static final int HEADER_BYTES = VERSION_TAG.length + Integer.BYTES + SALT_BYTES;
+    private static final int TAG_BYTES = AesGcmBlockCrypto.GCM_TAG_LENGTH_BITS / 8;
+    //The largest number of clear text bytes per segment, keeps the header of a corrupt block from turning into a huge
+    //allocation.
+    public static final int MAX_SEGMENT_BYTES = 16 * 1024 * 1024;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RecordBatchSerDe serDe;
+    private final BlockAllocator allocator;
+    //Used to compress the body buffers of Blocks as they are encrypted.
+    private final CompressionCodec codec;
+    private final int segmentBytes;
+    //Decrypts Blocks which were not written in the segmented format.
+    private final AesGcmBlockCrypto unsegmented;
+
+    static {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    public SegmentedAesGcmBlockCrypto(BlockAllocator allocator)
+    {
+        this(allocator, NoCompressionCodec.INSTANCE, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * @param allocator The BlockAllocator to use when creating decrypted Blocks.
+     * @param codec The CompressionCodec to apply to the body buffers of Blocks before they are encrypted. Blocks are
+     * always decrypted using whichever codec they were written with.
+     * @param segmentBytes The number of clear text bytes per encrypted segment, Blocks are decrypted using whichever
+     * segment size they were written with.
+     */
+    public SegmentedAesGcmBlockCrypto(BlockAllocator allocator, CompressionCodec codec, int segmentBytes)
+    {
+        if (segmentBytes <= 0 || segmentBytes > MAX_SEGMENT_BYTES) {
+            throw new AthenaConnectorException("segmentBytes must be between 1 and " + MAX_SEGMENT_BYTES + " but was " + segmentBytes,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        this.serDe = new RecordBatchSerDe(allocator);
+        this.allocator = allocator;
+        this.codec = requireNonNull(codec, "codec was null");
+        this.segmentBytes = segmentBytes;
+        this.unsegmented = new AesGcmBlockCrypto(allocator, codec);
+    }
+
+    /**
+     * Used to tell if the provided bytes were encrypted in the segmented format.
+     *
+     * @param bytes The encrypted form of a Block, only its first few bytes are inspected.
+     * @return True if the bytes start with the version tag of the segmented format.
+     */
+    public static boolean isSegmented(byte[] bytes)
+    {
+        return bytes.length >= VERSION_TAG.length
+                && Arrays.equals(Arrays.copyOf(bytes, VERSION_TAG.length), VERSION_TAG);
+    }
+
+    @Override
+    public byte[] encrypt(EncryptionKey key, Block block)
+    {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            encrypt(key, block, out);
+            return out.toByteArray();
+        }
+        catch (IOException ex) {
+            throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+    }
+
+    /**
+     * Encrypts each segment as soon as it has been serialized, so only one segment is buffered at a time.
+     *
+     * @see BlockCrypto
+     */
+    @Override
+    public void encrypt(EncryptionKey key, Block block, OutputStream out)
+            throws IOException
+    {
+        byte[] header = ByteBuffer.allocate(HEADER_BYTES)
+                .put(VERSION_TAG)
+                .putInt(segmentBytes)
+                .put(randomSalt())
+                .array();
+        out.write(header);
+
+        SegmentOutputStream segmentOut = new SegmentOutputStream(new SegmentCipher(key, header, segmentBytes), out);
+        serDe.serialize(block.getRecordBatch(codec), segmentOut);
+        //Only close (which writes the last segment and closes out) once everything was written, a partially written
+        //Block must not look complete to the caller.
+        segmentOut.close();
+    }
+
+    @Override
+    public Block decrypt(EncryptionKey key, byte[] bytes, Schema schema)
+    {
+        if (!isSegmented(bytes)) {
+            return unsegmented.decrypt(key, bytes, schema);
+        }
+        try {
+            return decrypt(key, new ByteArrayInputStream(bytes), bytes.length, schema);
+        }
+        catch (IOException ex) {
+            throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+    }
+
+    /**
+     * Decrypts the Block one segment at a time as its bytes are read. Each segment is authenticated before any of its
+     * clear text is parsed, so unlike AesGcmBlockCrypto this doesn't need to know the length of the stream.
+     *
+     * @see BlockCrypto
+     */
+    @Override
+    public Block decrypt(EncryptionKey key, InputStream in, long length, Schema schema)
+            throws IOException
+    {
+        requireNonNull(schema, "schema was null");
+        PushbackInputStream pushbackIn = new PushbackInputStream(in, VERSION_TAG.length);
+        byte[] tag = new byte[VERSION_TAG.length];
+        int read = ByteStreams.read(pushbackIn, tag, 0, tag.length);
+        pushbackIn.unread(tag, 0, read);
+        if (!isSegmented(Arrays.copyOf(tag, read))) {
+            return unsegmented.decrypt(key, pushbackIn, length, schema);
+        }
+
+        ArrowRecordBatch batch = null;
+        try {
+            SegmentInputStream clearIn = new SegmentInputStream(key, pushbackIn);
+            batch = serDe.deserialize(clearIn, (length < 0) ? Long.MAX_VALUE : clearIn.getMaxClearBytes(length));
+            //Reading to the end authenticates the last segment, which also rejects truncated or trailing bytes.
+            if (clearIn.read() != -1) {
+                throw new IOException("Unexpected bytes after the encrypted record batch");
+            }
+
+            Block resultBlock = allocator.createBlock(schema);
+            resultBlock.loadRecordBatch(batch);
+            return resultBlock;
+        }
+        catch (AthenaConnectorException ex) {
+            closeQuietly(batch);
+            throw ex;
+        }
+        catch (IOException | RuntimeException ex) {
+            closeQuietly(batch);
+            throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+    }
+
+    @Override
+    public byte[] decrypt(EncryptionKey key, byte[] bytes)
+    {
+        if (!isSegmented(bytes)) {
+            return unsegmented.decrypt(key, bytes);
+        }
+        try {
+            return ByteStreams.toByteArray(new SegmentInputStream(key, new ByteArrayInputStream(bytes)));
+        }
+        catch (IOException ex) {
+            throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+    }
+
+    private static byte[] randomSalt()
+    {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return salt;
+    }
+
+    private static void closeQuietly(ArrowRecordBatch batch)
+    {
+        if (batch != null) {
+            batch.close();
+        }
+    }
+
+    /**
+     * Encrypts or decrypts the segments of a single Block, reusing one Cipher for all of them.
+     */
+    private static class SegmentCipher
+    {
+        private final SecretKeySpec secretKeySpec;
+        private final byte[] header;
+        private final byte[] baseNonce;
+        private final int segmentBytes;
+        private final Cipher cipher;
+        private int index;
+
+        SegmentCipher(EncryptionKey key, byte[] header, int segmentBytes)
+        {
+            if (key.getNonce().length != AesGcmBlockCrypto.NONCE_BYTES) {
+                throw new AthenaConnectorException("Expected " + AesGcmBlockCrypto.NONCE_BYTES + " nonce bytes but found " + key.getNonce().length,
+                        ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+            }
+            if (key.getKey() == null || key.getKey().length == 0) {
+                throw new AthenaConnectorException("Invalid key", ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+            }
+
+            this.secretKeySpec = new SecretKeySpec(key.getKey(), AesGcmBlockCrypto.KEYSPEC);
+            this.header = header;
+            this.segmentBytes = segmentBytes;
+            this.baseNonce = new byte[AesGcmBlockCrypto.NONCE_BYTES];
+            for (int i = 0; i < baseNonce.length; i++) {
+                baseNonce[i] = (byte) (key.getNonce()[i] ^ header[VERSION_TAG.length + Integer.BYTES + i]);
+            }
+            try {
+                this.cipher = Cipher.getInstance(AesGcmBlockCrypto.ALGO, AesGcmBlockCrypto.ALGO_BC);
+            }
+            catch (GeneralSecurityException ex) {
+                throw new AthenaConnectorException(ex, ex.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+            }
+        }
+
+        int getSegmentBytes()
+        {
+            return segmentBytes;
+        }
+
+        /**
+         * Encrypts or decrypts the next segment.
+         *
+         * @return The number of bytes written to output.
+         */
+        int doSegment(int mode, byte[] input, int length, byte[] output, boolean last)
+                throws IOException
+        {
+            if (index == Integer.MAX_VALUE) {
+                throw new IOException("Too many segments");
+            }
+            byte[] nonce = baseNonce.clone();
+            for (int i = 0; i < Integer.BYTES; i++) {
+                nonce[nonce.length - 1 - i] ^= (byte) (index >>> (8 * i));
+            }
+            byte[] aad = ByteBuffer.allocate(header.length + Integer.BYTES + 1)
+                    .put(header)
+                    .putInt(index)
+                    .put((byte) (last ? 1 : 0))
+                    .array();
+            try {
+                cipher.init(mode, secretKeySpec, new GCMParameterSpec(AesGcmBlockCrypto.GCM_TAG_LENGTH_BITS, nonce));
+                cipher.updateAAD(aad);
+                int written = cipher.doFinal(input, 0, length, output, 0);
+                index++;
+                return written;
+            }
+            catch (GeneralSecurityException ex) {
+                throw new IOException("Unable to " + (mode == Cipher.ENCRYPT_MODE ? "encrypt" : "decrypt") + " segment " + index + ": " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Buffers one segment of clear text and writes each full segment to the underlying stream as soon as it has been
+     * encrypted. Since the last segment must be shorter than a full one, it is only written by close().
+     */
+    private static class SegmentOutputStream
+            extends OutputStream
+    {
+        private final SegmentCipher cipher;
+        private final OutputStream out;
+        private final byte[] clear;
+        private final byte[] encrypted;
+        private int position;
+        private boolean closed;
+
+        SegmentOutputStream(SegmentCipher cipher, OutputStream out)
+        {
+            this.cipher = cipher;
+            this.out = out;
+            this.clear = new byte[cipher.getSegmentBytes()];
+            this.encrypted = new byte[cipher.getSegmentBytes() + TAG_BYTES];
+        }
+
+        @Override
+        public void write(int b)
+                throws IOException
+        {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+                throws IOException
+        {
+            while (length > 0) {
+                if (position == clear.length) {
+                    writeSegment(false);
+                }
+                int toCopy = Math.min(length, clear.length - position);
+                System.arraycopy(bytes, offset, clear, position, toCopy);
+                position += toCopy;
+                offset += toCopy;
+                length -= toCopy;
+            }
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (closed) {
+                return;
+            }
+            if (position == clear.length) {
+                writeSegment(false);
+            }
+            writeSegment(true);
+            closed = true;
+            out.close();
+        }
+
+        private void writeSegment(boolean last)
+                throws IOException
+        {
+            int written = cipher.doSegment(Cipher.ENCRYPT_MODE, clear, position, encrypted, last);
+            out.write(encrypted, 0, written);
+            position = 0;
+        }
+    }
+
+    /**
+     * Reads the header and then decrypts one segment at a time as the clear text is consumed.
+     */
+    private static class SegmentInputStream
+            extends InputStream
+    {
+        private final InputStream in;
+        private final SegmentCipher cipher;
+        private final byte[] encrypted;
+        private final byte[] clear;
+        private int position;
+        private int limit;
+        private boolean lastRead;
+
+        SegmentInputStream(EncryptionKey key, InputStream in)
+                throws IOException
+        {
+            this.in = in;
+            byte[] header = new byte[HEADER_BYTES];
+            ByteStreams.readFully(in, header);
+            if (!isSegmented(header)) {
+                throw new IOException("Missing the segmented encryption version tag");
+            }
+            int segmentBytes = ByteBuffer.wrap(header, VERSION_TAG.length, Integer.BYTES).getInt();
+            if (segmentBytes <= 0 || segmentBytes > MAX_SEGMENT_BYTES) {
+                throw new IOException("Invalid segment size " + segmentBytes);
+            }
+            this.cipher = new SegmentCipher(key, header, segmentBytes);
+            this.encrypted = new byte[segmentBytes + TAG_BYTES];
+            this.clear = new byte[segmentBytes];
+        }
+
+        /**
+         * @param length The total number of encrypted bytes, including the header.
+         * @return The number of clear text bytes held by that many encrypted bytes.
+         */
+        long getMaxClearBytes(long length)
+        {
+            long body = length - HEADER_BYTES;
+            long segments = body / encrypted.length + 1;
+            return body - segments * TAG_BYTES;
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            if (!fill()) {
+                return -1;
+            }
+            return clear[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+                throws IOException
+        {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int toCopy = Math.min(length, limit - position);
+            System.arraycopy(clear, position, bytes, offset, toCopy);
+            position += toCopy;
+            return toCopy;
+        }
+
+        /**
+         * Decrypts segments until there is clear text to read.
+         *
+         * @return False once every segment has been read.
+         */
+        private boolean fill()
+                throws IOException
+        {
+            while (position == limit) {
+                if (lastRead) {
+                    return false;
+                }
+                int read = ByteStreams.read(in, encrypted, 0, encrypted.length);
+                //Every segment but the last one is full, and the last one holds at least its tag.
+                boolean last = read < encrypted.length;
+                if (last && read < TAG_BYTES) {
+                    throw new IOException("Truncated encrypted segment");
+                }
+                limit = cipher.doSegment(Cipher.DECRYPT_MODE, encrypted, read, clear, last);
+                position = 0;
+                lastRead = last;
+            }
+            return true;
+        }
+    }
+}
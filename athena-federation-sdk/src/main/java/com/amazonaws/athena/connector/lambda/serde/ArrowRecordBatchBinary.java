@@ -0,0 +1,335 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.serde;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.apache.arrow.flatbuf.MessageHeader;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ipc.ReadChannel;
+import org.apache.arrow.vector.ipc.WriteChannel;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.ipc.message.MessageMetadataResult;
+import org.apache.arrow.vector.ipc.message.MessageSerializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Math.toIntExact;
+
+/**
+ * Writes and reads ArrowRecordBatches as JSON binary (base64) values without materializing the Arrow IPC message as
+ * intermediate byte[]s.
+ * <p>
+ * When writing, the IPC message is assembled as a list of segments which reference the batch's ArrowBufs directly, the
+ * generator base64 encodes straight out of those buffers. When reading, the parser base64 decodes into a single buffer
+ * owned by the supplied allocator and the batch's buffers are slices of it, so the body is never copied again.
+ *
+ * @note The bytes written are exactly those produced by MessageSerializer.serialize(...) so the wire format is unchanged.
+ */
+public final class ArrowRecordBatchBinary
+{
+    //Initial size of the buffer we decode into, it doubles as needed.
+    private static final long INITIAL_READ_BUFFER_BYTES = 64 * 1024;
+
+    private ArrowRecordBatchBinary() {}
+
+    /**
+     * Writes the batch as the generator's next binary value. The caller remains responsible for closing the batch,
+     * which must not happen before this method returns.
+     *
+     * @param jgen The generator to write to.
+     * @param batch The batch to write.
+     * @param option The IpcOption to serialize the batch with.
+     * @throws IOException If the generator fails to write.
+     */
+    public static void write(JsonGenerator jgen, ArrowRecordBatch batch, IpcOption option)
+            throws IOException
+    {
+        SegmentChannel channel = new SegmentChannel();
+        MessageSerializer.serialize(new WriteChannel(channel), batch, option);
+        jgen.writeBinary(channel.newInputStream(), toIntExact(channel.getSize()));
+    }
+
+    /**
+     * Reads the parser's current binary value as an ArrowRecordBatch.
+     *
+     * @param jparser The parser, positioned on the binary value.
+     * @param allocator The allocator which will own the batch's buffers.
+     * @return The batch or null if the value was empty.
+     * @throws IOException If the value is not a valid serialized ArrowRecordBatch.
+     */
+    public static ArrowRecordBatch read(JsonParser jparser, BufferAllocator allocator)
+            throws IOException
+    {
+        ArrowBufOutputStream out = new ArrowBufOutputStream(allocator);
+        try {
+            jparser.readBinaryValue(out);
+        }
+        catch (IOException | RuntimeException ex) {
+            out.release();
+            throw ex;
+        }
+
+        long length = out.getSize();
+        ArrowBuf data = out.getBuffer();
+        if (length == 0) {
+            out.release();
+            return null;
+        }
+
+        try {
+            ReadChannel in = new ReadChannel(new ByteBufferChannel(data.nioBuffer(0, toIntExact(length))));
+            MessageMetadataResult metadata = MessageSerializer.readMessage(in);
+            if (metadata == null || metadata.headerType() != MessageHeader.RecordBatch) {
+                throw new IOException("Expected a serialized ArrowRecordBatch");
+            }
+            long bodyOffset = in.bytesRead();
+            long bodyLength = metadata.getMessageBodyLength();
+            if (bodyOffset + bodyLength > length) {
+                throw new IOException("Expected " + bodyLength + " bytes of record batch body but only " + (length - bodyOffset) + " bytes remain");
+            }
+            //The body is a slice of data (sharing its reference count), deserializeRecordBatch retains the slices the
+            //batch needs and then releases the reference we hold, handing ownership of data to the batch.
+            return MessageSerializer.deserializeRecordBatch(metadata, data.slice(bodyOffset, bodyLength));
+        }
+        catch (IOException | RuntimeException ex) {
+            out.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * WritableByteChannel which keeps what is written to it as a list of segments. Off-heap buffers (the views of the
+     * batch's ArrowBufs) are referenced, not copied. Heap buffers (message metadata, lengths and padding) are small and
+     * may be reused by the writer so they are copied.
+     */
+    private static final class SegmentChannel
+            implements WritableByteChannel
+    {
+        private final List<ByteBuffer> segments = new ArrayList<>();
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private long size;
+
+        @Override
+        public int write(ByteBuffer src)
+        {
+            int length = src.remaining();
+            if (src.isDirect()) {
+                flushPending();
+                segments.add(src.slice());
+                src.position(src.limit());
+            }
+            else if (src.hasArray()) {
+                pending.write(src.array(), src.arrayOffset() + src.position(), length);
+                src.position(src.limit());
+            }
+            else {
+                byte[] bytes = new byte[length];
+                src.get(bytes);
+                pending.write(bytes, 0, length);
+            }
+            size += length;
+            return length;
+        }
+
+        long getSize()
+        {
+            return size;
+        }
+
+        InputStream newInputStream()
+        {
+            flushPending();
+            return new SegmentInputStream(segments);
+        }
+
+        private void flushPending()
+        {
+            if (pending.size() > 0) {
+                segments.add(ByteBuffer.wrap(pending.toByteArray()));
+                pending.reset();
+            }
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+            //NoOp
+        }
+    }
+
+    private static final class SegmentInputStream
+            extends InputStream
+    {
+        private final List<ByteBuffer> segments;
+        private int current;
+
+        SegmentInputStream(List<ByteBuffer> segments)
+        {
+            this.segments = segments;
+        }
+
+        @Override
+        public int read()
+        {
+            ByteBuffer segment = nextSegment();
+            return (segment == null) ? -1 : segment.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+        {
+            if (length == 0) {
+                return 0;
+            }
+            ByteBuffer segment = nextSegment();
+            if (segment == null) {
+                return -1;
+            }
+            int toRead = Math.min(length, segment.remaining());
+            segment.get(bytes, offset, toRead);
+            return toRead;
+        }
+
+        private ByteBuffer nextSegment()
+        {
+            while (current < segments.size() && !segments.get(current).hasRemaining()) {
+                current++;
+            }
+            return (current < segments.size()) ? segments.get(current) : null;
+        }
+    }
+
+    /**
+     * OutputStream which writes into a single ArrowBuf, growing it (by doubling) as needed.
+     */
+    private static final class ArrowBufOutputStream
+            extends OutputStream
+    {
+        private final BufferAllocator allocator;
+        private ArrowBuf buffer;
+        private long size;
+
+        ArrowBufOutputStream(BufferAllocator allocator)
+        {
+            this.allocator = allocator;
+        }
+
+        @Override
+        public void write(int b)
+        {
+            ensureCapacity(size + 1);
+            buffer.setByte(size++, b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length)
+        {
+            ensureCapacity(size + length);
+            buffer.setBytes(size, bytes, offset, length);
+            size += length;
+        }
+
+        long getSize()
+        {
+            return size;
+        }
+
+        ArrowBuf getBuffer()
+        {
+            return buffer;
+        }
+
+        void release()
+        {
+            if (buffer != null) {
+                buffer.close();
+                buffer = null;
+            }
+        }
+
+        private void ensureCapacity(long required)
+        {
+            if (buffer != null && required <= buffer.capacity()) {
+                return;
+            }
+            long capacity = (buffer == null) ? INITIAL_READ_BUFFER_BYTES : buffer.capacity() * 2;
+            ArrowBuf newBuffer = allocator.buffer(Math.max(capacity, required));
+            if (buffer != null) {
+                newBuffer.setBytes(0, buffer, 0, size);
+                buffer.close();
+            }
+            buffer = newBuffer;
+        }
+    }
+
+    private static final class ByteBufferChannel
+            implements ReadableByteChannel
+    {
+        private final ByteBuffer source;
+
+        ByteBufferChannel(ByteBuffer source)
+        {
+            this.source = source;
+        }
+
+        @Override
+        public int read(ByteBuffer dst)
+        {
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            int toRead = Math.min(dst.remaining(), source.remaining());
+            ByteBuffer slice = source.slice();
+            slice.limit(toRead);
+            dst.put(slice);
+            source.position(source.position() + toRead);
+            return toRead;
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+            //NoOp
+        }
+    }
+}
@@ -21,6 +21,7 @@ package com.amazonaws.athena.connector.lambda.serde.v4;
 
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.serde.ArrowRecordBatchBinary;
 import com.amazonaws.athena.connector.lambda.serde.BaseDeserializer;
 import com.amazonaws.athena.connector.lambda.serde.BaseSerializer;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -29,18 +30,12 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import org.apache.arrow.memory.BufferAllocator;
-import org.apache.arrow.vector.ipc.ReadChannel;
-import org.apache.arrow.vector.ipc.WriteChannel;
 import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
-import org.apache.arrow.vector.ipc.message.MessageSerializer;
+import org.apache.arrow.vector.ipc.message.IpcOption;
 import software.amazon.awssdk.services.glue.model.ErrorDetails;
 import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.channels.Channels;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Objects.requireNonNull;
 
@@ -60,9 +55,7 @@ public final class ArrowRecordBatchSerDeV4
                 throws IOException
         {
             try {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                MessageSerializer.serialize(new WriteChannel(Channels.newChannel(out)), arrowRecordBatch);
-                jgen.writeBinary(out.toByteArray());
+                ArrowRecordBatchBinary.write(jgen, arrowRecordBatch, IpcOption.DEFAULT);
             }
             finally {
                 arrowRecordBatch.close();
@@ -87,21 +80,7 @@ public final class ArrowRecordBatchSerDeV4
             if (jparser.nextToken() != JsonToken.VALUE_EMBEDDED_OBJECT) {
                 throw new AthenaConnectorException("Expecting " + JsonToken.VALUE_STRING + " but found " + jparser.getCurrentLocation(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
             }
-            byte[] bytes = jparser.getBinaryValue();
-            AtomicReference<ArrowRecordBatch> batch = new AtomicReference<>();
-            try {
-                return blockAllocator.registerBatch((BufferAllocator root) -> {
-                    batch.set((ArrowRecordBatch) MessageSerializer.deserializeMessageBatch(
-                            new ReadChannel(Channels.newChannel(new ByteArrayInputStream(bytes))), root));
-                    return batch.get();
-                });
-            }
-            catch (Exception ex) {
-                if (batch.get() != null) {
-                    batch.get().close();
-                }
-                throw ex;
-            }
+            return blockAllocator.registerBatch((BufferAllocator root) -> ArrowRecordBatchBinary.read(jparser, root));
         }
     }
 }
@@ -23,6 +23,7 @@ import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorRegistry;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.serde.ArrowRecordBatchBinary;
 import com.amazonaws.athena.connector.lambda.serde.BaseDeserializer;
 import com.amazonaws.athena.connector.lambda.serde.BaseSerializer;
 import com.amazonaws.athena.connector.lambda.serde.VersionedSerDe;
@@ -31,19 +32,13 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import org.apache.arrow.memory.BufferAllocator;
-import org.apache.arrow.vector.ipc.ReadChannel;
-import org.apache.arrow.vector.ipc.WriteChannel;
 import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
-import org.apache.arrow.vector.ipc.message.MessageSerializer;
+import org.apache.arrow.vector.ipc.message.IpcOption;
 import org.apache.arrow.vector.types.pojo.Schema;
 import software.amazon.awssdk.services.glue.model.ErrorDetails;
 import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.channels.Channels;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Objects.requireNonNull;
 
@@ -76,20 +71,19 @@ public class BlockSerDeV4
 
             jgen.writeFieldName(BATCH_FIELD_NAME);
             if (block.getRowCount() > 0) {
-                jgen.writeBinary(serializeRecordBatch(block.getRecordBatch()));
+                writeRecordBatch(jgen, block.getRecordBatch());
             }
             else {
                 jgen.writeString("");
             }
         }
 
-        private byte[] serializeRecordBatch(ArrowRecordBatch recordBatch)
+        private void writeRecordBatch(JsonGenerator jgen, ArrowRecordBatch recordBatch)
                 throws IOException
         {
             try {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                MessageSerializer.serialize(new WriteChannel(Channels.newChannel(out)), recordBatch);
-                return out.toByteArray();
+                //Streams the IPC message out of the batch's buffers, no intermediate byte[] copies.
+                ArrowRecordBatchBinary.write(jgen, recordBatch, IpcOption.DEFAULT);
             }
             finally {
                 recordBatch.close();
@@ -128,10 +122,13 @@ public class BlockSerDeV4
             assertFieldName(jparser, SCHEMA_FIELD_NAME);
             Schema schema = schemaDeserializer.deserialize(jparser, ctxt);
 
-            byte[] batchBytes = getNextBinaryField(jparser, BATCH_FIELD_NAME);
-            Block block = getOrCreateAllocator(allocatorId).createBlock(schema);
-            if (batchBytes.length > 0) {
-                ArrowRecordBatch batch = deserializeBatch(allocatorId, batchBytes);
+            assertFieldName(jparser, BATCH_FIELD_NAME);
+            //move to the value token
+            jparser.nextToken();
+            BlockAllocator blockAllocator = getOrCreateAllocator(allocatorId);
+            Block block = blockAllocator.createBlock(schema);
+            ArrowRecordBatch batch = deserializeRecordBatch(blockAllocator, jparser);
+            if (batch != null) {
                 block.loadRecordBatch(batch);
             }
 
@@ -151,28 +148,14 @@ public class BlockSerDeV4
             }
         }
 
-        private ArrowRecordBatch deserializeBatch(String allocatorId, byte[] batchBytes)
-                throws IOException
-        {
-            return deserializeRecordBatch(getOrCreateAllocator(allocatorId), batchBytes);
-        }
-
-        private ArrowRecordBatch deserializeRecordBatch(BlockAllocator allocator, byte[] in)
+        /**
+         * Decodes the current binary value directly into a buffer owned by the allocator, the batch's buffers are slices of it.
+         *
+         * @return The batch, or null if the value was empty.
+         */
+        private ArrowRecordBatch deserializeRecordBatch(BlockAllocator allocator, JsonParser jparser)
         {
-            AtomicReference<ArrowRecordBatch> batch = new AtomicReference<>();
-            try {
-                return allocator.registerBatch((BufferAllocator root) -> {
-                    batch.set((ArrowRecordBatch) MessageSerializer.deserializeMessageBatch(
-                            new ReadChannel(Channels.newChannel(new ByteArrayInputStream(in))), root));
-                    return batch.get();
-                });
-            }
-            catch (Exception ex) {
-                if (batch.get() != null) {
-                    batch.get().close();
-                }
-                throw ex;
-            }
+            return allocator.registerBatch((BufferAllocator root) -> ArrowRecordBatchBinary.read(jparser, root));
         }
     }
 }
@@ -0,0 +1,93 @@
+package com.amazonaws.athena.connector.lambda.data;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveSpillConcurrencyTest
+{
+    private static final long BLOCK_BYTES = 16 * 1024 * 1024;
+
+    @Test
+    public void limitTracksLatency()
+    {
+        AdaptiveSpillConcurrency concurrency = new AdaptiveSpillConcurrency(8);
+        assertEquals(8, concurrency.getLimit());
+
+        //Establish a baseline, the limit can't grow past the max.
+        complete(concurrency, 100, true);
+        assertEquals(8, concurrency.getLimit());
+
+        //Writes taking far longer than the baseline means S3 isn't keeping up.
+        for (int i = 0; i < 5; i++) {
+            complete(concurrency, 1_000, true);
+        }
+        int congested = concurrency.getLimit();
+        assertTrue("limit was " + congested, congested < 8);
+
+        //Once latency recovers so does the limit.
+        for (int i = 0; i < 100; i++) {
+            complete(concurrency, 100, true);
+        }
+        assertEquals(8, concurrency.getLimit());
+
+        //Failures halve the limit.
+        complete(concurrency, 100, false);
+        assertEquals(4, concurrency.getLimit());
+        complete(concurrency, 100, false);
+        complete(concurrency, 100, false);
+        complete(concurrency, 100, false);
+        assertEquals(1, concurrency.getLimit());
+    }
+
+    @Test
+    public void acquireBlocksAtLimit()
+            throws Exception
+    {
+        AdaptiveSpillConcurrency concurrency = new AdaptiveSpillConcurrency(1);
+        concurrency.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            concurrency.acquire();
+            acquired.countDown();
+        });
+        waiter.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+
+        concurrency.release(TimeUnit.MILLISECONDS.toNanos(10), BLOCK_BYTES, true);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+    }
+
+    private static void complete(AdaptiveSpillConcurrency concurrency, long millis, boolean success)
+    {
+        concurrency.acquire();
+        concurrency.release(TimeUnit.MILLISECONDS.toNanos(millis), BLOCK_BYTES, success);
+    }
+}
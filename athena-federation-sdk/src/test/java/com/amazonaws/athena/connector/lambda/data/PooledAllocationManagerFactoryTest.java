@@ -0,0 +1,159 @@
+package com.amazonaws.athena.connector.lambda.data;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PooledAllocationManagerFactoryTest
+{
+    private static final long MB = 1024 * 1024;
+
+    private PooledAllocationManagerFactory pool;
+    private BufferAllocator rootAllocator;
+
+    @Before
+    public void setUp()
+    {
+        pool = new PooledAllocationManagerFactory(MB, 8 * MB);
+        rootAllocator = new RootAllocator(RootAllocator.configBuilder()
+                .allocationManagerFactory(pool)
+                .maxAllocation(Long.MAX_VALUE)
+                .build());
+    }
+
+    @After
+    public void tearDown()
+    {
+        rootAllocator.close();
+        pool.clear();
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void largeBuffersAreReused()
+    {
+        try (ArrowBuf buffer = rootAllocator.buffer(3 * MB)) {
+            buffer.setLong(3 * MB - 8, 42);
+        }
+        //released to the 4MB size class
+        assertEquals(4 * MB, pool.getPooledBytes());
+        assertEquals(0, rootAllocator.getAllocatedMemory());
+
+        try (ArrowBuf buffer = rootAllocator.buffer(4 * MB)) {
+            assertEquals(0, pool.getPooledBytes());
+            buffer.setLong(4 * MB - 8, 42);
+        }
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test
+    public void smallBuffersAreNotPooled()
+    {
+        try (ArrowBuf buffer = rootAllocator.buffer(1024)) {
+            buffer.setLong(0, 42);
+        }
+        assertEquals(0, pool.getPooledBytes());
+        assertEquals(0, pool.getHits() + pool.getMisses());
+    }
+
+    @Test
+    public void idleMemoryIsBounded()
+    {
+        ArrowBuf buffer1 = rootAllocator.buffer(8 * MB);
+        ArrowBuf buffer2 = rootAllocator.buffer(8 * MB);
+        buffer1.close();
+        buffer2.close();
+        //only one of them fits in the pool
+        assertEquals(8 * MB, pool.getPooledBytes());
+    }
+
+    @Test
+    public void blockAllocatorsShareThePool()
+    {
+        Schema schema = SchemaBuilder.newBuilder().addField("col1", Types.MinorType.BIGINT.getType()).build();
+        for (int i = 0; i < 3; i++) {
+            try (BlockAllocatorImpl allocator = new BlockAllocatorImpl("test" + i, rootAllocator, Integer.MAX_VALUE)) {
+                Block block = allocator.createBlock(schema);
+                BigIntVector vector = (BigIntVector) block.getFieldVector("col1");
+                vector.allocateNew(256 * 1024);
+                vector.setSafe(0, 42);
+                assertTrue(allocator.getUsage() >= MB);
+            }
+            assertEquals(0, rootAllocator.getAllocatedMemory());
+        }
+        assertEquals(2, pool.getHits());
+        assertEquals(1, pool.getMisses());
+    }
+
+    @Test
+    public void closedBlockAllocatorRejectsRegistration()
+    {
+        //a BlockAllocatorImpl on a shared RootAllocator doesn't close it, so only its own check prevents the leak
+        BlockAllocatorImpl allocator = new BlockAllocatorImpl((RootAllocator) rootAllocator);
+        allocator.close();
+        Schema schema = SchemaBuilder.newBuilder().addBigIntField("col1").build();
+        try {
+            allocator.createBlock(schema);
+            fail("Expected createBlock to fail on a closed BlockAllocator");
+        }
+        catch (AthenaConnectorException ex) {
+            assertTrue(ex.getMessage().contains("is closed"));
+        }
+        try {
+            allocator.createBuffer(1024);
+            fail("Expected createBuffer to fail on a closed BlockAllocator");
+        }
+        catch (AthenaConnectorException ex) {
+            assertTrue(ex.getMessage().contains("is closed"));
+        }
+        assertEquals(0, rootAllocator.getAllocatedMemory());
+    }
+
+    @Test
+    public void leaksAreAccountedPerBlockAllocator()
+    {
+        //the leaked child stays registered with its parent, so use a parent of its own
+        BufferAllocator parent = new RootAllocator(RootAllocator.configBuilder().allocationManagerFactory(pool).build());
+        BlockAllocatorImpl allocator = new BlockAllocatorImpl("leaky", parent, Integer.MAX_VALUE);
+        ArrowBuf leaked = allocator.getRawAllocator().buffer(2 * MB);
+        try {
+            allocator.close();
+            fail("Expected the leak to be detected");
+        }
+        catch (IllegalStateException ex) {
+            //expected, the leaked buffer can no longer be released once its allocator is closed
+        }
+    }
+}
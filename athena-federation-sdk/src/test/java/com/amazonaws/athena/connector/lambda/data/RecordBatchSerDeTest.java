@@ -0,0 +1,100 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.data;
+
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class RecordBatchSerDeTest
+{
+    private static final int NUM_ROWS = 100;
+
+    private BlockAllocatorImpl allocator;
+    private RecordBatchSerDe serDe;
+    private byte[] serialized;
+
+    @Before
+    public void setup()
+            throws Exception
+    {
+        allocator = new BlockAllocatorImpl();
+        serDe = new RecordBatchSerDe(allocator);
+        Schema schema = SchemaBuilder.newBuilder()
+                .addIntField("id")
+                .addStringField("name")
+                .build();
+        try (Block block = allocator.createBlock(schema)) {
+            for (int i = 0; i < NUM_ROWS; i++) {
+                BlockUtils.setValue(block.getFieldVector("id"), i, i);
+                BlockUtils.setValue(block.getFieldVector("name"), i, "name-" + i);
+            }
+            block.setRowCount(NUM_ROWS);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            serDe.serialize(block.getRecordBatch(), out);
+            serialized = out.toByteArray();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void deserializeFromStream()
+            throws Exception
+    {
+        try (ArrowRecordBatch batch = serDe.deserialize(new ByteArrayInputStream(serialized), serialized.length)) {
+            assertEquals(NUM_ROWS, batch.getLength());
+        }
+    }
+
+    @Test
+    public void deserializeRejectsBodyLongerThanMaxLength()
+    {
+        long usage = allocator.getUsage();
+        //The metadata fits, but the body it describes runs past the bytes that are available.
+        IOException ex = assertThrows(IOException.class,
+                () -> serDe.deserialize(new ByteArrayInputStream(serialized), serialized.length - 1));
+        assertTrue(ex.getMessage(), ex.getMessage().startsWith("Invalid record batch body length"));
+        //Nothing was allocated for the body.
+        assertEquals(usage, allocator.getUsage());
+    }
+
+    @Test
+    public void deserializeRejectsMetadataLongerThanMaxLength()
+    {
+        IOException ex = assertThrows(IOException.class,
+                () -> serDe.deserialize(new ByteArrayInputStream(serialized), 16));
+        assertTrue(ex.getMessage(), ex.getMessage().startsWith("Invalid record batch metadata length"));
+    }
+}
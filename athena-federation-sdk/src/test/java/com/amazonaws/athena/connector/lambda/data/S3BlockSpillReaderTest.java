@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connector.lambda.data;
 
+import com.amazonaws.athena.connector.lambda.data.helpers.LocalS3Client;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.security.AesGcmBlockCrypto;
@@ -33,16 +34,22 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -238,4 +245,97 @@ public class S3BlockSpillReaderTest
         assertEquals(expected, actual);
         verify(mockS3, times(1)).getObject(any(GetObjectRequest.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void read_StreamedEncryptedBlock_Succeeds()
+    {
+        byte[] spilledBytes = new AesGcmBlockCrypto(allocator).encrypt(encryptionKey, expected);
+
+        when(mockS3.getObject(any(GetObjectRequest.class)))
+                .thenReturn(new ResponseInputStream<>(
+                        GetObjectResponse.builder().contentLength((long) spilledBytes.length).build(),
+                        new ByteArrayInputStream(spilledBytes)));
+
+        Block actual = blockReader.read(spillLocation, encryptionKey, schema);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void read_StreamedBlockWithMismatchedKeyOrTamperedTag_ThrowsAthenaConnectorException()
+    {
+        byte[] spilledBytes = new AesGcmBlockCrypto(allocator).encrypt(encryptionKey, expected);
+        byte[] tampered = spilledBytes.clone();
+        tampered[tampered.length - 1] ^= 1;
+
+        when(mockS3.getObject(any(GetObjectRequest.class)))
+                .thenReturn(new ResponseInputStream<>(
+                        GetObjectResponse.builder().contentLength((long) spilledBytes.length).build(),
+                        new ByteArrayInputStream(spilledBytes)))
+                .thenReturn(new ResponseInputStream<>(
+                        GetObjectResponse.builder().contentLength((long) tampered.length).build(),
+                        new ByteArrayInputStream(tampered)));
+
+        assertThrows(AthenaConnectorException.class, () -> blockReader.read(spillLocation, new LocalKeyFactory().create(), schema));
+        assertThrows(AthenaConnectorException.class, () -> blockReader.read(spillLocation, encryptionKey, schema));
+    }
+
+    @Test
+    public void readAll_RangedPrefetch_ReturnsBlocksInOrder()
+            throws Exception
+    {
+        LocalS3Client localS3 = new LocalS3Client(1024);
+        S3BlockSpillReader reader = new S3BlockSpillReader(localS3, allocator);
+        BlockCrypto blockCrypto = new AesGcmBlockCrypto(allocator);
+
+        List<Block> written = new ArrayList<>();
+        List<S3SpillLocation> locations = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5; i++) {
+                Block block = allocator.createBlock(schema);
+                for (int row = 0; row < 100 * (i + 1); row++) {
+                    BlockUtils.setValue(block.getFieldVector("col1"), row, row * i);
+                    BlockUtils.setValue(block.getFieldVector("col2"), row, "VarChar" + row);
+                }
+                block.setRowCount(100 * (i + 1));
+                written.add(block);
+
+                S3SpillLocation location = S3SpillLocation.newBuilder()
+                        .withBucket(bucket)
+                        .withPrefix(prefix)
+                        .withQueryId(requestId)
+                        .withSplitId(splitId + "." + i)
+                        .withIsDirectory(false)
+                        .build();
+                localS3.putObject(PutObjectRequest.builder().bucket(bucket).key(location.getKey()).build(),
+                        RequestBody.fromBytes(blockCrypto.encrypt(encryptionKey, block)));
+                locations.add(location);
+            }
+
+            try (S3BlockSpillReader.SpilledBlockIterator blocks = reader.readAll(locations, encryptionKey, schema, 2, 512)) {
+                for (Block block : written) {
+                    assertTrue(blocks.hasNext());
+                    try (Block actual = blocks.next()) {
+                        assertEquals(block, actual);
+                    }
+                }
+                assertFalse(blocks.hasNext());
+            }
+
+            //Every block is larger than the range size so each one must have needed several ranged gets.
+            assertTrue(localS3.getGetObjectCount() > locations.size());
+
+            //Abandoning the iterator part way through must release what was prefetched.
+            try (S3BlockSpillReader.SpilledBlockIterator blocks = reader.readAll(locations, encryptionKey, schema)) {
+                try (Block actual = blocks.next()) {
+                    assertEquals(written.get(0), actual);
+                }
+            }
+        }
+        finally {
+            for (Block block : written) {
+                block.close();
+            }
+        }
+    }
+}
@@ -20,12 +20,16 @@ package com.amazonaws.athena.connector.lambda.data;
  * #L%
  */
 
+import com.amazonaws.athena.connector.lambda.data.helpers.LocalS3Client;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.security.AesGcmBlockCrypto;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
 import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
+import com.amazonaws.athena.connector.lambda.security.SegmentedAesGcmBlockCrypto;
 import com.google.common.io.ByteStreams;
+import org.apache.arrow.vector.compression.CompressionUtil;
 import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.junit.After;
@@ -196,6 +200,185 @@ public class S3BlockSpillerTest
         logger.info("spillTest: exit");
     }
 
+    @Test
+    public void streamingSpillTest()
+            throws Exception
+    {
+        int partBytes = 1024;
+        LocalS3Client localS3 = new LocalS3Client(partBytes);
+        SpillConfig streamingConfig = SpillConfig.newBuilder(spillConfig)
+                .withRequestId(requestId)
+                .withSpillLocation(spillConfig.getSpillLocation())
+                .withMultipartUploadPartBytes(partBytes)
+                .build();
+
+        Block large = allocator.createBlock(expected.getSchema());
+        for (int i = 0; i < 1_000; i++) {
+            BlockUtils.setValue(large.getFieldVector("col1"), i, i);
+            BlockUtils.setValue(large.getFieldVector("col2"), i, "VarChar" + i);
+        }
+        large.setRowCount(1_000);
+
+        try (S3BlockSpiller streamingWriter = new S3BlockSpiller(localS3, streamingConfig, allocator, expected.getSchema(),
+                ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of("spill_put_request_headers", "{\"header\":\"value\"}"))) {
+            S3SpillLocation largeLocation = (S3SpillLocation) streamingWriter.write(large);
+            S3SpillLocation smallLocation = (S3SpillLocation) streamingWriter.write(expected);
+            assertEquals(prefix + "/" + requestId + "/" + splitId + ".0", largeLocation.getKey());
+            assertEquals(prefix + "/" + requestId + "/" + splitId + ".1", smallLocation.getKey());
+
+            //The large block needs several parts while the small one should have used a single put.
+            assertTrue(localS3.getUploadPartCount() > 1);
+            assertEquals(1, localS3.getPutObjectCount());
+            assertEquals(com.google.common.collect.ImmutableMap.of("header", "value"), localS3.getObjectMetadata(bucket, largeLocation.getKey()));
+
+            //Readers must not be able to tell a streamed spill apart from a buffered one.
+            byte[] buffered = new AesGcmBlockCrypto(allocator).encrypt(spillConfig.getEncryptionKey(), large);
+            assertArrayEquals(buffered, localS3.getObjectBytes(bucket, largeLocation.getKey()));
+
+            S3BlockSpillReader reader = new S3BlockSpillReader(localS3, allocator);
+            try (Block actualLarge = reader.read(largeLocation, spillConfig.getEncryptionKey(), large.getSchema());
+                    Block actualSmall = streamingWriter.read(smallLocation, spillConfig.getEncryptionKey(), expected.getSchema())) {
+                assertEquals(large, actualLarge);
+                assertEquals(expected, actualSmall);
+            }
+
+            //A failed upload must leave nothing behind for the engine to read.
+            localS3.failUploadPartAfter(localS3.getUploadPartCount());
+            try {
+                streamingWriter.write(large);
+                fail("Expected the injected uploadPart failure");
+            }
+            catch (RuntimeException ex) {
+                assertNull(localS3.getObjectBytes(bucket, prefix + "/" + requestId + "/" + splitId + ".2"));
+                assertEquals(1, localS3.getAbortedUploadCount());
+                assertEquals(0, localS3.getPendingUploadCount());
+            }
+        }
+        finally {
+            large.close();
+        }
+    }
+
+    @Test
+    public void compressedSpillTest()
+            throws Exception
+    {
+        LocalS3Client localS3 = new LocalS3Client(1024);
+        SpillConfig compressedConfig = SpillConfig.newBuilder(spillConfig)
+                .withRequestId(requestId)
+                .withSpillLocation(spillConfig.getSpillLocation())
+                .withCompressionCodec(CompressionUtil.CodecType.LZ4_FRAME)
+                .withMultipartUploadPartBytes(1024)
+                .build();
+
+        Block large = allocator.createBlock(expected.getSchema());
+        for (int i = 0; i < 1_000; i++) {
+            BlockUtils.setValue(large.getFieldVector("col1"), i, i);
+            BlockUtils.setValue(large.getFieldVector("col2"), i, "VarChar" + (i % 10));
+        }
+        large.setRowCount(1_000);
+
+        try (S3BlockSpiller compressedWriter = new S3BlockSpiller(localS3, compressedConfig, allocator, expected.getSchema(),
+                ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of())) {
+            S3SpillLocation location = (S3SpillLocation) compressedWriter.write(large);
+
+            byte[] uncompressed = new AesGcmBlockCrypto(allocator).encrypt(spillConfig.getEncryptionKey(), large);
+            assertTrue(localS3.getObjectBytes(bucket, location.getKey()).length < uncompressed.length);
+
+            S3BlockSpillReader reader = new S3BlockSpillReader(localS3, allocator);
+            try (Block actual = reader.read(location, spillConfig.getEncryptionKey(), large.getSchema())) {
+                assertEquals(large, actual);
+            }
+        }
+        finally {
+            large.close();
+        }
+    }
+
+    @Test
+    public void segmentedEncryptionSpillTest()
+            throws Exception
+    {
+        LocalS3Client localS3 = new LocalS3Client(1024);
+        SpillConfig segmentedConfig = SpillConfig.newBuilder(spillConfig)
+                .withRequestId(requestId)
+                .withSpillLocation(spillConfig.getSpillLocation())
+                .withEncryptionSegmentBytes(256)
+                .withMultipartUploadPartBytes(1024)
+                .build();
+
+        Block large = allocator.createBlock(expected.getSchema());
+        for (int i = 0; i < 1_000; i++) {
+            BlockUtils.setValue(large.getFieldVector("col1"), i, i);
+            BlockUtils.setValue(large.getFieldVector("col2"), i, "VarChar" + i);
+        }
+        large.setRowCount(1_000);
+
+        try (S3BlockSpiller segmentedWriter = new S3BlockSpiller(localS3, segmentedConfig, allocator, expected.getSchema(),
+                ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of())) {
+            S3SpillLocation location = (S3SpillLocation) segmentedWriter.write(large);
+            assertTrue(SegmentedAesGcmBlockCrypto.isSegmented(localS3.getObjectBytes(bucket, location.getKey())));
+
+            S3BlockSpillReader reader = new S3BlockSpillReader(localS3, allocator);
+            try (Block actual = reader.read(location, spillConfig.getEncryptionKey(), large.getSchema())) {
+                assertEquals(large, actual);
+            }
+        }
+        finally {
+            large.close();
+        }
+    }
+
+    @Test
+    public void asyncSpillTest()
+            throws Exception
+    {
+        int numThreads = 4;
+        int numBlocks = 24;
+        int rowsPerBlock = 100;
+        LocalS3Client localS3 = new LocalS3Client(1024);
+        localS3.setRequestLatencyMillis(20);
+        SpillConfig asyncConfig = SpillConfig.newBuilder(spillConfig)
+                .withRequestId(requestId)
+                .withSpillLocation(spillConfig.getSpillLocation())
+                .withNumSpillThreads(numThreads)
+                .withMaxBlockBytes(1)
+                //Enough for all of the spill threads to be busy.
+                .withMaxSpillMemoryBytes(64 * 1024)
+                .build();
+
+        try (S3BlockSpiller asyncWriter = new S3BlockSpiller(localS3, asyncConfig, allocator, expected.getSchema(),
+                ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of())) {
+            for (int i = 0; i < numBlocks; i++) {
+                int blockNum = i;
+                //Every call exceeds maxBlockBytes so each one produces a spill.
+                asyncWriter.writeRows((Block block, int rowNum) -> {
+                    for (int j = 0; j < rowsPerBlock; j++) {
+                        BlockUtils.setValue(block.getFieldVector("col1"), rowNum + j, blockNum);
+                        BlockUtils.setValue(block.getFieldVector("col2"), rowNum + j, "VarChar" + j);
+                    }
+                    return rowsPerBlock;
+                });
+            }
+
+            //Spill locations must be in the order the Blocks were written, not the order their spills completed.
+            java.util.List<SpillLocation> locations = asyncWriter.getSpillLocations();
+            assertEquals(numBlocks, locations.size());
+            assertEquals(numBlocks, localS3.getObjectCount());
+            assertTrue(localS3.getMaxConcurrentRequests() <= numThreads);
+
+            S3BlockSpillReader reader = new S3BlockSpillReader(localS3, allocator);
+            for (int i = 0; i < numBlocks; i++) {
+                S3SpillLocation location = (S3SpillLocation) locations.get(i);
+                assertEquals(prefix + "/" + requestId + "/" + splitId + "." + i, location.getKey());
+                try (Block actual = reader.read(location, spillConfig.getEncryptionKey(), expected.getSchema())) {
+                    assertEquals(rowsPerBlock, actual.getRowCount());
+                    assertEquals(i, actual.getFieldReader("col1").readInteger().intValue());
+                }
+            }
+        }
+    }
+
     private class ByteHolder
     {
         private byte[] bytes;
@@ -0,0 +1,164 @@
+package com.amazonaws.athena.connector.lambda.data;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.helpers.LocalS3Client;
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class S3MultipartOutputStreamTest
+{
+    private static final String BUCKET = "bucket";
+    private static final String KEY = "prefix/query/split.0";
+    private static final int PART_BYTES = 1024;
+
+    private LocalS3Client s3;
+    private ExecutorService uploadPool;
+
+    @Before
+    public void setup()
+    {
+        s3 = new LocalS3Client(PART_BYTES);
+        uploadPool = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown()
+    {
+        uploadPool.shutdownNow();
+    }
+
+    @Test
+    public void smallObjectUsesSinglePut()
+            throws IOException
+    {
+        byte[] data = randomBytes(PART_BYTES);
+        S3MultipartOutputStream out = newStream();
+        out.write(data);
+        out.close();
+
+        assertArrayEquals(data, s3.getObjectBytes(BUCKET, KEY));
+        assertEquals(ImmutableMap.of("header", "value"), s3.getObjectMetadata(BUCKET, KEY));
+        assertEquals(1, s3.getPutObjectCount());
+        assertEquals(0, s3.getUploadPartCount());
+        assertEquals(PART_BYTES, out.getBytesWritten());
+    }
+
+    @Test
+    public void largeObjectUsesMultipartUpload()
+            throws IOException
+    {
+        byte[] data = randomBytes(10 * PART_BYTES + 17);
+        S3MultipartOutputStream out = newStream();
+        //Mix single byte and array writes that straddle part boundaries.
+        int offset = 0;
+        Random random = new Random(7);
+        while (offset < data.length) {
+            if (random.nextInt(4) == 0) {
+                out.write(data[offset++]);
+            }
+            else {
+                int length = Math.min(data.length - offset, random.nextInt(3 * PART_BYTES));
+                out.write(data, offset, length);
+                offset += length;
+            }
+        }
+        assertNull("object must not be visible before close", s3.getObjectBytes(BUCKET, KEY));
+        out.close();
+        //Closing twice is a no-op.
+        out.close();
+
+        assertArrayEquals(data, s3.getObjectBytes(BUCKET, KEY));
+        assertEquals(ImmutableMap.of("header", "value"), s3.getObjectMetadata(BUCKET, KEY));
+        assertEquals(0, s3.getPutObjectCount());
+        assertEquals(11, s3.getUploadPartCount());
+        assertEquals(0, s3.getPendingUploadCount());
+        assertEquals(data.length, out.getBytesWritten());
+    }
+
+    @Test
+    public void failedPartAbortsUpload()
+            throws IOException
+    {
+        s3.failUploadPartAfter(2);
+        byte[] data = randomBytes(10 * PART_BYTES);
+        S3MultipartOutputStream out = newStream();
+        try {
+            out.write(data);
+            out.close();
+            fail("Expected the injected uploadPart failure");
+        }
+        catch (S3Exception ex) {
+            out.abort();
+        }
+
+        assertNull(s3.getObjectBytes(BUCKET, KEY));
+        assertEquals(1, s3.getAbortedUploadCount());
+        assertEquals(0, s3.getPendingUploadCount());
+    }
+
+    @Test
+    public void abortDiscardsPartialObject()
+            throws IOException
+    {
+        S3MultipartOutputStream out = newStream();
+        out.write(randomBytes(3 * PART_BYTES));
+        out.abort();
+        //close after abort must not complete the upload.
+        out.close();
+
+        assertEquals(0, s3.getObjectCount());
+        assertEquals(1, s3.getAbortedUploadCount());
+        assertEquals(0, s3.getPendingUploadCount());
+
+        S3MultipartOutputStream small = new S3MultipartOutputStream(s3, BUCKET, KEY, Collections.emptyMap(), PART_BYTES, uploadPool);
+        small.write(1);
+        small.abort();
+        assertEquals(0, s3.getObjectCount());
+        assertEquals(0, s3.getPutObjectCount());
+    }
+
+    private S3MultipartOutputStream newStream()
+    {
+        return new S3MultipartOutputStream(s3, BUCKET, KEY, ImmutableMap.of("header", "value"), PART_BYTES, uploadPool);
+    }
+
+    private static byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
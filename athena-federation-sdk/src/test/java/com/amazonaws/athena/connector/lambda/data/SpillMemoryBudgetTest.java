@@ -0,0 +1,75 @@
+package com.amazonaws.athena.connector.lambda.data;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpillMemoryBudgetTest
+{
+    @Test
+    public void acquireBlocksWhenBudgetExhausted()
+            throws Exception
+    {
+        SpillMemoryBudget budget = new SpillMemoryBudget(100);
+        budget.acquire(60);
+        budget.acquire(40);
+        assertEquals(100, budget.getUsedBytes());
+
+        AtomicBoolean acquired = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            budget.acquire(50);
+            acquired.set(true);
+            done.countDown();
+        });
+        waiter.start();
+
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+        assertFalse(acquired.get());
+
+        //Freeing 40 bytes is not enough for 50 more.
+        budget.release(40);
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+
+        budget.release(60);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(50, budget.getUsedBytes());
+        waiter.join();
+    }
+
+    @Test
+    public void oversizedRequestAdmittedWhenIdle()
+    {
+        SpillMemoryBudget budget = new SpillMemoryBudget(100);
+        budget.acquire(500);
+        assertEquals(500, budget.getUsedBytes());
+        budget.release(500);
+        assertEquals(0, budget.getUsedBytes());
+    }
+}
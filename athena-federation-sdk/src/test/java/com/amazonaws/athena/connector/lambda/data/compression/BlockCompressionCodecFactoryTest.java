@@ -0,0 +1,134 @@
+package com.amazonaws.athena.connector.lambda.data.compression;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.security.AesGcmBlockCrypto;
+import com.amazonaws.athena.connector.lambda.security.BlockCrypto;
+import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
+import com.amazonaws.athena.connector.lambda.security.NoOpBlockCrypto;
+import org.apache.arrow.vector.compression.CompressionCodec;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BlockCompressionCodecFactoryTest
+{
+    private static final int NUM_ROWS = 2_000;
+
+    private BlockAllocatorImpl allocator;
+    private Block block;
+
+    @Before
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        Schema schema = SchemaBuilder.newBuilder()
+                .addIntField("id")
+                .addStringField("name")
+                .addFloat8Field("price")
+                .build();
+        block = allocator.createBlock(schema);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            BlockUtils.setValue(block.getFieldVector("id"), i, i);
+            //Wide, repetitive, VARCHARs are the case compression is meant for.
+            BlockUtils.setValue(block.getFieldVector("name"), i, (i % 3 == 0) ? null : "customer name number " + (i % 50));
+            BlockUtils.setValue(block.getFieldVector("price"), i, i * 1.5D);
+        }
+        block.setRowCount(NUM_ROWS);
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        block.close();
+        allocator.close();
+    }
+
+    @Test
+    public void createCodec()
+    {
+        assertSame(NoCompressionCodec.INSTANCE, BlockCompressionCodecFactory.INSTANCE.createCodec(CompressionUtil.CodecType.NO_COMPRESSION));
+        assertEquals(CompressionUtil.CodecType.LZ4_FRAME, BlockCompressionCodecFactory.INSTANCE.createCodec(CompressionUtil.CodecType.LZ4_FRAME).getCodecType());
+        assertEquals(CompressionUtil.CodecType.ZSTD, BlockCompressionCodecFactory.INSTANCE.createCodec(CompressionUtil.CodecType.ZSTD).getCodecType());
+        assertEquals(CompressionUtil.CodecType.ZSTD, BlockCompressionCodecFactory.INSTANCE.createCodec(CompressionUtil.CodecType.ZSTD, 1).getCodecType());
+    }
+
+    @Test
+    public void zstdAvailability()
+    {
+        assertTrue(ZstdCompressionCodec.isAvailable());
+        //zstd-jni is an optional dependency, a class loader which can't see it reports it as unavailable.
+        assertFalse(ZstdCompressionCodec.isAvailable(ClassLoader.getPlatformClassLoader()));
+    }
+
+    @Test
+    public void lz4FrameRoundTrip()
+            throws Exception
+    {
+        assertRoundTrip(CompressionUtil.CodecType.LZ4_FRAME);
+    }
+
+    @Test
+    public void zstdRoundTrip()
+            throws Exception
+    {
+        assertRoundTrip(CompressionUtil.CodecType.ZSTD);
+    }
+
+    private void assertRoundTrip(CompressionUtil.CodecType codecType)
+            throws Exception
+    {
+        byte[] uncompressed = new NoOpBlockCrypto(allocator).encrypt(null, block);
+
+        MeteredCompressionCodec codec = new MeteredCompressionCodec(BlockCompressionCodecFactory.INSTANCE.createCodec(codecType));
+        BlockCrypto noOpCrypto = new NoOpBlockCrypto(allocator, codec);
+        byte[] compressed = noOpCrypto.encrypt(null, block);
+        assertTrue(codecType + " did not shrink the block: " + compressed.length + " vs " + uncompressed.length,
+                compressed.length < uncompressed.length);
+        assertTrue(codec.getCompressionRatio() > 1.0D);
+        assertTrue(codec.getUncompressedBytes() > codec.getCompressedBytes());
+
+        //Readers need not be told which codec was used.
+        try (Block actual = new NoOpBlockCrypto(allocator).decrypt(null, compressed, block.getSchema())) {
+            assertEquals(block, actual);
+        }
+
+        EncryptionKey key = new LocalKeyFactory().create();
+        byte[] encrypted = new AesGcmBlockCrypto(allocator, codec).encrypt(key, block);
+        try (Block actual = new AesGcmBlockCrypto(allocator).decrypt(key, encrypted, block.getSchema())) {
+            assertEquals(block, actual);
+        }
+    }
+}
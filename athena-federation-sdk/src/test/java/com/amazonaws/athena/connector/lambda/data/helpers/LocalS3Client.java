@@ -0,0 +1,302 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2022 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.data.helpers;
+
+import com.google.common.io.ByteStreams;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local, in-memory, stand-in for S3 which supports the subset of the S3Client used to spill and read back Blocks
+ * (put, get and multipart upload). Like S3, objects only become visible once their put or multipart upload completes
+ * and non-final parts smaller than the configured minimum part size are rejected on completion.
+ */
+public class LocalS3Client
+        implements S3Client
+{
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> objectMetadata = new ConcurrentHashMap<>();
+    private final Map<String, SortedMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final Set<String> abortedUploads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextUploadId = new AtomicInteger();
+    private final AtomicInteger putObjectCount = new AtomicInteger();
+    private final AtomicInteger uploadPartCount = new AtomicInteger();
+    private final AtomicInteger getObjectCount = new AtomicInteger();
+    private final long minPartBytes;
+    //If >= 0, uploadPart fails once this many parts have been uploaded.
+    private volatile int failUploadPartAfter = -1;
+    //Simulated latency of each put and part upload.
+    private volatile long requestLatencyMillis;
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+    /**
+     * @param minPartBytes The minimum size of all but the last part of a multipart upload, S3 uses 5MB.
+     */
+    public LocalS3Client(long minPartBytes)
+    {
+        this.minPartBytes = minPartBytes;
+    }
+
+    public byte[] getObjectBytes(String bucket, String key)
+    {
+        return objects.get(bucket + "/" + key);
+    }
+
+    public Map<String, String> getObjectMetadata(String bucket, String key)
+    {
+        return objectMetadata.get(bucket + "/" + key);
+    }
+
+    public int getObjectCount()
+    {
+        return objects.size();
+    }
+
+    public int getPutObjectCount()
+    {
+        return putObjectCount.get();
+    }
+
+    public int getUploadPartCount()
+    {
+        return uploadPartCount.get();
+    }
+
+    /**
+     * @return The number of gets, counting each ranged get separately.
+     */
+    public int getGetObjectCount()
+    {
+        return getObjectCount.get();
+    }
+
+    public int getAbortedUploadCount()
+    {
+        return abortedUploads.size();
+    }
+
+    public int getPendingUploadCount()
+    {
+        return uploads.size();
+    }
+
+    public void setRequestLatencyMillis(long requestLatencyMillis)
+    {
+        this.requestLatencyMillis = requestLatencyMillis;
+    }
+
+    /**
+     * @return The highest number of puts and part uploads that were in progress at the same time.
+     */
+    public int getMaxConcurrentRequests()
+    {
+        return maxConcurrentRequests.get();
+    }
+
+    public void failUploadPartAfter(int numParts)
+    {
+        failUploadPartAfter = numParts;
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body)
+    {
+        simulateLatency();
+        byte[] bytes = readBody(body);
+        if (request.contentLength() != null && request.contentLength() != bytes.length) {
+            throw error(400, "Content length " + request.contentLength() + " did not match body length " + bytes.length);
+        }
+        putObjectCount.incrementAndGet();
+        objects.put(request.bucket() + "/" + request.key(), bytes);
+        objectMetadata.put(request.bucket() + "/" + request.key(), request.metadata());
+        return PutObjectResponse.builder().build();
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request)
+    {
+        byte[] bytes = objects.get(request.bucket() + "/" + request.key());
+        if (bytes == null) {
+            throw NoSuchKeyException.builder().statusCode(404).message(request.key()).build();
+        }
+        getObjectCount.incrementAndGet();
+        if (request.range() == null) {
+            return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) bytes.length).build(),
+                    new ByteArrayInputStream(bytes));
+        }
+
+        //Only the "bytes=start-end" form is supported, like S3 the end is clamped to the length of the object.
+        String[] range = request.range().substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(range[0]);
+        int end = Math.min(Integer.parseInt(range[1]), bytes.length - 1);
+        if (start > end) {
+            throw error(416, "Range " + request.range() + " not satisfiable for " + bytes.length + " bytes");
+        }
+        return new ResponseInputStream<>(GetObjectResponse.builder()
+                .contentLength((long) (end - start + 1))
+                .contentRange("bytes " + start + "-" + end + "/" + bytes.length)
+                .build(),
+                new ByteArrayInputStream(bytes, start, end - start + 1));
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request)
+    {
+        String uploadId = "upload-" + nextUploadId.incrementAndGet();
+        uploads.put(uploadId, new ConcurrentSkipListMap<>());
+        objectMetadata.put(request.bucket() + "/" + request.key(), request.metadata());
+        return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body)
+    {
+        SortedMap<Integer, byte[]> parts = getUpload(request.uploadId());
+        if (failUploadPartAfter >= 0 && uploadPartCount.get() >= failUploadPartAfter) {
+            throw error(500, "Injected uploadPart failure");
+        }
+        simulateLatency();
+        byte[] bytes = readBody(body);
+        if (request.contentLength() != null && request.contentLength() != bytes.length) {
+            throw error(400, "Content length " + request.contentLength() + " did not match body length " + bytes.length);
+        }
+        uploadPartCount.incrementAndGet();
+        parts.put(request.partNumber(), bytes);
+        return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request)
+    {
+        SortedMap<Integer, byte[]> parts = getUpload(request.uploadId());
+        List<CompletedPart> completedParts = request.multipartUpload().parts();
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        int lastPartNumber = 0;
+        for (int i = 0; i < completedParts.size(); i++) {
+            CompletedPart next = completedParts.get(i);
+            byte[] bytes = parts.get(next.partNumber());
+            if (bytes == null || next.partNumber() <= lastPartNumber || !("etag-" + next.partNumber()).equals(next.eTag())) {
+                throw error(400, "Invalid part " + next.partNumber());
+            }
+            if (i < completedParts.size() - 1 && bytes.length < minPartBytes) {
+                throw error(400, "Part " + next.partNumber() + " is smaller than the minimum allowed size");
+            }
+            object.write(bytes, 0, bytes.length);
+            lastPartNumber = next.partNumber();
+        }
+        uploads.remove(request.uploadId());
+        objects.put(request.bucket() + "/" + request.key(), object.toByteArray());
+        return CompleteMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request)
+    {
+        getUpload(request.uploadId());
+        uploads.remove(request.uploadId());
+        abortedUploads.add(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName()
+    {
+        return "s3";
+    }
+
+    @Override
+    public void close()
+    {
+        //NoOp
+    }
+
+    private void simulateLatency()
+    {
+        int concurrent = concurrentRequests.incrementAndGet();
+        maxConcurrentRequests.accumulateAndGet(concurrent, Math::max);
+        try {
+            if (requestLatencyMillis > 0) {
+                Thread.sleep(requestLatencyMillis);
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw error(500, "Interrupted");
+        }
+        finally {
+            concurrentRequests.decrementAndGet();
+        }
+    }
+
+    private SortedMap<Integer, byte[]> getUpload(String uploadId)
+    {
+        SortedMap<Integer, byte[]> parts = uploads.get(uploadId);
+        if (parts == null) {
+            throw NoSuchUploadException.builder().statusCode(404).message(uploadId).build();
+        }
+        return parts;
+    }
+
+    private static byte[] readBody(RequestBody body)
+    {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            return ByteStreams.toByteArray(in);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static S3Exception error(int statusCode, String message)
+    {
+        return (S3Exception) S3Exception.builder().statusCode(statusCode).message(message).build();
+    }
+}
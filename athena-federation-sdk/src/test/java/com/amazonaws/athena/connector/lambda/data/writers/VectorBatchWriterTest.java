@@ -0,0 +1,233 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.data.writers;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.SimpleBlockWriter;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class VectorBatchWriterTest
+{
+    private static final int NUM_ROWS = 1_000;
+
+    private BlockAllocatorImpl allocator;
+    private Block source;
+    private Schema targetSchema;
+
+    @Before
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        //The source uses upper case names and a BIGINT "score" that the target stores as VARCHAR.
+        Schema sourceSchema = SchemaBuilder.newBuilder()
+                .addIntField("ID")
+                .addStringField("NAME")
+                .addBigIntField("SCORE")
+                .addStringField("IGNORED")
+                .build();
+        source = allocator.createBlock(sourceSchema);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            BlockUtils.setValue(source.getFieldVector("ID"), i, i);
+            BlockUtils.setValue(source.getFieldVector("NAME"), i, (i % 10 == 0) ? null : "name-" + i);
+            BlockUtils.setValue(source.getFieldVector("SCORE"), i, (long) i * 3);
+            BlockUtils.setValue(source.getFieldVector("IGNORED"), i, "x");
+        }
+        source.setRowCount(NUM_ROWS);
+
+        targetSchema = SchemaBuilder.newBuilder()
+                .addIntField("id")
+                .addStringField("name")
+                .addStringField("score")
+                .addStringField("part")
+                .build();
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        source.close();
+        allocator.close();
+    }
+
+    @Test
+    public void writeBatch()
+            throws Exception
+    {
+        Map<String, ValueSet> summary = new HashMap<>();
+        summary.put("id", SortedRangeSet.of(Range.range(allocator, Types.MinorType.INT.getType(), 100, true, 400, false)));
+        summary.put("score", EquatableValueSet.newBuilder(allocator, Types.MinorType.VARCHAR.getType(), true, false)
+                .add("0").add("300").add("303").add("600").build());
+
+        VectorBatchWriter batchWriter = VectorBatchWriter.newBuilder()
+                .withValueConverter(VectorBatchWriterTest::toStringScore)
+                .withConstant("part", "p1")
+                .withRowsPerCall(7)
+                .build();
+
+        try (Block expected = allocator.createBlock(targetSchema);
+                Block actual = allocator.createBlock(targetSchema);
+                ConstraintEvaluator evaluator = makeEvaluator(summary)) {
+            expected.constrain(evaluator);
+            actual.constrain(evaluator);
+
+            //The per row path this replaces.
+            SimpleBlockWriter expectedWriter = new SimpleBlockWriter(expected);
+            for (int i = 0; i < NUM_ROWS; i++) {
+                int row = i;
+                expectedWriter.writeRows((Block block, int rowNum) -> {
+                    boolean matched = block.offerValue("part", rowNum, "p1");
+                    matched &= block.offerValue("id", rowNum, source.getFieldVector("ID").getObject(row));
+                    Object name = source.getFieldVector("NAME").getObject(row);
+                    matched &= block.offerValue("name", rowNum, (name == null) ? null : name.toString());
+                    matched &= block.offerValue("score", rowNum, "" + source.getFieldVector("SCORE").getObject(row));
+                    return matched ? 1 : 0;
+                });
+            }
+
+            new SimpleBlockWriter(actual).writeBatch(getVectorSchema(source), NUM_ROWS, batchWriter);
+
+            assertEquals(3, actual.getRowCount());
+            assertEquals(expected, actual);
+        }
+        finally {
+            for (ValueSet next : summary.values()) {
+                next.close();
+            }
+        }
+    }
+
+    @Test
+    public void writeBatchRebindsAfterNewBlock()
+            throws Exception
+    {
+        VectorBatchWriter batchWriter = VectorBatchWriter.newBuilder()
+                .withValueConverter(VectorBatchWriterTest::toStringScore)
+                .build();
+
+        //Hands out a new Block every time the current one reaches 300 rows, like a BlockSpiller would.
+        Block[] blocks = new Block[4];
+        int[] current = {0};
+        BlockWriter writer = new BlockWriter()
+        {
+            @Override
+            public void writeRows(RowWriter rowWriter)
+            {
+                if (blocks[current[0]] == null) {
+                    blocks[current[0]] = allocator.createBlock(targetSchema);
+                }
+                Block block = blocks[current[0]];
+                try {
+                    block.setRowCount(block.getRowCount() + rowWriter.writeRows(block, block.getRowCount()));
+                }
+                catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+                if (block.getRowCount() >= 300) {
+                    current[0]++;
+                }
+            }
+
+            @Override
+            public ConstraintEvaluator getConstraintEvaluator()
+            {
+                return ConstraintEvaluator.emptyEvaluator();
+            }
+        };
+
+        writer.writeBatch(getVectorSchema(source), NUM_ROWS, batchWriter);
+
+        int row = 0;
+        for (Block next : blocks) {
+            for (int i = 0; i < next.getRowCount(); i++, row++) {
+                assertEquals(row, next.getFieldVector("id").getObject(i));
+                assertEquals("" + (row * 3L), next.getFieldVector("score").getObject(i).toString());
+                assertNull(next.getFieldVector("part").getObject(i));
+            }
+            next.close();
+        }
+        assertEquals(NUM_ROWS, row);
+    }
+
+    @Test
+    public void writeBatchConstantFailsConstraint()
+            throws Exception
+    {
+        Map<String, ValueSet> summary = new HashMap<>();
+        summary.put("part", EquatableValueSet.newBuilder(allocator, Types.MinorType.VARCHAR.getType(), true, false)
+                .add("p2").build());
+
+        VectorBatchWriter batchWriter = VectorBatchWriter.newBuilder()
+                .withValueConverter(VectorBatchWriterTest::toStringScore)
+                .withConstant("part", "p1")
+                .build();
+
+        try (Block actual = allocator.createBlock(targetSchema);
+                ConstraintEvaluator evaluator = makeEvaluator(summary)) {
+            actual.constrain(evaluator);
+            new SimpleBlockWriter(actual).writeBatch(getVectorSchema(source), NUM_ROWS, batchWriter);
+            assertEquals(0, actual.getRowCount());
+        }
+        finally {
+            summary.get("part").close();
+        }
+    }
+
+    //Only SCORE has a different type in the target, like GcsUtil.coerce every other value is passed through as is.
+    private static Object toStringScore(FieldVector vector, Object value)
+    {
+        return (vector.getMinorType() == Types.MinorType.BIGINT && value != null) ? value.toString() : value;
+    }
+
+    private ConstraintEvaluator makeEvaluator(Map<String, ValueSet> summary)
+    {
+        Constraints constraints = new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        return new ConstraintEvaluator(allocator, targetSchema, constraints);
+    }
+
+    private static VectorSchemaRoot getVectorSchema(Block block)
+    {
+        return new VectorSchemaRoot(block.getFieldVectors());
+    }
+}
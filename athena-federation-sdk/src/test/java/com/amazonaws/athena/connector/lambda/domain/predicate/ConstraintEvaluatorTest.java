@@ -0,0 +1,177 @@
+package com.amazonaws.athena.connector.lambda.domain.predicate;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.arrow.vector.util.Text;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConstraintEvaluatorTest
+{
+    private static final ArrowType INT = Types.MinorType.INT.getType();
+    private static final ArrowType BIGINT = Types.MinorType.BIGINT.getType();
+    private static final ArrowType DATEDAY = Types.MinorType.DATEDAY.getType();
+    private static final ArrowType FLOAT8 = Types.MinorType.FLOAT8.getType();
+    private static final ArrowType VARCHAR = Types.MinorType.VARCHAR.getType();
+    private static final ArrowType DECIMAL = new ArrowType.Decimal(10, 2, 128);
+
+    private BlockAllocatorImpl allocator;
+
+    @Before
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void testEquatableValueSets()
+            throws Exception
+    {
+        Map<String, ValueSet> summary = new HashMap<>();
+        summary.put("int", EquatableValueSet.of(allocator, INT, true, Arrays.asList(1, 5, -7)));
+        summary.put("bigint", EquatableValueSet.of(allocator, BIGINT, 1L, 5L, Long.MAX_VALUE).complement(allocator));
+        summary.put("dateday", EquatableValueSet.of(allocator, DATEDAY, 100, 200));
+        summary.put("float8", EquatableValueSet.of(allocator, FLOAT8, 1.5D, Double.NaN));
+        summary.put("varchar", EquatableValueSet.of(allocator, VARCHAR, "a", "bc", "été"));
+        summary.put("decimal", EquatableValueSet.of(allocator, DECIMAL, new BigDecimal("1.50")));
+
+        try (ConstraintEvaluator evaluator = makeEvaluator(summary)) {
+            assertMatchesMarkerPath(evaluator, summary, "int", 1, 5, -7, 2, 1L, 5L, 6L, null);
+            assertMatchesMarkerPath(evaluator, summary, "bigint", 1L, 5L, Long.MAX_VALUE, 2L, -1L, null);
+            assertMatchesMarkerPath(evaluator, summary, "dateday", 100, 200, 100L, 150L, 150, null);
+            assertMatchesMarkerPath(evaluator, summary, "float8", 1.5D, Double.NaN, 2.5D, -0.0D, null);
+            assertMatchesMarkerPath(evaluator, summary, "varchar", "a", "bc", "été", new Text("bc"), new Text("été"), "b", new Text("c"), null);
+            assertMatchesMarkerPath(evaluator, summary, "decimal", new BigDecimal("1.5"), 1.5D, 2.5D, null);
+
+            assertTrue(evaluator.apply("int", null));
+            assertTrue(evaluator.apply("bigint", null));
+            assertFalse(evaluator.apply("dateday", null));
+            assertTrue(evaluator.apply("bigint", 2L));
+            assertTrue(evaluator.apply("varchar", new Text("bc")));
+            assertTrue(evaluator.apply("unknown", 1));
+        }
+    }
+
+    @Test
+    public void testSortedRangeSets()
+            throws Exception
+    {
+        Map<String, ValueSet> summary = new HashMap<>();
+        summary.put("int", SortedRangeSet.of(true, Range.lessThan(allocator, INT, -10),
+                Range.range(allocator, INT, 0, true, 10, false),
+                Range.equal(allocator, INT, 20),
+                Range.greaterThan(allocator, INT, 30)));
+        summary.put("bigint", SortedRangeSet.of(Range.range(allocator, BIGINT, 0L, false, 10L, true)));
+        summary.put("dateday", SortedRangeSet.of(Range.greaterThanOrEqual(allocator, DATEDAY, 100)));
+        summary.put("float8", SortedRangeSet.of(Range.range(allocator, FLOAT8, -1.5D, true, 1.5D, true),
+                Range.greaterThan(allocator, FLOAT8, 100D)));
+        summary.put("varchar", SortedRangeSet.of(Range.range(allocator, VARCHAR, "b", true, "d", false)));
+        summary.put("decimal", SortedRangeSet.of(Range.lessThanOrEqual(allocator, DECIMAL, new BigDecimal("1.50"))));
+
+        try (ConstraintEvaluator evaluator = makeEvaluator(summary)) {
+            assertMatchesMarkerPath(evaluator, summary, "int", -11, -10, -1, 0, 9, 10, 19, 20, 21, 30, 31, 5L, 20L, null);
+            assertMatchesMarkerPath(evaluator, summary, "bigint", -1L, 0L, 1L, 10L, 11L, null);
+            assertMatchesMarkerPath(evaluator, summary, "dateday", 99, 100, 101, 99L, 100L, null);
+            assertMatchesMarkerPath(evaluator, summary, "float8", -1.6D, -1.5D, -0.0D, 0.0D, 1.5D, 1.6D, 100D, 100.1D, Double.NaN, null);
+            assertMatchesMarkerPath(evaluator, summary, "varchar", "a", "b", "bz", "c", "d", new Text("c"), new Text("d"), null);
+            assertMatchesMarkerPath(evaluator, summary, "decimal", new BigDecimal("1.49"), new BigDecimal("1.51"), 1.5D, null);
+        }
+    }
+
+    @Test
+    public void testAllOrNoneValueSets()
+            throws Exception
+    {
+        Map<String, ValueSet> summary = new HashMap<>();
+        summary.put("all", new AllOrNoneValueSet(INT, true, false));
+        summary.put("none", new AllOrNoneValueSet(VARCHAR, false, true));
+
+        try (ConstraintEvaluator evaluator = makeEvaluator(summary)) {
+            assertMatchesMarkerPath(evaluator, summary, "all", 1, 5L, null);
+            assertMatchesMarkerPath(evaluator, summary, "none", "a", new Text("b"), null);
+        }
+    }
+
+    @Test
+    public void testEmptyEvaluator()
+            throws Exception
+    {
+        try (ConstraintEvaluator evaluator = ConstraintEvaluator.emptyEvaluator()) {
+            assertTrue(evaluator.apply("col1", 1));
+            assertTrue(evaluator.apply("col1", null));
+        }
+    }
+
+    private ConstraintEvaluator makeEvaluator(Map<String, ValueSet> summary)
+    {
+        SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
+        for (Map.Entry<String, ValueSet> next : summary.entrySet()) {
+            schemaBuilder.addField(next.getKey(), next.getValue().getType());
+        }
+        Schema schema = schemaBuilder.build();
+        Constraints constraints = new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        return new ConstraintEvaluator(allocator, schema, constraints);
+    }
+
+    /**
+     * The compiled predicates must give the same answer as evaluating the ValueSet against a Marker built from the
+     * value, which is how ConstraintEvaluator used to evaluate every value.
+     */
+    private void assertMatchesMarkerPath(ConstraintEvaluator evaluator, Map<String, ValueSet> summary, String field, Object... values)
+            throws Exception
+    {
+        ValueSet valueSet = summary.get(field);
+        List<Object> valueList = Arrays.asList(values);
+        try (MarkerFactory markerFactory = new MarkerFactory(allocator)) {
+            for (Object next : valueList) {
+                boolean expected;
+                try (Marker marker = markerFactory.createNullable(valueSet.getType(), next, Marker.Bound.EXACTLY)) {
+                    expected = valueSet.containsValue(marker);
+                }
+                assertEquals("field " + field + " value " + next, expected, evaluator.apply(field, next));
+            }
+        }
+    }
+}
@@ -24,11 +24,14 @@ import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.util.Text;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -329,4 +332,86 @@ public class EquatableValueSetTest
         assertEquals(EquatableValueSet.of(allocator, INT, 0).complement(allocator).subtract(allocator, EquatableValueSet.of(allocator, INT, 0, 1)), EquatableValueSet.of(allocator, INT, 0, 1).complement(allocator));
         assertEquals(EquatableValueSet.of(allocator, INT, 0).complement(allocator).subtract(allocator, EquatableValueSet.of(allocator, INT, 0, 1).complement(allocator)), EquatableValueSet.of(allocator, INT, 1));
     }
+
+    @Test
+    public void testLargeWhiteList()
+            throws Exception
+    {
+        ArrowType bigInt = Types.MinorType.BIGINT.getType();
+        ArrowType varchar = Types.MinorType.VARCHAR.getType();
+        List<Object> longs = new ArrayList<>();
+        List<Object> strings = new ArrayList<>();
+        for (long i = 0; i < 10_000; i++) {
+            longs.add(i * 3);
+            strings.add("value_" + (i * 3));
+        }
+
+        EquatableValueSet longSet = EquatableValueSet.of(allocator, bigInt, false, longs);
+        EquatableValueSet stringSet = EquatableValueSet.of(allocator, varchar, false, strings);
+        for (long i = 0; i < 30_000; i++) {
+            assertEquals(i % 3 == 0, longSet.containsValue(i));
+            assertEquals(i % 3 == 0, stringSet.containsValue("value_" + i));
+            assertEquals(i % 3 == 0, stringSet.containsValue(new Text("value_" + i)));
+            assertEquals(i % 3 != 0, longSet.complement(allocator).containsValue(i));
+        }
+        assertFalse(longSet.containsValue((Object) null));
+        assertTrue(longSet.complement(allocator).containsValue((Object) null));
+        assertTrue(stringSet.containsValue(new Text("value_" + 3)));
+        assertFalse(stringSet.containsValue(""));
+
+        EquatableValueSet evens = EquatableValueSet.of(allocator, bigInt, 0L, 2L, 4L, 6L);
+        assertEquals(longSet.intersect(allocator, evens), EquatableValueSet.of(allocator, bigInt, 0L, 6L));
+        assertEquals(evens.subtract(allocator, longSet), EquatableValueSet.of(allocator, bigInt, 2L, 4L));
+        assertEquals(evens.union(allocator, longSet).getValues().getRowCount(), 10_002);
+    }
+
+    @Test
+    public void testMixedWidthIntegralProbes()
+            throws Exception
+    {
+        //The integral index hashes every Long, Integer, Short and Byte probe by its long value whatever the column width.
+        EquatableValueSet ints = EquatableValueSet.of(allocator, INT, 1, 100, Integer.MAX_VALUE);
+        assertTrue(ints.containsValue(1L));
+        assertTrue(ints.containsValue((short) 100));
+        assertTrue(ints.containsValue((byte) 1));
+        assertTrue(ints.containsValue((long) Integer.MAX_VALUE));
+        assertFalse(ints.containsValue(Integer.MAX_VALUE + 1L));
+        assertFalse(ints.containsValue((short) 2));
+
+        ArrowType bigInt = Types.MinorType.BIGINT.getType();
+        EquatableValueSet longs = EquatableValueSet.of(allocator, bigInt, -1L, 100L, Long.MAX_VALUE);
+        assertTrue(longs.containsValue(-1));
+        assertTrue(longs.containsValue((short) 100));
+        assertTrue(longs.containsValue((byte) -1));
+        assertTrue(longs.containsValue(Long.MAX_VALUE));
+        assertFalse(longs.containsValue(Integer.MAX_VALUE));
+        assertFalse(longs.complement(allocator).containsValue(100));
+
+        //Probes the index can't hash still go through ArrowTypeComparator.
+        try {
+            ints.containsValue("1");
+            fail();
+        }
+        catch (ClassCastException ignored) {
+        }
+    }
+
+    @Test
+    public void testFloatingPointValues()
+            throws Exception
+    {
+        ArrowType float8 = Types.MinorType.FLOAT8.getType();
+        EquatableValueSet doubles = EquatableValueSet.of(allocator, float8, 0.0D, 1.5D, Double.NaN);
+        assertTrue(doubles.containsValue(0.0D));
+        assertTrue(doubles.containsValue(1.5D));
+        assertTrue(doubles.containsValue(Double.NaN));
+        //Double.compare, which the unindexed scan relies on, treats -0.0 and 0.0 as distinct values.
+        assertFalse(doubles.containsValue(-0.0D));
+        assertFalse(doubles.containsValue(2.5D));
+
+        ArrowType float4 = Types.MinorType.FLOAT4.getType();
+        EquatableValueSet floats = EquatableValueSet.of(allocator, float4, 0.0F, 1.5F);
+        assertTrue(floats.containsValue(1.5F));
+        assertFalse(floats.containsValue(2.5F));
+    }
 }
@@ -0,0 +1,82 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.handlers;
+
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class ConfigOptionUtilsTest
+{
+    private static final String OPTION = "test_option";
+
+    @Test
+    public void unsetOptionsTakeTheDefault()
+    {
+        assertEquals(7L, ConfigOptionUtils.getPositiveLongOption(null, OPTION, 7L));
+        assertEquals(7, ConfigOptionUtils.getPositiveIntOption(ImmutableMap.of(), OPTION, 7));
+        assertEquals(7, ConfigOptionUtils.getNonNegativeIntOption(ImmutableMap.of(OPTION, " "), OPTION, 7));
+        assertEquals(0.5, ConfigOptionUtils.getPositiveDoubleOption(ImmutableMap.of(), OPTION, 0.5), 0);
+    }
+
+    @Test
+    public void validOptionsAreParsed()
+    {
+        assertEquals(5_000_000_000L, ConfigOptionUtils.getPositiveLongOption(options(" 5000000000 "), OPTION, 7L));
+        assertEquals(1, ConfigOptionUtils.getPositiveIntOption(options("1"), OPTION, 7));
+        assertEquals(0, ConfigOptionUtils.getNonNegativeIntOption(options("0"), OPTION, 7));
+        assertEquals(0.25, ConfigOptionUtils.getPositiveDoubleOption(options("0.25"), OPTION, 7), 0);
+    }
+
+    @Test
+    public void invalidOptionsAreRejected()
+    {
+        for (String value : ImmutableList.of("0", "-1", "abc", "1.5")) {
+            assertInvalid(() -> ConfigOptionUtils.getPositiveLongOption(options(value), OPTION, 7L));
+        }
+        for (String value : ImmutableList.of("0", "-1", "abc", "2147483648")) {
+            assertInvalid(() -> ConfigOptionUtils.getPositiveIntOption(options(value), OPTION, 7));
+        }
+        for (String value : ImmutableList.of("-1", "abc", "2147483648")) {
+            assertInvalid(() -> ConfigOptionUtils.getNonNegativeIntOption(options(value), OPTION, 7));
+        }
+        for (String value : ImmutableList.of("0", "-0.5", "abc", "NaN", "Infinity")) {
+            assertInvalid(() -> ConfigOptionUtils.getPositiveDoubleOption(options(value), OPTION, 7));
+        }
+    }
+
+    private static Map<String, String> options(String value)
+    {
+        return ImmutableMap.of(OPTION, value);
+    }
+
+    private static void assertInvalid(Runnable parse)
+    {
+        AthenaConnectorException ex = assertThrows(AthenaConnectorException.class, parse::run);
+        assertEquals(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString(), ex.getErrorDetails().errorCode());
+    }
+}
@@ -38,6 +38,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListSchemasRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListSchemasResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequest;
 import com.amazonaws.athena.connector.lambda.security.IdentityUtil;
 import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
@@ -148,39 +149,7 @@ public class GlueMetadataHandlerTest
             throws Exception
     {
         logger.info("{}: enter", testName.getMethodName());
-        handler = new GlueMetadataHandler(mockGlue,
-                new LocalKeyFactory(),
-                mock(SecretsManagerClient.class),
-                mock(AthenaClient.class),
-                "glue-test",
-                "spill-bucket",
-                "spill-prefix",
-                com.google.common.collect.ImmutableMap.of())
-        {
-            @Override
-            public GetTableLayoutResponse doGetTableLayout(BlockAllocator blockAllocator, GetTableLayoutRequest request)
-            {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public void getPartitions(BlockWriter blockWriter, GetTableLayoutRequest request, QueryStatusChecker queryStatusChecker)
-                    throws Exception
-            {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public GetSplitsResponse doGetSplits(BlockAllocator blockAllocator, GetSplitsRequest request)
-            {
-                throw new UnsupportedOperationException();
-            }
-
-            @Override
-            public GetDataSourceCapabilitiesResponse doGetDataSourceCapabilities(BlockAllocator allocator, GetDataSourceCapabilitiesRequest request) {
-                throw new UnsupportedOperationException();
-            }
-        };
+        handler = newHandler(com.google.common.collect.ImmutableMap.of());
         allocator = new BlockAllocatorImpl();
 
         // doListTables pagination.
@@ -453,6 +422,75 @@ public class GlueMetadataHandlerTest
         assertTrue(Types.getMinorTypeForArrowType(res.getSchema().findField("col1").getType()).equals(Types.MinorType.INT));
     }
 
+    @Test
+    public void doGetTableWithMetadataCache()
+            throws Exception
+    {
+        GlueMetadataHandler cachingHandler = newHandler(com.google.common.collect.ImmutableMap.of(MetadataCache.METADATA_CACHE_ENABLED, "true"));
+
+        List<Column> columns = new ArrayList<>();
+        columns.add(Column.builder().name("col1").type("int").build());
+        Table resultTable = Table.builder()
+                .storageDescriptor(StorageDescriptor.builder().columns(columns).build())
+                .build();
+        when(mockGlue.getTable(nullable(software.amazon.awssdk.services.glue.model.GetTableRequest.class)))
+                .thenReturn(software.amazon.awssdk.services.glue.model.GetTableResponse.builder().table(resultTable).build());
+
+        GetTableRequest req = new GetTableRequest(IdentityUtil.fakeIdentity(), queryId, catalog, new TableName(schema, table), Collections.emptyMap());
+        GetTableResponse first = cachingHandler.doGetTable(allocator, req);
+        GetTableResponse second = cachingHandler.doGetTable(allocator, req);
+        assertEquals(first.getSchema(), second.getSchema());
+        verify(mockGlue, times(1)).getTable(nullable(software.amazon.awssdk.services.glue.model.GetTableRequest.class));
+        assertEquals(1, cachingHandler.getMetadataCache().getStats().hitCount());
+
+        //invalidating the table reads it from Glue again
+        cachingHandler.getMetadataCache().invalidate(new TableName(schema, table));
+        cachingHandler.doGetTable(allocator, req);
+        verify(mockGlue, times(2)).getTable(nullable(software.amazon.awssdk.services.glue.model.GetTableRequest.class));
+
+        //handlers which haven't opted in always read from Glue
+        handler.doGetTable(allocator, req);
+        handler.doGetTable(allocator, req);
+        verify(mockGlue, times(4)).getTable(nullable(software.amazon.awssdk.services.glue.model.GetTableRequest.class));
+    }
+
+    private GlueMetadataHandler newHandler(Map<String, String> configOptions)
+    {
+        return new GlueMetadataHandler(mockGlue,
+                new LocalKeyFactory(),
+                mock(SecretsManagerClient.class),
+                mock(AthenaClient.class),
+                "glue-test",
+                "spill-bucket",
+                "spill-prefix",
+                configOptions)
+        {
+            @Override
+            public GetTableLayoutResponse doGetTableLayout(BlockAllocator blockAllocator, GetTableLayoutRequest request)
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void getPartitions(BlockWriter blockWriter, GetTableLayoutRequest request, QueryStatusChecker queryStatusChecker)
+                    throws Exception
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public GetSplitsResponse doGetSplits(BlockAllocator blockAllocator, GetSplitsRequest request)
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public GetDataSourceCapabilitiesResponse doGetDataSourceCapabilities(BlockAllocator allocator, GetDataSourceCapabilitiesRequest request) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
     @Test
     public void testGetCatalog() {
         // Catalog should be the account from the request
@@ -27,6 +27,7 @@ import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.BlockUtils;
 import com.amazonaws.athena.connector.lambda.data.S3BlockSpillReader;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.SpillConfig;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
@@ -46,6 +47,7 @@ import com.amazonaws.athena.connector.lambda.request.PingRequest;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
+import com.amazonaws.athena.connector.lambda.security.SegmentedAesGcmBlockCrypto;
 import com.amazonaws.athena.connector.lambda.serde.VersionedObjectMapperFactory;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -57,6 +59,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import software.amazon.awssdk.services.athena.AthenaClient;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
@@ -71,6 +74,7 @@ import java.util.Map;
 import java.util.UUID;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -195,6 +199,95 @@ public class RecordHandlerTest
         }
     }
 
+    @Test
+    public void getSpillConfigRejectsInvalidSpillOptions()
+    {
+        for (String option : new String[] {"SPILL_MAX_THREADS", "SPILL_MEMORY_BUDGET_BYTES", "SPILL_MULTIPART_PART_BYTES", "SPILL_ENCRYPTION_SEGMENT_BYTES"}) {
+            for (String value : new String[] {"0", "-1", "abc"}) {
+                try {
+                    makeRecordHandler(Collections.singletonMap(option, value)).getSpillConfig(makeSpillConfigRequest());
+                    fail("Expected AthenaConnectorException for " + option + "=" + value);
+                }
+                catch (AthenaConnectorException e) {
+                    assertEquals(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString(), e.getErrorDetails().errorCode());
+                    assertTrue(e.getMessage().contains(option));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void getSpillConfigAcceptsValidSpillOptions()
+    {
+        Map<String, String> configOptions = new HashMap<>();
+        configOptions.put("SPILL_MAX_THREADS", "4");
+        configOptions.put("SPILL_MEMORY_BUDGET_BYTES", "1048576");
+
+        SpillConfig spillConfig = makeRecordHandler(configOptions).getSpillConfig(makeSpillConfigRequest());
+
+        assertEquals(4, spillConfig.getNumSpillThreads());
+        assertEquals(1048576L, spillConfig.getMaxSpillMemoryBytes());
+    }
+
+    @Test
+    public void getSpillConfigBoundsEncryptionSegmentBytes()
+    {
+        int maxSegmentBytes = SegmentedAesGcmBlockCrypto.MAX_SEGMENT_BYTES;
+        assertEquals(maxSegmentBytes, makeRecordHandler(Collections.singletonMap("SPILL_ENCRYPTION_SEGMENT_BYTES", Integer.toString(maxSegmentBytes)))
+                .getSpillConfig(makeSpillConfigRequest()).getEncryptionSegmentBytes());
+        try {
+            makeRecordHandler(Collections.singletonMap("SPILL_ENCRYPTION_SEGMENT_BYTES", Integer.toString(maxSegmentBytes + 1)))
+                    .getSpillConfig(makeSpillConfigRequest());
+            fail("Expected AthenaConnectorException for a segment size above the max");
+        }
+        catch (AthenaConnectorException e) {
+            assertEquals(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString(), e.getErrorDetails().errorCode());
+        }
+    }
+
+    @Test
+    public void getSpillConfigRaisesMultipartPartBytesToTheS3Minimum()
+    {
+        long minPartBytes = 5L * 1024 * 1024;
+        assertEquals(0L, makeRecordHandler(Collections.emptyMap()).getSpillConfig(makeSpillConfigRequest()).getMultipartUploadPartBytes());
+        assertEquals(minPartBytes, makeRecordHandler(Collections.singletonMap("SPILL_MULTIPART_PART_BYTES", "1024"))
+                .getSpillConfig(makeSpillConfigRequest()).getMultipartUploadPartBytes());
+        assertEquals(2 * minPartBytes, makeRecordHandler(Collections.singletonMap("SPILL_MULTIPART_PART_BYTES", Long.toString(2 * minPartBytes)))
+                .getSpillConfig(makeSpillConfigRequest()).getMultipartUploadPartBytes());
+    }
+
+    private RecordHandler makeRecordHandler(Map<String, String> configOptions)
+    {
+        return new RecordHandler(mock(S3Client.class), mock(SecretsManagerClient.class), mock(AthenaClient.class), "test", configOptions) {
+            @Override
+            protected void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
+            {
+                // no-op
+            }
+        };
+    }
+
+    private ReadRecordsRequest makeSpillConfigRequest()
+    {
+        return new ReadRecordsRequest(identity,
+                CATALOG,
+                QUERY_ID,
+                new TableName("testSchema", "testTable"),
+                SchemaBuilder.newBuilder().build(),
+                Split.newBuilder(S3SpillLocation.newBuilder()
+                                        .withBucket("bucket")
+                                        .withSplitId("splitId")
+                                        .withQueryId(QUERY_ID)
+                                        .withIsDirectory(true)
+                                        .build(),
+                                keyFactory.create())
+                        .build(),
+                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null),
+                1_500_000L,
+                0
+        );
+    }
+
     @Test
     public void pingHandleRequest() throws IOException
     {
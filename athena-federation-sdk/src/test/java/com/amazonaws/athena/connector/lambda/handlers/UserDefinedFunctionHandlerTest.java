@@ -66,10 +66,12 @@ import org.apache.arrow.vector.util.Text;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
@@ -528,6 +530,58 @@ public class UserDefinedFunctionHandlerTest
         }
     }
 
+    @Test
+    public void invocationWithVectorizedUdf()
+            throws Exception
+    {
+        int rowCount = 20;
+        UserDefinedFunctionRequest udfRequest = createUDFRequest(rowCount, Integer.class, "test_vectorized_udf", true, Integer.class, Integer.class);
+
+        UserDefinedFunctionResponse udfResponse = handler.processFunction(allocator, udfRequest);
+        Block responseBlock = udfResponse.getRecords();
+
+        assertEquals("test_vectorized_udf", udfResponse.getMethodName());
+        assertEquals(rowCount, responseBlock.getRowCount());
+        assertEquals(1, handler.vectorizedCalls);
+
+        FieldReader fieldReader = responseBlock.getFieldReaders().get(0);
+        for (int pos = 0; pos < rowCount; ++pos) {
+            fieldReader.setPosition(pos);
+            assertEquals(2 * (pos + 100), (int) UnitTestBlockUtils.getValue(fieldReader, pos));
+        }
+    }
+
+    @Test
+    public void udfExceptionIsPropagated()
+            throws Exception
+    {
+        UserDefinedFunctionRequest udfRequest = createUDFRequest(5, Integer.class, "test_failing_udf", true, Integer.class);
+        try {
+            handler.processFunction(allocator, udfRequest);
+            fail("Expected the UDF's exception");
+        }
+        catch (AthenaConnectorException ex) {
+            assertEquals("udf failed", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void nullPrimitiveArgumentIsInvalidInput()
+            throws Exception
+    {
+        //Lookups by SQL signature only find boxed parameters, so the primitive UDF is invoked directly.
+        UserDefinedFunctionRequest udfRequest = createUDFRequest(5, Integer.class, "test_primitive_udf", false, Integer.class);
+        Method udfMethod = TestUserDefinedFunctionHandler.class.getMethod("test_primitive_udf", int.class);
+        try {
+            handler.processRows(allocator, udfMethod, udfRequest.getInputRecords(), udfRequest.getOutputSchema());
+            fail("Expected null to be rejected for a primitive parameter");
+        }
+        catch (AthenaConnectorException ex) {
+            assertEquals(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString(), ex.getErrorDetails().errorCode());
+            assertTrue(ex.getMessage().contains("null passed to a primitive parameter"));
+        }
+    }
+
     @Test
     public void testRequestTypeValidation()
             throws Exception
@@ -827,11 +881,34 @@ public class UserDefinedFunctionHandlerTest
     private static class TestUserDefinedFunctionHandler
             extends UserDefinedFunctionHandler
     {
+        private int vectorizedCalls;
+
         public TestUserDefinedFunctionHandler()
         {
             super("test_type");
         }
 
+        public void test_vectorized_udf(List<FieldVector> arguments, FieldVector result)
+        {
+            vectorizedCalls++;
+            IntVector col1 = (IntVector) arguments.get(0);
+            IntVector col2 = (IntVector) arguments.get(1);
+            IntVector output = (IntVector) result;
+            for (int i = 0; i < col1.getValueCount(); i++) {
+                output.setSafe(i, col1.get(i) + col2.get(i));
+            }
+        }
+
+        public Integer test_failing_udf(Integer input)
+        {
+            throw new IllegalStateException("udf failed");
+        }
+
+        public Integer test_primitive_udf(int input)
+        {
+            return input + 1;
+        }
+
         public Integer test_scalar_udf(Integer col1, Integer col2)
         {
             return col1 + col2;
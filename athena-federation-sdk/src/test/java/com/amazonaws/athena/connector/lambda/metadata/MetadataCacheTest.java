@@ -0,0 +1,169 @@
+package com.amazonaws.athena.connector.lambda.metadata;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetadataCacheTest
+{
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void disabledByDefault()
+            throws Exception
+    {
+        MetadataCache cache = MetadataCache.fromConfig(ImmutableMap.of());
+        assertFalse(cache.isEnabled());
+        MetadataCache.Key key = MetadataCache.key("test", "schema", "table");
+        assertEquals("value", cache.get(key, this::load));
+        assertEquals("value", cache.get(key, this::load));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void expiresAfterTtl()
+            throws Exception
+    {
+        FakeTicker ticker = new FakeTicker();
+        MetadataCache cache = new MetadataCache(60, 10, ticker);
+        MetadataCache.Key key = MetadataCache.key("test", "schema", "table", "catalog");
+
+        assertEquals("value", cache.get(key, this::load));
+        ticker.advance(30);
+        assertEquals("value", cache.get(key, this::load));
+        assertEquals(1, loads.get());
+
+        ticker.advance(31);
+        assertEquals("value", cache.get(key, this::load));
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(2, cache.getStats().missCount());
+    }
+
+    @Test
+    public void keysIncludeParts()
+            throws Exception
+    {
+        MetadataCache cache = new MetadataCache(60, 10, Ticker.systemTicker());
+        cache.get(MetadataCache.key("test", "schema", "table", "catalog1"), this::load);
+        cache.get(MetadataCache.key("test", "schema", "table", "catalog2"), this::load);
+        cache.get(MetadataCache.key("test", "schema", "table", "catalog1"), this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void nullsAreNotCached()
+            throws Exception
+    {
+        MetadataCache cache = new MetadataCache(60, 10, Ticker.systemTicker());
+        MetadataCache.Key key = MetadataCache.key("test", "schema", "table");
+        assertNull(cache.get(key, () -> null));
+        assertEquals("value", cache.get(key, this::load));
+    }
+
+    @Test
+    public void invalidate()
+            throws Exception
+    {
+        MetadataCache cache = new MetadataCache(60, 10, Ticker.systemTicker());
+        MetadataCache.Key table1 = MetadataCache.key("getTable", "schema1", "table1");
+        MetadataCache.Key table2 = MetadataCache.key("getTable", "schema1", "table2");
+        MetadataCache.Key listing1 = MetadataCache.key("listTables", "schema1", null);
+        MetadataCache.Key listing2 = MetadataCache.key("listTables", "schema2", null);
+        for (MetadataCache.Key next : new MetadataCache.Key[] {table1, table2, listing1, listing2}) {
+            cache.get(next, this::load);
+        }
+        assertEquals(4, loads.get());
+
+        //a table takes its schema's listings with it
+        cache.invalidate(new TableName("schema1", "table1"));
+        for (MetadataCache.Key next : new MetadataCache.Key[] {table1, table2, listing1, listing2}) {
+            cache.get(next, this::load);
+        }
+        assertEquals(6, loads.get());
+
+        cache.invalidate("schema1");
+        for (MetadataCache.Key next : new MetadataCache.Key[] {table1, table2, listing1, listing2}) {
+            cache.get(next, this::load);
+        }
+        assertEquals(9, loads.get());
+
+        cache.invalidateAll();
+        for (MetadataCache.Key next : new MetadataCache.Key[] {table1, table2, listing1, listing2}) {
+            cache.get(next, this::load);
+        }
+        assertEquals(13, loads.get());
+    }
+
+    @Test
+    public void fromConfig()
+    {
+        MetadataCache cache = MetadataCache.fromConfig(ImmutableMap.of(MetadataCache.METADATA_CACHE_ENABLED, "true",
+                MetadataCache.METADATA_CACHE_TTL_SECONDS, "30",
+                MetadataCache.METADATA_CACHE_MAX_ENTRIES, "100"));
+        assertTrue(cache.isEnabled());
+
+        try {
+            MetadataCache.fromConfig(ImmutableMap.of(MetadataCache.METADATA_CACHE_ENABLED, "true",
+                    MetadataCache.METADATA_CACHE_TTL_SECONDS, "0"));
+            fail("Expected an invalid ttl to be rejected");
+        }
+        catch (AthenaConnectorException ex) {
+            //expected
+        }
+    }
+
+    private String load()
+    {
+        loads.incrementAndGet();
+        return "value";
+    }
+
+    private static class FakeTicker
+            extends Ticker
+    {
+        private long nanos;
+
+        @Override
+        public long read()
+        {
+            return nanos;
+        }
+
+        void advance(long seconds)
+        {
+            nanos += TimeUnit.SECONDS.toNanos(seconds);
+        }
+    }
+}
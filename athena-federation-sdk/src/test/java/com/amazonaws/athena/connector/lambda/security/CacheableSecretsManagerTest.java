@@ -20,6 +20,7 @@ package com.amazonaws.athena.connector.lambda.security;
  * #L%
  */
 
+import com.google.common.collect.ImmutableMap;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
@@ -29,11 +30,19 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -96,6 +105,79 @@ public class CacheableSecretsManagerTest
         verify(mockSecretsManager, times(2)).getSecretValue(nullable(GetSecretValueRequest.class));
     }
 
+    @Test
+    public void refreshAheadTest()
+            throws Exception
+    {
+        when(mockSecretsManager.getSecretValue(nullable(GetSecretValueRequest.class)))
+                .thenReturn(GetSecretValueResponse.builder().secretString("value2").build());
+
+        //old enough to be refreshed but not expired, the cached value is returned while it is refreshed
+        cachableSecretsManager.addCacheEntry("test", "value", System.currentTimeMillis() - 50_000);
+        assertEquals("value", cachableSecretsManager.getSecret("test"));
+
+        verify(mockSecretsManager, timeout(5_000)).getSecretValue(nullable(GetSecretValueRequest.class));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!"value2".equals(cachableSecretsManager.getSecret("test")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals("value2", cachableSecretsManager.getSecret("test"));
+        verify(mockSecretsManager, times(1)).getSecretValue(nullable(GetSecretValueRequest.class));
+    }
+
+    @Test
+    public void concurrentMissesAreCoalesced()
+            throws Exception
+    {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockSecretsManager.getSecretValue(nullable(GetSecretValueRequest.class)))
+                .thenAnswer((InvocationOnMock invocation) -> {
+                    fetching.countDown();
+                    release.await();
+                    return GetSecretValueResponse.builder().secretString("value").build();
+                });
+
+        int numThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                results.add(executor.submit(() -> cachableSecretsManager.getSecret("test")));
+            }
+            fetching.await();
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> next : results) {
+                assertEquals("value", next.get());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        verify(mockSecretsManager, times(1)).getSecretValue(nullable(GetSecretValueRequest.class));
+    }
+
+    @Test
+    public void configuredCacheSize()
+    {
+        cachableSecretsManager = new CachableSecretsManager(mockSecretsManager,
+                ImmutableMap.of(CachableSecretsManager.SECRETS_CACHE_MAX_ENTRIES, "2"));
+        when(mockSecretsManager.getSecretValue(nullable(GetSecretValueRequest.class)))
+                .thenAnswer((InvocationOnMock invocation) -> {
+                    GetSecretValueRequest request = invocation.getArgument(0, GetSecretValueRequest.class);
+                    return GetSecretValueResponse.builder().secretString(request.secretId() + "_value").build();
+                });
+
+        cachableSecretsManager.getSecret("test0");
+        cachableSecretsManager.getSecret("test1");
+        cachableSecretsManager.getSecret("test2");
+        cachableSecretsManager.getSecret("test1");
+        verify(mockSecretsManager, times(3)).getSecretValue(nullable(GetSecretValueRequest.class));
+        cachableSecretsManager.getSecret("test0");
+        verify(mockSecretsManager, times(4)).getSecretValue(nullable(GetSecretValueRequest.class));
+    }
+
     @Test
     public void resolveSecrets()
     {
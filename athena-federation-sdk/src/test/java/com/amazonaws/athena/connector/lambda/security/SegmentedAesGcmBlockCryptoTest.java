@@ -0,0 +1,181 @@
+package com.amazonaws.athena.connector.lambda.security;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SegmentedAesGcmBlockCryptoTest
+{
+    //Small enough for a Block to span many segments.
+    private static final int SEGMENT_BYTES = 128;
+
+    private final EncryptionKeyFactory keyFactory = new LocalKeyFactory();
+    private BlockAllocatorImpl allocator;
+    private SegmentedAesGcmBlockCrypto crypto;
+    private EncryptionKey key;
+    private Schema schema;
+    private Block expected;
+
+    @Before
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        crypto = new SegmentedAesGcmBlockCrypto(allocator, NoCompressionCodec.INSTANCE, SEGMENT_BYTES);
+        key = keyFactory.create();
+
+        schema = SchemaBuilder.newBuilder()
+                .addField("col1", new ArrowType.Int(32, true))
+                .addField("col2", new ArrowType.Utf8())
+                .build();
+
+        expected = allocator.createBlock(schema);
+        for (int i = 0; i < 100; i++) {
+            BlockUtils.setValue(expected.getFieldVector("col1"), i, i);
+            BlockUtils.setValue(expected.getFieldVector("col2"), i, "VarChar" + i);
+        }
+        expected.setRowCount(100);
+    }
+
+    @After
+    public void tearDown()
+            throws Exception
+    {
+        expected.close();
+        allocator.close();
+    }
+
+    @Test
+    public void roundTripBytes()
+            throws Exception
+    {
+        byte[] cypher = crypto.encrypt(key, expected);
+        assertTrue(SegmentedAesGcmBlockCrypto.isSegmented(cypher));
+        assertTrue(cypher.length > 10 * SEGMENT_BYTES);
+
+        try (Block actual = crypto.decrypt(key, cypher, schema)) {
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void roundTripStreamOfUnknownLength()
+            throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        crypto.encrypt(key, expected, out);
+
+        try (Block actual = crypto.decrypt(key, new ByteArrayInputStream(out.toByteArray()), -1, schema)) {
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void decryptUnsegmented()
+            throws Exception
+    {
+        byte[] cypher = new AesGcmBlockCrypto(allocator).encrypt(key, expected);
+        assertFalse(SegmentedAesGcmBlockCrypto.isSegmented(cypher));
+
+        try (Block actual = crypto.decrypt(key, cypher, schema)) {
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void decryptSerializedBytes()
+    {
+        byte[] cypher = crypto.encrypt(key, expected);
+        byte[] unsegmented = new AesGcmBlockCrypto(allocator).encrypt(key, expected);
+
+        assertArrayEquals(new AesGcmBlockCrypto(allocator).decrypt(key, unsegmented), crypto.decrypt(key, cypher));
+    }
+
+    @Test
+    public void tamperedSegmentIsRejected()
+            throws Exception
+    {
+        byte[] cypher = crypto.encrypt(key, expected);
+        cypher[cypher.length / 2] ^= 1;
+
+        assertRejected(cypher);
+    }
+
+    @Test
+    public void truncatedBlockIsRejected()
+            throws Exception
+    {
+        byte[] cypher = crypto.encrypt(key, expected);
+        //Drops the last segment, leaving a stream which ends on a full segment.
+        int lastSegmentBytes = (cypher.length - 24) % (SEGMENT_BYTES + 16);
+        assertRejected(Arrays.copyOf(cypher, cypher.length - lastSegmentBytes));
+        //Drops the tail of the last segment.
+        assertRejected(Arrays.copyOf(cypher, cypher.length - 1));
+    }
+
+    @Test
+    public void trailingBytesAreRejected()
+            throws Exception
+    {
+        byte[] cypher = crypto.encrypt(key, expected);
+        assertRejected(Arrays.copyOf(cypher, cypher.length + 1));
+    }
+
+    @Test
+    public void wrongKeyIsRejected()
+    {
+        byte[] cypher = crypto.encrypt(key, expected);
+        try {
+            crypto.decrypt(keyFactory.create(), cypher, schema);
+            fail("Expected AthenaConnectorException was not thrown");
+        }
+        catch (AthenaConnectorException ex) {
+            assertTrue(ex.getMessage().contains("segment 0"));
+        }
+    }
+
+    private void assertRejected(byte[] cypher)
+            throws Exception
+    {
+        try {
+            crypto.decrypt(key, cypher, schema).close();
+            fail("Expected AthenaConnectorException was not thrown");
+        }
+        catch (AthenaConnectorException ex) {
+            //expected
+        }
+    }
+}
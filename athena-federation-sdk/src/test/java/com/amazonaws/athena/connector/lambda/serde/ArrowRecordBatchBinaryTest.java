@@ -0,0 +1,160 @@
+package com.amazonaws.athena.connector.lambda.serde;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.apache.arrow.vector.ipc.WriteChannel;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.ipc.message.MessageSerializer;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ArrowRecordBatchBinaryTest
+{
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private BlockAllocatorImpl allocator;
+
+    @Before
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void writeMatchesMessageSerializer()
+            throws Exception
+    {
+        try (Block block = makeBlock(5_000)) {
+            byte[] expected;
+            try (ArrowRecordBatch batch = block.getRecordBatch()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                MessageSerializer.serialize(new WriteChannel(Channels.newChannel(out)), batch, IpcOption.DEFAULT);
+                expected = out.toByteArray();
+            }
+
+            String json = write(block);
+            try (JsonParser jparser = JSON_FACTORY.createParser(json)) {
+                jparser.nextToken();
+                assertArrayEquals(expected, jparser.getBinaryValue());
+            }
+        }
+    }
+
+    @Test
+    public void roundTrip()
+            throws Exception
+    {
+        //Large enough that the read buffer has to grow several times.
+        try (Block expected = makeBlock(20_000);
+                Block actual = allocator.createBlock(expected.getSchema())) {
+            String json = write(expected);
+            try (JsonParser jparser = JSON_FACTORY.createParser(json)) {
+                jparser.nextToken();
+                ArrowRecordBatch batch = allocator.registerBatch(root -> ArrowRecordBatchBinary.read(jparser, root));
+                actual.loadRecordBatch(batch);
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void readEmptyValue()
+            throws IOException
+    {
+        try (JsonParser jparser = JSON_FACTORY.createParser("\"\"")) {
+            jparser.nextToken();
+            assertNull(allocator.registerBatch(root -> ArrowRecordBatchBinary.read(jparser, root)));
+        }
+        assertEquals(0, allocator.getUsage());
+    }
+
+    @Test
+    public void readInvalidValueReleasesBuffer()
+            throws IOException
+    {
+        try (JsonParser jparser = JSON_FACTORY.createParser("\"AAECAwQFBgcICQ==\"")) {
+            jparser.nextToken();
+            allocator.registerBatch(root -> ArrowRecordBatchBinary.read(jparser, root));
+            fail("Expected an invalid record batch to be rejected");
+        }
+        catch (AthenaConnectorException ex) {
+            //expected
+        }
+        assertEquals(0, allocator.getUsage());
+    }
+
+    private static String write(Block block)
+            throws IOException
+    {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator jgen = JSON_FACTORY.createGenerator(out);
+                ArrowRecordBatch batch = block.getRecordBatch()) {
+            ArrowRecordBatchBinary.write(jgen, batch, IpcOption.DEFAULT);
+        }
+        return out.toString();
+    }
+
+    private Block makeBlock(int numRows)
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addIntField("id")
+                .addBigIntField("value")
+                .addStringField("name")
+                .addFloat8Field("price")
+                .build();
+        Block block = allocator.createBlock(schema);
+        for (int i = 0; i < numRows; i++) {
+            BlockUtils.setValue(block.getFieldVector("id"), i, i);
+            BlockUtils.setValue(block.getFieldVector("value"), i, (long) i * 31);
+            BlockUtils.setValue(block.getFieldVector("name"), i, (i % 7 == 0) ? null : "name-" + i);
+            BlockUtils.setValue(block.getFieldVector("price"), i, i / 3.0D);
+        }
+        block.setRowCount(numRows);
+        return block;
+    }
+}
@@ -21,9 +21,8 @@ package com.amazonaws.athena.connectors.gcs;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
-import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
-import com.amazonaws.athena.connector.lambda.data.FieldResolver;
+import com.amazonaws.athena.connector.lambda.data.writers.VectorBatchWriter;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
@@ -39,10 +38,8 @@ import org.apache.arrow.dataset.source.Dataset;
 import org.apache.arrow.dataset.source.DatasetFactory;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.util.VisibleForTesting;
-import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.ipc.ArrowReader;
-import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.slf4j.Logger;
@@ -120,6 +117,7 @@ public class GcsRecordHandler
         String classification = split.getProperty(FILE_FORMAT);
         FileFormat format = FileFormat.valueOf(classification.toUpperCase());
         List<Field> partitionColumns = schema.getFields().stream().filter(field -> split.getProperties().containsKey(field.getName().toLowerCase())).collect(Collectors.toList());
+        VectorBatchWriter batchWriter = makeBatchWriter(partitionColumns, split);
         for (String file : fileList) {
             String uri = createUri(file);
             LOGGER.info("Retrieving records from the URL {} for the table {}.{}", uri, tableInfo.getSchemaName(), tableInfo.getTableName());
@@ -151,11 +149,8 @@ public class GcsRecordHandler
                             // This will be loaded with new values on every call to loadNextBatch on the reader.
                             VectorSchemaRoot root = reader.getVectorSchemaRoot()
                     ) {
-                        // We will loop on batch records and consider each records to write in spiller.
-                        for (int rowIndex = 0; rowIndex < root.getRowCount(); rowIndex++) {
-                            // we are passing record to spiller to be written.
-                            execute(spiller, invoker.invoke(root::getFieldVectors), rowIndex, partitionColumns, split);
-                        }
+                        // The whole batch is handed to the spiller which copies the matching rows column by column.
+                        spiller.writeBatch(root, root.getRowCount(), batchWriter);
                     }
                 }
             }
@@ -163,52 +158,23 @@ public class GcsRecordHandler
     }
 
     /**
-     * We are writing data to spiller. This function received the whole batch
-     * along with row index. We will access into batch using the row index and
-     * get the record to write into spiller.
-     *  @param spiller         - block spiller
-     * @param gcsFieldVectors - the batch
-     * @param rowIndex        - row index
-     * @param partitionColumns   - partition column
-     * @param split           - split
+     * Builds the VectorBatchWriter used to copy the batches we read into the spiller. Values whose type in the file
+     * differs from the table's are coerced with GcsUtil.coerce and the partition columns are written from the split.
+     *
+     * @param partitionColumns - partition column
+     * @param split            - split
+     * @return A VectorBatchWriter for this split.
      */
-    private void execute(
-            BlockSpiller spiller,
-            List<FieldVector> gcsFieldVectors, int rowIndex, List<Field> partitionColumns, Split split)
+    @VisibleForTesting
+    static VectorBatchWriter makeBatchWriter(List<Field> partitionColumns, Split split)
     {
-        spiller.writeRows((Block block, int rowNum) -> {
-            boolean isMatched = true;
-            // offer value for partition column
-            for (Field field : partitionColumns) {
-                isMatched &= block.offerValue(field.getName().toLowerCase(), rowNum, split.getProperty(field.getName().toLowerCase()));
-            }
-
-            for (FieldVector vector : gcsFieldVectors) {
-                Object value = vector.getObject(rowIndex);
-                // Writing data in spiller for each field.
-                Field nextField = vector.getField();
-                Types.MinorType fieldType = Types.getMinorTypeForArrowType(vector.getField().getType());
-                try {
-                    switch (fieldType) {
-                        case LIST:
-                        case STRUCT:
-                        case MAP:
-                            isMatched &= block.offerComplexValue(nextField.getName().toLowerCase(), rowNum, FieldResolver.DEFAULT, value);
-                            break;
-                        default:
-                            isMatched &= block.offerValue(nextField.getName().toLowerCase(), rowNum, GcsUtil.coerce(vector, value));
-                            break;
-                    }
-                    if (!isMatched) {
-                        return 0;
-                    }
-                }
-                catch (Exception ex) {
-                    throw new RuntimeException("Error while processing field " + nextField.getName().toLowerCase(), ex);
-                }
-            }
-            return 1;
-        });
+        VectorBatchWriter.Builder builder = VectorBatchWriter.newBuilder()
+                .withValueConverter(GcsUtil::coerce);
+        for (Field field : partitionColumns) {
+            String fieldName = field.getName().toLowerCase();
+            builder.withConstant(fieldName, split.getProperty(fieldName));
+        }
+        return builder.build();
     }
 
     private String[] getSelectedColumnNames(Schema sourceSchema, Schema requestSchema)
@@ -49,6 +49,14 @@ public class BigQueryConstants
 
     public static final String TMP_SERVICE_ACCOUNT_JSON = "/tmp/service-account.json";
 
+    /**
+     * The maximum number of Storage Read API streams to request for a table scan, each stream is read concurrently
+     * into the split's BlockSpiller. BigQuery may return fewer streams than requested, e.g. for small tables.
+     */
+    public static final String READ_STREAM_COUNT = "big_query_read_stream_count";
+
+    public static final int DEFAULT_READ_STREAM_COUNT = 4;
+
     private BigQueryConstants()
     {
     }
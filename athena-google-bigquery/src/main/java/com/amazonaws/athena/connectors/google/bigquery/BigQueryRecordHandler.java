@@ -25,7 +25,9 @@ import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.FieldResolver;
+import com.amazonaws.athena.connector.lambda.data.writers.VectorBatchWriter;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.google.bigquery.qpt.BigQueryQueryPassthrough;
@@ -53,12 +55,13 @@ import com.google.common.base.Preconditions;
 import io.grpc.LoadBalancerRegistry;
 import io.grpc.internal.PickFirstLoadBalancerProvider;
 import org.apache.arrow.memory.BufferAllocator;
-import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.athena.AthenaClient;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
@@ -68,6 +71,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 import static com.amazonaws.athena.connectors.google.bigquery.BigQueryExceptionFilter.EXCEPTION_FILTER;
@@ -249,77 +256,114 @@ public class BigQueryRecordHandler
                             .setDataFormat(DataFormat.ARROW)
                             .setReadOptions(options);
 
-            // Begin building the session creation request.
+            // Begin building the session creation request. Queries with a limit only need a single stream.
+            int streamCount = (recordsRequest.getConstraints().getLimit() > 0) ? 1 : getReadStreamCount();
             CreateReadSessionRequest.Builder builder =
                     CreateReadSessionRequest.newBuilder()
                             .setParent(parent)
                             .setReadSession(sessionBuilder)
-                            .setMaxStreamCount(1);
+                            .setMaxStreamCount(streamCount);
 
             ReadSession session = client.createReadSession(builder.build());
-            // Setup a simple reader and start a read session.
-            try (BigQueryRowReader reader = new BigQueryRowReader(session.getArrowSchema(), allocator)) {
-                // Assert that there are streams available in the session.  An empty table may not have
-                // data available.  If no sessions are available for an anonymous (cached) table, consider
-                // writing results of a query to a named table rather than consuming cached results
-                // directly.
-                try {
-                    Preconditions.checkState(session.getStreamsCount() > 0);
-                }
-                catch (IllegalStateException exp) {
-                    logger.warn("No records found in the table: " + tableName);
-                    return;
-                }
+            // Assert that there are streams available in the session.  An empty table may not have
+            // data available.  If no sessions are available for an anonymous (cached) table, consider
+            // writing results of a query to a named table rather than consuming cached results
+            // directly.
+            try {
+                Preconditions.checkState(session.getStreamsCount() > 0);
+            }
+            catch (IllegalStateException exp) {
+                logger.warn("No records found in the table: " + tableName);
+                return;
+            }
 
-                // Use the first stream to perform reading.
-                String streamName = session.getStreams(0).getName();
+            logger.info("getTableData: Reading {} with {} of {} requested streams", srcTable, session.getStreamsCount(), streamCount);
+            VectorBatchWriter batchWriter = VectorBatchWriter.newBuilder()
+                    .withValueConverter(BigQueryUtils::coerce)
+                    .build();
+            readStreams(spiller, recordsRequest, client, session, batchWriter);
+        }
+    }
 
-                ReadRowsRequest readRowsRequest =
-                        ReadRowsRequest.newBuilder().setReadStream(streamName).build();
+    /**
+     * Reads every stream in the session into the spiller. A single stream is read on the calling thread, otherwise each
+     * stream is read on its own thread, failing fast if any of them fails.
+     */
+    private void readStreams(BlockSpiller spiller, ReadRecordsRequest recordsRequest, BigQueryReadClient client,
+            ReadSession session, VectorBatchWriter batchWriter) throws IOException
+    {
+        int streamCount = session.getStreamsCount();
+        if (streamCount == 1) {
+            readStream(spiller, recordsRequest, client, session, session.getStreams(0).getName(), batchWriter);
+            return;
+        }
 
-                // Process each block of rows as they arrive and decode using our simple row reader.
-                ServerStream<ReadRowsResponse> stream = client.readRowsCallable().call(readRowsRequest);
-                for (ReadRowsResponse response : stream) {
-                    Preconditions.checkState(response.hasArrowRecordBatch());
-                    VectorSchemaRoot root = reader.processRows(response.getArrowRecordBatch());
-                    long rowLimit = (recordsRequest.getConstraints().getLimit() > 0 && recordsRequest.getConstraints().getLimit() < root.getRowCount()) ? recordsRequest.getConstraints().getLimit() : root.getRowCount();
-                    for (int rowIndex = 0; rowIndex < rowLimit; rowIndex++) {
-                        outputResults(spiller, recordsRequest, root, rowIndex);
-                    }
-                }
+        ExecutorService executor = Executors.newFixedThreadPool(streamCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < streamCount; i++) {
+                String streamName = session.getStreams(i).getName();
+                futures.add(executor.submit(() -> {
+                    readStream(spiller, recordsRequest, client, session, streamName, batchWriter);
+                    return null;
+                }));
+            }
+            for (Future<?> next : futures) {
+                next.get();
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading streams for " + recordsRequest.getTableName(), ex);
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
             }
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+        finally {
+            executor.shutdownNow();
         }
     }
 
-    /**
-     * Iterates through all the results that comes back from BigQuery and saves the result to be read by the Athena Connector.
-     *
-     * @param spiller        The {@link BlockSpiller} provided when readWithConstraints() is called.
-     * @param recordsRequest The {@link ReadRecordsRequest} provided when readWithConstraints() is called.
-     * @param result         The {@link TableResult} provided by {@link BigQuery} client after a query has completed executing.
-     */
-    private void outputResults(BlockSpiller spiller, ReadRecordsRequest recordsRequest, VectorSchemaRoot result, int rowIndex)
+    private void readStream(BlockSpiller spiller, ReadRecordsRequest recordsRequest, BigQueryReadClient client,
+            ReadSession session, String streamName, VectorBatchWriter batchWriter) throws IOException
     {
-        if (result != null) {
-            spiller.writeRows((Block block, int rowNum) -> {
-                for (FieldVector vector : result.getFieldVectors()) {
-                    boolean isMatched = true;
-                    Object value = vector.getObject(rowIndex);
-                    switch (vector.getMinorType()) {
-                        case LIST:
-                        case STRUCT:
-                            isMatched &= block.offerComplexValue(vector.getField().getName(), rowNum, FieldResolver.DEFAULT, value);
-                            break;
-                        default:
-                            isMatched &= block.offerValue(vector.getField().getName(), rowNum, BigQueryUtils.coerce(vector, value));
-                            break;
-                    }
-                    if (!isMatched) {
-                        return 0;
-                    }
+        // Each stream decodes into its own reader so that streams can be decoded concurrently.
+        try (BigQueryRowReader reader = new BigQueryRowReader(session.getArrowSchema(), allocator)) {
+            ReadRowsRequest readRowsRequest =
+                    ReadRowsRequest.newBuilder().setReadStream(streamName).build();
+
+            // Process each block of rows as they arrive and decode using our simple row reader.
+            ServerStream<ReadRowsResponse> stream = client.readRowsCallable().call(readRowsRequest);
+            for (ReadRowsResponse response : stream) {
+                Preconditions.checkState(response.hasArrowRecordBatch());
+                VectorSchemaRoot root = reader.processRows(response.getArrowRecordBatch());
+                long rowLimit = (recordsRequest.getConstraints().getLimit() > 0 && recordsRequest.getConstraints().getLimit() < root.getRowCount()) ? recordsRequest.getConstraints().getLimit() : root.getRowCount();
+                //Streams share the BlockSpiller, which is not thread safe.
+                synchronized (spiller) {
+                    spiller.writeBatch(root, (int) rowLimit, batchWriter);
                 }
-                return 1;
-            });
+            }
+        }
+    }
+
+    private int getReadStreamCount()
+    {
+        String value = configOptions.get(BigQueryConstants.READ_STREAM_COUNT);
+        if (value == null || value.trim().isEmpty()) {
+            return BigQueryConstants.DEFAULT_READ_STREAM_COUNT;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        }
+        catch (NumberFormatException ex) {
+            throw new AthenaConnectorException("Invalid value for " + BigQueryConstants.READ_STREAM_COUNT + ": " + value,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
         }
     }
 
@@ -20,10 +20,12 @@
 package com.amazonaws.athena.connectors.google.bigquery;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.data.S3BlockSpillReader;
 import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.data.SpillConfig;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
@@ -59,9 +61,11 @@ import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.VarCharVector;
 import org.apache.arrow.vector.VectorLoader;
 import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
 import org.apache.arrow.vector.complex.ListVector;
 import org.apache.arrow.vector.complex.impl.UnionListWriter;
 import org.apache.arrow.vector.ipc.ReadChannel;
+import org.apache.arrow.vector.ipc.WriteChannel;
 import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.ipc.message.MessageSerializer;
 import org.apache.arrow.vector.types.pojo.Schema;
@@ -69,6 +73,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
@@ -80,21 +85,28 @@ import software.amazon.awssdk.services.athena.AthenaClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connectors.google.bigquery.BigQueryTestUtils.getBlockTestSchema;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -139,6 +151,7 @@ public class BigQueryRecordHandlerTest
     private MockedStatic<MessageSerializer> messageSer;
     MockedConstruction<VectorSchemaRoot> mockedDefaultVectorSchemaRoot;
     MockedConstruction<VectorLoader> mockedDefaultVectorLoader;
+    MockedStatic<BigQueryReadClient> mockedReadClient;
 
     public List<FieldVector> getFieldVectors()
     {
@@ -239,10 +252,19 @@ public class BigQueryRecordHandlerTest
     @After
     public void close()
     {
-        mockedDefaultVectorLoader.close();
-        mockedDefaultVectorSchemaRoot.close();
+        if (mockedDefaultVectorLoader != null) {
+            mockedDefaultVectorLoader.close();
+        }
+        if (mockedDefaultVectorSchemaRoot != null) {
+            mockedDefaultVectorSchemaRoot.close();
+        }
+        if (mockedReadClient != null) {
+            mockedReadClient.close();
+        }
+        if (messageSer != null) {
+            messageSer.close();
+        }
         mockedStatic.close();
-        messageSer.close();
         allocator.close();
     }
 
@@ -274,7 +296,7 @@ public class BigQueryRecordHandlerTest
             ServerStreamingCallable ssCallable = mock(ServerStreamingCallable.class);
 
             // Mocking method calls
-            mockStatic(BigQueryReadClient.class);
+            mockedReadClient = mockStatic(BigQueryReadClient.class);
             when(BigQueryReadClient.create()).thenReturn(bigQueryReadClient);
             messageSer = mockStatic(MessageSerializer.class);
             when(MessageSerializer.deserializeSchema((ReadChannel) any())).thenReturn(BigQueryTestUtils.getBlockTestSchema());
@@ -321,4 +343,107 @@ public class BigQueryRecordHandlerTest
             assertTrue(spillWriter.spilled());
         }
     }
+
+    @Test
+    public void testReadWithConstraintMultipleStreams()
+            throws Exception
+    {
+        int numStreams = 3;
+        int batchesPerStream = 2;
+        int rowsPerBatch = 50;
+
+        //Stands in for the Storage Read API, each stream serves real Arrow IPC encoded batches.
+        Schema sourceSchema = SchemaBuilder.newBuilder()
+                .addIntField(BigQueryTestUtils.INTEGER_FIELD_NAME_1)
+                .addStringField(BigQueryTestUtils.STRING_FIELD_NAME_1)
+                .build();
+        ByteArrayOutputStream schemaOut = new ByteArrayOutputStream();
+        MessageSerializer.serialize(new WriteChannel(Channels.newChannel(schemaOut)), sourceSchema);
+        ReadSession.Builder session = ReadSession.newBuilder()
+                .setArrowSchema(ArrowSchema.newBuilder()
+                        .setSerializedSchema(ByteString.copyFrom(schemaOut.toByteArray())));
+        Map<String, ServerStream<ReadRowsResponse>> serverStreams = new HashMap<>();
+        long expectedSum = 0;
+        for (int stream = 0; stream < numStreams; stream++) {
+            String streamName = "stream-" + stream;
+            session.addStreams(ReadStream.newBuilder().setName(streamName));
+            List<ReadRowsResponse> responses = new ArrayList<>();
+            for (int batch = 0; batch < batchesPerStream; batch++) {
+                try (VectorSchemaRoot root = VectorSchemaRoot.create(sourceSchema, rootAllocator)) {
+                    IntVector ints = (IntVector) root.getVector(BigQueryTestUtils.INTEGER_FIELD_NAME_1);
+                    VarCharVector strings = (VarCharVector) root.getVector(BigQueryTestUtils.STRING_FIELD_NAME_1);
+                    for (int row = 0; row < rowsPerBatch; row++) {
+                        int value = stream * 1000 + batch * 100 + row;
+                        ints.setSafe(row, value);
+                        strings.setSafe(row, ("value-" + value).getBytes(StandardCharsets.UTF_8));
+                        expectedSum += value;
+                    }
+                    root.setRowCount(rowsPerBatch);
+                    ByteArrayOutputStream batchOut = new ByteArrayOutputStream();
+                    try (ArrowRecordBatch recordBatch = new VectorUnloader(root).getRecordBatch()) {
+                        MessageSerializer.serialize(new WriteChannel(Channels.newChannel(batchOut)), recordBatch);
+                    }
+                    responses.add(ReadRowsResponse.newBuilder()
+                            .setArrowRecordBatch(com.google.cloud.bigquery.storage.v1.ArrowRecordBatch.newBuilder()
+                                    .setSerializedRecordBatch(ByteString.copyFrom(batchOut.toByteArray())))
+                            .build());
+                }
+            }
+            ServerStream<ReadRowsResponse> serverStream = mock(ServerStream.class);
+            when(serverStream.iterator()).thenReturn(responses.iterator());
+            serverStreams.put(streamName, serverStream);
+        }
+
+        ServerStreamingCallable<ReadRowsRequest, ReadRowsResponse> ssCallable = mock(ServerStreamingCallable.class);
+        when(ssCallable.call(any(ReadRowsRequest.class)))
+                .thenAnswer(invocation -> serverStreams.get(((ReadRowsRequest) invocation.getArgument(0)).getReadStream()));
+        mockedReadClient = mockStatic(BigQueryReadClient.class);
+        mockedReadClient.when(BigQueryReadClient::create).thenReturn(bigQueryReadClient);
+        when(bigQueryReadClient.createReadSession(any(CreateReadSessionRequest.class))).thenReturn(session.build());
+        when(bigQueryReadClient.readRowsCallable()).thenReturn(ssCallable);
+
+        BigQueryRecordHandler handler = new BigQueryRecordHandler(amazonS3, awsSecretsManager, athena,
+                com.google.common.collect.ImmutableMap.of(BigQueryConstants.GCP_PROJECT_ID, "test",
+                        BigQueryConstants.READ_STREAM_COUNT, String.valueOf(numStreams)),
+                rootAllocator);
+        //Large enough that everything stays inline so we can inspect the Block.
+        SpillConfig inlineSpillConfig = SpillConfig.newBuilder()
+                .withEncryptionKey(encryptionKey)
+                .withMaxBlockBytes(16_000_000)
+                .withMaxInlineBlockBytes(16_000_000)
+                .withNumSpillThreads(0)
+                .withRequestId(UUID.randomUUID().toString())
+                .withSpillLocation(s3SpillLocation)
+                .build();
+
+        try (ReadRecordsRequest request = new ReadRecordsRequest(
+                federatedIdentity,
+                BigQueryTestUtils.PROJECT_1_NAME,
+                "queryId",
+                new TableName("dataset1", "table1"),
+                getBlockTestSchema(),
+                Split.newBuilder(s3SpillLocation, keyFactory.create()).build(),
+                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null),
+                0,
+                0);
+                S3BlockSpiller spiller = new S3BlockSpiller(amazonS3, inlineSpillConfig, allocator, schemaForRead, ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of())) {
+            handler.readWithConstraint(spiller, request, mock(QueryStatusChecker.class));
+
+            ArgumentCaptor<CreateReadSessionRequest> sessionRequest = ArgumentCaptor.forClass(CreateReadSessionRequest.class);
+            verify(bigQueryReadClient).createReadSession(sessionRequest.capture());
+            assertEquals(numStreams, sessionRequest.getValue().getMaxStreamCount());
+            verify(ssCallable, times(numStreams)).call(any(ReadRowsRequest.class));
+
+            assertFalse(spiller.spilled());
+            Block block = spiller.getBlock();
+            assertEquals(numStreams * batchesPerStream * rowsPerBatch, block.getRowCount());
+            long actualSum = 0;
+            for (int row = 0; row < block.getRowCount(); row++) {
+                int value = (Integer) block.getFieldVector(BigQueryTestUtils.INTEGER_FIELD_NAME_1).getObject(row);
+                assertEquals("value-" + value, block.getFieldVector(BigQueryTestUtils.STRING_FIELD_NAME_1).getObject(row).toString());
+                actualSum += value;
+            }
+            assertEquals(expectedSum, actualSum);
+        }
+    }
 }
@@ -23,6 +23,9 @@ import com.amazonaws.athena.connector.credentials.CredentialsProvider;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.apache.arrow.util.VisibleForTesting;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +37,7 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Matcher;
@@ -45,6 +49,7 @@ import java.util.regex.Pattern;
  * <ul>
  * <li>Default ports will be used for the engine if not present.</li>
  * </ul>
+ * The connection pool can be tuned using the jdbc_pool_* config options, everything else uses HikariCP's defaults.
  */
 public class GenericJdbcConnectionFactory
         implements JdbcConnectionFactory
@@ -54,9 +59,24 @@ public class GenericJdbcConnectionFactory
     private static final String SECRET_NAME_PATTERN_STRING = "(\\$\\{[a-zA-Z0-9:/_+=.@!-]+})";
     public static final Pattern SECRET_NAME_PATTERN = Pattern.compile(SECRET_NAME_PATTERN_STRING);
 
+    //Max number of connections (idle and in use) the pool will hold.
+    public static final String JDBC_POOL_MAX_SIZE = "jdbc_pool_max_size";
+    //Min number of idle connections the pool tries to keep, defaults to 1.
+    public static final String JDBC_POOL_MIN_IDLE = "jdbc_pool_min_idle";
+    //Max time in ms to wait for a connection from the pool.
+    public static final String JDBC_POOL_CONNECTION_TIMEOUT_MS = "jdbc_pool_connection_timeout_ms";
+    //Max time in ms to wait for a connection to be validated before it is handed out.
+    public static final String JDBC_POOL_VALIDATION_TIMEOUT_MS = "jdbc_pool_validation_timeout_ms";
+    //Query used to validate connections, only needed for drivers which don't support Connection.isValid().
+    public static final String JDBC_POOL_CONNECTION_TEST_QUERY = "jdbc_pool_connection_test_query";
+    private static final int DEFAULT_POOL_MIN_IDLE = 1;
+    //Waits for a pooled connection at least this long are logged at INFO, shorter waits only at DEBUG.
+    private static final long SLOW_CONNECTION_WAIT_MS = 1_000;
+
     private final DatabaseConnectionInfo databaseConnectionInfo;
     private final DatabaseConnectionConfig databaseConnectionConfig;
     private final Properties jdbcProperties;
+    private final Map<String, String> configOptions;
     private volatile HikariDataSource ds;
 
     /**
@@ -64,9 +84,21 @@ public class GenericJdbcConnectionFactory
      * @param properties JDBC connection properties.
      */
     public GenericJdbcConnectionFactory(final DatabaseConnectionConfig databaseConnectionConfig, final Map<String, String> properties, final DatabaseConnectionInfo databaseConnectionInfo)
+    {
+        this(databaseConnectionConfig, properties, databaseConnectionInfo, Collections.emptyMap());
+    }
+
+    /**
+     * @param databaseConnectionConfig database connection configuration {@link DatabaseConnectionConfig}
+     * @param properties JDBC connection properties.
+     * @param configOptions connector config options, used to tune the connection pool (see JDBC_POOL_*).
+     */
+    public GenericJdbcConnectionFactory(final DatabaseConnectionConfig databaseConnectionConfig, final Map<String, String> properties,
+            final DatabaseConnectionInfo databaseConnectionInfo, final Map<String, String> configOptions)
     {
         this.databaseConnectionInfo = Validate.notNull(databaseConnectionInfo, "databaseConnectionInfo must not be null");
         this.databaseConnectionConfig = Validate.notNull(databaseConnectionConfig, "databaseEngine must not be null");
+        this.configOptions = (configOptions != null) ? configOptions : Collections.emptyMap();
 
         this.jdbcProperties = new Properties();
         if (properties != null) {
@@ -90,22 +122,21 @@ public class GenericJdbcConnectionFactory
         }
 
         if (ds == null) {
-            synchronized (GenericJdbcConnectionFactory.class) { // Synchronize on the class level
+            synchronized (this) { // The data source belongs to this factory so there is no need to lock the class
                 if (ds == null) { // Double-check to avoid creating more than one instance
-                    HikariConfig config2 = new HikariConfig();
-                    config2.setDriverClassName(databaseConnectionInfo.getDriverClassName());
-                    config2.setDataSourceProperties(jdbcProperties);
-                    config2.setJdbcUrl(derivedJdbcString);
-                    config2.setMinimumIdle(1);
-                    ds = new HikariDataSource(config2);
-                    LOGGER.debug("Create data source");
+                    HikariConfig poolConfig = makePoolConfig(derivedJdbcString);
+                    ds = new HikariDataSource(poolConfig);
+                    LOGGER.info("getConnection: Created connection pool with max size {}, min idle {} and connection timeout {} ms",
+                            poolConfig.getMaximumPoolSize(), poolConfig.getMinimumIdle(), poolConfig.getConnectionTimeout());
                 }
             }
         }
 
         Connection connection = null;
         try {
+            long start = System.nanoTime();
             connection = ds.getConnection();
+            logPoolMetrics((System.nanoTime() - start) / 1_000_000);
         }
         catch (SQLException e) {
             if (e.getMessage().contains("Name or service not known")) {
@@ -119,6 +150,78 @@ public class GenericJdbcConnectionFactory
         return connection;
     }
 
+    private HikariConfig makePoolConfig(String jdbcUrl)
+    {
+        HikariConfig poolConfig = new HikariConfig();
+        poolConfig.setDriverClassName(databaseConnectionInfo.getDriverClassName());
+        poolConfig.setDataSourceProperties(jdbcProperties);
+        poolConfig.setJdbcUrl(jdbcUrl);
+        applyPoolOptions(poolConfig);
+        return poolConfig;
+    }
+
+    /**
+     * Applies the JDBC_POOL_* config options to the given pool config, options which aren't set keep HikariCP's
+     * defaults except for min idle which defaults to 1.
+     */
+    @VisibleForTesting
+    void applyPoolOptions(HikariConfig poolConfig)
+    {
+        poolConfig.setMinimumIdle(getIntOption(JDBC_POOL_MIN_IDLE, DEFAULT_POOL_MIN_IDLE));
+        int maxPoolSize = getIntOption(JDBC_POOL_MAX_SIZE, -1);
+        if (maxPoolSize > 0) {
+            poolConfig.setMaximumPoolSize(maxPoolSize);
+        }
+        long connectionTimeout = getIntOption(JDBC_POOL_CONNECTION_TIMEOUT_MS, -1);
+        if (connectionTimeout > 0) {
+            poolConfig.setConnectionTimeout(connectionTimeout);
+        }
+        long validationTimeout = getIntOption(JDBC_POOL_VALIDATION_TIMEOUT_MS, -1);
+        if (validationTimeout > 0) {
+            poolConfig.setValidationTimeout(validationTimeout);
+        }
+        String testQuery = configOptions.get(JDBC_POOL_CONNECTION_TEST_QUERY);
+        if (StringUtils.isNotBlank(testQuery)) {
+            poolConfig.setConnectionTestQuery(testQuery);
+        }
+    }
+
+    private int getIntOption(String name, int defaultValue)
+    {
+        String value = configOptions.get(name);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException ex) {
+            throw new AthenaConnectorException(ex, "Invalid value for " + name + ": " + value,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+    }
+
+    private void logPoolMetrics(long waitMillis)
+    {
+        boolean slow = waitMillis >= SLOW_CONNECTION_WAIT_MS;
+        if (!slow && !LOGGER.isDebugEnabled()) {
+            return;
+        }
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        if (pool == null) {
+            return;
+        }
+        String msg = "getConnection: Waited {} ms for a connection, pool active {} idle {} total {} waiting {}";
+        Object[] args = {waitMillis, pool.getActiveConnections(), pool.getIdleConnections(), pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection()};
+        if (slow) {
+            LOGGER.info(msg, args);
+        }
+        else {
+            LOGGER.debug(msg, args);
+        }
+    }
+
     private String encodeValue(String value)
     {
         try {
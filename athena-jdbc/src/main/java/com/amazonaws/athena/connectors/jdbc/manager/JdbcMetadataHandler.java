@@ -41,6 +41,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListSchemasRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListSchemasResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
 import com.amazonaws.athena.connector.util.PaginationHelper;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
@@ -217,19 +218,26 @@ public abstract class JdbcMetadataHandler
     public ListTablesResponse doListTables(final BlockAllocator blockAllocator, final ListTablesRequest listTablesRequest)
             throws Exception
     {
-        try (Connection connection = jdbcConnectionFactory.getConnection(getCredentialProvider())) {
-            LOGGER.info("{}: List table names for Catalog {}, Schema {}", listTablesRequest.getQueryId(),
-                    listTablesRequest.getCatalogName(), listTablesRequest.getSchemaName());
+        LOGGER.info("{}: List table names for Catalog {}, Schema {}", listTablesRequest.getQueryId(),
+                listTablesRequest.getCatalogName(), listTablesRequest.getSchemaName());
 
-            String token = listTablesRequest.getNextToken();
-            int pageSize = listTablesRequest.getPageSize();
+        String token = listTablesRequest.getNextToken();
+        int pageSize = listTablesRequest.getPageSize();
 
-            if (pageSize == UNLIMITED_PAGE_SIZE_VALUE && token == null) { // perform no pagination
-                String adjustedSchemaName = caseResolver.getAdjustedSchemaNameString(connection, listTablesRequest.getSchemaName(), configOptions);
-                LOGGER.info("doListTables - NO pagination");
-                return new ListTablesResponse(listTablesRequest.getCatalogName(), listTables(connection, adjustedSchemaName), null);
-            }
+        if (pageSize == UNLIMITED_PAGE_SIZE_VALUE && token == null) { // perform no pagination
+            LOGGER.info("doListTables - NO pagination");
+            List<TableName> tables = getMetadataCache().get(
+                    MetadataCache.key("jdbc.listTables", listTablesRequest.getSchemaName(), null, listTablesRequest.getCatalogName()),
+                    () -> {
+                        try (Connection connection = jdbcConnectionFactory.getConnection(getCredentialProvider())) {
+                            String adjustedSchemaName = caseResolver.getAdjustedSchemaNameString(connection, listTablesRequest.getSchemaName(), configOptions);
+                            return listTables(connection, adjustedSchemaName);
+                        }
+                    });
+            return new ListTablesResponse(listTablesRequest.getCatalogName(), tables, null);
+        }
 
+        try (Connection connection = jdbcConnectionFactory.getConnection(getCredentialProvider())) {
             LOGGER.info("doListTables - pagination");
             return listPaginatedTables(connection, listTablesRequest);
         }
@@ -302,17 +310,22 @@ public abstract class JdbcMetadataHandler
             throws Exception
     {
         LOGGER.debug("doGetTable getTableName:{}", getTableRequest.getTableName());
-        try (Connection connection = jdbcConnectionFactory.getConnection(getCredentialProvider())) {
-            Schema partitionSchema = getPartitionSchema(getTableRequest.getCatalogName());
-            TableName adjustedTableNameObject = caseResolver.getAdjustedTableNameObject(connection,
-                    new TableName(getTableRequest.getTableName().getSchemaName(), getTableRequest.getTableName().getTableName()),
-                    configOptions);
-
-            return new GetTableResponse(getTableRequest.getCatalogName(),
-                    adjustedTableNameObject,
-                    getSchema(connection, adjustedTableNameObject, partitionSchema),
-                    partitionSchema.getFields().stream().map(Field::getName).collect(Collectors.toSet()));
-        }
+        TableName tableName = getTableRequest.getTableName();
+        return getMetadataCache().get(
+                MetadataCache.key("jdbc.getTable", tableName.getSchemaName(), tableName.getTableName(), getTableRequest.getCatalogName()),
+                () -> {
+                    try (Connection connection = jdbcConnectionFactory.getConnection(getCredentialProvider())) {
+                        Schema partitionSchema = getPartitionSchema(getTableRequest.getCatalogName());
+                        TableName adjustedTableNameObject = caseResolver.getAdjustedTableNameObject(connection,
+                                new TableName(tableName.getSchemaName(), tableName.getTableName()),
+                                configOptions);
+
+                        return new GetTableResponse(getTableRequest.getCatalogName(),
+                                adjustedTableNameObject,
+                                getSchema(connection, adjustedTableNameObject, partitionSchema),
+                                partitionSchema.getFields().stream().map(Field::getName).collect(Collectors.toSet()));
+                    }
+                });
     }
 
     @Override
@@ -23,8 +23,11 @@ import com.amazonaws.athena.connector.credentials.CredentialsProvider;
 import com.amazonaws.athena.connector.credentials.DefaultCredentialsProvider;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.FieldResolver;
 import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
 import com.amazonaws.athena.connector.lambda.data.writers.extractors.BigIntExtractor;
@@ -49,12 +52,21 @@ import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintProjector;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Marker;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
+import com.amazonaws.athena.connectors.jdbc.connection.GenericJdbcConnectionFactory;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
 import com.amazonaws.athena.connectors.jdbc.qpt.JdbcQueryPassthrough;
+import com.amazonaws.athena.connectors.jdbc.splits.LongSplitter;
+import com.amazonaws.athena.connectors.jdbc.splits.SplitInfo;
+import com.amazonaws.athena.connectors.jdbc.splits.SplitRange;
 import org.apache.arrow.util.VisibleForTesting;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.holders.NullableBigIntHolder;
@@ -88,8 +100,16 @@ import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.lang.Math.toIntExact;
 
 /**
  * Abstracts JDBC record handler and provides common reusable split records handling.
@@ -101,6 +121,26 @@ public abstract class JdbcRecordHandler
     private final JdbcConnectionFactory jdbcConnectionFactory;
     private final DatabaseConnectionConfig databaseConnectionConfig;
     private static final String CLICKHOUSE_DB = "clickhouse";
+    //Config option for the max number of rows read from the ResultSet per call to BlockSpiller.writeRows(...), query
+    //status is also checked once per batch. Set to 1 to write (and check query status) one row at a time.
+    protected static final String JDBC_WRITE_BATCH_ROWS = "jdbc_write_batch_rows";
+    //The max rows per call that S3BlockSpiller accepts by default, larger values of JDBC_WRITE_BATCH_ROWS are capped to this.
+    protected static final int MAX_WRITE_BATCH_ROWS = 100;
+    protected static final int DEFAULT_WRITE_BATCH_ROWS = MAX_WRITE_BATCH_ROWS;
+    //Config option which overrides the fetch size connectors use for split queries, how (and if) a fetch size is honored
+    //is driver specific so connectors may also need to adjust their connection properties when it is set.
+    public static final String JDBC_FETCH_SIZE = "jdbc_fetch_size";
+    //Config option for the number of concurrent queries (and connections) used to read a single split, each query reads
+    //a sub-range of an integer column's range predicate. Defaults to 1 which disables parallel reads.
+    public static final String JDBC_READ_PARALLELISM = "jdbc_read_parallelism";
+    //Config option naming the column to sub-partition parallel reads on, if unset the first eligible column is used.
+    public static final String JDBC_READ_PARTITION_COLUMN = "jdbc_read_partition_column";
+    //HikariCP's default max pool size, sub-range reads use at most this many connections if JDBC_POOL_MAX_SIZE is not set.
+    private static final int DEFAULT_POOL_MAX_SIZE = 10;
+    private final int writeBatchRows;
+    private final int readParallelism;
+    private final int maxReadConnections;
+    private final String readPartitionColumn;
 
     protected final JdbcQueryPassthrough queryPassthrough = new JdbcQueryPassthrough();
 
@@ -112,6 +152,10 @@ public abstract class JdbcRecordHandler
         super(sourceType, configOptions);
         this.jdbcConnectionFactory = null;
         this.databaseConnectionConfig = null;
+        this.writeBatchRows = getWriteBatchRows(configOptions);
+        this.readParallelism = ConfigOptionUtils.getPositiveIntOption(configOptions, JDBC_READ_PARALLELISM, 1);
+        this.maxReadConnections = ConfigOptionUtils.getPositiveIntOption(configOptions, GenericJdbcConnectionFactory.JDBC_POOL_MAX_SIZE, DEFAULT_POOL_MAX_SIZE);
+        this.readPartitionColumn = (configOptions != null) ? StringUtils.trimToNull(configOptions.get(JDBC_READ_PARTITION_COLUMN)) : null;
     }
 
     protected JdbcRecordHandler(
@@ -125,6 +169,10 @@ public abstract class JdbcRecordHandler
         super(amazonS3, secretsManager, athena, databaseConnectionConfig.getEngine(), configOptions);
         this.jdbcConnectionFactory = Validate.notNull(jdbcConnectionFactory, "jdbcConnectionFactory must not be null");
         this.databaseConnectionConfig = Validate.notNull(databaseConnectionConfig, "databaseConnectionConfig must not be null");
+        this.writeBatchRows = getWriteBatchRows(configOptions);
+        this.readParallelism = ConfigOptionUtils.getPositiveIntOption(configOptions, JDBC_READ_PARALLELISM, 1);
+        this.maxReadConnections = ConfigOptionUtils.getPositiveIntOption(configOptions, GenericJdbcConnectionFactory.JDBC_POOL_MAX_SIZE, DEFAULT_POOL_MAX_SIZE);
+        this.readPartitionColumn = (configOptions != null) ? StringUtils.trimToNull(configOptions.get(JDBC_READ_PARTITION_COLUMN)) : null;
     }
 
     protected JdbcConnectionFactory getJdbcConnectionFactory()
@@ -153,6 +201,30 @@ public abstract class JdbcRecordHandler
     {
         LOGGER.info("{}: Catalog: {}, table {}, splits {}", readRecordsRequest.getQueryId(), readRecordsRequest.getCatalogName(), readRecordsRequest.getTableName(),
                 readRecordsRequest.getSplit().getProperties());
+        if (readParallelism > 1) {
+            try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+                List<Constraints> subRanges = makeSubRangeConstraints(allocator, readRecordsRequest, readParallelism);
+                if (subRanges.size() > 1) {
+                    LOGGER.info("{}: Reading split using {} concurrent sub-range queries", readRecordsRequest.getQueryId(), subRanges.size());
+                    readSubRanges(blockSpiller, readRecordsRequest, subRanges, queryStatusChecker);
+                    return;
+                }
+            }
+        }
+        readSplit(blockSpiller, readRecordsRequest, readRecordsRequest.getConstraints(), queryStatusChecker, false);
+    }
+
+    /**
+     * Runs the split's query with the supplied constraints, writing all matching rows to the BlockSpiller.
+     *
+     * @param constraints The constraints to push down, either the request's constraints or one sub-range of them.
+     * @param sharedSpiller True if other threads are writing to the same BlockSpiller, in which case each batch of rows
+     * is read into a staging Block first so the ResultSet is never read while holding the BlockSpiller's lock.
+     */
+    private void readSplit(BlockSpiller blockSpiller, ReadRecordsRequest readRecordsRequest, Constraints constraints, QueryStatusChecker queryStatusChecker,
+            boolean sharedSpiller)
+            throws Exception
+    {
         try (Connection connection = this.jdbcConnectionFactory.getConnection(getCredentialProvider())) {
             String databaseProductName = connection.getMetaData().getDatabaseProductName();
 
@@ -164,11 +236,11 @@ public abstract class JdbcRecordHandler
             enableCaseSensitivelyLookUpSession(connection); // For certain connectors, we require to apply session config first to enable case
 
             try (PreparedStatement preparedStatement = buildSplitSql(connection, readRecordsRequest.getCatalogName(), readRecordsRequest.getTableName(),
-                    readRecordsRequest.getSchema(), readRecordsRequest.getConstraints(), readRecordsRequest.getSplit());
+                    readRecordsRequest.getSchema(), constraints, readRecordsRequest.getSplit());
                     ResultSet resultSet = preparedStatement.executeQuery()) {
                 Map<String, String> partitionValues = readRecordsRequest.getSplit().getProperties();
 
-                GeneratedRowWriter.RowWriterBuilder rowWriterBuilder = GeneratedRowWriter.newBuilder(readRecordsRequest.getConstraints());
+                GeneratedRowWriter.RowWriterBuilder rowWriterBuilder = GeneratedRowWriter.newBuilder(constraints);
                 for (Field next : readRecordsRequest.getSchema().getFields()) {
                     if (next.getType() instanceof ArrowType.List) {
                         rowWriterBuilder.withFieldWriterFactory(next.getName(), makeFactory(next));
@@ -178,16 +250,21 @@ public abstract class JdbcRecordHandler
                     }
                 }
 
-                GeneratedRowWriter rowWriter = rowWriterBuilder.build();
-                int rowsReturnedFromDatabase = 0;
-                while (resultSet.next()) {
-                    if (!queryStatusChecker.isQueryRunning()) {
+                ResultSetBatchWriter batchWriter = new ResultSetBatchWriter(resultSet, rowWriterBuilder.build(), writeBatchRows);
+                if (sharedSpiller) {
+                    if (!writeStagedRows(blockSpiller, readRecordsRequest, batchWriter, resultSet, queryStatusChecker)) {
                         return;
                     }
-                    blockSpiller.writeRows((Block block, int rowNum) -> rowWriter.writeRow(block, rowNum, resultSet) ? 1 : 0);
-                    rowsReturnedFromDatabase++;
                 }
-                LOGGER.info("{} rows returned by database.", rowsReturnedFromDatabase);
+                else {
+                    while (!batchWriter.isExhausted() && resultSet.next()) {
+                        if (!queryStatusChecker.isQueryRunning()) {
+                            return;
+                        }
+                        blockSpiller.writeRows(batchWriter);
+                    }
+                }
+                LOGGER.info("{} rows returned by database.", batchWriter.getRowsRead());
 
                 // clickhouse does not support commit/rollback, so skip commit() for clickhouse
                 if (!CLICKHOUSE_DB.equalsIgnoreCase(databaseProductName)) {
@@ -198,6 +275,262 @@ public abstract class JdbcRecordHandler
         }
     }
 
+    /**
+     * Reads batches of rows from the ResultSet into a staging Block and then copies each batch into the shared
+     * BlockSpiller, which is not thread safe. Only the copy holds the BlockSpiller's lock so the sub-range queries
+     * fetch (and convert) rows concurrently.
+     *
+     * @return False if the query stopped running before all rows were read.
+     */
+    private boolean writeStagedRows(BlockSpiller blockSpiller, ReadRecordsRequest readRecordsRequest, ResultSetBatchWriter batchWriter,
+            ResultSet resultSet, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+            Block staging = allocator.createBlock(readRecordsRequest.getSchema());
+            StagedRowWriter stagedRowWriter = new StagedRowWriter(staging);
+            while (!batchWriter.isExhausted() && resultSet.next()) {
+                if (!queryStatusChecker.isQueryRunning()) {
+                    return false;
+                }
+                for (FieldVector next : staging.getFieldVectors()) {
+                    next.reset();
+                }
+                staging.setRowCount(batchWriter.writeRows(staging, 0));
+                if (staging.getRowCount() > 0) {
+                    synchronized (blockSpiller) {
+                        blockSpiller.writeRows(stagedRowWriter);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads each sub-range on its own thread (and pooled connection), failing fast if any of them fails. At most
+     * JDBC_POOL_MAX_SIZE sub-ranges are read at once, the rest wait for a thread rather than for a pooled connection.
+     */
+    private void readSubRanges(BlockSpiller blockSpiller, ReadRecordsRequest readRecordsRequest, List<Constraints> subRanges, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(subRanges.size(), maxReadConnections));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Constraints next : subRanges) {
+                futures.add(executor.submit(() -> {
+                    readSplit(blockSpiller, readRecordsRequest, next, queryStatusChecker, true);
+                    return null;
+                }));
+            }
+            for (Future<?> next : futures) {
+                try {
+                    next.get();
+                }
+                catch (ExecutionException ex) {
+                    throw (ex.getCause() instanceof Exception) ? (Exception) ex.getCause() : ex;
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Divides the request's constraints into sub-ranges which can be read concurrently. The sub-ranges are taken from the
+     * range predicate on an INT, BIGINT or DATEDAY column (JDBC_READ_PARTITION_COLUMN if set, otherwise the first such
+     * column with a usable predicate), each sub-range's constraints are the original constraints with that column's
+     * ValueSet intersected with the sub-range.
+     *
+     * @param allocator The BlockAllocator to use for the sub-ranges' ValueSets, they must not be closed before the reads complete.
+     * @param readRecordsRequest The request to divide.
+     * @param numSubRanges The max number of sub-ranges to create.
+     * @return The sub-range constraints, or an empty list if the request can't be divided. Queries with an ORDER BY or
+     * LIMIT are never divided as each sub-range would be ordered (or limited) separately, the same is true for query passthrough.
+     */
+    @VisibleForTesting
+    List<Constraints> makeSubRangeConstraints(BlockAllocator allocator, ReadRecordsRequest readRecordsRequest, int numSubRanges)
+    {
+        Constraints constraints = readRecordsRequest.getConstraints();
+        if (constraints.isQueryPassThrough() || constraints.hasLimit() || constraints.hasNonEmptyOrderByClause() || constraints.getSummary() == null) {
+            return Collections.emptyList();
+        }
+
+        Map<String, String> partitionValues = readRecordsRequest.getSplit().getProperties();
+        for (Field next : readRecordsRequest.getSchema().getFields()) {
+            if ((readPartitionColumn != null && !readPartitionColumn.equals(next.getName())) || partitionValues.containsKey(next.getName())) {
+                continue;
+            }
+            Types.MinorType minorType = Types.getMinorTypeForArrowType(next.getType());
+            ValueSet valueSet = constraints.getSummary().get(next.getName());
+            if ((minorType != Types.MinorType.INT && minorType != Types.MinorType.BIGINT && minorType != Types.MinorType.DATEDAY)
+                    || !(valueSet instanceof SortedRangeSet) || valueSet.isNullAllowed() || valueSet.isNone()) {
+                continue;
+            }
+
+            Range span = ((SortedRangeSet) valueSet).getSpan();
+            if (span.getLow().isLowerUnbounded() || span.getHigh().isUpperUnbounded()) {
+                continue;
+            }
+            long low = ((Number) span.getLow().getValue()).longValue() + (span.getLow().getBound() == Marker.Bound.ABOVE ? 1 : 0);
+            long high = ((Number) span.getHigh().getValue()).longValue() - (span.getHigh().getBound() == Marker.Bound.BELOW ? 1 : 0);
+            long width = high - low;
+            //Nothing to divide, or too wide to count the values in the range without overflowing.
+            if (high <= low || width < 0 || width == Long.MAX_VALUE) {
+                continue;
+            }
+
+            List<Constraints> subRanges = new ArrayList<>();
+            LongSplitter splitter = new LongSplitter(new SplitInfo<>(new SplitRange<>(low, high), next.getName(), java.sql.Types.BIGINT, numSubRanges));
+            while (splitter.hasNext()) {
+                SplitRange<Long> subRange = splitter.next();
+                Range range = Range.range(allocator, next.getType(), toValue(minorType, subRange.getLow()), true, toValue(minorType, subRange.getHigh()), true);
+                Map<String, ValueSet> summary = new HashMap<>(constraints.getSummary());
+                summary.put(next.getName(), valueSet.intersect(allocator, SortedRangeSet.of(range)));
+                subRanges.add(new Constraints(summary, constraints.getExpression(), constraints.getOrderByClause(), constraints.getLimit(),
+                        constraints.getQueryPassthroughArguments(), constraints.getQueryPlan()));
+            }
+            return subRanges;
+        }
+        return Collections.emptyList();
+    }
+
+    private static Object toValue(Types.MinorType minorType, long value)
+    {
+        return (minorType == Types.MinorType.BIGINT) ? (Object) value : (Object) toIntExact(value);
+    }
+
+    private static int getWriteBatchRows(Map<String, String> configOptions)
+    {
+        int writeBatchRows = ConfigOptionUtils.getPositiveIntOption(configOptions, JDBC_WRITE_BATCH_ROWS, DEFAULT_WRITE_BATCH_ROWS);
+        if (writeBatchRows > MAX_WRITE_BATCH_ROWS) {
+            LOGGER.warn("getWriteBatchRows: {} of {} exceeds the max rows per call to writeRows, using {}",
+                    JDBC_WRITE_BATCH_ROWS, writeBatchRows, MAX_WRITE_BATCH_ROWS);
+            return MAX_WRITE_BATCH_ROWS;
+        }
+        return writeBatchRows;
+    }
+
+    /**
+     * @return The max number of rows to write per call to BlockSpiller.writeRows(...).
+     */
+    protected int getWriteBatchRows()
+    {
+        return writeBatchRows;
+    }
+
+    /**
+     * @param configOptions The connector's config options.
+     * @param defaultFetchSize The fetch size to use if JDBC_FETCH_SIZE is not set.
+     * @return The fetch size to set on split queries.
+     */
+    protected static int getFetchSize(Map<String, String> configOptions, int defaultFetchSize)
+    {
+        return ConfigOptionUtils.getPositiveIntOption(configOptions, JDBC_FETCH_SIZE, defaultFetchSize);
+    }
+
+    /**
+     * @param defaultFetchSize The connector's preferred fetch size, used if JDBC_FETCH_SIZE is not set.
+     * @return The fetch size to set on split queries.
+     */
+    protected int getFetchSize(int defaultFetchSize)
+    {
+        return getFetchSize(configOptions, defaultFetchSize);
+    }
+
+    /**
+     * RowWriter which writes the ResultSet's current row followed by up to batchRows - 1 further rows in a single call
+     * to writeRows(...). A single instance is reused for every batch so scanning a large ResultSet doesn't allocate a
+     * new lambda (or pay for the BlockSpiller's per call size checks) for every row.
+     */
+    @VisibleForTesting
+    static class ResultSetBatchWriter
+            implements BlockWriter.RowWriter
+    {
+        private final ResultSet resultSet;
+        private final GeneratedRowWriter rowWriter;
+        private final int batchRows;
+        private boolean exhausted;
+        private long rowsRead;
+
+        ResultSetBatchWriter(ResultSet resultSet, GeneratedRowWriter rowWriter, int batchRows)
+        {
+            this.resultSet = resultSet;
+            this.rowWriter = rowWriter;
+            this.batchRows = batchRows;
+        }
+
+        /**
+         * Expects the ResultSet to already be positioned on the first row of the batch.
+         */
+        @Override
+        public int writeRows(Block block, int rowNum)
+                throws Exception
+        {
+            int matched = 0;
+            int read = 0;
+            do {
+                read++;
+                if (rowWriter.writeRow(block, rowNum + matched, resultSet)) {
+                    matched++;
+                }
+            }
+            while (read < batchRows && advance());
+            rowsRead += read;
+            return matched;
+        }
+
+        /**
+         * @return True if no rows remain, once this is true ResultSet.next() must not be called again.
+         */
+        boolean isExhausted()
+        {
+            return exhausted;
+        }
+
+        long getRowsRead()
+        {
+            return rowsRead;
+        }
+
+        private boolean advance()
+                throws SQLException
+        {
+            exhausted = !resultSet.next();
+            return !exhausted;
+        }
+    }
+
+    /**
+     * RowWriter which copies every row of a staging Block, whose rows have already been filtered by the constraints, into
+     * the Block being written. The staging Block has the same schema as the Block being written.
+     */
+    @VisibleForTesting
+    static class StagedRowWriter
+            implements BlockWriter.RowWriter
+    {
+        private final Block staging;
+
+        StagedRowWriter(Block staging)
+        {
+            this.staging = staging;
+        }
+
+        @Override
+        public int writeRows(Block block, int rowNum)
+        {
+            int rows = staging.getRowCount();
+            for (FieldVector source : staging.getFieldVectors()) {
+                FieldVector target = block.getFieldVector(source.getField().getName());
+                for (int i = 0; i < rows; i++) {
+                    target.copyFromSafe(i, rowNum + i, source);
+                }
+            }
+            return rows;
+        }
+    }
+
     /**
      * Create a field extractor for complex List type.
      * @param field Field's metadata information.
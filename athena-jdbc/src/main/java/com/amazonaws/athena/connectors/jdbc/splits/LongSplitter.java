@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Long splits iterator. Divides a split range into (at most) the expected number of contiguous splits, sizes differ by
+ * at most 1 with the remainder going to the first splits. Never produces more splits than there are values in the range.
+ *
+ * Example: [1, 10] as input split range with 4 expected splits
+ *  Splits = [1,3], [4,6], [7,8], [9,10]
+ *
+ * @note The number of values in the range (high - low + 1) must fit in a long.
+ */
+public class LongSplitter
+        implements Splitter<Long>
+{
+    private final SplitInfo<Long> splitInfo;
+    private final long step;
+    private final long remainder;
+    private final long numSplits;
+    private long current;
+    private long currentSplit;
+
+    /**
+     * @param splitInfo split information. E.g. split range, expected splits, column name.
+     */
+    public LongSplitter(SplitInfo<Long> splitInfo)
+    {
+        this.splitInfo = Validate.notNull(splitInfo);
+        long low = splitInfo.getSplitRange().getLow();
+        long high = splitInfo.getSplitRange().getHigh();
+        Validate.isTrue(high >= low, "high is lower than low");
+        long size;
+        try {
+            size = Math.addExact(Math.subtractExact(high, low), 1L);
+        }
+        catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Split range " + splitInfo.getSplitRange() + " is too large to split", ex);
+        }
+
+        this.numSplits = Math.min(size, splitInfo.getNumSplits());
+        this.step = size / numSplits;
+        this.remainder = size % numSplits;
+        this.current = low;
+        this.currentSplit = 0;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return currentSplit < numSplits;
+    }
+
+    @Override
+    public SplitRange<Long> next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        long low = current;
+        // subtraction due to closed interval and inclusive endpoints.
+        long high = low + step - 1 + (currentSplit < remainder ? 1 : 0);
+        currentSplit++;
+        if (currentSplit < numSplits) {
+            current = high + 1;
+        }
+        return new SplitRange<>(low, high);
+    }
+
+    @Override
+    public String nextRangeClause()
+    {
+        SplitRange<Long> splitRange = next();
+        return String.format("(%s >= %s AND %s <= %s)", this.splitInfo.getColumnName(), splitRange.getLow(), splitInfo.getColumnName(), splitRange.getHigh());
+    }
+}
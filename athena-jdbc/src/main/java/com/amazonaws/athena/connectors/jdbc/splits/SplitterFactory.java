@@ -43,6 +43,8 @@ public class SplitterFactory
         switch (type) {
             case Types.INTEGER:
                 return Optional.of(new IntegerSplitter(new SplitInfo<>(new SplitRange<>(resultSet.getInt(1), resultSet.getInt(2)), columnName, type, maxSplits)));
+            case Types.BIGINT:
+                return Optional.of(new LongSplitter(new SplitInfo<>(new SplitRange<>(resultSet.getLong(1), resultSet.getLong(2)), columnName, type, maxSplits)));
             default:
                return Optional.empty();
         }
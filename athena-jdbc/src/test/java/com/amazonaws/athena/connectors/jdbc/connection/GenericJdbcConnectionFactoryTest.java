@@ -19,9 +19,12 @@
  */
 package com.amazonaws.athena.connectors.jdbc.connection;
 
+import com.google.common.collect.ImmutableMap;
+import com.zaxxer.hikari.HikariConfig;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.regex.Matcher;
 
 import static com.amazonaws.athena.connectors.jdbc.connection.GenericJdbcConnectionFactory.SECRET_NAME_PATTERN;
@@ -45,4 +48,30 @@ public class GenericJdbcConnectionFactoryTest
 
         Assert.assertFalse(secretMatcher.find());
     }
+
+    @Test
+    public void applyPoolOptions()
+    {
+        DatabaseConnectionConfig connectionConfig = new DatabaseConnectionConfig("testCatalog", "mysql", "mysql://jdbc:mysql://mysql.host:3333/default");
+        DatabaseConnectionInfo connectionInfo = new DatabaseConnectionInfo("com.mysql.cj.jdbc.Driver", 3306);
+
+        HikariConfig defaults = new HikariConfig();
+        new GenericJdbcConnectionFactory(connectionConfig, Collections.emptyMap(), connectionInfo).applyPoolOptions(defaults);
+        Assert.assertEquals(1, defaults.getMinimumIdle());
+        Assert.assertEquals(new HikariConfig().getMaximumPoolSize(), defaults.getMaximumPoolSize());
+
+        HikariConfig tuned = new HikariConfig();
+        new GenericJdbcConnectionFactory(connectionConfig, Collections.emptyMap(), connectionInfo,
+                ImmutableMap.of(GenericJdbcConnectionFactory.JDBC_POOL_MAX_SIZE, "4",
+                        GenericJdbcConnectionFactory.JDBC_POOL_MIN_IDLE, "2",
+                        GenericJdbcConnectionFactory.JDBC_POOL_CONNECTION_TIMEOUT_MS, "5000",
+                        GenericJdbcConnectionFactory.JDBC_POOL_VALIDATION_TIMEOUT_MS, "1000",
+                        GenericJdbcConnectionFactory.JDBC_POOL_CONNECTION_TEST_QUERY, "SELECT 1"))
+                .applyPoolOptions(tuned);
+        Assert.assertEquals(4, tuned.getMaximumPoolSize());
+        Assert.assertEquals(2, tuned.getMinimumIdle());
+        Assert.assertEquals(5000, tuned.getConnectionTimeout());
+        Assert.assertEquals(1000, tuned.getValidationTimeout());
+        Assert.assertEquals("SELECT 1", tuned.getConnectionTestQuery());
+    }
 }
@@ -20,25 +20,35 @@
 package com.amazonaws.athena.connectors.jdbc.manager;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.FieldBuilder;
 import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.data.SpillConfig;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
 import com.amazonaws.athena.connector.lambda.data.writers.extractors.*;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 import com.amazonaws.athena.connectors.jdbc.TestBase;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
+import com.amazonaws.athena.connectors.jdbc.connection.GenericJdbcConnectionFactory;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
 import com.amazonaws.athena.connector.credentials.CredentialsProvider;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.holders.NullableFloat8Holder;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.junit.Assert;
@@ -48,6 +58,7 @@ import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.athena.AthenaClient;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
@@ -64,9 +75,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
 
@@ -205,4 +223,213 @@ public class JdbcRecordHandlerTest
         ((Float8Extractor) actualFloat8).extract(null, dollarValue);
         Assert.assertEquals(dollarValue.value, 1000.5, 0.0);
     }
+
+    @Test
+    public void resultSetBatchWriter()
+            throws Exception
+    {
+        int numRows = 250;
+        String[] schema = {"testCol1"};
+        Object[][] values = new Object[numRows][];
+        for (int i = 0; i < numRows; i++) {
+            values[i] = new Object[] {i};
+        }
+        ResultSet resultSet = mockResultSet(schema, values, new AtomicInteger(-1));
+        Schema fieldSchema = SchemaBuilder.newBuilder().addIntField("testCol1").build();
+        GeneratedRowWriter rowWriter = GeneratedRowWriter.newBuilder()
+                .withExtractor("testCol1", this.jdbcRecordHandler.makeExtractor(fieldSchema.getFields().get(0), resultSet, Collections.emptyMap()))
+                .build();
+
+        try (BlockAllocator allocator = new BlockAllocatorImpl();
+                Block block = allocator.createBlock(fieldSchema)) {
+            JdbcRecordHandler.ResultSetBatchWriter batchWriter = new JdbcRecordHandler.ResultSetBatchWriter(resultSet, rowWriter, 100);
+            int batches = 0;
+            //Drive the writer the same way readWithConstraint does.
+            while (!batchWriter.isExhausted() && resultSet.next()) {
+                block.setRowCount(block.getRowCount() + batchWriter.writeRows(block, block.getRowCount()));
+                batches++;
+            }
+
+            Assert.assertEquals(3, batches);
+            Assert.assertEquals(numRows, batchWriter.getRowsRead());
+            Assert.assertEquals(numRows, block.getRowCount());
+            IntVector vector = (IntVector) block.getFieldVector("testCol1");
+            for (int i = 0; i < numRows; i++) {
+                Assert.assertEquals(i, vector.get(i));
+            }
+            Mockito.verify(resultSet, Mockito.times(numRows + 1)).next();
+        }
+    }
+
+    @Test
+    public void makeSubRangeConstraints()
+            throws Exception
+    {
+        org.apache.arrow.vector.types.pojo.ArrowType bigInt = org.apache.arrow.vector.types.Types.MinorType.BIGINT.getType();
+        Schema fieldSchema = SchemaBuilder.newBuilder()
+                .addStringField("testCol1")
+                .addBigIntField("testCol2")
+                .build();
+        Split split = Split.newBuilder(S3SpillLocation.newBuilder().withIsDirectory(true).build(), null).build();
+
+        try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+            Map<String, ValueSet> summary = new HashMap<>();
+            summary.put("testCol1", SortedRangeSet.of(Range.equal(allocator, org.apache.arrow.vector.types.Types.MinorType.VARCHAR.getType(), "a")));
+            summary.put("testCol2", SortedRangeSet.of(Range.range(allocator, bigInt, 0L, false, 100L, true)));
+            Constraints constraints = new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+            ReadRecordsRequest request = new ReadRecordsRequest(this.federatedIdentity, "testCatalog", "testQueryId",
+                    new TableName("testSchema", "testTable"), fieldSchema, split, constraints, 1024, 1024);
+
+            List<Constraints> subRanges = this.jdbcRecordHandler.makeSubRangeConstraints(allocator, request, 4);
+            Assert.assertEquals(4, subRanges.size());
+            long expectedLow = 1;
+            for (Constraints next : subRanges) {
+                Assert.assertSame(summary.get("testCol1"), next.getSummary().get("testCol1"));
+                Range span = ((SortedRangeSet) next.getSummary().get("testCol2")).getSpan();
+                Assert.assertEquals(expectedLow, span.getLow().getValue());
+                Assert.assertEquals(expectedLow + 24, span.getHigh().getValue());
+                expectedLow += 25;
+            }
+
+            //Ranges which allow nulls can't be divided, nor can queries with a limit.
+            summary.put("testCol2", SortedRangeSet.of(true, Range.range(allocator, bigInt, 0L, false, 100L, true)));
+            Assert.assertTrue(this.jdbcRecordHandler.makeSubRangeConstraints(allocator, request, 4).isEmpty());
+            summary.put("testCol2", SortedRangeSet.of(Range.range(allocator, bigInt, 0L, false, 100L, true)));
+            Constraints limited = new Constraints(summary, Collections.emptyList(), Collections.emptyList(), 10, Collections.emptyMap(), null);
+            ReadRecordsRequest limitedRequest = new ReadRecordsRequest(this.federatedIdentity, "testCatalog", "testQueryId",
+                    new TableName("testSchema", "testTable"), fieldSchema, split, limited, 1024, 1024);
+            Assert.assertTrue(this.jdbcRecordHandler.makeSubRangeConstraints(allocator, limitedRequest, 4).isEmpty());
+
+            //Unbounded ranges can't be divided.
+            summary.put("testCol2", SortedRangeSet.of(Range.greaterThan(allocator, bigInt, 0L)));
+            Assert.assertTrue(this.jdbcRecordHandler.makeSubRangeConstraints(allocator, request, 4).isEmpty());
+        }
+    }
+
+    @Test
+    public void getWriteBatchRowsIsBoundedBySpillerMaxRowsPerCall()
+    {
+        Assert.assertEquals(JdbcRecordHandler.DEFAULT_WRITE_BATCH_ROWS, makeRecordHandler(ImmutableMap.of()).getWriteBatchRows());
+        Assert.assertEquals(1, makeRecordHandler(ImmutableMap.of(JdbcRecordHandler.JDBC_WRITE_BATCH_ROWS, "1")).getWriteBatchRows());
+        Assert.assertEquals(100, makeRecordHandler(ImmutableMap.of(JdbcRecordHandler.JDBC_WRITE_BATCH_ROWS, "100")).getWriteBatchRows());
+        Assert.assertEquals(100, makeRecordHandler(ImmutableMap.of(JdbcRecordHandler.JDBC_WRITE_BATCH_ROWS, "101")).getWriteBatchRows());
+        Assert.assertEquals(100, makeRecordHandler(ImmutableMap.of(JdbcRecordHandler.JDBC_WRITE_BATCH_ROWS, "10000")).getWriteBatchRows());
+    }
+
+    @Test
+    public void nonPositiveReadOptionsAreRejected()
+    {
+        for (String option : new String[] {JdbcRecordHandler.JDBC_WRITE_BATCH_ROWS, JdbcRecordHandler.JDBC_READ_PARALLELISM}) {
+            for (String value : new String[] {"0", "-1", "abc"}) {
+                AthenaConnectorException ex = Assert.assertThrows(AthenaConnectorException.class,
+                        () -> makeRecordHandler(ImmutableMap.of(option, value)));
+                Assert.assertEquals(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString(), ex.getErrorDetails().errorCode());
+            }
+        }
+    }
+
+    @Test
+    public void readSubRangesFetchesRowsOutsideTheSpillerLock()
+            throws Exception
+    {
+        Map<String, String> configOptions = ImmutableMap.of(JdbcRecordHandler.JDBC_READ_PARALLELISM, "2");
+        Assert.assertEquals(2, readSubRanges(configOptions, 300));
+    }
+
+    @Test
+    public void readSubRangesUsesAtMostPoolMaxSizeConnections()
+            throws Exception
+    {
+        Map<String, String> configOptions = ImmutableMap.of(JdbcRecordHandler.JDBC_READ_PARALLELISM, "4",
+                GenericJdbcConnectionFactory.JDBC_POOL_MAX_SIZE, "1");
+        Assert.assertEquals(1, readSubRanges(configOptions, 300));
+    }
+
+    /**
+     * Reads a split whose predicate covers [0, numRows) using sub-range queries, each of which returns every row so
+     * the sub-range constraints have to filter them. Checks that each row is written once and that the ResultSets
+     * are never read while the BlockSpiller is locked.
+     *
+     * @return The max number of connections that were open at once.
+     */
+    private int readSubRanges(Map<String, String> configOptions, int numRows)
+            throws Exception
+    {
+        Object[][] values = new Object[numRows][];
+        for (int i = 0; i < numRows; i++) {
+            values[i] = new Object[] {i};
+        }
+        BlockSpiller spiller = Mockito.mock(BlockSpiller.class);
+        AtomicInteger nextCallsUnderLock = new AtomicInteger();
+        AtomicInteger openConnections = new AtomicInteger();
+        AtomicInteger maxOpenConnections = new AtomicInteger();
+        //Each sub-range query gets its own Connection as Mockito's deep stubs aren't thread safe.
+        Queue<Connection> connections = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < 4; i++) {
+            AtomicInteger rowNumber = new AtomicInteger(-1);
+            ResultSet resultSet = mockResultSet(new String[] {"testCol1"}, values, rowNumber);
+            Mockito.doAnswer(invocation -> {
+                if (Thread.holdsLock(spiller)) {
+                    nextCallsUnderLock.incrementAndGet();
+                }
+                return rowNumber.incrementAndGet() < numRows;
+            }).when(resultSet).next();
+            PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+            Mockito.when(statement.executeQuery()).thenReturn(resultSet);
+            Connection connection = Mockito.mock(Connection.class);
+            Mockito.when(connection.getMetaData()).thenReturn(Mockito.mock(DatabaseMetaData.class));
+            Mockito.when(connection.prepareStatement("someSql")).thenReturn(statement);
+            Mockito.doAnswer(invocation -> openConnections.decrementAndGet()).when(connection).close();
+            connections.add(connection);
+        }
+        Mockito.when(this.jdbcConnectionFactory.getConnection(nullable(CredentialsProvider.class))).thenAnswer(invocation -> {
+            maxOpenConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+            return connections.remove();
+        });
+
+        Schema fieldSchema = SchemaBuilder.newBuilder().addIntField("testCol1").build();
+        try (BlockAllocator allocator = new BlockAllocatorImpl();
+                Block block = allocator.createBlock(fieldSchema)) {
+            Mockito.doAnswer(invocation -> {
+                Assert.assertTrue(Thread.holdsLock(spiller));
+                BlockWriter.RowWriter rowWriter = invocation.getArgument(0);
+                block.setRowCount(block.getRowCount() + rowWriter.writeRows(block, block.getRowCount()));
+                return null;
+            }).when(spiller).writeRows(any());
+
+            Map<String, ValueSet> summary = Collections.singletonMap("testCol1",
+                    SortedRangeSet.of(Range.range(allocator, org.apache.arrow.vector.types.Types.MinorType.INT.getType(), 0, true, numRows - 1, true)));
+            Constraints constraints = new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+            ReadRecordsRequest request = new ReadRecordsRequest(this.federatedIdentity, "testCatalog", "testQueryId",
+                    new TableName("testSchema", "testTable"), fieldSchema,
+                    Split.newBuilder(S3SpillLocation.newBuilder().withIsDirectory(true).build(), null).build(), constraints, 1024, 1024);
+
+            makeRecordHandler(configOptions).readWithConstraint(spiller, request, this.queryStatusChecker);
+
+            Assert.assertEquals(0, nextCallsUnderLock.get());
+            Assert.assertEquals(numRows, block.getRowCount());
+            IntVector vector = (IntVector) block.getFieldVector("testCol1");
+            Set<Integer> rows = new HashSet<>();
+            for (int i = 0; i < numRows; i++) {
+                rows.add(vector.get(i));
+            }
+            Assert.assertEquals(numRows, rows.size());
+        }
+        return maxOpenConnections.get();
+    }
+
+    private JdbcRecordHandler makeRecordHandler(Map<String, String> configOptions)
+    {
+        DatabaseConnectionConfig databaseConnectionConfig = new DatabaseConnectionConfig("testCatalog", "fakedatabase",
+                "fakedatabase://jdbc:fakedatabase://hostname/${testSecret}", "testSecret");
+        return new JdbcRecordHandler(this.amazonS3, this.secretsManager, this.athena, databaseConnectionConfig, this.jdbcConnectionFactory, configOptions)
+        {
+            @Override
+            public PreparedStatement buildSplitSql(Connection jdbcConnection, String catalogName, TableName tableName, Schema schema, Constraints constraints, Split split)
+                    throws SQLException
+            {
+                return jdbcConnection.prepareStatement("someSql");
+            }
+        };
+    }
 }
@@ -0,0 +1,72 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class LongSplitterTest
+{
+    @Test
+    public void splitTest()
+    {
+        Assert.assertEquals(Arrays.asList(range(1, 3), range(4, 6), range(7, 8), range(9, 10)), split(1, 10, 4));
+        Assert.assertEquals(Arrays.asList(range(1, 5), range(6, 10)), split(1, 10, 2));
+        Assert.assertEquals(Collections.singletonList(range(1, 10)), split(1, 10, 1));
+        //Never more splits than values.
+        Assert.assertEquals(Arrays.asList(range(1, 1), range(2, 2)), split(1, 2, 10));
+        Assert.assertEquals(Collections.singletonList(range(5, 5)), split(5, 5, 3));
+        Assert.assertEquals(Arrays.asList(range(-5, -1), range(0, 4)), split(-5, 4, 2));
+        //Ranges near the ends of the long range must not overflow.
+        Assert.assertEquals(Arrays.asList(range(Long.MAX_VALUE - 3, Long.MAX_VALUE - 2), range(Long.MAX_VALUE - 1, Long.MAX_VALUE)),
+                split(Long.MAX_VALUE - 3, Long.MAX_VALUE, 2));
+    }
+
+    @Test
+    public void nextRangeClause()
+    {
+        LongSplitter splitter = new LongSplitter(new SplitInfo<>(range(1, 10), "testColumn", Types.BIGINT, 2));
+        Assert.assertEquals("(testColumn >= 1 AND testColumn <= 5)", splitter.nextRangeClause());
+        Assert.assertEquals("(testColumn >= 6 AND testColumn <= 10)", splitter.nextRangeClause());
+        Assert.assertFalse(splitter.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeTooLarge()
+    {
+        new LongSplitter(new SplitInfo<>(range(Long.MIN_VALUE, Long.MAX_VALUE), "testColumn", Types.BIGINT, 2));
+    }
+
+    private static List<SplitRange<Long>> split(long low, long high, int numSplits)
+    {
+        return ImmutableList.copyOf(new LongSplitter(new SplitInfo<>(range(low, high), "testColumn", Types.BIGINT, numSplits)));
+    }
+
+    private static SplitRange<Long> range(long low, long high)
+    {
+        return new SplitRange<>(low, high);
+    }
+}
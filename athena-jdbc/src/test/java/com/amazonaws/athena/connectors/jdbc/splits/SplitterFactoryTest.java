@@ -52,6 +52,16 @@ public class SplitterFactoryTest
         Assert.assertEquals(IntegerSplitter.class, splitter.get().getClass());
     }
 
+    @Test
+    public void getLongSplitter()
+            throws SQLException
+    {
+        Mockito.when(resultSet.getMetaData().getColumnType(1)).thenReturn(Types.BIGINT);
+        Optional<Splitter> splitter = splitterFactory.getSplitter(TEST_COLUMN_NAME, resultSet, MAX_SPLITS);
+        Assert.assertTrue(splitter.isPresent());
+        Assert.assertEquals(LongSplitter.class, splitter.get().getClass());
+    }
+
     @Test
     public void getStringSplitter()
             throws SQLException
@@ -22,15 +22,17 @@ package com.amazonaws.athena.connectors.kafka;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.kafka.dto.KafkaField;
 import com.amazonaws.athena.connectors.kafka.dto.SplitParameters;
 import com.amazonaws.athena.connectors.kafka.dto.TopicResultSet;
+import com.amazonaws.athena.connectors.kafka.serde.KafkaRowWriters;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
-import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -45,6 +47,7 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.AVRO_DATA_FORMAT;
@@ -54,7 +57,12 @@ public class KafkaRecordHandler
         extends RecordHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaRecordHandler.class);
+    // Only a safety net, splits normally stop once the consumer's position passes the last offset to read.
     private static final int MAX_EMPTY_RESULT_FOUND_COUNT = 3;
+    // Max records written per call to BlockSpiller.writeRows(...), matches the max rows per call S3BlockSpiller accepts.
+    private static final int WRITE_BATCH_ROWS = 100;
+
+    private final Duration pollTimeout;
 
     KafkaRecordHandler(java.util.Map<String, String> configOptions)
     {
@@ -69,6 +77,7 @@ public class KafkaRecordHandler
     public KafkaRecordHandler(S3Client amazonS3, SecretsManagerClient secretsManager, AthenaClient athena, java.util.Map<String, String> configOptions)
     {
         super(amazonS3, secretsManager, athena, KafkaConstants.KAFKA_SOURCE, configOptions);
+        this.pollTimeout = Duration.ofMillis(ConfigOptionUtils.getPositiveLongOption(configOptions, KafkaConstants.KAFKA_POLL_TIMEOUT_MS, KafkaConstants.DEFAULT_POLL_TIMEOUT_MS));
     }
 
     /**
@@ -86,87 +95,29 @@ public class KafkaRecordHandler
         LOGGER.info("[kafka] {} RecordHandler running", splitParameters);
         // Set which topic and partition we are going to read.
         TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
-        Collection<TopicPartition> partitions = com.google.common.collect.ImmutableList.of(partition);
         GlueRegistryReader registryReader = new GlueRegistryReader();
 
         String dataFormat = registryReader.getGlueSchemaType(recordsRequest.getTableName().getSchemaName(), recordsRequest.getTableName().getTableName());
         if (dataFormat.equalsIgnoreCase(AVRO_DATA_FORMAT)) {
+            // Avro fields are bound to the Arrow vectors once and written without per field name lookups.
+            GeneratedRowWriter rowWriter = KafkaRowWriters.newAvroRowWriter(recordsRequest.getSchema(), recordsRequest.getConstraints());
             try (Consumer<String, GenericRecord> kafkaAvroConsumer = KafkaUtils.getAvroKafkaConsumer(configOptions)) {
-                // Assign the topic and partition into this consumer.
-                kafkaAvroConsumer.assign(partitions);
-
-                // Setting the start offset from where we are interested to read data from topic partition.
-                // We have configured this start offset when we had created the split on MetadataHandler.
-                kafkaAvroConsumer.seek(partition, splitParameters.startOffset);
-
-                // If endOffsets is 0 that means there is no data close consumer and exit
-                Map<TopicPartition, Long> endOffsets = kafkaAvroConsumer.endOffsets(partitions);
-                if (endOffsets.get(partition) == 0) {
-                    LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-                    kafkaAvroConsumer.close();
-
-                    // For debug insight
-                    splitParameters.info = "endOffset is 0 i.e partition does not have data";
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(splitParameters.debug());
-                    }
-                    return;
-                }
-                // Consume topic data
-                avroConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaAvroConsumer);
+                consume(spiller, queryStatusChecker, splitParameters, partition, kafkaAvroConsumer,
+                        (block, rowNum, record) -> rowWriter.writeRow(block, rowNum, record.value()));
             }
         }
         else if (dataFormat.equalsIgnoreCase(PROTOBUF_DATA_FORMAT)) {
+            // Protobuf fields are bound to the Arrow vectors once and written without building DynamicMessage.getAllFields().
+            GeneratedRowWriter rowWriter = KafkaRowWriters.newProtobufRowWriter(recordsRequest.getSchema(), recordsRequest.getConstraints());
             try (Consumer<String, DynamicMessage> kafkaProtobufConsumer = KafkaUtils.getProtobufKafkaConsumer(configOptions)) {
-                // Assign the topic and partition into this consumer.
-                kafkaProtobufConsumer.assign(partitions);
-
-                // Setting the start offset from where we are interested to read data from topic partition.
-                // We have configured this start offset when we had created the split on MetadataHandler.
-                kafkaProtobufConsumer.seek(partition, splitParameters.startOffset);
-
-                // If endOffsets is 0 that means there is no data close consumer and exit
-                Map<TopicPartition, Long> endOffsets = kafkaProtobufConsumer.endOffsets(partitions);
-                if (endOffsets.get(partition) == 0) {
-                    LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-                    kafkaProtobufConsumer.close();
-
-                    // For debug insight
-                    splitParameters.info = "endOffset is 0 i.e partition does not have data";
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(splitParameters.debug());
-                    }
-                    return;
-                }
-                // Consume topic data
-                protobufConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaProtobufConsumer);
+                consume(spiller, queryStatusChecker, splitParameters, partition, kafkaProtobufConsumer,
+                        (block, rowNum, record) -> rowWriter.writeRow(block, rowNum, record.value()));
             }
         }
         else {
             // Initiate new KafkaConsumer that MUST not belong to any consumer group.
             try (Consumer<String, TopicResultSet> kafkaConsumer = KafkaUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions)) {
-                // Assign the topic and partition into this consumer.
-                kafkaConsumer.assign(partitions);
-
-                // Setting the start offset from where we are interested to read data from topic partition.
-                // We have configured this start offset when we had created the split on MetadataHandler.
-                kafkaConsumer.seek(partition, splitParameters.startOffset);
-
-                // If endOffsets is 0 that means there is no data close consumer and exit
-                Map<TopicPartition, Long> endOffsets = kafkaConsumer.endOffsets(partitions);
-                if (endOffsets.get(partition) == 0) {
-                    LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-                    kafkaConsumer.close();
-
-                    // For debug insight
-                    splitParameters.info = "endOffset is 0 i.e partition does not have data";
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(splitParameters.debug());
-                    }
-                    return;
-                }
-                // Consume topic data
-                consume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaConsumer);
+                consume(spiller, queryStatusChecker, splitParameters, partition, kafkaConsumer, KafkaRecordHandler::writeTopicResultSet);
             }
         }
         if (LOGGER.isDebugEnabled()) {
@@ -178,278 +129,190 @@ public class KafkaRecordHandler
      * Consume topic data as batch.
      *
      * @param spiller - instance of {@link BlockSpiller}
-     * @param recordsRequest - instance of {@link ReadRecordsRequest}
      * @param queryStatusChecker - instance of {@link QueryStatusChecker}
      * @param splitParameters - instance of {@link SplitParameters}
+     * @param partition - the topic partition of the split
      * @param kafkaConsumer - instance of {@link KafkaConsumer}
+     * @param recordWriter - writes a single record into the Block
      */
-    private void consume(
+    private <T> void consume(
             BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
             QueryStatusChecker queryStatusChecker,
             SplitParameters splitParameters,
-            Consumer<String, TopicResultSet> kafkaConsumer)
+            TopicPartition partition,
+            Consumer<String, T> kafkaConsumer,
+            RecordWriter<T> recordWriter)
     {
-        LOGGER.info("[kafka] {} Polling for data", splitParameters);
-        int emptyResultFoundCount = 0;
-        try (Consumer<String, TopicResultSet> consumer = kafkaConsumer) {
-            while (true) {
-                if (!queryStatusChecker.isQueryRunning()) {
-                    LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
-                    splitParameters.info = "query status is false i.e no need to work";
-                    return;
-                }
-
-                // Call the poll on consumer to fetch data from kafka server
-                // poll returns data as batch which can be configured.
-                ConsumerRecords<String, TopicResultSet> records = consumer.poll(Duration.ofSeconds(1L));
-                LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
-
-                // For debug insight
-                splitParameters.pulled += records.count();
+        Collection<TopicPartition> partitions = com.google.common.collect.ImmutableList.of(partition);
+        // Assign the topic and partition into this consumer.
+        kafkaConsumer.assign(partitions);
+
+        // Setting the start offset from where we are interested to read data from topic partition.
+        // We have configured this start offset when we had created the split on MetadataHandler.
+        kafkaConsumer.seek(partition, splitParameters.startOffset);
+
+        // If endOffsets is 0 that means there is no data close consumer and exit
+        Map<TopicPartition, Long> endOffsets = kafkaConsumer.endOffsets(partitions);
+        long endOffset = endOffsets.get(partition);
+        if (endOffset == 0) {
+            LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
+            // For debug insight
+            splitParameters.info = "endOffset is 0 i.e partition does not have data";
+            return;
+        }
 
-                // Keep track for how many times we are getting empty result for the polling call.
-                if (records.count() == 0) {
-                    emptyResultFoundCount++;
-                }
+        // The split's end offset is inclusive while the partition's end offset is the offset the next record will get,
+        // so the last split of a partition ends one before it. Stopping once the consumer's position passes the last
+        // offset also covers offsets that hold no record (compaction, transaction markers) without waiting on polls.
+        long lastOffset = Math.min(splitParameters.endOffset, endOffset - 1);
+        if (splitParameters.startOffset > lastOffset) {
+            splitParameters.info = "start offset is past the end of the partition i.e no need to work";
+            return;
+        }
 
-                // We will close KafkaConsumer if we are getting empty result again and again.
-                // Here we are comparing with a max threshold (MAX_EMPTY_RESULT_FOUNT_COUNT) to
-                // stop the polling.
-                if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
-                    splitParameters.info = "always getting empty data i.e leaving from work";
-                    return;
-                }
+        LOGGER.info("[kafka] {} Polling for data", splitParameters);
+        int emptyResultFoundCount = 0;
+        while (true) {
+            if (!queryStatusChecker.isQueryRunning()) {
+                LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
+                splitParameters.info = "query status is false i.e no need to work";
+                return;
+            }
 
-                for (ConsumerRecord<String, TopicResultSet> record : records) {
-                    // Pass batch data one by one to be processed to execute. execute method is
-                    // a kind of abstraction to keep data filtering and writing on spiller separate.
-                    execute(spiller, recordsRequest, queryStatusChecker, splitParameters, record);
+            // Call the poll on consumer to fetch data from kafka server
+            // poll returns data as batch which can be configured.
+            ConsumerRecords<String, T> records = kafkaConsumer.poll(pollTimeout);
+            LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
 
-                    // If we have reached at the end offset of the partition. we will not continue
-                    // to call the polling.
-                    if (record.offset() >= splitParameters.endOffset) {
-                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
+            // For debug insight
+            splitParameters.pulled += records.count();
 
-                        // For debug insight
-                        splitParameters.info = String.format(
-                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                                record.offset(),
-                                splitParameters.endOffset
-                        );
-                        return;
-                    }
-                }
+            // Keep track for how many times we are getting empty result for the polling call.
+            if (records.count() == 0) {
+                emptyResultFoundCount++;
             }
-        }
-    }
 
-    /**
-     * Abstraction to keep the data filtering and writing on spiller separate.
-     *
-     * @param spiller - instance of {@link BlockSpiller}
-     * @param recordsRequest - instance of {@link ReadRecordsRequest}
-     * @param queryStatusChecker - instance of {@link QueryStatusChecker}
-     * @param splitParameters - instance of {@link SplitParameters}
-     * @param record - instance of {@link ConsumerRecord}
-     */
-    private void execute(
-            BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
-            SplitParameters splitParameters,
-            ConsumerRecord<String, TopicResultSet> record)
-    {
-        final boolean[] isExecuted = {false};
-        if (record == null || record.value() == null) {
-            LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record != null ? record.offset() : "unknown");
-            return;
-        }
-        spiller.writeRows((Block block, int rowNum) -> {
-            for (KafkaField field : record.value().getFields()) {
-                boolean isMatched = block.offerValue(field.getName(), rowNum, field.getValue());
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
-                }
+            // We will close KafkaConsumer if we are getting empty result again and again.
+            // Here we are comparing with a max threshold (MAX_EMPTY_RESULT_FOUNT_COUNT) to
+            // stop the polling.
+            if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
+                LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
+                splitParameters.info = "always getting empty data i.e leaving from work";
+                return;
             }
-            // For debug insight
-            splitParameters.spilled += 1;
-            return 1;
-        });
-    }
 
-    private void avroConsume(
-            BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
-            SplitParameters splitParameters,
-            Consumer<String, GenericRecord> kafkaAvroConsumer)
-    {
-        LOGGER.info("[kafka] {} Polling for data", splitParameters);
-        int emptyResultFoundCount = 0;
-        try (Consumer<String, GenericRecord> avroConsumer = kafkaAvroConsumer) {
-            while (true) {
+            // The polled records are written up to WRITE_BATCH_ROWS at a time by a single reusable RowWriter.
+            RecordBatchWriter<T> batchWriter = new RecordBatchWriter<>(records.iterator(), recordWriter, splitParameters, lastOffset);
+            while (batchWriter.hasNext()) {
                 if (!queryStatusChecker.isQueryRunning()) {
                     LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
                     splitParameters.info = "query status is false i.e no need to work";
                     return;
                 }
+                spiller.writeRows(batchWriter);
+            }
 
-                // Call the poll on consumer to fetch data from kafka server
-                // poll returns data as batch which can be configured.
-                ConsumerRecords<String, GenericRecord> records = avroConsumer.poll(Duration.ofSeconds(1L));
-                LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
+            // If we have reached at the end offset of the partition. we will not continue
+            // to call the polling.
+            long position = kafkaConsumer.position(partition);
+            if (batchWriter.reachedLastOffset() || position > lastOffset) {
+                LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current position is {})", splitParameters, position);
 
                 // For debug insight
-                splitParameters.pulled += records.count();
-
-                // Keep track for how many times we are getting empty result for the polling call.
-                if (records.count() == 0) {
-                    emptyResultFoundCount++;
-                }
-
-                // We will close KafkaConsumer if we are getting empty result again and again.
-                // Here we are comparing with a max threshold (MAX_EMPTY_RESULT_FOUNT_COUNT) to
-                // stop the polling.
-                if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
-                    splitParameters.info = "always getting empty data i.e leaving from work";
-                    return;
-                }
-
-                for (ConsumerRecord<String, GenericRecord> record : records) {
-                    // Pass batch data one by one to be processed to execute. execute method is
-                    // a kind of abstraction to keep data filtering and writing on spiller separate.
-                    avroExecute(spiller, recordsRequest, queryStatusChecker, splitParameters, record);
-
-                    // If we have reached at the end offset of the partition. we will not continue
-                    // to call the polling.
-                    if (record.offset() >= splitParameters.endOffset) {
-                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-
-                        // For debug insight
-                        splitParameters.info = String.format(
-                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                                record.offset(),
-                                splitParameters.endOffset
-                        );
-                        return;
-                    }
-                }
+                splitParameters.info = String.format(
+                        "reached at the end offset i.e no need to work: condition [if(position > lastOffset) i.e if(%s > %s)]",
+                        position,
+                        lastOffset
+                );
+                return;
             }
         }
     }
 
-    private void avroExecute(
-            BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
-            SplitParameters splitParameters,
-            ConsumerRecord<String, GenericRecord> record)
+    /**
+     * Writes a record deserialized as TopicResultSet (json or csv) into the Block.
+     */
+    private static boolean writeTopicResultSet(Block block, int rowNum, ConsumerRecord<String, TopicResultSet> record)
     {
-        if (record == null || record.value() == null) {
-            LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record != null ? record.offset() : "unknown");
-            return; // Skip processing this record
-        }
-        spiller.writeRows((Block block, int rowNum) -> {
-            for (Schema.Field next : record.value().getSchema().getFields()) {
-                boolean isMatched = block.offerValue(next.name(), rowNum, record.value().get(next.name()));
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
-                }
+        for (KafkaField field : record.value().getFields()) {
+            if (!block.offerValue(field.getName(), rowNum, field.getValue())) {
+                return false;
             }
-            // For debug insight
-            splitParameters.spilled += 1;
-            return 1;
-        });
+        }
+        return true;
     }
 
-    private void protobufConsume(
-            BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
-            SplitParameters splitParameters,
-            Consumer<String, DynamicMessage> kafkaProtobufConsumer)
+    /**
+     * Writes a single, non null, record into the Block.
+     */
+    private interface RecordWriter<T>
     {
-        LOGGER.info("[kafka] {} Polling for data", splitParameters);
-        int emptyResultFoundCount = 0;
-        try (Consumer<String, DynamicMessage> protobufConsumer = kafkaProtobufConsumer) {
-            while (true) {
-                if (!queryStatusChecker.isQueryRunning()) {
-                    LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
-                    splitParameters.info = "query status is false i.e no need to work";
-                    return;
-                }
+        /**
+         * @return True if the record matched the constraints and was written to the row, False otherwise.
+         */
+        boolean write(Block block, int rowNum, ConsumerRecord<String, T> record)
+                throws Exception;
+    }
 
-                // Call the poll on consumer to fetch data from kafka server
-                // poll returns data as batch which can be configured.
-                ConsumerRecords<String, DynamicMessage> records = protobufConsumer.poll(Duration.ofSeconds(1L));
-                LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
+    /**
+     * RowWriter which writes up to WRITE_BATCH_ROWS of the polled records in a single call to writeRows(...), stopping
+     * at the last offset of the split. A single instance is reused for every batch of a poll so consuming a large
+     * split doesn't allocate a new lambda (or pay for the BlockSpiller's per call size checks) for every record.
+     */
+    private static class RecordBatchWriter<T>
+            implements BlockWriter.RowWriter
+    {
+        private final Iterator<ConsumerRecord<String, T>> records;
+        private final RecordWriter<T> recordWriter;
+        private final SplitParameters splitParameters;
+        private final long lastOffset;
+        private boolean reachedLastOffset;
+
+        RecordBatchWriter(Iterator<ConsumerRecord<String, T>> records, RecordWriter<T> recordWriter, SplitParameters splitParameters, long lastOffset)
+        {
+            this.records = records;
+            this.recordWriter = recordWriter;
+            this.splitParameters = splitParameters;
+            this.lastOffset = lastOffset;
+        }
 
-                // For debug insight
-                splitParameters.pulled += records.count();
+        boolean hasNext()
+        {
+            return !reachedLastOffset && records.hasNext();
+        }
 
-                // Keep track for how many times we are getting empty result for the polling call.
-                if (records.count() == 0) {
-                    emptyResultFoundCount++;
-                }
+        boolean reachedLastOffset()
+        {
+            return reachedLastOffset;
+        }
 
-                // We will close KafkaConsumer if we are getting empty result again and again.
-                // Here we are comparing with a max threshold (MAX_EMPTY_RESULT_FOUNT_COUNT) to
-                // stop the polling.
-                if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
-                    splitParameters.info = "always getting empty data i.e leaving from work";
-                    return;
+        @Override
+        public int writeRows(Block block, int rowNum)
+                throws Exception
+        {
+            int matched = 0;
+            int read = 0;
+            while (read < WRITE_BATCH_ROWS && hasNext()) {
+                ConsumerRecord<String, T> record = records.next();
+                if (record.offset() > lastOffset) {
+                    reachedLastOffset = true;
+                    break;
                 }
-
-                for (ConsumerRecord<String, DynamicMessage> record : records) {
-                    // Pass batch data one by one to be processed to execute. execute method is
-                    // a kind of abstraction to keep data filtering and writing on spiller separate.
-                    protobufExecute(spiller, recordsRequest, queryStatusChecker, splitParameters, record);
-
-                    // If we have reached at the end offset of the partition. we will not continue
-                    // to call the polling.
-                    if (record.offset() >= splitParameters.endOffset) {
-                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-
-                        // For debug insight
-                        splitParameters.info = String.format(
-                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                                record.offset(),
-                                splitParameters.endOffset
-                        );
-                        return;
-                    }
+                read++;
+                if (record.value() == null) {
+                    LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record.offset());
                 }
-            }
-        }
-    }
-    private void protobufExecute(
-            BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
-            SplitParameters splitParameters,
-            ConsumerRecord<String, DynamicMessage> record)
-    {
-        if (record == null || record.value() == null) {
-            LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record != null ? record.offset() : "unknown");
-            return; // Skip processing this record
-        }
-        spiller.writeRows((Block block, int rowNum) -> {
-            for (Descriptors.FieldDescriptor next : record.value().getAllFields().keySet()) {
-                boolean isMatched = block.offerValue(next.getName(), rowNum, record.value().getField(next));
-                if (!isMatched) {
+                else if (recordWriter.write(block, rowNum + matched, record)) {
+                    matched++;
+                    // For debug insight
+                    splitParameters.spilled += 1;
+                }
+                else {
                     LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
                 }
+                reachedLastOffset = record.offset() >= lastOffset;
             }
-            // For debug insight
-            splitParameters.spilled += 1;
-            return 1;
-        });
+            return matched;
+        }
     }
 }
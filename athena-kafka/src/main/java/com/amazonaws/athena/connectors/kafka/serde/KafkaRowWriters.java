@@ -0,0 +1,342 @@
+/*-
+ * #%L
+ * Athena Kafka Connector
+ * %%
+ * Copyright (C) 2019 - 2022 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.kafka.serde;
+
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BigIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BitExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateDayExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateMilliExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float4Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float8Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.IntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.SmallIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.TinyIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarCharExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.FieldWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarCharHolder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.holders.NullableBigIntHolder;
+import org.apache.arrow.vector.holders.NullableBitHolder;
+import org.apache.arrow.vector.holders.NullableDateDayHolder;
+import org.apache.arrow.vector.holders.NullableDateMilliHolder;
+import org.apache.arrow.vector.holders.NullableFloat4Holder;
+import org.apache.arrow.vector.holders.NullableFloat8Holder;
+import org.apache.arrow.vector.holders.NullableIntHolder;
+import org.apache.arrow.vector.holders.NullableSmallIntHolder;
+import org.apache.arrow.vector.holders.NullableTinyIntHolder;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds GeneratedRowWriters that write the fields of deserialized Avro and Protobuf records straight into the
+ * Block's vectors. Each Arrow field is bound to its position in the Avro writer schema, or to its Protobuf
+ * FieldDescriptor, once per schema rather than looking every field up by name for every record. Values are written
+ * through typed holders instead of Block.offerValue(...) and Avro strings are copied from their UTF-8 bytes without
+ * first being turned into a String.
+ */
+public final class KafkaRowWriters
+{
+    private KafkaRowWriters() {}
+
+    /**
+     * @param schema The schema of the Blocks that will be written to.
+     * @param constraints The constraints to apply to the values as they are written.
+     * @return A GeneratedRowWriter whose context is the GenericRecord to write.
+     */
+    public static GeneratedRowWriter newAvroRowWriter(Schema schema, Constraints constraints)
+    {
+        return newRowWriter(schema, constraints, AvroFieldResolver::new);
+    }
+
+    /**
+     * @param schema The schema of the Blocks that will be written to.
+     * @param constraints The constraints to apply to the values as they are written.
+     * @return A GeneratedRowWriter whose context is the DynamicMessage to write.
+     */
+    public static GeneratedRowWriter newProtobufRowWriter(Schema schema, Constraints constraints)
+    {
+        return newRowWriter(schema, constraints, ProtobufFieldResolver::new);
+    }
+
+    private static GeneratedRowWriter newRowWriter(Schema schema, Constraints constraints, ResolverFactory resolverFactory)
+    {
+        GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder(constraints);
+        for (Field field : schema.getFields()) {
+            FieldResolver resolver = resolverFactory.create(field.getName());
+            Types.MinorType fieldType = Types.getMinorTypeForArrowType(field.getType());
+            if (fieldType == Types.MinorType.VARCHAR) {
+                builder.withFieldWriterFactory(field.getName(),
+                        (vector, extractor, constraint) -> (constraint == null)
+                                ? new Utf8FieldWriter(resolver, (VarCharVector) vector)
+                                : makeFieldWriter(resolver, (VarCharVector) vector, constraint::apply));
+            }
+            builder.withExtractor(field.getName(), makeExtractor(fieldType, resolver));
+        }
+        return builder.build();
+    }
+
+    private static Extractor makeExtractor(Types.MinorType fieldType, FieldResolver resolver)
+    {
+        switch (fieldType) {
+            case BIT:
+                return (BitExtractor) (Object context, NullableBitHolder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value != null && toBoolean(value)) ? 1 : 0;
+                };
+            case TINYINT:
+                return (TinyIntExtractor) (Object context, NullableTinyIntHolder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value == null) ? 0 : ((Number) value).byteValue();
+                };
+            case SMALLINT:
+                return (SmallIntExtractor) (Object context, NullableSmallIntHolder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value == null) ? 0 : ((Number) value).shortValue();
+                };
+            case INT:
+                return (IntExtractor) (Object context, NullableIntHolder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value == null) ? 0 : ((Number) value).intValue();
+                };
+            case BIGINT:
+                return (BigIntExtractor) (Object context, NullableBigIntHolder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value == null) ? 0 : ((Number) value).longValue();
+                };
+            case FLOAT4:
+                return (Float4Extractor) (Object context, NullableFloat4Holder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value == null) ? 0 : ((Number) value).floatValue();
+                };
+            case FLOAT8:
+                return (Float8Extractor) (Object context, NullableFloat8Holder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value == null) ? 0 : ((Number) value).doubleValue();
+                };
+            case DATEDAY:
+                return (DateDayExtractor) (Object context, NullableDateDayHolder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value == null) ? 0 : toEpochDay(value);
+                };
+            case DATEMILLI:
+                return (DateMilliExtractor) (Object context, NullableDateMilliHolder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value == null) ? 0 : toEpochMilli(value);
+                };
+            default:
+                //Everything else, including nested values, is written as its string form like Block.offerValue(...).
+                return (VarCharExtractor) (Object context, NullableVarCharHolder dst) -> {
+                    Object value = resolver.resolve(context);
+                    dst.isSet = (value == null) ? 0 : 1;
+                    dst.value = (value == null) ? null : value.toString();
+                };
+        }
+    }
+
+    private static FieldWriter makeFieldWriter(FieldResolver resolver, VarCharVector vector, StringConstraint constraint)
+    {
+        return (Object context, int rowNum) -> {
+            Object value = resolver.resolve(context);
+            String str = (value == null) ? null : value.toString();
+            if (str != null) {
+                vector.setSafe(rowNum, str.getBytes(StandardCharsets.UTF_8));
+            }
+            else {
+                vector.setNull(rowNum);
+            }
+            return constraint.apply(str);
+        };
+    }
+
+    private static boolean toBoolean(Object value)
+    {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value instanceof Number && ((Number) value).intValue() > 0;
+    }
+
+    private static int toEpochDay(Object value)
+    {
+        if (value instanceof LocalDate) {
+            return (int) ((LocalDate) value).toEpochDay();
+        }
+        if (value instanceof Date) {
+            return (int) TimeUnit.MILLISECONDS.toDays(((Date) value).getTime());
+        }
+        return ((Number) value).intValue();
+    }
+
+    private static long toEpochMilli(Object value)
+    {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        if (value instanceof Instant) {
+            return ((Instant) value).toEpochMilli();
+        }
+        return ((Number) value).longValue();
+    }
+
+    /**
+     * Writes a VarChar column that has no constraint, Avro's Utf8 values are copied straight from their backing bytes.
+     */
+    private static class Utf8FieldWriter
+            implements FieldWriter
+    {
+        private final FieldResolver resolver;
+        private final VarCharVector vector;
+
+        Utf8FieldWriter(FieldResolver resolver, VarCharVector vector)
+        {
+            this.resolver = resolver;
+            this.vector = vector;
+        }
+
+        @Override
+        public boolean write(Object context, int rowNum)
+        {
+            Object value = resolver.resolve(context);
+            if (value instanceof Utf8) {
+                Utf8 utf8 = (Utf8) value;
+                vector.setSafe(rowNum, utf8.getBytes(), 0, utf8.getByteLength());
+            }
+            else if (value != null) {
+                vector.setSafe(rowNum, value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            else {
+                vector.setNull(rowNum);
+            }
+            return true;
+        }
+    }
+
+    private interface ResolverFactory
+    {
+        FieldResolver create(String fieldName);
+    }
+
+    private interface StringConstraint
+    {
+        boolean apply(String value);
+    }
+
+    /**
+     * Resolves the value of one field from a deserialized record, or null if the record doesn't have it.
+     */
+    private interface FieldResolver
+    {
+        Object resolve(Object record);
+    }
+
+    /**
+     * Resolves a field by its position in the record's writer schema. The position is looked up again only when a
+     * record written with a different schema version comes along.
+     */
+    private static class AvroFieldResolver
+            implements FieldResolver
+    {
+        private final String fieldName;
+        private org.apache.avro.Schema boundSchema;
+        private int position = -1;
+
+        AvroFieldResolver(String fieldName)
+        {
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public Object resolve(Object record)
+        {
+            GenericRecord avroRecord = (GenericRecord) record;
+            org.apache.avro.Schema schema = avroRecord.getSchema();
+            if (schema != boundSchema) {
+                org.apache.avro.Schema.Field field = schema.getField(fieldName);
+                position = (field == null) ? -1 : field.pos();
+                boundSchema = schema;
+            }
+            return (position < 0) ? null : avroRecord.get(position);
+        }
+    }
+
+    /**
+     * Resolves a field by its FieldDescriptor, which is looked up again only when a message of a different type comes
+     * along. Unset singular fields and empty repeated fields resolve to null, as they are absent from
+     * DynamicMessage.getAllFields().
+     */
+    private static class ProtobufFieldResolver
+            implements FieldResolver
+    {
+        private final String fieldName;
+        private Descriptors.Descriptor boundDescriptor;
+        private Descriptors.FieldDescriptor field;
+
+        ProtobufFieldResolver(String fieldName)
+        {
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public Object resolve(Object record)
+        {
+            DynamicMessage message = (DynamicMessage) record;
+            Descriptors.Descriptor descriptor = message.getDescriptorForType();
+            if (descriptor != boundDescriptor) {
+                field = descriptor.findFieldByName(fieldName);
+                boundDescriptor = descriptor;
+            }
+            if (field == null) {
+                return null;
+            }
+            if (field.isRepeated()) {
+                return (message.getRepeatedFieldCount(field) == 0) ? null : message.getField(field);
+            }
+            return message.hasField(field) ? message.getField(field) : null;
+        }
+    }
+}
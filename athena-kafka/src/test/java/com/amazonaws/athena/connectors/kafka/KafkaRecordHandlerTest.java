@@ -72,6 +72,8 @@ import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.AVRO_DATA_FORMAT;
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.PROTOBUF_DATA_FORMAT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyMap;
 
 import static org.mockito.Mockito.*;
@@ -337,6 +339,75 @@ public class KafkaRecordHandlerTest {
         kafkaRecordHandler.readWithConstraint(null, request, queryStatusChecker);
     }
 
+    @Test
+    public void testForSplitEndOffsetWithinAPoll() throws Exception {
+        // 250 records in a single poll, spanning several write batches, with the split ending part way through one.
+        avroConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        avroConsumer.schedulePollTask(() -> {
+            for (int offset = 0; offset < 250; offset++) {
+                avroConsumer.addRecord(new ConsumerRecord<>("greetings", 0, offset, "k" + offset, createGenericRecord("greetings")));
+            }
+        });
+        avroConsumer.updateBeginningOffsets(com.google.common.collect.ImmutableMap.of(new TopicPartition("greetings", 0), 0L));
+        avroConsumer.updateEndOffsets(com.google.common.collect.ImmutableMap.of(new TopicPartition("greetings", 0), 250L));
+
+        SplitParameters splitParameters = new SplitParameters("greetings", 0, 0, 149);
+        BlockSpiller spiller = consumeAvroSplit(splitParameters);
+
+        assertEquals(150, spiller.getBlock().getRowCount());
+        assertEquals(250, splitParameters.pulled);
+        assertEquals(150, splitParameters.spilled);
+    }
+
+    @Test
+    public void testForSplitEndOffsetPastThePartitionEnd() throws Exception {
+        // The last offset of the partition is 2, reading must stop after it without polling again.
+        boolean[] polledAgain = new boolean[1];
+        avroConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        avroConsumer.schedulePollTask(() -> {
+            for (int offset = 0; offset < 3; offset++) {
+                avroConsumer.addRecord(new ConsumerRecord<>("greetings", 0, offset, "k" + offset, createGenericRecord("greetings")));
+            }
+        });
+        avroConsumer.schedulePollTask(() -> polledAgain[0] = true);
+        avroConsumer.updateBeginningOffsets(com.google.common.collect.ImmutableMap.of(new TopicPartition("greetings", 0), 0L));
+        avroConsumer.updateEndOffsets(com.google.common.collect.ImmutableMap.of(new TopicPartition("greetings", 0), 3L));
+
+        SplitParameters splitParameters = new SplitParameters("greetings", 0, 0, 10);
+        BlockSpiller spiller = consumeAvroSplit(splitParameters);
+
+        assertEquals(3, spiller.getBlock().getRowCount());
+        assertFalse(polledAgain[0]);
+        assertTrue(splitParameters.info.startsWith("reached at the end offset"));
+    }
+
+    private BlockSpiller consumeAvroSplit(SplitParameters splitParameters) throws Exception {
+        Schema schema = createAvroSchema(createAvroTopicSchema());
+
+        mockedKafkaUtils.when(() -> KafkaUtils.getAvroKafkaConsumer(com.google.common.collect.ImmutableMap.of())).thenReturn(avroConsumer);
+        mockedKafkaUtils.when(() -> KafkaUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
+
+        Mockito.when(awsGlue.getSchema(any(GetSchemaRequest.class))).thenReturn(getSchemaResponse());
+        Mockito.when(awsGlue.getSchemaVersion(any(GetSchemaVersionRequest.class))).thenReturn(getAvroSchemaVersionResponse());
+
+        QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+        // Large enough that nothing is spilled.
+        SpillConfig inlineSpillConfig = SpillConfig.newBuilder()
+                .withEncryptionKey(encryptionKey)
+                .withMaxBlockBytes(10_000_000)
+                .withMaxInlineBlockBytes(10_000_000)
+                .withNumSpillThreads(0)
+                .withRequestId(UUID.randomUUID().toString())
+                .withSpillLocation(s3SpillLocation)
+                .build();
+        ReadRecordsRequest request = createReadRecordsRequest(schema);
+        BlockSpiller spiller = new S3BlockSpiller(amazonS3, inlineSpillConfig, allocator, schema, ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of());
+        kafkaRecordHandler.readWithConstraint(spiller, request, queryStatusChecker);
+        return spiller;
+    }
+
     private ReadRecordsRequest createReadRecordsRequest(Schema schema) {
         return new ReadRecordsRequest(
                 federatedIdentity,
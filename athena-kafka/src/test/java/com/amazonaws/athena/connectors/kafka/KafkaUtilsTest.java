@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.kafka;
 
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connectors.kafka.dto.SplitParameters;
 import com.amazonaws.athena.connectors.kafka.dto.TopicResultSet;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -44,6 +45,7 @@ import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
@@ -169,6 +171,32 @@ public class KafkaUtilsTest {
         assertEquals("trustpass", properties.get("ssl.truststore.password"));
     }
 
+    @Test
+    public void testGetFetchTuningKafkaProperties() throws Exception {
+        java.util.HashMap testConfigOptions = new java.util.HashMap(configOptions);
+        testConfigOptions.put("auth_type", KafkaUtils.AuthType.NO_AUTH.toString());
+        Properties properties = getKafkaProperties(testConfigOptions);
+        assertEquals("10000", properties.get("max.poll.records"));
+        assertEquals("1048576", properties.get("max.partition.fetch.bytes"));
+        assertNull(properties.get("fetch.min.bytes"));
+
+        testConfigOptions.put(KafkaConstants.KAFKA_MAX_POLL_RECORDS, "500");
+        testConfigOptions.put(KafkaConstants.KAFKA_MAX_PARTITION_FETCH_BYTES, "8388608");
+        testConfigOptions.put(KafkaConstants.KAFKA_FETCH_MIN_BYTES, "65536");
+        properties = getKafkaProperties(testConfigOptions);
+        assertEquals("500", properties.get("max.poll.records"));
+        assertEquals("8388608", properties.get("max.partition.fetch.bytes"));
+        assertEquals("65536", properties.get("fetch.min.bytes"));
+    }
+
+    @Test
+    public void testGetKafkaPropertiesRejectsNonPositiveConsumerConfig() throws Exception {
+        testConfigOptions.put("auth_type", KafkaUtils.AuthType.NO_AUTH.toString());
+        testConfigOptions.put(KafkaConstants.KAFKA_MAX_POLL_RECORDS, "0");
+        AthenaConnectorException ex = assertThrows(AthenaConnectorException.class, () -> getKafkaProperties(testConfigOptions));
+        assertEquals(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString(), ex.getErrorDetails().errorCode());
+    }
+
     @Test
     public void testToArrowType(){
         assertEquals(new ArrowType.Bool(), toArrowType("BOOLEAN"));
@@ -0,0 +1,271 @@
+/*-
+ * #%L
+ * Athena Kafka Connector
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.kafka.serde;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Map;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KafkaRowWritersTest {
+    private static final org.apache.avro.Schema CUSTOMER_SCHEMA = new org.apache.avro.Schema.Parser().parse(
+            "{\"type\": \"record\", \"name\": \"customer\", \"fields\": ["
+                    + "{\"name\": \"id\", \"type\": \"int\"},"
+                    + "{\"name\": \"name\", \"type\": [\"null\", \"string\"]},"
+                    + "{\"name\": \"balance\", \"type\": \"long\"},"
+                    + "{\"name\": \"active\", \"type\": \"boolean\"},"
+                    + "{\"name\": \"birthday\", \"type\": {\"type\": \"int\", \"logicalType\": \"date\"}},"
+                    + "{\"name\": \"updated\", \"type\": {\"type\": \"long\", \"logicalType\": \"timestamp-millis\"}},"
+                    + "{\"name\": \"address\", \"type\": {\"type\": \"record\", \"name\": \"address\", \"fields\": ["
+                    + "{\"name\": \"city\", \"type\": \"string\"}]}}]}");
+    //A later version of the schema which adds a field in front of the others, moving every field's position.
+    private static final org.apache.avro.Schema CUSTOMER_SCHEMA_V2 = new org.apache.avro.Schema.Parser().parse(
+            "{\"type\": \"record\", \"name\": \"customer\", \"fields\": ["
+                    + "{\"name\": \"tier\", \"type\": \"string\"},"
+                    + "{\"name\": \"name\", \"type\": [\"null\", \"string\"]},"
+                    + "{\"name\": \"id\", \"type\": \"int\"}]}");
+    private static final LocalDate BIRTHDAY = LocalDate.of(2020, 1, 1);
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2020, 1, 1, 12, 30);
+
+    private final Schema avroSchema = SchemaBuilder.newBuilder()
+            .addIntField("id")
+            .addStringField("name")
+            .addBigIntField("balance")
+            .addBitField("active")
+            .addDateDayField("birthday")
+            .addDateMilliField("updated")
+            .addStringField("address")
+            .build();
+    private final Schema protobufSchema = SchemaBuilder.newBuilder()
+            .addStringField("item")
+            .addBigIntField("quantity")
+            .addField("price", Types.MinorType.FLOAT8.getType())
+            .addStringField("address")
+            .addStringField("tags")
+            .build();
+
+    private BlockAllocatorImpl allocator;
+
+    @Before
+    public void setUp() {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void tearDown() {
+        allocator.close();
+    }
+
+    @Test
+    public void avroRowWriterWritesTypedAndNestedValues() throws Exception {
+        GeneratedRowWriter rowWriter = KafkaRowWriters.newAvroRowWriter(avroSchema, constraints(Collections.emptyMap()));
+        Block block = allocator.createBlock(avroSchema);
+
+        assertTrue(rowWriter.writeRow(block, 0, customer(1, new Utf8("Jane"))));
+        assertTrue(rowWriter.writeRow(block, 1, customer(2, null)));
+        block.setRowCount(2);
+
+        assertEquals(1, ((IntVector) block.getFieldVector("id")).get(0));
+        assertEquals("Jane", ((VarCharVector) block.getFieldVector("name")).getObject(0).toString());
+        assertEquals(1_000L, ((BigIntVector) block.getFieldVector("balance")).get(0));
+        assertEquals(1, ((BitVector) block.getFieldVector("active")).get(0));
+        assertEquals(BIRTHDAY, LocalDate.ofEpochDay(((DateDayVector) block.getFieldVector("birthday")).get(0)));
+        assertEquals(UPDATED, ((DateMilliVector) block.getFieldVector("updated")).getObject(0));
+        assertEquals("{\"city\": \"Seattle\"}", ((VarCharVector) block.getFieldVector("address")).getObject(0).toString());
+
+        assertEquals(2, ((IntVector) block.getFieldVector("id")).get(1));
+        assertTrue(block.getFieldVector("name").isNull(1));
+    }
+
+    @Test
+    public void avroRowWriterRebindsFieldsWhenTheWriterSchemaChanges() throws Exception {
+        GeneratedRowWriter rowWriter = KafkaRowWriters.newAvroRowWriter(avroSchema, constraints(Collections.emptyMap()));
+        Block block = allocator.createBlock(avroSchema);
+        GenericRecord v2 = new GenericData.Record(CUSTOMER_SCHEMA_V2);
+        v2.put("tier", "gold");
+        v2.put("name", "Bob");
+        v2.put("id", 7);
+
+        assertTrue(rowWriter.writeRow(block, 0, customer(1, "Jane")));
+        assertTrue(rowWriter.writeRow(block, 1, v2));
+        block.setRowCount(2);
+
+        assertEquals(7, ((IntVector) block.getFieldVector("id")).get(1));
+        assertEquals("Bob", ((VarCharVector) block.getFieldVector("name")).getObject(1).toString());
+        //Fields missing from the writer schema are written as null.
+        assertTrue(block.getFieldVector("balance").isNull(1));
+        assertTrue(block.getFieldVector("address").isNull(1));
+    }
+
+    @Test
+    public void avroRowWriterAppliesConstraints() throws Exception {
+        Map<String, ValueSet> summary = ImmutableMap.of(
+                "name", EquatableValueSet.newBuilder(allocator, Types.MinorType.VARCHAR.getType(), true, false).add("Jane").build(),
+                "id", SortedRangeSet.of(false, Range.lessThan(allocator, Types.MinorType.INT.getType(), 10)));
+        GeneratedRowWriter rowWriter = KafkaRowWriters.newAvroRowWriter(avroSchema, constraints(summary));
+        Block block = allocator.createBlock(avroSchema);
+
+        //Utf8 values are compared by their string form.
+        assertTrue(rowWriter.writeRow(block, 0, customer(1, new Utf8("Jane"))));
+        assertFalse(rowWriter.writeRow(block, 0, customer(2, new Utf8("Bob"))));
+        assertFalse(rowWriter.writeRow(block, 0, customer(11, new Utf8("Jane"))));
+        assertFalse(rowWriter.writeRow(block, 0, customer(3, null)));
+    }
+
+    @Test
+    public void protobufRowWriterWritesTypedAndNestedValues() throws Exception {
+        Descriptors.Descriptor descriptor = buildOrderDescriptor();
+        GeneratedRowWriter rowWriter = KafkaRowWriters.newProtobufRowWriter(protobufSchema, constraints(Collections.emptyMap()));
+        Block block = allocator.createBlock(protobufSchema);
+        DynamicMessage withoutOptionalFields = DynamicMessage.newBuilder(descriptor)
+                .setField(descriptor.findFieldByName("item"), "pen")
+                .setField(descriptor.findFieldByName("quantity"), 3L)
+                .build();
+
+        assertTrue(rowWriter.writeRow(block, 0, order(descriptor, "cake", 2L, "sweet", "baked")));
+        assertTrue(rowWriter.writeRow(block, 1, withoutOptionalFields));
+        block.setRowCount(2);
+
+        assertEquals("cake", ((VarCharVector) block.getFieldVector("item")).getObject(0).toString());
+        assertEquals(2L, ((BigIntVector) block.getFieldVector("quantity")).get(0));
+        assertEquals(9.5, ((Float8Vector) block.getFieldVector("price")).get(0), 0);
+        assertEquals("city: \"Seattle\"\n", ((VarCharVector) block.getFieldVector("address")).getObject(0).toString());
+        assertEquals("[sweet, baked]", ((VarCharVector) block.getFieldVector("tags")).getObject(0).toString());
+
+        //Unset fields and empty repeated fields are written as null, like DynamicMessage.getAllFields() leaves them out.
+        assertEquals(3L, ((BigIntVector) block.getFieldVector("quantity")).get(1));
+        assertTrue(block.getFieldVector("price").isNull(1));
+        assertTrue(block.getFieldVector("address").isNull(1));
+        assertTrue(block.getFieldVector("tags").isNull(1));
+    }
+
+    @Test
+    public void protobufRowWriterAppliesConstraints() throws Exception {
+        Descriptors.Descriptor descriptor = buildOrderDescriptor();
+        Map<String, ValueSet> summary = ImmutableMap.of(
+                "quantity", SortedRangeSet.of(false, Range.greaterThan(allocator, Types.MinorType.BIGINT.getType(), 4L)));
+        GeneratedRowWriter rowWriter = KafkaRowWriters.newProtobufRowWriter(protobufSchema, constraints(summary));
+        Block block = allocator.createBlock(protobufSchema);
+
+        assertFalse(rowWriter.writeRow(block, 0, order(descriptor, "cake", 2L)));
+        assertTrue(rowWriter.writeRow(block, 0, order(descriptor, "pie", 12L)));
+    }
+
+    private static GenericRecord customer(int id, CharSequence name) {
+        GenericRecord address = new GenericData.Record(CUSTOMER_SCHEMA.getField("address").schema());
+        address.put("city", new Utf8("Seattle"));
+        GenericRecord record = new GenericData.Record(CUSTOMER_SCHEMA);
+        record.put("id", id);
+        record.put("name", name);
+        record.put("balance", 1_000L);
+        record.put("active", true);
+        record.put("birthday", (int) BIRTHDAY.toEpochDay());
+        record.put("updated", UPDATED.toInstant(ZoneOffset.UTC).toEpochMilli());
+        record.put("address", address);
+        return record;
+    }
+
+    private static DynamicMessage order(Descriptors.Descriptor descriptor, String item, long quantity, String... tags) {
+        Descriptors.FieldDescriptor addressField = descriptor.findFieldByName("address");
+        DynamicMessage address = DynamicMessage.newBuilder(addressField.getMessageType())
+                .setField(addressField.getMessageType().findFieldByName("city"), "Seattle")
+                .build();
+        DynamicMessage.Builder builder = DynamicMessage.newBuilder(descriptor)
+                .setField(descriptor.findFieldByName("item"), item)
+                .setField(descriptor.findFieldByName("quantity"), quantity)
+                .setField(descriptor.findFieldByName("price"), 9.5)
+                .setField(addressField, address);
+        for (String tag : tags) {
+            builder.addRepeatedField(descriptor.findFieldByName("tags"), tag);
+        }
+        return builder.build();
+    }
+
+    private static Descriptors.Descriptor buildOrderDescriptor() throws Exception {
+        DescriptorProtos.DescriptorProto address = DescriptorProtos.DescriptorProto.newBuilder()
+                .setName("Address")
+                .addField(field("city", 1, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .build();
+        DescriptorProtos.DescriptorProto order = DescriptorProtos.DescriptorProto.newBuilder()
+                .setName("Order")
+                .addField(field("item", 1, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(field("quantity", 2, DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT64))
+                .addField(field("price", 3, DescriptorProtos.FieldDescriptorProto.Type.TYPE_DOUBLE))
+                .addField(field("address", 4, DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE).toBuilder()
+                        .setTypeName(".athena_kafka.Address"))
+                .addField(field("tags", 5, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING).toBuilder()
+                        .setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED))
+                .build();
+        DescriptorProtos.FileDescriptorProto file = DescriptorProtos.FileDescriptorProto.newBuilder()
+                .setPackage("athena_kafka")
+                .setSyntax("proto3")
+                .addMessageType(address)
+                .addMessageType(order)
+                .build();
+        return Descriptors.FileDescriptor.buildFrom(file, new Descriptors.FileDescriptor[] {}).findMessageTypeByName("Order");
+    }
+
+    private static DescriptorProtos.FieldDescriptorProto field(String name, int number, DescriptorProtos.FieldDescriptorProto.Type type) {
+        return DescriptorProtos.FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setType(type)
+                .build();
+    }
+
+    private static Constraints constraints(Map<String, ValueSet> summary) {
+        return new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+    }
+}
@@ -64,6 +64,24 @@ public class AmazonMskConstants
 
     public static final int MAX_RECORDS_IN_SPLIT = 10_000;
 
+    /**
+     * Consumer fetch tuning, the minimum amount of data the broker should return for a fetch request (fetch.min.bytes).
+     */
+    public static final String KAFKA_FETCH_MIN_BYTES = "kafka_fetch_min_bytes";
+    /**
+     * Consumer fetch tuning, the max number of records returned by a single poll (max.poll.records).
+     */
+    public static final String KAFKA_MAX_POLL_RECORDS = "kafka_max_poll_records";
+    /**
+     * Consumer fetch tuning, the max amount of data returned per partition by a fetch (max.partition.fetch.bytes).
+     */
+    public static final String KAFKA_MAX_PARTITION_FETCH_BYTES = "kafka_max_partition_fetch_bytes";
+    /**
+     * The max time, in milliseconds, a single poll waits for records.
+     */
+    public static final String KAFKA_POLL_TIMEOUT_MS = "kafka_poll_timeout_ms";
+    public static final long DEFAULT_POLL_TIMEOUT_MS = 1_000;
+
     public static final String AVRO_DATA_FORMAT = "avro";
     public static final String PROTOBUF_DATA_FORMAT = "protobuf";
 
@@ -21,6 +21,7 @@ package com.amazonaws.athena.connectors.msk;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.msk.consumer.MskAvroConsumer;
@@ -36,6 +37,8 @@ import software.amazon.awssdk.services.athena.AthenaClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
+import java.time.Duration;
+
 import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.AVRO_DATA_FORMAT;
 import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.PROTOBUF_DATA_FORMAT;
 
@@ -44,6 +47,8 @@ public class AmazonMskRecordHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(AmazonMskRecordHandler.class);
 
+    private final Duration pollTimeout;
+
     AmazonMskRecordHandler(java.util.Map<String, String> configOptions)
     {
         this(
@@ -57,6 +62,7 @@ public class AmazonMskRecordHandler
     public AmazonMskRecordHandler(S3Client amazonS3, SecretsManagerClient secretsManager, AthenaClient athena, java.util.Map<String, String> configOptions)
     {
         super(amazonS3, secretsManager, athena, AmazonMskConstants.MSK_SOURCE, configOptions);
+        this.pollTimeout = Duration.ofMillis(ConfigOptionUtils.getPositiveLongOption(configOptions, AmazonMskConstants.KAFKA_POLL_TIMEOUT_MS, AmazonMskConstants.DEFAULT_POLL_TIMEOUT_MS));
     }
 
     /**
@@ -81,15 +87,15 @@ public class AmazonMskRecordHandler
         switch (dataFormat.toLowerCase()) {
             case AVRO_DATA_FORMAT:
                 consumer = AmazonMskUtils.getAvroKafkaConsumer(configOptions);
-                mskConsumer = new MskAvroConsumer();
+                mskConsumer = new MskAvroConsumer(pollTimeout);
                 break;
             case PROTOBUF_DATA_FORMAT:
                 consumer = AmazonMskUtils.getProtobufKafkaConsumer(configOptions);
-                mskConsumer = new MskProtobufConsumer();
+                mskConsumer = new MskProtobufConsumer(pollTimeout);
                 break;
             default:
                 consumer = AmazonMskUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions);
-                mskConsumer = new MskDefaultConsumer();
+                mskConsumer = new MskDefaultConsumer(pollTimeout);
                 break;
         }
 
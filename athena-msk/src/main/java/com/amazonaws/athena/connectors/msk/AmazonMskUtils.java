@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.msk;
 
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import com.amazonaws.athena.connectors.msk.dto.Message;
 import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
 import com.amazonaws.athena.connectors.msk.dto.TopicResultSet;
@@ -98,6 +99,7 @@ public class AmazonMskUtils
     private static final String KAFKA_AUTO_OFFSET_RESET_CONFIG = "auto.offset.reset";
     private static final String KAFKA_MAX_POLL_RECORDS_CONFIG = "max.poll.records";
     private static final String KAFKA_MAX_PARTITION_FETCH_BYTES_CONFIG = "max.partition.fetch.bytes";
+    private static final String KAFKA_FETCH_MIN_BYTES_CONFIG = "fetch.min.bytes";
     private static final String KAFKA_KEY_DESERIALIZER_CLASS_CONFIG = "key.deserializer";
     private static final String KAFKA_VALUE_DESERIALIZER_CLASS_CONFIG = "value.deserializer";
     private static final ObjectMapper objectMapper = new ObjectMapper();
@@ -187,8 +189,11 @@ public class AmazonMskUtils
         properties.setProperty(KAFKA_EXCLUDE_INTERNAL_TOPICS_CONFIG, "true");
         properties.setProperty(KAFKA_ENABLE_AUTO_COMMIT_CONFIG, "false");
         properties.setProperty(KAFKA_AUTO_OFFSET_RESET_CONFIG, "earliest");
-        properties.setProperty(KAFKA_MAX_POLL_RECORDS_CONFIG, "10000");
-        properties.setProperty(KAFKA_MAX_PARTITION_FETCH_BYTES_CONFIG, "1048576");
+        properties.setProperty(KAFKA_MAX_POLL_RECORDS_CONFIG, Long.toString(ConfigOptionUtils.getPositiveLongOption(configOptions, AmazonMskConstants.KAFKA_MAX_POLL_RECORDS, 10000)));
+        properties.setProperty(KAFKA_MAX_PARTITION_FETCH_BYTES_CONFIG, Long.toString(ConfigOptionUtils.getPositiveLongOption(configOptions, AmazonMskConstants.KAFKA_MAX_PARTITION_FETCH_BYTES, 1048576)));
+        if (configOptions.containsKey(AmazonMskConstants.KAFKA_FETCH_MIN_BYTES)) {
+            properties.setProperty(KAFKA_FETCH_MIN_BYTES_CONFIG, Long.toString(ConfigOptionUtils.getPositiveLongOption(configOptions, AmazonMskConstants.KAFKA_FETCH_MIN_BYTES, 1)));
+        }
         properties.setProperty(KAFKA_KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
 
         //fetch authentication type for the kafka cluster
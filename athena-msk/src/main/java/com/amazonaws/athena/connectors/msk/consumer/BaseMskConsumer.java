@@ -20,7 +20,9 @@
 package com.amazonaws.athena.connectors.msk.consumer;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
 import org.apache.kafka.clients.consumer.Consumer;
@@ -32,33 +34,64 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 
+import static java.util.Objects.requireNonNull;
+
 public abstract class BaseMskConsumer<T> implements MskConsumer
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseMskConsumer.class);
+    // Only a safety net, splits normally stop once the consumer's position passes the last offset to read.
     protected static final int MAX_EMPTY_RESULT_FOUND_COUNT = 3;
+    // Max records written per call to BlockSpiller.writeRows(...), matches the max rows per call S3BlockSpiller accepts.
+    private static final int WRITE_BATCH_ROWS = 100;
+
+    private final Duration pollTimeout;
+
+    protected BaseMskConsumer(Duration pollTimeout)
+    {
+        this.pollTimeout = requireNonNull(pollTimeout, "pollTimeout");
+    }
 
     @Override
     public void consume(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters, Consumer<?, ?> consumer)
     {
         @SuppressWarnings("unchecked")
         Consumer<String, T> typedConsumer = (Consumer<String, T>) consumer;
-        typedConsumer.assign(Collections.singleton(new TopicPartition(splitParameters.topic, splitParameters.partition)));
-        typedConsumer.seek(new TopicPartition(splitParameters.topic, splitParameters.partition), splitParameters.startOffset);
+        TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
+        typedConsumer.assign(Collections.singleton(partition));
+        typedConsumer.seek(partition, splitParameters.startOffset);
 
-        Map<TopicPartition, Long> endOffsets = typedConsumer.endOffsets(Collections.singleton(new TopicPartition(splitParameters.topic, splitParameters.partition)));
-        if (endOffsets.get(new TopicPartition(splitParameters.topic, splitParameters.partition)) == 0) {
+        Map<TopicPartition, Long> endOffsets = typedConsumer.endOffsets(Collections.singleton(partition));
+        long endOffset = endOffsets.get(partition);
+        if (endOffset == 0) {
             LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
             typedConsumer.close();
             splitParameters.info = "endOffset is 0 i.e partition does not have data";
             return;
         }
 
-        pollAndProcess(spiller, queryStatusChecker, splitParameters, typedConsumer);
+        // The split's end offset is inclusive while the partition's end offset is the offset the next record will get,
+        // so the last split of a partition ends one before it. Stopping once the consumer's position passes the last
+        // offset also covers offsets that hold no record (compaction, transaction markers) without waiting on polls.
+        long lastOffset = Math.min(splitParameters.endOffset, endOffset - 1);
+        if (splitParameters.startOffset > lastOffset) {
+            splitParameters.info = "start offset is past the end of the partition i.e no need to work";
+            return;
+        }
+
+        pollAndProcess(spiller, queryStatusChecker, splitParameters, typedConsumer, partition, lastOffset, newRecordProcessor(recordsRequest));
     }
 
-    private void pollAndProcess(BlockSpiller spiller, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters, Consumer<String, T> consumer)
+    private void pollAndProcess(
+            BlockSpiller spiller,
+            QueryStatusChecker queryStatusChecker,
+            SplitParameters splitParameters,
+            Consumer<String, T> consumer,
+            TopicPartition partition,
+            long lastOffset,
+            MskRecordProcessor<T> recordProcessor)
     {
         LOGGER.info("[kafka] {} Polling for data", splitParameters);
         int emptyResultFoundCount = 0;
@@ -69,7 +102,7 @@ public abstract class BaseMskConsumer<T> implements MskConsumer
                 return;
             }
 
-            ConsumerRecords<String, T> records = consumer.poll(Duration.ofSeconds(1L));
+            ConsumerRecords<String, T> records = consumer.poll(pollTimeout);
             LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
 
             splitParameters.pulled += records.count();
@@ -84,25 +117,97 @@ public abstract class BaseMskConsumer<T> implements MskConsumer
                 return;
             }
 
-            for (ConsumerRecord<String, T> record : records) {
-                if (record == null || record.value() == null) {
-                    LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record != null ? record.offset() : "unknown");
-                    return;
-                }
-                processRecord(spiller, splitParameters, record);
-
-                if (record.offset() >= splitParameters.endOffset) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-                    splitParameters.info = String.format(
-                            "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                            record.offset(),
-                            splitParameters.endOffset
-                    );
+            // The polled records are written up to WRITE_BATCH_ROWS at a time by a single reusable RowWriter.
+            RecordBatchWriter<T> batchWriter = new RecordBatchWriter<>(records.iterator(), recordProcessor, splitParameters, lastOffset);
+            while (batchWriter.hasNext()) {
+                if (!queryStatusChecker.isQueryRunning()) {
+                    LOGGER.debug("[kafka]{} Stopping and closing consumer due to query execution terminated by athena", splitParameters);
+                    splitParameters.info = "query status is false i.e no need to work";
                     return;
                 }
+                spiller.writeRows(batchWriter);
+            }
+
+            long position = consumer.position(partition);
+            if (batchWriter.reachedLastOffset() || position > lastOffset) {
+                LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current position is {})", splitParameters, position);
+                splitParameters.info = String.format(
+                        "reached at the end offset i.e no need to work: condition [if(position > lastOffset) i.e if(%s > %s)]",
+                        position,
+                        lastOffset
+                );
+                return;
             }
         }
     }
 
-    protected abstract void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, T> record);
+    /**
+     * Creates the processor used to write the records of a split. It is called once per split so any binding to the
+     * requested schema (e.g. resolving the projected columns) happens once rather than for every record.
+     *
+     * @param recordsRequest - instance of {@link ReadRecordsRequest}
+     * @return {@link MskRecordProcessor}
+     */
+    protected abstract MskRecordProcessor<T> newRecordProcessor(ReadRecordsRequest recordsRequest);
+
+    /**
+     * RowWriter which writes up to WRITE_BATCH_ROWS of the polled records in a single call to writeRows(...), stopping
+     * at the last offset of the split. A single instance is reused for every batch of a poll so consuming a large
+     * split doesn't allocate a new lambda (or pay for the BlockSpiller's per call size checks) for every record.
+     */
+    private static class RecordBatchWriter<T>
+            implements BlockWriter.RowWriter
+    {
+        private final Iterator<ConsumerRecord<String, T>> records;
+        private final MskRecordProcessor<T> recordProcessor;
+        private final SplitParameters splitParameters;
+        private final long lastOffset;
+        private boolean reachedLastOffset;
+
+        RecordBatchWriter(Iterator<ConsumerRecord<String, T>> records, MskRecordProcessor<T> recordProcessor, SplitParameters splitParameters, long lastOffset)
+        {
+            this.records = records;
+            this.recordProcessor = recordProcessor;
+            this.splitParameters = splitParameters;
+            this.lastOffset = lastOffset;
+        }
+
+        boolean hasNext()
+        {
+            return !reachedLastOffset && records.hasNext();
+        }
+
+        boolean reachedLastOffset()
+        {
+            return reachedLastOffset;
+        }
+
+        @Override
+        public int writeRows(Block block, int rowNum)
+                throws Exception
+        {
+            int matched = 0;
+            int read = 0;
+            while (read < WRITE_BATCH_ROWS && hasNext()) {
+                ConsumerRecord<String, T> record = records.next();
+                if (record.offset() > lastOffset) {
+                    reachedLastOffset = true;
+                    break;
+                }
+                read++;
+                if (record.value() == null) {
+                    LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record.offset());
+                }
+                else if (recordProcessor.processRecord(block, rowNum + matched, record)) {
+                    matched++;
+                    splitParameters.spilled += 1;
+                }
+                else {
+                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
+                }
+                reachedLastOffset = record.offset() >= lastOffset;
+            }
+            return matched;
+        }
+    }
 }
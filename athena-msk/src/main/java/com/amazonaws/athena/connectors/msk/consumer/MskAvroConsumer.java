@@ -20,36 +20,55 @@
 package com.amazonaws.athena.connectors.msk.consumer;
 
 import com.amazonaws.athena.connector.lambda.data.Block;
-import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
-import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class MskAvroConsumer extends BaseMskConsumer<GenericRecord>
 {
-    private static final Logger LOGGER = LoggerFactory.getLogger(MskAvroConsumer.class);
-
-    @Override
-    protected void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, GenericRecord> record)
+    public MskAvroConsumer(Duration pollTimeout)
     {
-        getRecordProcessor().processRecord(spiller, splitParameters, record);
+        super(pollTimeout);
     }
 
-    private MskRecordProcessor<GenericRecord> getRecordProcessor()
+    @Override
+    protected MskRecordProcessor<GenericRecord> newRecordProcessor(ReadRecordsRequest recordsRequest)
     {
-        return (spiller, splitParameters, record) -> spiller.writeRows((Block block, int rowNum) -> {
-            for (Schema.Field next : record.value().getSchema().getFields()) {
-                boolean isMatched = block.offerValue(next.name(), rowNum, record.value().get(next.name()));
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
+        List<String> fieldNames = recordsRequest.getSchema().getFields().stream()
+                .map(Field::getName)
+                .collect(Collectors.toList());
+
+        // Only the projected fields are written, by their position in the record's writer schema. The positions are
+        // looked up again only when a record written with a different schema version comes along.
+        return new MskRecordProcessor<GenericRecord>()
+        {
+            private Schema boundSchema;
+            private final int[] positions = new int[fieldNames.size()];
+
+            @Override
+            public boolean processRecord(Block block, int rowNum, ConsumerRecord<String, GenericRecord> record)
+            {
+                GenericRecord value = record.value();
+                if (value.getSchema() != boundSchema) {
+                    for (int i = 0; i < positions.length; i++) {
+                        Schema.Field field = value.getSchema().getField(fieldNames.get(i));
+                        positions[i] = (field == null) ? -1 : field.pos();
+                    }
+                    boundSchema = value.getSchema();
+                }
+                for (int i = 0; i < positions.length; i++) {
+                    if (positions[i] >= 0 && !block.offerValue(fieldNames.get(i), rowNum, value.get(positions[i]))) {
+                        return false;
+                    }
                 }
+                return true;
             }
-            splitParameters.spilled += 1;
-            return 1;
-        });
+        };
     }
 }
@@ -19,37 +19,29 @@
  */
 package com.amazonaws.athena.connectors.msk.consumer;
 
-import com.amazonaws.athena.connector.lambda.data.Block;
-import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.msk.dto.MSKField;
-import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
 import com.amazonaws.athena.connectors.msk.dto.TopicResultSet;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
 
 public class MskDefaultConsumer extends BaseMskConsumer<TopicResultSet>
 {
-    private static final Logger LOGGER = LoggerFactory.getLogger(MskDefaultConsumer.class);
-
-    @Override
-    protected void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, TopicResultSet> record)
+    public MskDefaultConsumer(Duration pollTimeout)
     {
-        getRecordProcessor().processRecord(spiller, splitParameters, record);
+        super(pollTimeout);
     }
 
-    private MskRecordProcessor<TopicResultSet> getRecordProcessor()
+    @Override
+    protected MskRecordProcessor<TopicResultSet> newRecordProcessor(ReadRecordsRequest recordsRequest)
     {
-        return (spiller, splitParameters, record) -> spiller.writeRows((Block block, int rowNum) -> {
+        return (block, rowNum, record) -> {
             for (MSKField field : record.value().getFields()) {
-                boolean isMatched = block.offerValue(field.getName(), rowNum, field.getValue());
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
+                if (!block.offerValue(field.getName(), rowNum, field.getValue())) {
+                    return false;
                 }
             }
-            splitParameters.spilled += 1;
-            return 1;
-        });
+            return true;
+        };
     }
 }
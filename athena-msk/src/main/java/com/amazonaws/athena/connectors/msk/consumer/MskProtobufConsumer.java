@@ -20,36 +20,59 @@
 package com.amazonaws.athena.connectors.msk.consumer;
 
 import com.amazonaws.athena.connector.lambda.data.Block;
-import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
-import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
+import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class MskProtobufConsumer extends BaseMskConsumer<DynamicMessage>
 {
-    private static final Logger LOGGER = LoggerFactory.getLogger(MskProtobufConsumer.class);
-
-    @Override
-    protected void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, DynamicMessage> record)
+    public MskProtobufConsumer(Duration pollTimeout)
     {
-        getRecordProcessor().processRecord(spiller, splitParameters, record);
+        super(pollTimeout);
     }
 
-    private MskRecordProcessor<DynamicMessage> getRecordProcessor()
+    @Override
+    protected MskRecordProcessor<DynamicMessage> newRecordProcessor(ReadRecordsRequest recordsRequest)
     {
-        return (spiller, splitParameters, record) -> spiller.writeRows((Block block, int rowNum) -> {
-            for (Descriptors.FieldDescriptor next : record.value().getAllFields().keySet()) {
-                boolean isMatched = block.offerValue(next.getName(), rowNum, record.value().getField(next));
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
+        List<String> fieldNames = recordsRequest.getSchema().getFields().stream()
+                .map(Field::getName)
+                .collect(Collectors.toList());
+
+        // Only the projected fields are written, by their FieldDescriptor, rather than building
+        // DynamicMessage.getAllFields() for every record. The descriptors are looked up again only when a message of a
+        // different type comes along. Like getAllFields(), unset and empty repeated fields are skipped.
+        return new MskRecordProcessor<DynamicMessage>()
+        {
+            private Descriptors.Descriptor boundDescriptor;
+            private final Descriptors.FieldDescriptor[] fields = new Descriptors.FieldDescriptor[fieldNames.size()];
+
+            @Override
+            public boolean processRecord(Block block, int rowNum, ConsumerRecord<String, DynamicMessage> record)
+            {
+                DynamicMessage message = record.value();
+                if (message.getDescriptorForType() != boundDescriptor) {
+                    for (int i = 0; i < fields.length; i++) {
+                        fields[i] = message.getDescriptorForType().findFieldByName(fieldNames.get(i));
+                    }
+                    boundDescriptor = message.getDescriptorForType();
+                }
+                for (int i = 0; i < fields.length; i++) {
+                    Descriptors.FieldDescriptor field = fields[i];
+                    if (field == null || (field.isRepeated() ? message.getRepeatedFieldCount(field) == 0 : !message.hasField(field))) {
+                        continue;
+                    }
+                    if (!block.offerValue(fieldNames.get(i), rowNum, message.getField(field))) {
+                        return false;
+                    }
                 }
+                return true;
             }
-            splitParameters.spilled += 1;
-            return 1;
-        });
+        };
     }
 }
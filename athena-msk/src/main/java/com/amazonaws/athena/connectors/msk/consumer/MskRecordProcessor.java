@@ -19,11 +19,17 @@
  */
 package com.amazonaws.athena.connectors.msk.consumer;
 
-import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
-import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
+import com.amazonaws.athena.connector.lambda.data.Block;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 
+/**
+ * Writes a single, non null, record into the Block.
+ */
 public interface MskRecordProcessor<T>
 {
-    void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, T> record);
+    /**
+     * @return True if the record matched the constraints and was written to the row, False otherwise.
+     */
+    boolean processRecord(Block block, int rowNum, ConsumerRecord<String, T> record)
+            throws Exception;
 }
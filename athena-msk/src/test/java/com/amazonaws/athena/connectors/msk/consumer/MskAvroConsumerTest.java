@@ -0,0 +1,339 @@
+/*-
+ * #%L
+ * Athena MSK Connector
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.msk.consumer;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.SpillConfig;
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
+import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
+import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MskAvroConsumerTest
+{
+    private static final String TOPIC = "customers";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+    private static final org.apache.avro.Schema CUSTOMER_SCHEMA = new org.apache.avro.Schema.Parser().parse(
+            "{\"type\": \"record\", \"name\": \"customer\", \"fields\": ["
+                    + "{\"name\": \"id\", \"type\": \"int\"},"
+                    + "{\"name\": \"name\", \"type\": [\"null\", \"string\"]},"
+                    + "{\"name\": \"balance\", \"type\": \"long\"},"
+                    + "{\"name\": \"birthday\", \"type\": {\"type\": \"int\", \"logicalType\": \"date\"}},"
+                    + "{\"name\": \"updated\", \"type\": {\"type\": \"long\", \"logicalType\": \"timestamp-millis\"}},"
+                    + "{\"name\": \"address\", \"type\": {\"type\": \"record\", \"name\": \"address\", \"fields\": ["
+                    + "{\"name\": \"city\", \"type\": \"string\"}]}}]}");
+    //A later version of the schema which adds a field in front of the others, moving every field's position.
+    private static final org.apache.avro.Schema CUSTOMER_SCHEMA_V2 = new org.apache.avro.Schema.Parser().parse(
+            "{\"type\": \"record\", \"name\": \"customer\", \"fields\": ["
+                    + "{\"name\": \"tier\", \"type\": \"string\"},"
+                    + "{\"name\": \"name\", \"type\": [\"null\", \"string\"]},"
+                    + "{\"name\": \"id\", \"type\": \"int\"}]}");
+
+    private final Schema schema = SchemaBuilder.newBuilder()
+            .addIntField("id")
+            .addStringField("name")
+            .addBigIntField("balance")
+            .addDateDayField("birthday")
+            .addDateMilliField("updated")
+            .addStringField("address")
+            .build();
+
+    private BlockAllocatorImpl allocator;
+    private MockConsumer<String, GenericRecord> consumer;
+    private QueryStatusChecker queryStatusChecker;
+
+    @Before
+    public void setUp()
+    {
+        allocator = new BlockAllocatorImpl();
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updateBeginningOffsets(ImmutableMap.of(PARTITION, 0L));
+        queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void consumeWritesTypedAndNestedValues()
+            throws Exception
+    {
+        GenericRecord nullName = customer(1, null);
+        schedulePoll(new ConsumerRecord<>(TOPIC, 0, 0, "k0", customer(0, new Utf8("Jane"))),
+                new ConsumerRecord<>(TOPIC, 0, 1, "k1", nullName),
+                new ConsumerRecord<>(TOPIC, 0, 2, "k2", (GenericRecord) null));
+        consumer.updateEndOffsets(ImmutableMap.of(PARTITION, 3L));
+        SplitParameters splitParameters = new SplitParameters(TOPIC, 0, 0, 2);
+
+        try (S3BlockSpiller spiller = newSpiller(Collections.emptyMap())) {
+            new MskAvroConsumer(Duration.ofMillis(10)).consume(spiller, newRequest(Collections.emptyMap()), queryStatusChecker, splitParameters, consumer);
+
+            Block block = spiller.getBlock();
+            //The null record value is skipped.
+            assertEquals(2, block.getRowCount());
+            assertEquals(3, splitParameters.pulled);
+            assertEquals(2, splitParameters.spilled);
+
+            assertEquals(0, ((IntVector) block.getFieldVector("id")).get(0));
+            assertEquals("Jane", ((VarCharVector) block.getFieldVector("name")).getObject(0).toString());
+            assertEquals(1_000L, ((BigIntVector) block.getFieldVector("balance")).get(0));
+            assertEquals(LocalDate.of(2020, 1, 1), LocalDate.ofEpochDay(((DateDayVector) block.getFieldVector("birthday")).get(0)));
+            assertEquals(LocalDateTime.of(2020, 1, 1, 12, 30), ((DateMilliVector) block.getFieldVector("updated")).getObject(0));
+            assertEquals("{\"city\": \"Seattle\"}", ((VarCharVector) block.getFieldVector("address")).getObject(0).toString());
+
+            assertEquals(1, ((IntVector) block.getFieldVector("id")).get(1));
+            assertTrue(block.getFieldVector("name").isNull(1));
+        }
+    }
+
+    @Test
+    public void consumeRebindsFieldsWhenTheWriterSchemaChanges()
+            throws Exception
+    {
+        GenericRecord v2 = new GenericData.Record(CUSTOMER_SCHEMA_V2);
+        v2.put("tier", "gold");
+        v2.put("name", "Bob");
+        v2.put("id", 7);
+        schedulePoll(new ConsumerRecord<>(TOPIC, 0, 0, "k0", customer(0, "Jane")),
+                new ConsumerRecord<>(TOPIC, 0, 1, "k1", v2));
+        consumer.updateEndOffsets(ImmutableMap.of(PARTITION, 2L));
+
+        try (S3BlockSpiller spiller = newSpiller(Collections.emptyMap())) {
+            new MskAvroConsumer(Duration.ofMillis(10)).consume(spiller, newRequest(Collections.emptyMap()), queryStatusChecker,
+                    new SplitParameters(TOPIC, 0, 0, 1), consumer);
+
+            Block block = spiller.getBlock();
+            assertEquals(2, block.getRowCount());
+            assertEquals(7, ((IntVector) block.getFieldVector("id")).get(1));
+            assertEquals("Bob", ((VarCharVector) block.getFieldVector("name")).getObject(1).toString());
+            //Fields missing from the writer schema are left null.
+            assertTrue(block.getFieldVector("balance").isNull(1));
+            assertTrue(block.getFieldVector("address").isNull(1));
+        }
+    }
+
+    @Test
+    public void consumeFiltersRowsOnConstraints()
+            throws Exception
+    {
+        schedulePoll(new ConsumerRecord<>(TOPIC, 0, 0, "k0", customer(0, new Utf8("Jane"))),
+                new ConsumerRecord<>(TOPIC, 0, 1, "k1", customer(1, new Utf8("Bob"))),
+                new ConsumerRecord<>(TOPIC, 0, 2, "k2", customer(2, new Utf8("Jane"))));
+        consumer.updateEndOffsets(ImmutableMap.of(PARTITION, 3L));
+        SplitParameters splitParameters = new SplitParameters(TOPIC, 0, 0, 2);
+        Map<String, ValueSet> summary = ImmutableMap.of("name",
+                EquatableValueSet.newBuilder(allocator, Types.MinorType.VARCHAR.getType(), true, false).add("Jane").build());
+
+        try (S3BlockSpiller spiller = newSpiller(summary)) {
+            new MskAvroConsumer(Duration.ofMillis(10)).consume(spiller, newRequest(summary), queryStatusChecker, splitParameters, consumer);
+
+            Block block = spiller.getBlock();
+            assertEquals(2, block.getRowCount());
+            assertEquals(0, ((IntVector) block.getFieldVector("id")).get(0));
+            assertEquals(2, ((IntVector) block.getFieldVector("id")).get(1));
+            assertEquals(3, splitParameters.pulled);
+            assertEquals(2, splitParameters.spilled);
+        }
+    }
+
+    @Test
+    public void consumeStopsAtTheSplitEndOffsetWithinAPoll()
+            throws Exception
+    {
+        //250 records in a single poll, spanning several write batches, with the split ending part way through one.
+        List<ConsumerRecord<String, GenericRecord>> records = new ArrayList<>();
+        for (int offset = 0; offset < 250; offset++) {
+            records.add(new ConsumerRecord<>(TOPIC, 0, offset, "k" + offset, customer(offset, "name-" + offset)));
+        }
+        schedulePoll(records);
+        consumer.updateEndOffsets(ImmutableMap.of(PARTITION, 250L));
+        SplitParameters splitParameters = new SplitParameters(TOPIC, 0, 0, 149);
+
+        try (S3BlockSpiller spiller = newSpiller(Collections.emptyMap())) {
+            new MskAvroConsumer(Duration.ofMillis(10)).consume(spiller, newRequest(Collections.emptyMap()), queryStatusChecker, splitParameters, consumer);
+
+            Block block = spiller.getBlock();
+            assertEquals(150, block.getRowCount());
+            assertEquals(149, ((IntVector) block.getFieldVector("id")).get(149));
+            assertEquals(150, splitParameters.spilled);
+            assertTrue(splitParameters.info.startsWith("reached at the end offset"));
+        }
+    }
+
+    @Test
+    public void consumeStopsOneBeforeThePartitionEndOffset()
+            throws Exception
+    {
+        //The split's end offset lies past the end of the partition, reading must stop after offset 2 without
+        //polling again.
+        schedulePoll(new ConsumerRecord<>(TOPIC, 0, 0, "k0", customer(0, "Jane")),
+                new ConsumerRecord<>(TOPIC, 0, 1, "k1", customer(1, "Bob")),
+                new ConsumerRecord<>(TOPIC, 0, 2, "k2", customer(2, "Ann")));
+        boolean[] polledAgain = new boolean[1];
+        consumer.schedulePollTask(() -> polledAgain[0] = true);
+        consumer.updateEndOffsets(ImmutableMap.of(PARTITION, 3L));
+        SplitParameters splitParameters = new SplitParameters(TOPIC, 0, 0, 10);
+
+        try (S3BlockSpiller spiller = newSpiller(Collections.emptyMap())) {
+            new MskAvroConsumer(Duration.ofMillis(10)).consume(spiller, newRequest(Collections.emptyMap()), queryStatusChecker, splitParameters, consumer);
+
+            assertEquals(3, spiller.getBlock().getRowCount());
+            assertFalse(polledAgain[0]);
+            assertTrue(splitParameters.info.startsWith("reached at the end offset"));
+        }
+    }
+
+    @Test
+    public void consumeSkipsSplitsThatStartPastThePartitionEnd()
+            throws Exception
+    {
+        consumer.updateEndOffsets(ImmutableMap.of(PARTITION, 3L));
+        SplitParameters splitParameters = new SplitParameters(TOPIC, 0, 3, 10);
+
+        try (S3BlockSpiller spiller = newSpiller(Collections.emptyMap())) {
+            new MskAvroConsumer(Duration.ofMillis(10)).consume(spiller, newRequest(Collections.emptyMap()), queryStatusChecker, splitParameters, consumer);
+
+            assertEquals(0, spiller.getBlock().getRowCount());
+            assertEquals(0, splitParameters.pulled);
+        }
+    }
+
+    private GenericRecord customer(int id, CharSequence name)
+    {
+        GenericRecord address = new GenericData.Record(CUSTOMER_SCHEMA.getField("address").schema());
+        address.put("city", new Utf8("Seattle"));
+        GenericRecord record = new GenericData.Record(CUSTOMER_SCHEMA);
+        record.put("id", id);
+        record.put("name", name);
+        record.put("balance", 1_000L);
+        record.put("birthday", (int) LocalDate.of(2020, 1, 1).toEpochDay());
+        record.put("updated", LocalDateTime.of(2020, 1, 1, 12, 30).toInstant(ZoneOffset.UTC).toEpochMilli());
+        record.put("address", address);
+        return record;
+    }
+
+    @SafeVarargs
+    private final void schedulePoll(ConsumerRecord<String, GenericRecord>... records)
+    {
+        List<ConsumerRecord<String, GenericRecord>> list = new ArrayList<>();
+        Collections.addAll(list, records);
+        schedulePoll(list);
+    }
+
+    private void schedulePoll(List<ConsumerRecord<String, GenericRecord>> records)
+    {
+        consumer.schedulePollTask(() -> records.forEach(consumer::addRecord));
+    }
+
+    private S3BlockSpiller newSpiller(Map<String, ValueSet> summary)
+    {
+        SpillConfig spillConfig = SpillConfig.newBuilder()
+                .withEncryptionKey(new LocalKeyFactory().create())
+                //Large enough that nothing is spilled.
+                .withMaxBlockBytes(10_000_000)
+                .withMaxInlineBlockBytes(10_000_000)
+                .withNumSpillThreads(0)
+                .withRequestId(UUID.randomUUID().toString())
+                .withSpillLocation(spillLocation())
+                .build();
+        return new S3BlockSpiller(mock(S3Client.class), spillConfig, allocator, schema,
+                new ConstraintEvaluator(allocator, schema, newConstraints(summary)), Collections.emptyMap());
+    }
+
+    private ReadRecordsRequest newRequest(Map<String, ValueSet> summary)
+    {
+        return new ReadRecordsRequest(mock(FederatedIdentity.class),
+                "testCatalog",
+                "queryId",
+                new TableName("testSchema", TOPIC),
+                schema,
+                Split.newBuilder(spillLocation(), new LocalKeyFactory().create()).build(),
+                newConstraints(summary),
+                0,
+                0);
+    }
+
+    private static Constraints newConstraints(Map<String, ValueSet> summary)
+    {
+        return new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+    }
+
+    private static S3SpillLocation spillLocation()
+    {
+        return S3SpillLocation.newBuilder()
+                .withBucket("bucket")
+                .withPrefix("prefix")
+                .withSplitId(UUID.randomUUID().toString())
+                .withQueryId(UUID.randomUUID().toString())
+                .withIsDirectory(true)
+                .build();
+    }
+}
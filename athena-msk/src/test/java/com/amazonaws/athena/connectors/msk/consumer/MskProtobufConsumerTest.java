@@ -0,0 +1,266 @@
+/*-
+ * #%L
+ * Athena MSK Connector
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.msk.consumer;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.SpillConfig;
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
+import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
+import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MskProtobufConsumerTest
+{
+    private static final String TOPIC = "orders";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private final Schema schema = SchemaBuilder.newBuilder()
+            .addStringField("item")
+            .addBigIntField("quantity")
+            .addField("price", Types.MinorType.FLOAT8.getType())
+            .addStringField("address")
+            .addStringField("tags")
+            .build();
+
+    private Descriptors.Descriptor orderDescriptor;
+    private BlockAllocatorImpl allocator;
+    private MockConsumer<String, DynamicMessage> consumer;
+    private QueryStatusChecker queryStatusChecker;
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        orderDescriptor = buildOrderDescriptor();
+        allocator = new BlockAllocatorImpl();
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updateBeginningOffsets(ImmutableMap.of(PARTITION, 0L));
+        queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void consumeWritesTypedAndNestedValues()
+            throws Exception
+    {
+        DynamicMessage withoutOptionalFields = DynamicMessage.newBuilder(orderDescriptor)
+                .setField(orderDescriptor.findFieldByName("item"), "pen")
+                .setField(orderDescriptor.findFieldByName("quantity"), 3L)
+                .build();
+        List<ConsumerRecord<String, DynamicMessage>> records = ImmutableList.of(
+                new ConsumerRecord<>(TOPIC, 0, 0, "k0", order("cake", 2L, 9.5, ImmutableList.of("sweet", "baked"))),
+                new ConsumerRecord<>(TOPIC, 0, 1, "k1", withoutOptionalFields),
+                new ConsumerRecord<>(TOPIC, 0, 2, "k2", null));
+        consumer.schedulePollTask(() -> records.forEach(consumer::addRecord));
+        consumer.updateEndOffsets(ImmutableMap.of(PARTITION, 3L));
+        SplitParameters splitParameters = new SplitParameters(TOPIC, 0, 0, 2);
+
+        try (S3BlockSpiller spiller = newSpiller(Collections.emptyMap())) {
+            new MskProtobufConsumer(Duration.ofMillis(10)).consume(spiller, newRequest(Collections.emptyMap()), queryStatusChecker, splitParameters, consumer);
+
+            Block block = spiller.getBlock();
+            //The null record value is skipped.
+            assertEquals(2, block.getRowCount());
+            assertEquals(2, splitParameters.spilled);
+
+            assertEquals("cake", ((VarCharVector) block.getFieldVector("item")).getObject(0).toString());
+            assertEquals(2L, ((BigIntVector) block.getFieldVector("quantity")).get(0));
+            assertEquals(9.5, ((Float8Vector) block.getFieldVector("price")).get(0), 0);
+            assertEquals("city: \"Seattle\"\n", ((VarCharVector) block.getFieldVector("address")).getObject(0).toString());
+            assertEquals("[sweet, baked]", ((VarCharVector) block.getFieldVector("tags")).getObject(0).toString());
+
+            //Unset fields and empty repeated fields are left null, like DynamicMessage.getAllFields() leaves them out.
+            assertEquals("pen", ((VarCharVector) block.getFieldVector("item")).getObject(1).toString());
+            assertTrue(block.getFieldVector("price").isNull(1));
+            assertTrue(block.getFieldVector("address").isNull(1));
+            assertTrue(block.getFieldVector("tags").isNull(1));
+        }
+    }
+
+    @Test
+    public void consumeFiltersRowsOnConstraints()
+            throws Exception
+    {
+        List<ConsumerRecord<String, DynamicMessage>> records = ImmutableList.of(
+                new ConsumerRecord<>(TOPIC, 0, 0, "k0", order("cake", 2L, 9.5, ImmutableList.of())),
+                new ConsumerRecord<>(TOPIC, 0, 1, "k1", order("pie", 12L, 4.0, ImmutableList.of())),
+                new ConsumerRecord<>(TOPIC, 0, 2, "k2", order("tart", 5L, 3.0, ImmutableList.of())));
+        consumer.schedulePollTask(() -> records.forEach(consumer::addRecord));
+        consumer.updateEndOffsets(ImmutableMap.of(PARTITION, 3L));
+        SplitParameters splitParameters = new SplitParameters(TOPIC, 0, 0, 2);
+        Map<String, ValueSet> summary = ImmutableMap.of("quantity",
+                SortedRangeSet.of(false, Range.greaterThan(allocator, Types.MinorType.BIGINT.getType(), 4L)));
+
+        try (S3BlockSpiller spiller = newSpiller(summary)) {
+            new MskProtobufConsumer(Duration.ofMillis(10)).consume(spiller, newRequest(summary), queryStatusChecker, splitParameters, consumer);
+
+            Block block = spiller.getBlock();
+            assertEquals(2, block.getRowCount());
+            assertEquals("pie", ((VarCharVector) block.getFieldVector("item")).getObject(0).toString());
+            assertEquals("tart", ((VarCharVector) block.getFieldVector("item")).getObject(1).toString());
+            assertEquals(3, splitParameters.pulled);
+            assertEquals(2, splitParameters.spilled);
+        }
+    }
+
+    private DynamicMessage order(String item, long quantity, double price, List<String> tags)
+    {
+        Descriptors.FieldDescriptor addressField = orderDescriptor.findFieldByName("address");
+        DynamicMessage address = DynamicMessage.newBuilder(addressField.getMessageType())
+                .setField(addressField.getMessageType().findFieldByName("city"), "Seattle")
+                .build();
+        DynamicMessage.Builder builder = DynamicMessage.newBuilder(orderDescriptor)
+                .setField(orderDescriptor.findFieldByName("item"), item)
+                .setField(orderDescriptor.findFieldByName("quantity"), quantity)
+                .setField(orderDescriptor.findFieldByName("price"), price)
+                .setField(addressField, address);
+        for (String tag : tags) {
+            builder.addRepeatedField(orderDescriptor.findFieldByName("tags"), tag);
+        }
+        return builder.build();
+    }
+
+    private static Descriptors.Descriptor buildOrderDescriptor()
+            throws Exception
+    {
+        DescriptorProtos.DescriptorProto address = DescriptorProtos.DescriptorProto.newBuilder()
+                .setName("Address")
+                .addField(field("city", 1, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .build();
+        DescriptorProtos.DescriptorProto order = DescriptorProtos.DescriptorProto.newBuilder()
+                .setName("Order")
+                .addField(field("item", 1, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING))
+                .addField(field("quantity", 2, DescriptorProtos.FieldDescriptorProto.Type.TYPE_INT64))
+                .addField(field("price", 3, DescriptorProtos.FieldDescriptorProto.Type.TYPE_DOUBLE))
+                .addField(field("address", 4, DescriptorProtos.FieldDescriptorProto.Type.TYPE_MESSAGE).toBuilder()
+                        .setTypeName(".athena_msk.Address"))
+                .addField(field("tags", 5, DescriptorProtos.FieldDescriptorProto.Type.TYPE_STRING).toBuilder()
+                        .setLabel(DescriptorProtos.FieldDescriptorProto.Label.LABEL_REPEATED))
+                .build();
+        DescriptorProtos.FileDescriptorProto file = DescriptorProtos.FileDescriptorProto.newBuilder()
+                .setPackage("athena_msk")
+                .setSyntax("proto3")
+                .addMessageType(address)
+                .addMessageType(order)
+                .build();
+        return Descriptors.FileDescriptor.buildFrom(file, new Descriptors.FileDescriptor[] {}).findMessageTypeByName("Order");
+    }
+
+    private static DescriptorProtos.FieldDescriptorProto field(String name, int number, DescriptorProtos.FieldDescriptorProto.Type type)
+    {
+        return DescriptorProtos.FieldDescriptorProto.newBuilder()
+                .setName(name)
+                .setNumber(number)
+                .setType(type)
+                .build();
+    }
+
+    private S3BlockSpiller newSpiller(Map<String, ValueSet> summary)
+    {
+        SpillConfig spillConfig = SpillConfig.newBuilder()
+                .withEncryptionKey(new LocalKeyFactory().create())
+                //Large enough that nothing is spilled.
+                .withMaxBlockBytes(10_000_000)
+                .withMaxInlineBlockBytes(10_000_000)
+                .withNumSpillThreads(0)
+                .withRequestId(UUID.randomUUID().toString())
+                .withSpillLocation(spillLocation())
+                .build();
+        return new S3BlockSpiller(mock(S3Client.class), spillConfig, allocator, schema,
+                new ConstraintEvaluator(allocator, schema, newConstraints(summary)), Collections.emptyMap());
+    }
+
+    private ReadRecordsRequest newRequest(Map<String, ValueSet> summary)
+    {
+        return new ReadRecordsRequest(mock(FederatedIdentity.class),
+                "testCatalog",
+                "queryId",
+                new TableName("testSchema", TOPIC),
+                schema,
+                Split.newBuilder(spillLocation(), new LocalKeyFactory().create()).build(),
+                newConstraints(summary),
+                0,
+                0);
+    }
+
+    private static Constraints newConstraints(Map<String, ValueSet> summary)
+    {
+        return new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+    }
+
+    private static S3SpillLocation spillLocation()
+    {
+        return S3SpillLocation.newBuilder()
+                .withBucket("bucket")
+                .withPrefix("prefix")
+                .withSplitId(UUID.randomUUID().toString())
+                .withQueryId(UUID.randomUUID().toString())
+                .withIsDirectory(true)
+                .build();
+    }
+}
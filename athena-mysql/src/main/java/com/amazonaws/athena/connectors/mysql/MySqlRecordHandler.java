@@ -30,6 +30,7 @@ import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcRecordHandler;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
@@ -41,6 +42,7 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Map;
 
 import static com.amazonaws.athena.connectors.mysql.MySqlConstants.MYSQL_DEFAULT_PORT;
 import static com.amazonaws.athena.connectors.mysql.MySqlConstants.MYSQL_DRIVER_CLASS;
@@ -71,7 +73,8 @@ public class MySqlRecordHandler
 
     public MySqlRecordHandler(DatabaseConnectionConfig databaseConnectionConfig, java.util.Map<String, String> configOptions)
     {
-        this(databaseConnectionConfig, new GenericJdbcConnectionFactory(databaseConnectionConfig, MySqlMetadataHandler.JDBC_PROPERTIES, new DatabaseConnectionInfo(MYSQL_DRIVER_CLASS, MYSQL_DEFAULT_PORT)), configOptions);
+        this(databaseConnectionConfig, new GenericJdbcConnectionFactory(databaseConnectionConfig, getJdbcProperties(configOptions),
+                new DatabaseConnectionInfo(MYSQL_DRIVER_CLASS, MYSQL_DEFAULT_PORT), configOptions), configOptions);
     }
 
     public MySqlRecordHandler(DatabaseConnectionConfig databaseConnectionConfig, JdbcConnectionFactory jdbcConnectionFactory, java.util.Map<String, String> configOptions)
@@ -100,9 +103,25 @@ public class MySqlRecordHandler
         else {
             preparedStatement = jdbcSplitQueryBuilder.buildSql(jdbcConnection, null, tableName.getSchemaName(), tableName.getTableName(), schema, constraints, split);
         }
-        // Disable fetching all rows.
-        preparedStatement.setFetchSize(Integer.MIN_VALUE);
+        // Disable fetching all rows, Integer.MIN_VALUE streams rows one at a time while a positive fetch size uses a
+        // server side cursor (see getJdbcProperties).
+        preparedStatement.setFetchSize(getFetchSize(Integer.MIN_VALUE));
 
         return preparedStatement;
     }
+
+    /**
+     * MySQL ignores positive fetch sizes, and buffers the whole result, unless cursor based fetching is enabled.
+     */
+    @VisibleForTesting
+    static Map<String, String> getJdbcProperties(Map<String, String> configOptions)
+    {
+        if (getFetchSize(configOptions, Integer.MIN_VALUE) > 0) {
+            return ImmutableMap.<String, String>builder()
+                    .putAll(MySqlMetadataHandler.JDBC_PROPERTIES)
+                    .put("useCursorFetch", "true")
+                    .build();
+        }
+        return MySqlMetadataHandler.JDBC_PROPERTIES;
+    }
 }
@@ -33,6 +33,7 @@ import com.amazonaws.athena.connector.lambda.domain.predicate.OrderByField.Direc
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
 import com.amazonaws.athena.connector.credentials.CredentialsProvider;
+import com.amazonaws.athena.connectors.jdbc.manager.JdbcRecordHandler;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -50,6 +51,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Collections;
+import java.util.Map;
 
 import static com.amazonaws.athena.connectors.mysql.MySqlConstants.MYSQL_NAME;
 import static org.mockito.ArgumentMatchers.nullable;
@@ -180,4 +182,14 @@ public class MySqlRecordHandlerTest
         Mockito.when(valueSet.getRanges().getOrderedRanges()).thenReturn(Collections.singletonList(range));
         return valueSet;
     }
+
+    @Test
+    public void getJdbcProperties()
+    {
+        Assert.assertEquals(MySqlMetadataHandler.JDBC_PROPERTIES, MySqlRecordHandler.getJdbcProperties(Collections.emptyMap()));
+
+        Map<String, String> cursorFetch = MySqlRecordHandler.getJdbcProperties(Collections.singletonMap(JdbcRecordHandler.JDBC_FETCH_SIZE, "5000"));
+        Assert.assertEquals("true", cursorFetch.get("useCursorFetch"));
+        Assert.assertEquals("SCHEMA", cursorFetch.get("databaseTerm"));
+    }
 }
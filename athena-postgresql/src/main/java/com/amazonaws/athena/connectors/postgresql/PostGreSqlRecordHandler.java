@@ -31,6 +31,7 @@ import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcRecordHandler;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
@@ -44,6 +45,7 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Map;
 
 import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRESQL_DEFAULT_PORT;
 import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRESQL_DRIVER_CLASS;
@@ -72,7 +74,8 @@ public class PostGreSqlRecordHandler
     public PostGreSqlRecordHandler(DatabaseConnectionConfig databaseConnectionConfig, java.util.Map<String, String> configOptions)
     {
         this(databaseConnectionConfig, S3Client.create(), SecretsManagerClient.create(), AthenaClient.create(),
-                new GenericJdbcConnectionFactory(databaseConnectionConfig, PostGreSqlMetadataHandler.JDBC_PROPERTIES, new DatabaseConnectionInfo(POSTGRESQL_DRIVER_CLASS, POSTGRESQL_DEFAULT_PORT)),
+                new GenericJdbcConnectionFactory(databaseConnectionConfig, getJdbcProperties(configOptions),
+                        new DatabaseConnectionInfo(POSTGRESQL_DRIVER_CLASS, POSTGRESQL_DEFAULT_PORT), configOptions),
                 new PostGreSqlQueryStringBuilder(POSTGRES_QUOTE_CHARACTER, new PostgreSqlFederationExpressionParser(POSTGRES_QUOTE_CHARACTER)), configOptions);
     }
 
@@ -96,7 +99,7 @@ public class PostGreSqlRecordHandler
                 preparedStatement = jdbcSplitQueryBuilder.buildSql(jdbcConnection, null, tableName.getSchemaName(), tableName.getTableName(), schema, constraints, split);
             }
             // Disable fetching all rows.
-            preparedStatement.setFetchSize(FETCH_SIZE);
+            preparedStatement.setFetchSize(getFetchSize(FETCH_SIZE));
         }
         catch (SQLException e) {
             throw new AthenaConnectorException(e.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
@@ -104,4 +107,21 @@ public class PostGreSqlRecordHandler
 
         return preparedStatement;
     }
+
+    /**
+     * Also applies a configured fetch size as the connection's default so that every statement run on the record
+     * handler's connections, not only split queries, is fetched in batches of that size.
+     */
+    @VisibleForTesting
+    static Map<String, String> getJdbcProperties(Map<String, String> configOptions)
+    {
+        int fetchSize = getFetchSize(configOptions, -1);
+        if (fetchSize > 0) {
+            return ImmutableMap.<String, String>builder()
+                    .putAll(PostGreSqlMetadataHandler.JDBC_PROPERTIES)
+                    .put("defaultRowFetchSize", String.valueOf(fetchSize))
+                    .build();
+        }
+        return PostGreSqlMetadataHandler.JDBC_PROPERTIES;
+    }
 }
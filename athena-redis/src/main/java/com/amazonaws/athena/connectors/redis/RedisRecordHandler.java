@@ -23,6 +23,7 @@ import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.redis.lettuce.RedisCommandsWrapper;
@@ -30,6 +31,7 @@ import com.amazonaws.athena.connectors.redis.lettuce.RedisConnectionFactory;
 import com.amazonaws.athena.connectors.redis.lettuce.RedisConnectionWrapper;
 import com.amazonaws.athena.connectors.redis.qpt.RedisQueryPassthrough;
 import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
 import io.lettuce.core.ScanArgs;
 import io.lettuce.core.ScanCursor;
 import io.lettuce.core.ScoredValue;
@@ -43,6 +45,7 @@ import software.amazon.awssdk.services.athena.AthenaClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -81,11 +84,20 @@ public class RedisRecordHandler
     private static final String SOURCE_TYPE = "redis";
     private static final String END_CURSOR = "0";
 
-    //The page size for Jedis scans.
-    private static final int SCAN_COUNT_SIZE = 100;
+    //Env. variable that holds the COUNT hint for key scans.
+    private static final String SCAN_COUNT_SIZE = "redis_scan_count";
+    //Env. variable that holds the max number of keys whose values are fetched with a single MGET or pipeline.
+    private static final String FETCH_BATCH_SIZE = "redis_fetch_batch_size";
+
+    //The default page size for key scans.
+    private static final int DEFAULT_SCAN_COUNT_SIZE = 100;
+    //The default number of keys whose values are fetched together.
+    private static final int DEFAULT_FETCH_BATCH_SIZE = 100;
 
     private final RedisConnectionFactory redisConnectionFactory;
     private final S3Client amazonS3;
+    private final int scanCountSize;
+    private final int fetchBatchSize;
 
     private final RedisQueryPassthrough queryPassthrough = new RedisQueryPassthrough();
 
@@ -109,6 +121,8 @@ public class RedisRecordHandler
         super(amazonS3, secretsManager, athena, SOURCE_TYPE, configOptions);
         this.amazonS3 = amazonS3;
         this.redisConnectionFactory = redisConnectionFactory;
+        this.scanCountSize = ConfigOptionUtils.getPositiveIntOption(configOptions, SCAN_COUNT_SIZE, DEFAULT_SCAN_COUNT_SIZE);
+        this.fetchBatchSize = ConfigOptionUtils.getPositiveIntOption(configOptions, FETCH_BATCH_SIZE, DEFAULT_FETCH_BATCH_SIZE);
     }
 
     /**
@@ -213,20 +227,27 @@ public class RedisRecordHandler
             //Load all the keys associated with this split
             keyCursor = loadKeys(syncCommands, split, keyCursor, keys);
 
-            //Scan the data associated with all the keys.
-            for (String nextKey : keys) {
+            //Scan the data associated with all the keys, fetching the values of up to fetchBatchSize keys at a time.
+            List<String> keyList = new ArrayList<>(keys);
+            for (int start = 0; start < keyList.size(); start += fetchBatchSize) {
                 if (!queryStatusChecker.isQueryRunning()) {
                     return;
                 }
+                List<String> batch = keyList.subList(start, Math.min(start + fetchBatchSize, keyList.size()));
                 switch (valueType) {
                     case LITERAL:   //The key value is a row with single column
-                        loadLiteralRow(syncCommands, nextKey, spiller, fieldList);
+                        loadLiteralRows(syncCommands, batch, spiller, fieldList, queryStatusChecker);
                         break;
                     case HASH:
-                        loadHashRow(syncCommands, nextKey, spiller, fieldList);
+                        loadHashRows(syncCommands, batch, spiller, fieldList, queryStatusChecker);
                         break;
                     case ZSET:
-                        loadZSetRows(syncCommands, nextKey, spiller, fieldList);
+                        for (String nextKey : batch) {
+                            if (!queryStatusChecker.isQueryRunning()) {
+                                return;
+                            }
+                            loadZSetRows(syncCommands, nextKey, spiller, fieldList);
+                        }
                         break;
                     default:
                         throw new RuntimeException("Unsupported value type " + valueType);
@@ -259,7 +280,7 @@ public class RedisRecordHandler
         else {
             ScanCursor cursor = (redisCursor == null) ? INITIAL : redisCursor;
             ScanArgs scanArgs = new ScanArgs();
-            scanArgs.limit(SCAN_COUNT_SIZE);
+            scanArgs.limit(scanCountSize);
             scanArgs.match(split.getProperty(KEY_PREFIX_TABLE_PROP));
 
             KeyScanCursor<String> newCursor = syncCommands.scan(cursor, scanArgs);
@@ -303,41 +324,61 @@ public class RedisRecordHandler
         }
     }
 
-    private void loadLiteralRow(RedisCommandsWrapper<String, String> syncCommands, String keyString, BlockSpiller spiller, List<Field> fieldList)
+    /**
+     * Writes one row per key, the values of all the keys are fetched with a single MGET.
+     */
+    private void loadLiteralRows(RedisCommandsWrapper<String, String> syncCommands, List<String> keys, BlockSpiller spiller,
+                                 List<Field> fieldList, QueryStatusChecker queryStatusChecker)
     {
-        spiller.writeRows((Block block, int row) -> {
-            if (fieldList.size() != 1) {
-                throw new RuntimeException("Ambiguous field mapping, more than 1 field for literal value type.");
-            }
+        if (fieldList.size() != 1) {
+            throw new RuntimeException("Ambiguous field mapping, more than 1 field for literal value type.");
+        }
 
-            Field field = fieldList.get(0);
-            Object value = ValueConverter.convert(field, syncCommands.get(keyString));
-            boolean literalMatched = block.offerValue(KEY_COLUMN_NAME, row, keyString);
-            literalMatched &= block.offerValue(field.getName(), row, value);
-            return literalMatched ? 1 : 0;
-        });
+        Field field = fieldList.get(0);
+        List<KeyValue<String, String>> values = syncCommands.mget(keys);
+        for (KeyValue<String, String> keyValue : values) {
+            if (!queryStatusChecker.isQueryRunning()) {
+                return;
+            }
+            spiller.writeRows((Block block, int row) -> {
+                Object value = ValueConverter.convert(field, keyValue.getValueOrElse(null));
+                boolean literalMatched = block.offerValue(KEY_COLUMN_NAME, row, keyValue.getKey());
+                literalMatched &= block.offerValue(field.getName(), row, value);
+                return literalMatched ? 1 : 0;
+            });
+        }
     }
 
-    private void loadHashRow(RedisCommandsWrapper<String, String> syncCommands, String keyString, BlockSpiller spiller,
-                             List<Field> fieldList)
+    /**
+     * Writes one row per key, the HGETALLs of all the keys are pipelined.
+     */
+    private void loadHashRows(RedisCommandsWrapper<String, String> syncCommands, List<String> keys, BlockSpiller spiller,
+                              List<Field> fieldList, QueryStatusChecker queryStatusChecker)
     {
-        spiller.writeRows((Block block, int row) -> {
-            boolean hashMatched = block.offerValue(KEY_COLUMN_NAME, row, keyString);
-
+        List<Map<String, String>> hashes = syncCommands.hgetall(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            if (!queryStatusChecker.isQueryRunning()) {
+                return;
+            }
+            String keyString = keys.get(i);
             Map<String, String> rawValues = new HashMap<>();
             //Glue only supports lowercase column names / also could do a better job only fetching the columns
             //that are needed
-            syncCommands.hgetall(keyString).forEach((key, entry) -> rawValues.put(key.toLowerCase(), entry));
+            hashes.get(i).forEach((key, entry) -> rawValues.put(key.toLowerCase(), entry));
 
-            for (Field hfield : fieldList) {
-                Object hvalue = ValueConverter.convert(hfield, rawValues.get(hfield.getName()));
-                if (hashMatched && !block.offerValue(hfield.getName(), row, hvalue)) {
-                    return 0;
+            spiller.writeRows((Block block, int row) -> {
+                boolean hashMatched = block.offerValue(KEY_COLUMN_NAME, row, keyString);
+
+                for (Field hfield : fieldList) {
+                    Object hvalue = ValueConverter.convert(hfield, rawValues.get(hfield.getName()));
+                    if (hashMatched && !block.offerValue(hfield.getName(), row, hvalue)) {
+                        return 0;
+                    }
                 }
-            }
 
-            return 1;
-        });
+                return 1;
+            });
+        }
     }
 
     private void loadZSetRows(RedisCommandsWrapper<String, String> syncCommands, String keyString, BlockSpiller spiller,
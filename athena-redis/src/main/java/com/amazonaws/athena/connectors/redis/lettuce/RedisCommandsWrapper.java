@@ -20,17 +20,25 @@
 package com.amazonaws.athena.connectors.redis.lettuce;
 
 import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
 import io.lettuce.core.Range;
+import io.lettuce.core.RedisFuture;
 import io.lettuce.core.ScanArgs;
 import io.lettuce.core.ScanCursor;
 import io.lettuce.core.ScoredValueScanCursor;
 import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
 import io.lettuce.core.cluster.api.sync.RedisAdvancedClusterCommands;
 import org.apache.arrow.util.VisibleForTesting;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.requireNonNull;
 
@@ -38,13 +46,35 @@ public class RedisCommandsWrapper<K, V>
 {
   private final RedisCommands<K, V> standaloneCommands;
   private final RedisAdvancedClusterCommands<K, V> clusterCommands;
+  private final RedisAsyncCommands<K, V> standaloneAsyncCommands;
+  private final RedisAdvancedClusterAsyncCommands<K, V> clusterAsyncCommands;
+  private final Duration timeout;
   private final boolean isCluster;
 
   public RedisCommandsWrapper(RedisCommands<K, V> standaloneCommands,
                               RedisAdvancedClusterCommands<K, V> clusterCommands, boolean isCluster)
+  {
+    this(standaloneCommands, clusterCommands, null, null, null, isCluster);
+  }
+
+  /**
+   * @param standaloneAsyncCommands Used to pipeline batched commands against a standalone server, may be null in
+   * which case batched commands are sent one at a time.
+   * @param clusterAsyncCommands Used to pipeline batched commands against a cluster, may be null in which case
+   * batched commands are sent one at a time.
+   * @param timeout How long to wait for each pipelined command, usually the connection's command timeout.
+   */
+  public RedisCommandsWrapper(RedisCommands<K, V> standaloneCommands,
+                              RedisAdvancedClusterCommands<K, V> clusterCommands,
+                              RedisAsyncCommands<K, V> standaloneAsyncCommands,
+                              RedisAdvancedClusterAsyncCommands<K, V> clusterAsyncCommands,
+                              Duration timeout, boolean isCluster)
   {
     this.standaloneCommands = standaloneCommands;
     this.clusterCommands = clusterCommands;
+    this.standaloneAsyncCommands = standaloneAsyncCommands;
+    this.clusterAsyncCommands = clusterAsyncCommands;
+    this.timeout = timeout;
     this.isCluster = isCluster;
     if (isCluster) {
       requireNonNull(clusterCommands, "RedisAdvancedClusterCommands is required");
@@ -104,6 +134,51 @@ public class RedisCommandsWrapper<K, V>
     }
   }
 
+  /**
+   * Gets the values of all the keys with a single MGET, on a cluster the keys are split into one MGET per slot.
+   *
+   * @param keys The keys to get.
+   * @return The key values in the same order as the keys, keys which don't exist have an empty KeyValue.
+   */
+  @SuppressWarnings("unchecked")
+  public List<KeyValue<K, V>> mget(List<K> keys)
+  {
+    K[] keyArray = (K[]) keys.toArray();
+    if (isCluster) {
+      return clusterCommands.mget(keyArray);
+    }
+    else {
+      return standaloneCommands.mget(keyArray);
+    }
+  }
+
+  /**
+   * Gets all the fields of each of the hashes. The HGETALL commands are pipelined over the async connection, so
+   * the batch costs about one round trip instead of one per key.
+   *
+   * @param keys The keys of the hashes to get.
+   * @return The fields of each hash in the same order as the keys, keys which don't exist have an empty map.
+   */
+  public List<Map<K, V>> hgetall(List<K> keys)
+  {
+    List<Map<K, V>> result = new ArrayList<>(keys.size());
+    if ((isCluster ? clusterAsyncCommands : standaloneAsyncCommands) == null) {
+      for (K key : keys) {
+        result.add(hgetall(key));
+      }
+      return result;
+    }
+
+    List<RedisFuture<Map<K, V>>> futures = new ArrayList<>(keys.size());
+    for (K key : keys) {
+      futures.add(isCluster ? clusterAsyncCommands.hgetall(key) : standaloneAsyncCommands.hgetall(key));
+    }
+    for (RedisFuture<Map<K, V>> future : futures) {
+      result.add(LettuceFutures.awaitOrCancel(future, timeout.toNanos(), TimeUnit.NANOSECONDS));
+    }
+    return result;
+  }
+
   public ScoredValueScanCursor<V> zscan(K var1, ScanCursor var2)
   {
     if (isCluster) {
@@ -39,11 +39,13 @@ public class RedisConnectionWrapper<K, V>
     this.isCluster = isCluster;
     if (isCluster) {
       requireNonNull(clusterConnection, "Cluster Connection is required");
-      redisCommandsWrapper = new RedisCommandsWrapper<K, V>(null, clusterConnection.sync(), isCluster);
+      redisCommandsWrapper = new RedisCommandsWrapper<K, V>(null, clusterConnection.sync(), null,
+          clusterConnection.async(), clusterConnection.getTimeout(), isCluster);
     }
     else {
       requireNonNull(standaloneConnection, "Standalone Connection is required");
-      redisCommandsWrapper = new RedisCommandsWrapper<K, V>(standaloneConnection.sync(), null, isCluster);
+      redisCommandsWrapper = new RedisCommandsWrapper<K, V>(standaloneConnection.sync(), null,
+          standaloneConnection.async(), null, standaloneConnection.getTimeout(), isCluster);
     }
   }
 
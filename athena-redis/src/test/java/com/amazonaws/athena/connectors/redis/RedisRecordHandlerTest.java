@@ -30,6 +30,7 @@ import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
 import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsResponse;
 import com.amazonaws.athena.connector.lambda.records.RecordResponse;
@@ -42,9 +43,12 @@ import com.amazonaws.athena.connectors.redis.util.MockKeyScanCursor;
 import com.amazonaws.athena.connectors.redis.util.MockScoredValueScanCursor;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteStreams;
+import io.lettuce.core.KeyValue;
 import io.lettuce.core.ScanArgs;
 import io.lettuce.core.ScanCursor;
 import io.lettuce.core.ScoredValue;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.CommandArgs;
 import org.apache.arrow.vector.complex.reader.FieldReader;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Schema;
@@ -54,6 +58,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestName;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
@@ -63,6 +68,7 @@ import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.athena.AthenaClient;
 import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
@@ -81,6 +87,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connectors.redis.RedisMetadataHandler.KEY_COLUMN_NAME;
@@ -90,10 +97,13 @@ import static com.amazonaws.athena.connectors.redis.RedisMetadataHandler.REDIS_E
 import static com.amazonaws.athena.connectors.redis.RedisMetadataHandler.VALUE_TYPE_TABLE_PROP;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -134,8 +144,8 @@ public class RedisRecordHandlerTest
     {
         logger.info("{}: enter", testName.getMethodName());
 
-        when(mockFactory.getOrCreateConn(eq(decodedEndpoint), anyBoolean(), anyBoolean(), any())).thenReturn(mockConnection);
-        when(mockConnection.sync()).thenReturn(mockSyncCommands);
+        Mockito.lenient().when(mockFactory.getOrCreateConn(eq(decodedEndpoint), anyBoolean(), anyBoolean(), any())).thenReturn(mockConnection);
+        Mockito.lenient().when(mockConnection.sync()).thenReturn(mockSyncCommands);
 
         allocator = new BlockAllocatorImpl();
 
@@ -164,7 +174,7 @@ public class RedisRecordHandlerTest
                 return new ResponseInputStream<>(GetObjectResponse.builder().build(), new ByteArrayInputStream(byteHolder.getBytes()));
                 });
 
-        when(mockSecretsManager.getSecretValue(nullable(GetSecretValueRequest.class)))
+        Mockito.lenient().when(mockSecretsManager.getSecretValue(nullable(GetSecretValueRequest.class)))
                 .thenAnswer((InvocationOnMock invocation) -> {
                     GetSecretValueRequest request = invocation.getArgument(0, GetSecretValueRequest.class);
                     if ("endpoint".equalsIgnoreCase(request.secretId())) {
@@ -215,8 +225,12 @@ public class RedisRecordHandlerTest
         });
 
         AtomicLong value = new AtomicLong(0);
-        when(mockSyncCommands.get(nullable(String.class)))
-                .thenAnswer((InvocationOnMock invocationOnMock) -> String.valueOf(value.getAndIncrement()));
+        when(mockSyncCommands.mget(anyList())).thenAnswer((InvocationOnMock invocationOnMock) -> {
+            List<String> keys = invocationOnMock.getArgument(0);
+            return keys.stream()
+                    .map(key -> KeyValue.just(key, String.valueOf(value.getAndIncrement())))
+                    .collect(Collectors.toList());
+        });
 
         S3SpillLocation splitLoc = S3SpillLocation.newBuilder()
                 .withBucket(UUID.randomUUID().toString())
@@ -304,12 +318,17 @@ public class RedisRecordHandlerTest
 
         //4 columns per key
         AtomicLong intColVal = new AtomicLong(0);
-        when(mockSyncCommands.hgetall(nullable(String.class))).then((InvocationOnMock invocationOnMock) -> {
-            Map<String, String> result = new HashMap<>();
-            result.put("intcol", String.valueOf(intColVal.getAndIncrement()));
-            result.put("stringcol", UUID.randomUUID().toString());
-            result.put("extracol", UUID.randomUUID().toString());
-            return result;
+        when(mockSyncCommands.hgetall(anyList())).then((InvocationOnMock invocationOnMock) -> {
+            List<String> keys = invocationOnMock.getArgument(0);
+            List<Map<String, String>> results = new ArrayList<>();
+            for (int i = 0; i < keys.size(); i++) {
+                Map<String, String> result = new HashMap<>();
+                result.put("intcol", String.valueOf(intColVal.getAndIncrement()));
+                result.put("stringcol", UUID.randomUUID().toString());
+                result.put("extracol", UUID.randomUUID().toString());
+                results.add(result);
+            }
+            return results;
         });
 
         AtomicLong value = new AtomicLong(0);
@@ -484,6 +503,90 @@ public class RedisRecordHandlerTest
         assertNotNull(intCol.readInteger());
     }
 
+    @Test
+    public void doReadRecordsLiteralBatched()
+            throws Exception
+    {
+        handler = new RedisRecordHandler(amazonS3, mockSecretsManager, mockAthena, mockFactory,
+                com.google.common.collect.ImmutableMap.of("redis_fetch_batch_size", "2", "redis_scan_count", "500"));
+
+        //5 keys in a single scan page
+        when(mockSyncCommands.scan(nullable(ScanCursor.class), nullable(ScanArgs.class))).then((InvocationOnMock invocationOnMock) -> {
+            List<String> result = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                result.add(UUID.randomUUID().toString());
+            }
+            MockKeyScanCursor<String> scanCursor = new MockKeyScanCursor<>();
+            scanCursor.setCursor("0");
+            scanCursor.setKeys(result);
+            scanCursor.setFinished(true);
+            return scanCursor;
+        });
+
+        List<Integer> batchSizes = new ArrayList<>();
+        AtomicLong value = new AtomicLong(0);
+        when(mockSyncCommands.mget(anyList())).thenAnswer((InvocationOnMock invocationOnMock) -> {
+            List<String> keys = invocationOnMock.getArgument(0);
+            batchSizes.add(keys.size());
+            return keys.stream()
+                    .map(key -> KeyValue.just(key, String.valueOf(value.getAndIncrement())))
+                    .collect(Collectors.toList());
+        });
+
+        S3SpillLocation splitLoc = S3SpillLocation.newBuilder()
+                .withBucket(UUID.randomUUID().toString())
+                .withSplitId(UUID.randomUUID().toString())
+                .withQueryId(UUID.randomUUID().toString())
+                .withIsDirectory(true)
+                .build();
+
+        Split split = Split.newBuilder(splitLoc, keyFactory.create())
+                .add(REDIS_ENDPOINT_PROP, endpoint)
+                .add(KEY_TYPE, KeyType.PREFIX.getId())
+                .add(KEY_PREFIX_TABLE_PROP, "key-*")
+                .add(VALUE_TYPE_TABLE_PROP, ValueType.LITERAL.getId())
+                .build();
+
+        Schema schemaForRead = SchemaBuilder.newBuilder()
+                .addField("_key_", Types.MinorType.VARCHAR.getType())
+                .addField("intcol", Types.MinorType.INT.getType())
+                .build();
+
+        ReadRecordsRequest request = new ReadRecordsRequest(IDENTITY,
+                DEFAULT_CATALOG,
+                "queryId-" + System.currentTimeMillis(),
+                TABLE_NAME,
+                schemaForRead,
+                split,
+                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null),
+                100_000_000_000L, //100GB don't expect this to spill
+                100_000_000_000L
+        );
+
+        RecordResponse rawResponse = handler.doReadRecords(allocator, request);
+
+        assertTrue(rawResponse instanceof ReadRecordsResponse);
+        ReadRecordsResponse response = (ReadRecordsResponse) rawResponse;
+        assertEquals(5, response.getRecords().getRowCount());
+        assertEquals(ImmutableList.of(2, 2, 1), batchSizes);
+        ArgumentCaptor<ScanArgs> scanArgs = ArgumentCaptor.forClass(ScanArgs.class);
+        verify(mockSyncCommands, times(1)).scan(nullable(ScanCursor.class), scanArgs.capture());
+        CommandArgs<String, String> commandArgs = new CommandArgs<>(StringCodec.UTF8);
+        scanArgs.getValue().build(commandArgs);
+        assertTrue(commandArgs.toCommandString(), commandArgs.toCommandString().endsWith("COUNT 500"));
+    }
+
+    @Test
+    public void invalidBatchOptionsAreRejected()
+    {
+        for (String value : ImmutableList.of("0", "-1", "abc")) {
+            AthenaConnectorException ex = assertThrows(AthenaConnectorException.class, () ->
+                    new RedisRecordHandler(amazonS3, mockSecretsManager, mockAthena, mockFactory,
+                            com.google.common.collect.ImmutableMap.of("redis_fetch_batch_size", value)));
+            assertEquals(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString(), ex.getErrorDetails().errorCode());
+        }
+    }
+
     private class ByteHolder
     {
         private byte[] bytes;
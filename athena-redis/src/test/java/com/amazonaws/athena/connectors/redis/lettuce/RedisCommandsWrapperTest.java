@@ -0,0 +1,160 @@
+/*-
+ * #%L
+ * athena-redis
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.redis.lettuce;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.api.sync.RedisAdvancedClusterCommands;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RedisCommandsWrapperTest
+{
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private static final List<String> KEYS = ImmutableList.of("key-1", "key-2", "key-3");
+
+    @Mock
+    private RedisCommands<String, String> standaloneCommands;
+    @Mock
+    private RedisAdvancedClusterCommands<String, String> clusterCommands;
+    @Mock
+    private RedisAsyncCommands<String, String> standaloneAsyncCommands;
+    @Mock
+    private RedisAdvancedClusterAsyncCommands<String, String> clusterAsyncCommands;
+
+    @Test
+    public void hgetallPipelinesStandaloneCommandsInKeyOrder()
+            throws Exception
+    {
+        //key-2 doesn't exist, its empty result must stay in its place.
+        RedisFuture<Map<String, String>> future1 = completedFuture(hash("key-1"));
+        RedisFuture<Map<String, String>> future2 = completedFuture(ImmutableMap.of());
+        RedisFuture<Map<String, String>> future3 = completedFuture(hash("key-3"));
+        when(standaloneAsyncCommands.hgetall("key-1")).thenReturn(future1);
+        when(standaloneAsyncCommands.hgetall("key-2")).thenReturn(future2);
+        when(standaloneAsyncCommands.hgetall("key-3")).thenReturn(future3);
+        RedisCommandsWrapper<String, String> wrapper = new RedisCommandsWrapper<>(standaloneCommands, null,
+                standaloneAsyncCommands, null, TIMEOUT, false);
+
+        assertEquals(ImmutableList.of(hash("key-1"), ImmutableMap.of(), hash("key-3")), wrapper.hgetall(KEYS));
+        verify(standaloneCommands, never()).hgetall(anyString());
+    }
+
+    @Test
+    public void hgetallPipelinesClusterCommandsInKeyOrder()
+            throws Exception
+    {
+        for (String key : KEYS) {
+            RedisFuture<Map<String, String>> future = completedFuture(hash(key));
+            when(clusterAsyncCommands.hgetall(key)).thenReturn(future);
+        }
+        RedisCommandsWrapper<String, String> wrapper = new RedisCommandsWrapper<>(null, clusterCommands,
+                null, clusterAsyncCommands, TIMEOUT, true);
+
+        assertEquals(ImmutableList.of(hash("key-1"), hash("key-2"), hash("key-3")), wrapper.hgetall(KEYS));
+        verify(clusterCommands, never()).hgetall(anyString());
+    }
+
+    @Test
+    public void hgetallFailsTheBatchWhenACommandTimesOut()
+            throws Exception
+    {
+        RedisFuture<Map<String, String>> timedOut = mockFuture();
+        when(timedOut.await(anyLong(), eq(TimeUnit.NANOSECONDS))).thenReturn(false);
+        RedisFuture<Map<String, String>> completed = completedFuture(hash("key-1"));
+        when(standaloneAsyncCommands.hgetall("key-1")).thenReturn(completed);
+        when(standaloneAsyncCommands.hgetall("key-2")).thenReturn(timedOut);
+        when(standaloneAsyncCommands.hgetall("key-3")).thenReturn(completed);
+        RedisCommandsWrapper<String, String> wrapper = new RedisCommandsWrapper<>(standaloneCommands, null,
+                standaloneAsyncCommands, null, TIMEOUT, false);
+
+        assertThrows(RedisCommandTimeoutException.class, () -> wrapper.hgetall(KEYS));
+        verify(timedOut).await(TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+        verify(timedOut).cancel(true);
+    }
+
+    @Test
+    public void hgetallFallsBackToSyncCommandsWithoutAnAsyncConnection()
+    {
+        for (String key : KEYS) {
+            when(standaloneCommands.hgetall(key)).thenReturn(hash(key));
+        }
+        RedisCommandsWrapper<String, String> wrapper = new RedisCommandsWrapper<>(standaloneCommands, clusterCommands, false);
+
+        assertEquals(ImmutableList.of(hash("key-1"), hash("key-2"), hash("key-3")), wrapper.hgetall(KEYS));
+    }
+
+    @Test
+    public void hgetallFallsBackToSyncClusterCommandsWithoutAnAsyncConnection()
+    {
+        for (String key : KEYS) {
+            when(clusterCommands.hgetall(key)).thenReturn(hash(key));
+        }
+        //Only the standalone async connection is available, which must not be used for a cluster.
+        RedisCommandsWrapper<String, String> wrapper = new RedisCommandsWrapper<>(null, clusterCommands,
+                standaloneAsyncCommands, null, TIMEOUT, true);
+
+        assertEquals(ImmutableList.of(hash("key-1"), hash("key-2"), hash("key-3")), wrapper.hgetall(KEYS));
+        verify(standaloneAsyncCommands, never()).hgetall(anyString());
+    }
+
+    private static Map<String, String> hash(String key)
+    {
+        return ImmutableMap.of("field", "value-of-" + key);
+    }
+
+    private static RedisFuture<Map<String, String>> completedFuture(Map<String, String> value)
+            throws Exception
+    {
+        RedisFuture<Map<String, String>> future = mockFuture();
+        when(future.await(anyLong(), eq(TimeUnit.NANOSECONDS))).thenReturn(true);
+        when(future.get()).thenReturn(value);
+        return future;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisFuture<Map<String, String>> mockFuture()
+    {
+        return mock(RedisFuture.class);
+    }
+}
@@ -21,24 +21,8 @@ package com.amazonaws.athena.connectors.snowflake;
 
 import com.amazonaws.athena.connector.credentials.CredentialsProvider;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
-import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
-import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.BigIntExtractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.BitExtractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateDayExtractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateMilliExtractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.DecimalExtractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.Extractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float4Extractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float8Extractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.SmallIntExtractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.TinyIntExtractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarBinaryExtractor;
-import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarCharExtractor;
-import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableDecimalHolder;
-import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarBinaryHolder;
-import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarCharHolder;
+import com.amazonaws.athena.connector.lambda.data.writers.VectorBatchWriter;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
@@ -62,17 +46,12 @@ import org.apache.arrow.dataset.source.Dataset;
 import org.apache.arrow.dataset.source.DatasetFactory;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
-import org.apache.arrow.vector.holders.NullableBigIntHolder;
-import org.apache.arrow.vector.holders.NullableBitHolder;
-import org.apache.arrow.vector.holders.NullableDateDayHolder;
-import org.apache.arrow.vector.holders.NullableDateMilliHolder;
-import org.apache.arrow.vector.holders.NullableFloat4Holder;
-import org.apache.arrow.vector.holders.NullableFloat8Holder;
-import org.apache.arrow.vector.holders.NullableSmallIntHolder;
-import org.apache.arrow.vector.holders.NullableTinyIntHolder;
 import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.types.TimeUnit;
 import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.slf4j.Logger;
@@ -92,11 +71,16 @@ import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWFLAKE_SPLIT_EXPORT_BUCKET;
 import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWFLAKE_SPLIT_OBJECT_KEY;
-import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWFLAKE_SPLIT_QUERY_ID;
 import static com.amazonaws.athena.connectors.snowflake.SnowflakeMetadataHandler.JDBC_PROPERTIES;
 
 public class SnowflakeRecordHandler extends JdbcRecordHandler
@@ -104,6 +88,8 @@ public class SnowflakeRecordHandler extends JdbcRecordHandler
     private static final Logger LOGGER = LoggerFactory.getLogger(SnowflakeRecordHandler.class);
     private final JdbcConnectionFactory jdbcConnectionFactory;
     private static final int FETCH_SIZE = 1000;
+    private static final DateTimeFormatter EXPORTED_TIME_INPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final DateTimeFormatter EXPORTED_TIME_OUTPUT_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
     private final JdbcSplitQueryBuilder jdbcSplitQueryBuilder;
 
     /**
@@ -173,48 +159,33 @@ public class SnowflakeRecordHandler extends JdbcRecordHandler
 
         Schema schemaName = recordsRequest.getSchema();
         Split split = recordsRequest.getSplit();
-        String id = split.getProperty(SNOWFLAKE_SPLIT_QUERY_ID);
         String exportBucket = split.getProperty(SNOWFLAKE_SPLIT_EXPORT_BUCKET);
         String s3ObjectKey = split.getProperty(SNOWFLAKE_SPLIT_OBJECT_KEY);
 
         if (!s3ObjectKey.isEmpty()) {
-            //get column name and type from the Schema
-            HashMap<String, Types.MinorType> mapOfNamesAndTypes = new HashMap<>();
-            HashMap<String, Object> mapOfCols = new HashMap<>();
-
-            for (Field field : schemaName.getFields()) {
-                Types.MinorType minorTypeForArrowType = Types.getMinorTypeForArrowType(field.getType());
-                mapOfNamesAndTypes.put(field.getName(), minorTypeForArrowType);
-                mapOfCols.put(field.getName(), null);
-            }
-
-            // creating a RowContext class to hold the column name and value.
-            final RowContext rowContext = new RowContext(id);
-
-            //Generating the RowWriter and Extractor
-            GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder(recordsRequest.getConstraints());
-            for (Field next : recordsRequest.getSchema().getFields()) {
-                Extractor extractor = makeExtractor(next, mapOfNamesAndTypes, mapOfCols);
-                builder.withExtractor(next.getName(), extractor);
+            // The export query already applied the predicates, so only the projected columns are read from the file.
+            List<String> columns = new ArrayList<>();
+            Map<String, Types.MinorType> fieldTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Field next : schemaName.getFields()) {
+                columns.add(next.getName());
+                fieldTypes.put(next.getName(), Types.getMinorTypeForArrowType(next.getType()));
             }
-            GeneratedRowWriter rowWriter = builder.build();
+            VectorBatchWriter batchWriter = VectorBatchWriter.newBuilder()
+                    .withValueConverter((FieldVector source, Object value) ->
+                            convertExportedValue(fieldTypes.get(source.getField().getName()), source, value))
+                    .withRowsPerCall(getWriteBatchRows())
+                    .build();
 
             /*
             Using Arrow Dataset to read the S3 Parquet file generated in the split
             */
-            try (ArrowReader reader = constructArrowReader(constructS3Uri(exportBucket, s3ObjectKey))) {
+            try (ArrowReader reader = constructArrowReader(constructS3Uri(exportBucket, s3ObjectKey), columns)) {
                 while (reader.loadNextBatch()) {
-                    VectorSchemaRoot root = reader.getVectorSchemaRoot();
-                    for (int row = 0; row < root.getRowCount(); row++) {
-                        HashMap<String, Object> map = new HashMap<>();
-                        for (Field field : root.getSchema().getFields()) {
-                            map.put(field.getName(), root.getVector(field).getObject(row));
-                        }
-                        rowContext.setNameValue(map);
-
-                        //Passing the RowContext to BlockWriter;
-                        spiller.writeRows((Block block, int rowNum) -> rowWriter.writeRow(block, rowNum, rowContext) ? 1 : 0);
+                    if (!queryStatusChecker.isQueryRunning()) {
+                        return;
                     }
+                    VectorSchemaRoot root = reader.getVectorSchemaRoot();
+                    spiller.writeBatch(root, root.getRowCount(), batchWriter);
                 }
             }
             catch (Exception e) {
@@ -230,185 +201,85 @@ public class SnowflakeRecordHandler extends JdbcRecordHandler
     }
 
     /**
-     * Creates an Extractor for the given field.
+     * Converts a value read from the exported file into the value written to a field of the given type, this is used
+     * for exported columns whose type differs from the field's type and to evaluate constraints.
      */
-    private Extractor makeExtractor(Field field, HashMap<String, Types.MinorType> mapOfNamesAndTypes, HashMap<String, Object> mapOfcols)
+    private static Object convertExportedValue(Types.MinorType fieldType, FieldVector source, Object value)
     {
-        String fieldName = field.getName();
-        Types.MinorType fieldType = mapOfNamesAndTypes.get(fieldName);
+        if (value == null) {
+            return null;
+        }
         switch (fieldType) {
             case BIT:
-                return (BitExtractor) (Object context, NullableBitHolder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = ((boolean) value) ? 1 : 0;
-                        dst.isSet = 1;
-                    }
-                };
+            case DATEDAY:
+                return value;
+            case DATEMILLI:
+                // Timestamps with a time zone are read as the epoch value in the exported column's unit.
+                ArrowType sourceType = source.getField().getType();
+                if (value instanceof Long && sourceType instanceof ArrowType.Timestamp) {
+                    return toEpochMillis((Long) value, ((ArrowType.Timestamp) sourceType).getUnit());
+                }
+                return value;
             case TINYINT:
-                return (TinyIntExtractor) (Object context, NullableTinyIntHolder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = Byte.parseByte(value.toString());
-                        dst.isSet = 1;
-                    }
-                };
+                return (value instanceof Number) ? ((Number) value).byteValue() : Byte.parseByte(value.toString());
             case SMALLINT:
-                return (SmallIntExtractor) (Object context, NullableSmallIntHolder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = Short.parseShort(value.toString());
-                        dst.isSet = 1;
-                    }
-                };
+                return (value instanceof Number) ? ((Number) value).shortValue() : Short.parseShort(value.toString());
             case INT:
+                return (value instanceof Number) ? ((Number) value).intValue() : Integer.parseInt(value.toString());
             case BIGINT:
-                return (BigIntExtractor) (Object context, NullableBigIntHolder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = Long.parseLong(value.toString());
-                        dst.isSet = 1;
-                    }
-                };
+                return (value instanceof Number) ? ((Number) value).longValue() : Long.parseLong(value.toString());
             case FLOAT4:
-                return (Float4Extractor) (Object context, NullableFloat4Holder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = Float.parseFloat(value.toString());
-                        dst.isSet = 1;
-                    }
-                };
+                return (value instanceof Number) ? ((Number) value).floatValue() : Float.parseFloat(value.toString());
             case FLOAT8:
-                return (Float8Extractor) (Object context, NullableFloat8Holder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = Double.parseDouble(value.toString());
-                        dst.isSet = 1;
-                    }
-                };
+                return (value instanceof Number) ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
             case DECIMAL:
-                return (DecimalExtractor) (Object context, NullableDecimalHolder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = new BigDecimal(value.toString());
-                        dst.isSet = 1;
-                    }
-                };
-            case DATEDAY:
-                return (DateDayExtractor) (Object context, NullableDateDayHolder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = (int) value;
-                        dst.isSet = 1;
-                    }
-                };
-            case DATEMILLI:
-                return (DateMilliExtractor) (Object context, NullableDateMilliHolder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = (long) value;
-                        dst.isSet = 1;
-                    }
-                };
+                return (value instanceof BigDecimal) ? value : new BigDecimal(value.toString());
             case VARCHAR:
-                return (VarCharExtractor) (Object context, NullableVarCharHolder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        DateTimeFormatter inputFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-                        DateTimeFormatter outputFormatter = DateTimeFormatter.ofPattern("HH:mm:ss");
-                        try {
-                            // Try parsing the input as a datetime string
-                            LocalDateTime dateTime = LocalDateTime.parse(value.toString(), inputFormatter);
-                            // If successful, return formatted time
-                            dst.value = dateTime.toLocalTime().format(outputFormatter);
-                        }
-                        catch (DateTimeParseException e) {
-                            // If parsing fails, return input as is
-                            dst.value = value.toString();
-                        }
-                        dst.isSet = 1;
-                    }
-                };
+                String text = value.toString();
+                return text.indexOf('T') < 0 ? text : toTimeString(text);
             case VARBINARY:
-                return (VarBinaryExtractor) (Object context, NullableVarBinaryHolder dst) ->
-                {
-                    Object value = ((RowContext) context).getNameValue().get(fieldName);
-                    if (value == null) {
-                        dst.isSet = 0;
-                    }
-                    else {
-                        dst.value = value.toString().getBytes();
-                        dst.isSet = 1;
-                    }
-                };
+                return (value instanceof byte[]) ? value : value.toString().getBytes();
             default:
                 throw new AthenaConnectorException("Unhandled type " + fieldType, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
         }
     }
 
-    private static class RowContext
+    /**
+     * Snowflake exports TIME columns as datetimes, these are written as the time of day. Any other value is returned as is.
+     */
+    private static String toTimeString(String value)
     {
-        private final String queryId;
-        private HashMap<String, Object> nameValue;
-
-        public RowContext(String queryId)
-        {
-            this.queryId = queryId;
+        try {
+            // Try parsing the input as a datetime string
+            LocalDateTime dateTime = LocalDateTime.parse(value, EXPORTED_TIME_INPUT_FORMAT);
+            // If successful, return formatted time
+            return dateTime.toLocalTime().format(EXPORTED_TIME_OUTPUT_FORMAT);
         }
-
-        public void setNameValue(HashMap<String, Object> map)
-        {
-            this.nameValue = map;
+        catch (DateTimeParseException e) {
+            // If parsing fails, return input as is
+            return value;
         }
+    }
 
-        public HashMap<String, Object> getNameValue()
-        {
-            return this.nameValue;
+    private static long toEpochMillis(long value, TimeUnit unit)
+    {
+        switch (unit) {
+            case SECOND:
+                return value * 1000;
+            case MICROSECOND:
+                return value / 1000;
+            case NANOSECOND:
+                return value / 1_000_000;
+            default:
+                return value;
         }
     }
 
+    /**
+     * Builds a reader over the exported Parquet file, only the given columns which exist in the file are read.
+     */
     @VisibleForTesting
-    protected ArrowReader constructArrowReader(String uri)
+    protected ArrowReader constructArrowReader(String uri, List<String> columns)
     {
         LOGGER.debug("URI {}", uri);
         BufferAllocator allocator = new RootAllocator();
@@ -417,8 +288,14 @@ public class SnowflakeRecordHandler extends JdbcRecordHandler
                 NativeMemoryPool.getDefault(),
                 FileFormat.PARQUET,
                 uri);
+        Set<String> fileColumns = datasetFactory.inspect().getFields().stream()
+                .map(Field::getName)
+                .collect(Collectors.toSet());
+        String[] projection = columns.stream()
+                .filter(fileColumns::contains)
+                .toArray(String[]::new);
         Dataset dataset = datasetFactory.finish();
-        ScanOptions options = new ScanOptions(/*batchSize*/ 32768);
+        ScanOptions options = new ScanOptions(/*batchSize*/ 32768, Optional.of(projection));
         Scanner scanner = dataset.newScan(options);
         return scanner.scanBatches();
     }
@@ -51,15 +51,20 @@ import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.BigIntVector;
 import org.apache.arrow.vector.BitVector;
 import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DateMilliVector;
 import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FixedSizeBinaryVector;
 import org.apache.arrow.vector.Float4Vector;
 import org.apache.arrow.vector.Float8Vector;
 import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TimeStampMicroTZVector;
 import org.apache.arrow.vector.TinyIntVector;
 import org.apache.arrow.vector.VarCharVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.types.TimeUnit;
 import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.arrow.vector.util.Text;
@@ -96,7 +101,10 @@ import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWF
 import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWFLAKE_SPLIT_EXPORT_BUCKET;
 import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWFLAKE_SPLIT_OBJECT_KEY;
 import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWFLAKE_SPLIT_QUERY_ID;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
@@ -104,6 +112,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SnowflakeRecordHandlerTest
@@ -178,7 +187,7 @@ public class SnowflakeRecordHandlerTest
             when(mockReader.loadNextBatch()).thenReturn(true, false);
             when(mockReader.getVectorSchemaRoot()).thenReturn(schemaRoot);
             SnowflakeRecordHandler handlerSpy = spy(handler);
-            doReturn(mockReader).when(handlerSpy).constructArrowReader(any());
+            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any());
 
             Map<String, ValueSet> constraintsMap = new HashMap<>();
             constraintsMap.put("time", SortedRangeSet.copyOf(Types.MinorType.BIGINT.getType(),
@@ -239,7 +248,7 @@ public class SnowflakeRecordHandlerTest
             when(mockReader.loadNextBatch()).thenReturn(true, false);
             when(mockReader.getVectorSchemaRoot()).thenReturn(schemaRoot);
             SnowflakeRecordHandler handlerSpy = spy(handler);
-            doReturn(mockReader).when(handlerSpy).constructArrowReader(any());
+            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any());
 
             Map<String, ValueSet> constraintsMap = new HashMap<>();
             constraintsMap.put("time", SortedRangeSet.copyOf(Types.MinorType.BIGINT.getType(),
@@ -293,6 +302,127 @@ public class SnowflakeRecordHandlerTest
         logger.info("doReadRecordsSpill: exit");
     }
 
+    @Test
+    public void doReadRecordsProjectsExportColumns()
+            throws Exception
+    {
+        try (MockedConstruction<SnowflakeEnvironmentProperties> mocked = mockConstruction(
+                SnowflakeEnvironmentProperties.class,
+                (mock, context) -> when(mock.isS3ExportEnabled()).thenReturn(true)
+        )) {
+            VectorSchemaRoot schemaRoot = createRoot();
+            ArrowReader mockReader = mock(ArrowReader.class);
+            when(mockReader.loadNextBatch()).thenReturn(true, false);
+            when(mockReader.getVectorSchemaRoot()).thenReturn(schemaRoot);
+            SnowflakeRecordHandler handlerSpy = spy(handler);
+            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any());
+
+            // Only some of the exported columns are projected, one of them is not in the exported file.
+            Schema projection = SchemaBuilder.newBuilder()
+                    .addBigIntField("year")
+                    .addStringField("queryId")
+                    .addStringField("missingField")
+                    .build();
+
+            Map<String, ValueSet> constraintsMap = new HashMap<>();
+            constraintsMap.put("year", SortedRangeSet.copyOf(Types.MinorType.BIGINT.getType(),
+                    ImmutableList.of(Range.equal(allocator, Types.MinorType.BIGINT.getType(), 2001L)), false));
+
+            S3SpillLocation splitLoc = S3SpillLocation.newBuilder()
+                    .withBucket(UUID.randomUUID().toString())
+                    .withSplitId(UUID.randomUUID().toString())
+                    .withQueryId(UUID.randomUUID().toString())
+                    .withIsDirectory(true)
+                    .build();
+
+            Split.Builder splitBuilder = Split.newBuilder(splitLoc, keyFactory.create())
+                    .add(SNOWFLAKE_SPLIT_QUERY_ID, "query_id")
+                    .add(SNOWFLAKE_SPLIT_EXPORT_BUCKET, "export_bucket")
+                    .add(SNOWFLAKE_SPLIT_OBJECT_KEY, "s3_object_key");
+
+            ReadRecordsRequest request = new ReadRecordsRequest(identity,
+                    DEFAULT_CATALOG,
+                    QUERY_ID,
+                    TABLE_NAME,
+                    projection,
+                    splitBuilder.build(),
+                    new Constraints(constraintsMap, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null),
+                    100_000_000_000L,
+                    100_000_000_000L
+            );
+            ReadRecordsResponse response = (ReadRecordsResponse) handlerSpy.doReadRecords(allocator, request);
+
+            verify(handlerSpy).constructArrowReader("s3://export_bucket/s3_object_key", ImmutableList.of("year", "queryId", "missingField"));
+            assertEquals(1, response.getRecords().getRowCount());
+            assertEquals(2001L, response.getRecords().getFieldVector("year").getObject(0));
+            assertEquals("queryID2", response.getRecords().getFieldVector("queryId").getObject(0).toString());
+            assertNull(response.getRecords().getFieldVector("missingField").getObject(0));
+        }
+    }
+
+    @Test
+    public void doReadRecordsConvertsExportedBinaryAndTimestamps()
+            throws Exception
+    {
+        try (MockedConstruction<SnowflakeEnvironmentProperties> mocked = mockConstruction(
+                SnowflakeEnvironmentProperties.class,
+                (mock, context) -> when(mock.isS3ExportEnabled()).thenReturn(true)
+        )) {
+            Schema exported = new Schema(ImmutableList.of(
+                    Field.nullable("binaryField", new ArrowType.FixedSizeBinary(3)),
+                    Field.nullable("timestampField", new ArrowType.Timestamp(TimeUnit.MICROSECOND, "UTC"))));
+            VectorSchemaRoot schemaRoot = VectorSchemaRoot.create(exported, bufferAllocator);
+            FixedSizeBinaryVector binaryVector = (FixedSizeBinaryVector) schemaRoot.getVector("binaryField");
+            binaryVector.allocateNew(1);
+            binaryVector.set(0, new byte[] {1, 2, 3});
+            binaryVector.setValueCount(1);
+            TimeStampMicroTZVector timestampVector = (TimeStampMicroTZVector) schemaRoot.getVector("timestampField");
+            timestampVector.allocateNew(1);
+            timestampVector.set(0, 1_600_000_000_123_456L);
+            timestampVector.setValueCount(1);
+            schemaRoot.setRowCount(1);
+
+            ArrowReader mockReader = mock(ArrowReader.class);
+            when(mockReader.loadNextBatch()).thenReturn(true, false);
+            when(mockReader.getVectorSchemaRoot()).thenReturn(schemaRoot);
+            SnowflakeRecordHandler handlerSpy = spy(handler);
+            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any());
+
+            Schema projection = SchemaBuilder.newBuilder()
+                    .addField("binaryField", Types.MinorType.VARBINARY.getType())
+                    .addDateMilliField("timestampField")
+                    .build();
+
+            S3SpillLocation splitLoc = S3SpillLocation.newBuilder()
+                    .withBucket(UUID.randomUUID().toString())
+                    .withSplitId(UUID.randomUUID().toString())
+                    .withQueryId(UUID.randomUUID().toString())
+                    .withIsDirectory(true)
+                    .build();
+
+            Split.Builder splitBuilder = Split.newBuilder(splitLoc, keyFactory.create())
+                    .add(SNOWFLAKE_SPLIT_QUERY_ID, "query_id")
+                    .add(SNOWFLAKE_SPLIT_EXPORT_BUCKET, "export_bucket")
+                    .add(SNOWFLAKE_SPLIT_OBJECT_KEY, "s3_object_key");
+
+            ReadRecordsRequest request = new ReadRecordsRequest(identity,
+                    DEFAULT_CATALOG,
+                    QUERY_ID,
+                    TABLE_NAME,
+                    projection,
+                    splitBuilder.build(),
+                    new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null),
+                    100_000_000_000L,
+                    100_000_000_000L
+            );
+            ReadRecordsResponse response = (ReadRecordsResponse) handlerSpy.doReadRecords(allocator, request);
+
+            assertEquals(1, response.getRecords().getRowCount());
+            assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) response.getRecords().getFieldVector("binaryField").getObject(0));
+            assertEquals(1_600_000_000_123L, ((DateMilliVector) response.getRecords().getFieldVector("timestampField")).get(0));
+        }
+    }
+
     private class ByteHolder
     {
         private byte[] bytes;
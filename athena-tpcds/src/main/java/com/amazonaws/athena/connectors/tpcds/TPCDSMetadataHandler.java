@@ -26,6 +26,7 @@ import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import com.amazonaws.athena.connector.lambda.handlers.MetadataHandler;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesResponse;
@@ -79,6 +80,12 @@ public class TPCDSMetadataHandler
     protected static final String SPLIT_TOTAL_NUMBER_FIELD = "totalNumSplits";
     //The is the name of the field that contains the scale factor of the schema used in the request.
     protected static final String SPLIT_SCALE_FACTOR_FIELD = "scaleFactor";
+    //The name of the field that contains the number of sub-chunks each split is generated as. It is set on the splits,
+    //rather than read from the record handler's config, since every split of a table must use the same value.
+    protected static final String SPLIT_SUB_CHUNKS_FIELD = "subChunks";
+    //Config option for the number of sub-chunks each split is divided into, see TPCDSSplitGenerator.
+    protected static final String TPCDS_SPLIT_SUB_CHUNKS = "tpcds_split_sub_chunks";
+    protected static final int DEFAULT_SPLIT_SUB_CHUNKS = 8;
     //The list of valid schemas which also convey the scale factor
     protected static final Set<String> SCHEMA_NAMES = ImmutableSet.of("tpcds1", "tpcds10", "tpcds100", "tpcds250", "tpcds1000");
     // Query Passthrough
@@ -230,6 +237,7 @@ public class TPCDSMetadataHandler
 
         int scaleFactor = TPCDSUtils.extractScaleFactor(schemaName);
         int totalSplits = (int) Math.ceil(((double) scaleFactor / 48D));    //each split would be ~48MB
+        int subChunks = ConfigOptionUtils.getPositiveIntOption(configOptions, TPCDS_SPLIT_SUB_CHUNKS, DEFAULT_SPLIT_SUB_CHUNKS);
 
         logger.info("doGetSplits: Generating {} splits for {} at scale factor {}",
                 totalSplits, tableName, scaleFactor);
@@ -241,6 +249,7 @@ public class TPCDSMetadataHandler
                     .add(SPLIT_NUMBER_FIELD, String.valueOf(i))
                     .add(SPLIT_TOTAL_NUMBER_FIELD, String.valueOf(totalSplits))
                     .add(SPLIT_SCALE_FACTOR_FIELD, String.valueOf(scaleFactor))
+                    .add(SPLIT_SUB_CHUNKS_FIELD, String.valueOf(subChunks))
                     .build());
             if (splits.size() >= 1000) {
                 return new GetSplitsResponse(catalogName, splits, String.valueOf(i + 1));
@@ -20,19 +20,14 @@
 package com.amazonaws.athena.connectors.tpcds;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
-import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
 import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.handlers.ConfigOptionUtils;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
-import com.teradata.tpcds.Results;
-import com.teradata.tpcds.Session;
 import com.teradata.tpcds.Table;
-import com.teradata.tpcds.column.Column;
-import com.teradata.tpcds.column.ColumnType;
 import org.apache.arrow.util.VisibleForTesting;
-import org.apache.arrow.vector.types.pojo.Field;
-import org.apache.arrow.vector.types.pojo.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.athena.AthenaClient;
@@ -40,17 +35,11 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
 
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_NUMBER_FIELD;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SCALE_FACTOR_FIELD;
+import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SUB_CHUNKS_FIELD;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_TOTAL_NUMBER_FIELD;
-import static com.teradata.tpcds.Results.constructResults;
 
 /**
  * Handles data read record requests for the Athena TPC-DS Connector.
@@ -59,6 +48,7 @@ import static com.teradata.tpcds.Results.constructResults;
  * <p>
  * 1. Generates data for the requested table on the fly.
  * 2. Applies constraints to the data as it is generated, emulating predicate-pushdown.
+ * 3. Generates the sub-chunks of a split concurrently, see TPCDSSplitGenerator.
  */
 public class TPCDSRecordHandler
         extends RecordHandler
@@ -71,15 +61,23 @@ public class TPCDSRecordHandler
      */
     private static final String SOURCE_TYPE = "tpcds";
 
+    //Config option for the max number of sub-chunks of a split to generate concurrently, defaults to the number of
+    //available processors.
+    protected static final String TPCDS_GENERATOR_THREADS = "tpcds_generator_threads";
+
+    private final int generatorThreads;
+
     public TPCDSRecordHandler(java.util.Map<String, String> configOptions)
     {
         super(S3Client.create(), SecretsManagerClient.create(), AthenaClient.create(), SOURCE_TYPE, configOptions);
+        this.generatorThreads = getGeneratorThreads(configOptions);
     }
 
     @VisibleForTesting
     protected TPCDSRecordHandler(S3Client amazonS3, SecretsManagerClient secretsManager, AthenaClient athena, java.util.Map<String, String> configOptions)
     {
         super(amazonS3, secretsManager, athena, SOURCE_TYPE, configOptions);
+        this.generatorThreads = getGeneratorThreads(configOptions);
     }
 
     /**
@@ -104,108 +102,16 @@ public class TPCDSRecordHandler
             table = TPCDSUtils.validateTable(recordsRequest.getTableName());
         }
 
-        Session session = Session.getDefaultSession()
-                .withScale(scaleFactor)
-                .withParallelism(totalNumSplits)
-                .withChunkNumber(splitNumber + 1)
-                .withTable(table)
-                .withNoSexism(true);
-
-        Results results = constructResults(table, session);
-        Iterator<List<List<String>>> itr = results.iterator();
-
-        Map<Integer, CellWriter> writers = makeWriters(recordsRequest.getSchema(), table);
-        while (itr.hasNext() && queryStatusChecker.isQueryRunning()) {
-            List<String> row = itr.next().get(0);
-            spiller.writeRows((Block block, int numRow) -> {
-                boolean matched = true;
-                for (Map.Entry<Integer, CellWriter> nextWriter : writers.entrySet()) {
-                    matched &= nextWriter.getValue().write(block, numRow, row.get(nextWriter.getKey()));
-                }
-                return matched ? 1 : 0;
-            });
-        }
-    }
-
-    /**
-     * Generates the CellWriters used to convert the TPCDS Generators data to Apache Arrow.
-     *
-     * @param schemaForRead The schema to read/project.
-     * @param table The TPCDS Table we are reading from.
-     * @return Map<Integer, CellWriter> where integer is the Column position in the TPCDS data set and the CellWriter
-     * can be used to read,convert,write the value at that position for any row into the correct position and type
-     * in our Apache Arrow response.
-     */
-    private Map<Integer, CellWriter> makeWriters(Schema schemaForRead, Table table)
-    {
-        Map<String, Column> columnPositions = new HashMap<>();
-        for (Column next : table.getColumns()) {
-            columnPositions.put(next.getName(), next);
-        }
-
-        //We use this approach to reduce the overhead of field lookups. This isn't as good as true columnar processing
-        //using Arrow but it gets us ~80% of the way there from a rows/second per cpu-cycle perspective.
-        Map<Integer, CellWriter> writers = new HashMap<>();
-        for (Field nextField : schemaForRead.getFields()) {
-            Column column = columnPositions.get(nextField.getName());
-            writers.put(column.getPosition(), makeWriter(nextField, column));
-        }
-        return writers;
-    }
-
-    /**
-     * Makes a CellWriter for the provided Apache Arrow Field and TPCDS Column.
-     *
-     * @param field The Apache Arrow Field.
-     * @param column The corresponding TPCDS Column.
-     * @return The CellWriter that can be used to convert and write values for the provided Field/Column pair.
-     */
-    private CellWriter makeWriter(Field field, Column column)
-    {
-        ColumnType type = column.getType();
-        switch (type.getBase()) {
-            case IDENTIFIER:
-                return (Block block, int rowNum, String rawValue) -> {
-                    Long value = (rawValue != null) ? Long.parseLong(rawValue) : null;
-                    return block.setValue(field.getName(), rowNum, value);
-                };
-            case INTEGER:
-                return (Block block, int rowNum, String rawValue) -> {
-                    Integer value = (rawValue != null) ? Integer.parseInt(rawValue) : null;
-                    return block.setValue(field.getName(), rowNum, value);
-                };
-            case DATE:
-                return (Block block, int rowNum, String rawValue) -> {
-                    LocalDate value = (rawValue != null) ? LocalDate.parse(rawValue) : null;
-                    return block.setValue(field.getName(), rowNum, value);
-                };
-            case DECIMAL:
-                return (Block block, int rowNum, String rawValue) -> {
-                    BigDecimal value = (rawValue != null) ? new BigDecimal(rawValue) : null;
-                    return block.setValue(field.getName(), rowNum, value);
-                };
-            case TIME:
-            case CHAR:
-            case VARCHAR:
-                return (Block block, int rowNum, String rawValue) -> {
-                    return block.setValue(field.getName(), rowNum, rawValue);
-                };
-        }
-        throw new IllegalArgumentException("Unsupported TPC-DS type " + column.getName() + ":" + column.getType().getBase());
+        //Splits without the field were made before sub-chunking, and are generated as a single chunk.
+        String subChunks = split.getProperty(SPLIT_SUB_CHUNKS_FIELD);
+        GeneratedRowWriter rowWriter = TPCDSSplitGenerator.makeRowWriter(recordsRequest.getSchema(), table, recordsRequest.getConstraints());
+        new TPCDSSplitGenerator(table, scaleFactor, splitNumber, totalNumSplits,
+                (subChunks != null) ? Integer.parseInt(subChunks) : 1)
+                .generate(spiller, rowWriter, generatorThreads, queryStatusChecker::isQueryRunning);
     }
 
-    public interface CellWriter
+    private static int getGeneratorThreads(java.util.Map<String, String> configOptions)
     {
-        /**
-         * Converts a value from TPCDS' string representation into the appropriate Apache Arrow type
-         * and writes it to the correct field in the provided Block and row. The implementation should
-         * also apply constraints as an optimization.
-         *
-         * @param block The Apache Arrow Block to write into.
-         * @param rowNum The row number in the Arrow Block to write into.
-         * @param value The value to convert and write into the Apache Arrow Block.
-         * @return True if the value passed all Contraints.
-         */
-        boolean write(Block block, int rowNum, String value);
+        return ConfigOptionUtils.getPositiveIntOption(configOptions, TPCDS_GENERATOR_THREADS, Runtime.getRuntime().availableProcessors());
     }
 }
@@ -0,0 +1,318 @@
+/*-
+ * #%L
+ * athena-tpcds
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.tpcds;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BigIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateDayExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DecimalExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.IntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarCharExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableDecimalHolder;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarCharHolder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.teradata.tpcds.Session;
+import com.teradata.tpcds.Table;
+import com.teradata.tpcds.column.Column;
+import org.apache.arrow.util.VisibleForTesting;
+import org.apache.arrow.vector.holders.NullableBigIntHolder;
+import org.apache.arrow.vector.holders.NullableDateDayHolder;
+import org.apache.arrow.vector.holders.NullableIntHolder;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static com.teradata.tpcds.Results.constructResults;
+
+/**
+ * Generates the rows of a single split of a TPC-DS table into a BlockSpiller.
+ * <p>
+ * The split is chunk splitNumber + 1 of totalNumSplits chunks of the table. It is generated as subChunks smaller
+ * chunks, sub-chunk i being chunk (splitNumber * subChunks) + i + 1 of totalNumSplits * subChunks chunks, so the
+ * splits of a table still cover every row exactly once. Each sub-chunk has its own generator and can be generated on
+ * its own thread, generation (rather than writing to Arrow) is where the bulk of the cpu time goes.
+ * <p>
+ * Rows are generated in batches of WRITE_BATCH_ROWS outside of any lock and then written in a single call to
+ * writeRows(...) while holding the spiller's lock, since the BlockSpiller is shared by all sub-chunks and isn't thread
+ * safe.
+ */
+public class TPCDSSplitGenerator
+{
+    private static final Logger logger = LoggerFactory.getLogger(TPCDSSplitGenerator.class);
+
+    //The max number of generated rows written per call to BlockSpiller.writeRows(...).
+    private static final int WRITE_BATCH_ROWS = 100;
+
+    private final Table table;
+    private final int scaleFactor;
+    private final int splitNumber;
+    private final int totalNumSplits;
+    private final int subChunks;
+
+    /**
+     * @param table The TPC-DS table to generate.
+     * @param scaleFactor The scale factor of the data set.
+     * @param splitNumber The zero based number of the split to generate.
+     * @param totalNumSplits The total number of splits the table was divided into.
+     * @param subChunks The number of chunks to divide the split into, every split of a table must use the same value.
+     */
+    public TPCDSSplitGenerator(Table table, int scaleFactor, int splitNumber, int totalNumSplits, int subChunks)
+    {
+        this.table = table;
+        this.scaleFactor = scaleFactor;
+        this.splitNumber = splitNumber;
+        this.totalNumSplits = totalNumSplits;
+        this.subChunks = Math.max(1, subChunks);
+    }
+
+    /**
+     * Generates every row of the split, or until the query is no longer running.
+     *
+     * @param spiller The BlockSpiller to write the rows to.
+     * @param rowWriter The GeneratedRowWriter, see makeRowWriter(...), used to write the rows into Arrow.
+     * @param threads The max number of sub-chunks to generate concurrently, 1 generates every sub-chunk on the calling
+     * thread.
+     * @param isQueryRunning Checked before every batch of rows, generation stops once it returns false.
+     */
+    public void generate(BlockSpiller spiller, GeneratedRowWriter rowWriter, int threads, BooleanSupplier isQueryRunning)
+            throws IOException
+    {
+        int poolSize = Math.min(Math.max(1, threads), subChunks);
+        logger.info("generate: Generating split {} of {} for {} at scale factor {} as {} sub-chunks on {} threads",
+                splitNumber, totalNumSplits, table.getName(), scaleFactor, subChunks, poolSize);
+
+        if (poolSize == 1) {
+            for (int i = 0; i < subChunks && isQueryRunning.getAsBoolean(); i++) {
+                generateSubChunk(spiller, rowWriter, i, isQueryRunning);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < subChunks; i++) {
+                int subChunk = i;
+                futures.add(executor.submit(() -> {
+                    generateSubChunk(spiller, rowWriter, subChunk, isQueryRunning);
+                    return null;
+                }));
+            }
+            for (Future<?> next : futures) {
+                next.get();
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating split " + splitNumber + " of " + table.getName(), ex);
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IOException(ex.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void generateSubChunk(BlockSpiller spiller, GeneratedRowWriter rowWriter, int subChunk, BooleanSupplier isQueryRunning)
+    {
+        Session session = Session.getDefaultSession()
+                .withScale(scaleFactor)
+                .withParallelism(totalNumSplits * subChunks)
+                .withChunkNumber(splitNumber * subChunks + subChunk + 1)
+                .withTable(table)
+                .withNoSexism(true);
+
+        Iterator<List<List<String>>> itr = constructResults(table, session).iterator();
+        List<List<String>> batch = new ArrayList<>(WRITE_BATCH_ROWS);
+        while (itr.hasNext() && isQueryRunning.getAsBoolean()) {
+            batch.clear();
+            while (batch.size() < WRITE_BATCH_ROWS && itr.hasNext()) {
+                batch.add(itr.next().get(0));
+            }
+
+            //The BlockSpiller, and the GeneratedRowWriter bound to its current Block, are shared by all sub-chunks.
+            synchronized (spiller) {
+                spiller.writeRows((Block block, int rowNum) -> {
+                    int matched = 0;
+                    for (List<String> row : batch) {
+                        if (rowWriter.writeRow(block, rowNum + matched, row)) {
+                            matched++;
+                        }
+                    }
+                    return matched;
+                });
+            }
+        }
+    }
+
+    /**
+     * Makes the GeneratedRowWriter used to convert the TPC-DS generator's rows, a List<String> in column order, to
+     * Apache Arrow. Each value is parsed straight into the field's holder so no intermediate objects are made for
+     * integer, identifier and date columns.
+     *
+     * @param schemaForRead The schema to read/project.
+     * @param table The TPC-DS Table we are reading from.
+     * @param constraints The constraints of the request, applied to the values as they are written.
+     * @return The GeneratedRowWriter for the projection.
+     */
+    public static GeneratedRowWriter makeRowWriter(Schema schemaForRead, Table table, Constraints constraints)
+    {
+        Map<String, Column> columns = new HashMap<>();
+        for (Column next : table.getColumns()) {
+            columns.put(next.getName(), next);
+        }
+
+        GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder(constraints);
+        for (Field nextField : schemaForRead.getFields()) {
+            builder.withExtractor(nextField.getName(), makeExtractor(columns.get(nextField.getName())));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Makes the Extractor which reads the provided TPC-DS Column from a generated row.
+     *
+     * @param column The TPC-DS Column.
+     * @return The Extractor, matching the Apache Arrow type TPCDSUtils.convertColumn(...) uses for the Column.
+     */
+    private static Extractor makeExtractor(Column column)
+    {
+        int position = column.getPosition();
+        switch (column.getType().getBase()) {
+            case IDENTIFIER:
+                return (BigIntExtractor) (Object context, NullableBigIntHolder dst) -> {
+                    String rawValue = getValue(context, position);
+                    dst.isSet = (rawValue != null) ? 1 : 0;
+                    if (rawValue != null) {
+                        dst.value = Long.parseLong(rawValue);
+                    }
+                };
+            case INTEGER:
+                return (IntExtractor) (Object context, NullableIntHolder dst) -> {
+                    String rawValue = getValue(context, position);
+                    dst.isSet = (rawValue != null) ? 1 : 0;
+                    if (rawValue != null) {
+                        dst.value = Integer.parseInt(rawValue);
+                    }
+                };
+            case DATE:
+                return (DateDayExtractor) (Object context, NullableDateDayHolder dst) -> {
+                    String rawValue = getValue(context, position);
+                    dst.isSet = (rawValue != null) ? 1 : 0;
+                    if (rawValue != null) {
+                        dst.value = parseEpochDay(rawValue);
+                    }
+                };
+            case DECIMAL:
+                return (DecimalExtractor) (Object context, NullableDecimalHolder dst) -> {
+                    String rawValue = getValue(context, position);
+                    dst.isSet = (rawValue != null) ? 1 : 0;
+                    dst.value = (rawValue != null) ? new BigDecimal(rawValue) : null;
+                };
+            case TIME:
+            case CHAR:
+            case VARCHAR:
+                return (VarCharExtractor) (Object context, NullableVarCharHolder dst) -> {
+                    String rawValue = getValue(context, position);
+                    dst.isSet = (rawValue != null) ? 1 : 0;
+                    dst.value = rawValue;
+                };
+        }
+        throw new IllegalArgumentException("Unsupported TPC-DS type " + column.getName() + ":" + column.getType().getBase());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String getValue(Object context, int position)
+    {
+        return ((List<String>) context).get(position);
+    }
+
+    /**
+     * Converts a TPC-DS date, which is always formatted as yyyy-MM-dd, to days since the epoch without going through
+     * LocalDate. Anything else, including a day past the end of its month, is left to LocalDate.parse(...) which
+     * rejects invalid dates.
+     *
+     * @param value The date to convert.
+     * @return The number of days since 1970-01-01.
+     */
+    @VisibleForTesting
+    static int parseEpochDay(String value)
+    {
+        if (value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            return (int) LocalDate.parse(value).toEpochDay();
+        }
+        int year = parseDigits(value, 0, 4);
+        int month = parseDigits(value, 5, 7);
+        int day = parseDigits(value, 8, 10);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || (day > 28 && day > Month.of(month).length(Year.isLeap(year)))) {
+            return (int) LocalDate.parse(value).toEpochDay();
+        }
+
+        //Days from civil, see http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+        if (month <= 2) {
+            year--;
+        }
+        int era = year / 400;
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * @return The value of the digits in [start, end), or -1 if any of them is not a digit.
+     */
+    private static int parseDigits(String value, int start, int end)
+    {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,222 @@
+/*-
+ * #%L
+ * athena-tpcds
+ * %%
+ * Copyright (C) 2019 - 2025 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.tpcds;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.google.common.collect.ImmutableMap;
+import com.teradata.tpcds.Session;
+import com.teradata.tpcds.Table;
+import com.teradata.tpcds.column.Column;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+
+/**
+ * Measures TPC-DS data generation into Arrow, as done by TPCDSRecordHandler, in rows/s for each table and scale factor.
+ * Each invocation generates the next split of about ROWS_PER_SPLIT rows into a BlockSpiller which discards full Blocks,
+ * so spilling (serialization, encryption and S3) is not included. The rows counter is the number to compare, the
+ * score of the benchmark itself is in splits/s.
+ * <p>
+ * This is not a test, see README.md for how to run it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class TPCDSGeneratorBenchmark
+{
+    private static final long ROWS_PER_SPLIT = 100_000;
+    private static final int SUB_CHUNKS = 8;
+
+    @Param({"customer", "item", "date_dim", "store_sales", "catalog_sales", "web_sales", "inventory"})
+    public String tableName;
+
+    @Param({"1", "10"})
+    public int scaleFactor;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Table table;
+    private int totalNumSplits;
+    private int nextSplit;
+    private BlockAllocatorImpl allocator;
+    private DiscardingBlockSpiller spiller;
+    private GeneratedRowWriter rowWriter;
+
+    /**
+     * Reported by JMH as rows/s next to the splits/s score.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class RowCounter
+    {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            rows = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        table = TPCDSUtils.validateTable(new TableName("tpcds" + scaleFactor, tableName));
+        long rowCount = Session.getDefaultSession().withScale(scaleFactor).getScaling().getRowCount(table);
+        //The generator only chunks tables with at least 1M rows, the first split of a smaller table generates all of it.
+        totalNumSplits = (rowCount < 1_000_000) ? 1 : (int) Math.max(1, rowCount / ROWS_PER_SPLIT);
+
+        SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
+        for (Column next : table.getColumns()) {
+            schemaBuilder.addField(TPCDSUtils.convertColumn(next));
+        }
+        Schema schema = schemaBuilder.build();
+
+        allocator = new BlockAllocatorImpl();
+        spiller = new DiscardingBlockSpiller(allocator.createBlock(schema));
+        rowWriter = TPCDSSplitGenerator.makeRowWriter(schema, table, new Constraints(ImmutableMap.of(),
+                Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception
+    {
+        spiller.getBlock().close();
+        allocator.close();
+    }
+
+    @Benchmark
+    public long generateSplit(RowCounter counter)
+            throws IOException
+    {
+        long before = spiller.getRowsWritten();
+        new TPCDSSplitGenerator(table, scaleFactor, nextSplit, totalNumSplits, SUB_CHUNKS)
+                .generate(spiller, rowWriter, threads, () -> true);
+        nextSplit = (nextSplit + 1) % totalNumSplits;
+
+        long rows = spiller.getRowsWritten() - before;
+        counter.rows += rows;
+        return rows;
+    }
+
+    /**
+     * BlockSpiller which writes every row into a single Block and starts it over once it is full, rather than spilling.
+     */
+    private static class DiscardingBlockSpiller
+            implements BlockSpiller
+    {
+        private static final int MAX_BLOCK_ROWS = 10_000;
+
+        private final Block block;
+        private int rowCount;
+        private long rowsWritten;
+
+        DiscardingBlockSpiller(Block block)
+        {
+            this.block = block;
+        }
+
+        long getRowsWritten()
+        {
+            return rowsWritten;
+        }
+
+        @Override
+        public void writeRows(BlockWriter.RowWriter rowWriter)
+        {
+            int rows;
+            try {
+                rows = rowWriter.writeRows(block, rowCount);
+            }
+            catch (Exception ex) {
+                throw (ex instanceof RuntimeException) ? (RuntimeException) ex : new RuntimeException(ex);
+            }
+            rowsWritten += rows;
+            rowCount += rows;
+            if (rowCount >= MAX_BLOCK_ROWS) {
+                block.setRowCount(rowCount);
+                rowCount = 0;
+            }
+        }
+
+        @Override
+        public ConstraintEvaluator getConstraintEvaluator()
+        {
+            return ConstraintEvaluator.emptyEvaluator();
+        }
+
+        @Override
+        public boolean spilled()
+        {
+            return false;
+        }
+
+        @Override
+        public Block getBlock()
+        {
+            return block;
+        }
+
+        @Override
+        public List<SpillLocation> getSpillLocations()
+        {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void close()
+        {
+            //NoOp, the Block is closed by the benchmark.
+        }
+    }
+}
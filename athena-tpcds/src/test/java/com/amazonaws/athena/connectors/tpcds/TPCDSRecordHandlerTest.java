@@ -41,6 +41,7 @@ import com.amazonaws.athena.connector.lambda.records.RemoteReadRecordsResponse;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.ByteStreams;
 import com.teradata.tpcds.Table;
@@ -68,16 +69,21 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_NUMBER_FIELD;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SCALE_FACTOR_FIELD;
+import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SUB_CHUNKS_FIELD;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_TOTAL_NUMBER_FIELD;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -310,6 +316,100 @@ public class TPCDSRecordHandlerTest
         logger.info("doReadRecordForTPCDSTIMETypeColumn: exit");
     }
 
+    @Test
+    public void doReadRecordsSubChunks()
+            throws Exception
+    {
+        logger.info("doReadRecordsSubChunks: enter");
+
+        //Tables with fewer than 1M rows are never chunked by the generator, inventory has 11,745,000 at scale factor 1.
+        for (Table next : Table.getBaseTables()) {
+            if (next.getName().equals("inventory")) {
+                table = next;
+            }
+        }
+        SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
+        for (Column nextCol : table.getColumns()) {
+            schemaBuilder.addField(TPCDSUtils.convertColumn(nextCol));
+        }
+        schemaForRead = schemaBuilder.build();
+
+        Set<String> expected = readRows(handler, null);
+        assertEquals(46_980, expected.size());
+
+        //The split's rows divide evenly into the sub-chunks, so they generate exactly the rows of the whole split.
+        TPCDSRecordHandler threadedHandler = new TPCDSRecordHandler(mockS3, mockSecretsManager, mockAthena,
+                ImmutableMap.of(TPCDSRecordHandler.TPCDS_GENERATOR_THREADS, "4"));
+        assertEquals(expected, readRows(threadedHandler, "5"));
+        assertEquals(expected, readRows(threadedHandler, "4"));
+        assertEquals(expected, readRows(handler, "4"));
+
+        logger.info("doReadRecordsSubChunks: exit");
+    }
+
+    @Test
+    public void parseEpochDay()
+    {
+        for (LocalDate date = LocalDate.of(1900, 1, 1); date.getYear() <= 2100; date = date.plusDays(1)) {
+            assertEquals(date.toString(), date.toEpochDay(), TPCDSSplitGenerator.parseEpochDay(date.toString()));
+        }
+        assertEquals(LocalDate.of(12345, 6, 7).toEpochDay(), TPCDSSplitGenerator.parseEpochDay("+12345-06-07"));
+    }
+
+    @Test
+    public void parseEpochDayRejectsInvalidDates()
+    {
+        for (String value : ImmutableList.of("2021-02-29", "2020-02-30", "2021-04-31", "2021-13-01", "2021-00-10", "2021-01-32")) {
+            assertThrows(value, DateTimeParseException.class, () -> TPCDSSplitGenerator.parseEpochDay(value));
+        }
+        assertEquals(LocalDate.of(2020, 2, 29).toEpochDay(), TPCDSSplitGenerator.parseEpochDay("2020-02-29"));
+        assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), TPCDSSplitGenerator.parseEpochDay("2000-02-29"));
+    }
+
+    /**
+     * Reads split 0 of 250 of the current table at scale factor 1, formatting every row so that the rows can be compared.
+     */
+    private Set<String> readRows(TPCDSRecordHandler recordHandler, String subChunks)
+            throws Exception
+    {
+        Split.Builder splitBuilder = Split.newBuilder(S3SpillLocation.newBuilder()
+                                .withBucket(UUID.randomUUID().toString())
+                                .withSplitId(UUID.randomUUID().toString())
+                                .withQueryId(UUID.randomUUID().toString())
+                                .withIsDirectory(true)
+                                .build(),
+                        keyFactory.create())
+                .add(SPLIT_NUMBER_FIELD, "0")
+                .add(SPLIT_TOTAL_NUMBER_FIELD, "250")
+                .add(SPLIT_SCALE_FACTOR_FIELD, "1");
+        if (subChunks != null) {
+            splitBuilder.add(SPLIT_SUB_CHUNKS_FIELD, subChunks);
+        }
+
+        ReadRecordsRequest request = new ReadRecordsRequest(identity,
+                "catalog",
+                "queryId-" + System.currentTimeMillis(),
+                new TableName("tpcds1", table.getName()),
+                schemaForRead,
+                splitBuilder.build(),
+                new Constraints(ImmutableMap.of(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null),
+                100_000_000_000L,
+                100_000_000_000L
+        );
+
+        RecordResponse rawResponse = recordHandler.doReadRecords(allocator, request);
+        assertTrue(rawResponse instanceof ReadRecordsResponse);
+
+        Set<String> rows = new HashSet<>();
+        try (ReadRecordsResponse response = (ReadRecordsResponse) rawResponse) {
+            Block block = response.getRecords();
+            for (int i = 0; i < block.getRowCount(); i++) {
+                assertTrue(rows.add(BlockUtils.rowToString(block, i)));
+            }
+        }
+        return rows;
+    }
+
     private class ByteHolder
     {
         private byte[] bytes;
@@ -20,6 +20,9 @@
 package com.amazonaws.athena.connectors.udfs;
 
 import com.amazonaws.athena.connector.lambda.security.CachableSecretsManager;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VarCharVector;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -29,13 +32,17 @@ import javax.crypto.spec.SecretKeySpec;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
 import java.util.zip.DataFormatException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AthenaUDFHandlerTest
@@ -43,6 +50,7 @@ public class AthenaUDFHandlerTest
     private static final String DUMMY_SECRET_NAME = "dummy_secret";
 
     private AthenaUDFHandler athenaUDFHandler;
+    private CachableSecretsManager cachableSecretsManager;
 
     private static final String PLAINTEXT_DATA_KEY = "i5YnyBO4gJKWuIQ+gjuJjcJ/5kUph9pmYFUbW7zf3PE=";
     private Base64.Decoder decoder = Base64.getDecoder();
@@ -51,7 +59,7 @@ public class AthenaUDFHandlerTest
     @Before
     public void setup()
     {
-        CachableSecretsManager cachableSecretsManager = mock(CachableSecretsManager.class);
+        cachableSecretsManager = mock(CachableSecretsManager.class);
         when(cachableSecretsManager.getSecret(DUMMY_SECRET_NAME)).thenReturn(PLAINTEXT_DATA_KEY);
         this.athenaUDFHandler = new AthenaUDFHandler(cachableSecretsManager);
     }
@@ -120,6 +128,34 @@ public class AthenaUDFHandlerTest
         assertEquals(expected, result);
     }
 
+    @Test
+    public void testKmsDecryptionVectorized() throws Exception
+    {
+        List<String> expected = Arrays.asList("abcdef", null, "ghijkl");
+        try (BufferAllocator allocator = new RootAllocator();
+                VarCharVector ciphertexts = new VarCharVector("ciphertext", allocator);
+                VarCharVector secretNames = new VarCharVector("secret_name", allocator);
+                VarCharVector plaintexts = new VarCharVector("plaintext", allocator)) {
+            for (int i = 0; i < expected.size(); i++) {
+                if (expected.get(i) != null) {
+                    ciphertexts.setSafe(i, athenaUDFHandler.encrypt(expected.get(i), DUMMY_SECRET_NAME).getBytes(StandardCharsets.UTF_8));
+                }
+                secretNames.setSafe(i, DUMMY_SECRET_NAME.getBytes(StandardCharsets.UTF_8));
+            }
+            ciphertexts.setValueCount(expected.size());
+            secretNames.setValueCount(expected.size());
+
+            athenaUDFHandler.decrypt(Arrays.asList(ciphertexts, secretNames), plaintexts);
+
+            assertEquals(expected.size(), plaintexts.getValueCount());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), plaintexts.isNull(i) ? null : plaintexts.getObject(i).toString());
+            }
+            //encrypt reads the secret for every value, decrypt only once for the whole block
+            verify(cachableSecretsManager, times(3)).getSecret(DUMMY_SECRET_NAME);
+        }
+    }
+
     @Test
     public void testKmsEncryptionNull() {
         assertNull(athenaUDFHandler.encrypt(null, DUMMY_SECRET_NAME));